@@ -0,0 +1,162 @@
+package ets;
+
+import ets.model.CachingPassengerRepository;
+import ets.model.JournaledBookingRepository;
+import ets.model.PassengerRepository;
+import ets.model.StaffRepository;
+import ets.model.TrainRepository;
+import ets.service.BookingService;
+import ets.service.LoadFactorPricingEngine;
+import ets.service.PassengerService;
+import ets.service.PassengerValidator;
+import ets.service.RevenueView;
+import ets.service.SeatInventory;
+import ets.service.StaffService;
+import ets.service.TrainRegistry;
+import ets.service.TrainService;
+import ets.service.TrainValidator;
+import ets.util.AppConstants;
+import ets.util.FileLockManager;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Long-lived application context.
+ * Repositories, caches and services are created and warmed once at startup and
+ * shared by every UI module, instead of being rebuilt each time a menu is entered.
+ * The time spent on each startup step is recorded next to a sample of warm
+ * operations, so the one-off load cost can be compared with steady-state cost.
+ */
+public class AppContext {
+
+    private static final Logger logger = Logger.getLogger(AppContext.class.getName());
+
+    private final Map<String, Long> startupNanos = new LinkedHashMap<>();
+    private final Map<String, Long> steadyStateNanos = new LinkedHashMap<>();
+
+    private final StaffService staffService;
+    private final TrainRegistry trainRegistry;
+    private final SeatInventory seatInventory;
+    private final CachingPassengerRepository passengerRepository;
+    private final PassengerService passengerService;
+    private final TrainService trainService;
+    private final BookingService bookingService;
+
+    /**
+     * Creates and warms every shared component using the default data files.
+     */
+    public AppContext() {
+        long start = System.nanoTime();
+
+        staffService = timed("staff", () -> new StaffService(new StaffRepository()));
+        // Booking counters are written behind; whatever is still pending goes out on exit
+        Runtime.getRuntime().addShutdownHook(new Thread(staffService::close, "staff-counter-flush"));
+        trainRegistry = new TrainRegistry(new TrainRepository());
+        seatInventory = new SeatInventory();
+        trainService = timed("trains", () -> new TrainService(trainRegistry, new TrainValidator()));
+        passengerRepository = new CachingPassengerRepository(new PassengerRepository());
+        passengerService = timed("passengers",
+                () -> new PassengerService(passengerRepository, new PassengerValidator()));
+        bookingService = timed("bookings", () -> {
+            BookingService service = new BookingService(new JournaledBookingRepository(), trainRegistry,
+                    staffService, seatInventory, new RevenueView(AppConstants.REVENUE_VIEW_FILE_PATH),
+                    AppConstants.ID_SEQUENCE_FILE_PATH, AppConstants.BOOKING_INTENT_LOG_PATH);
+            service.recover();
+            service.warmUp();
+            service.setPricingEngine(LoadFactorPricingEngine.defaults());
+            return service;
+        });
+        // Seat changes are checkpointed to the train file in the background; the rest goes out on exit
+        Runtime.getRuntime().addShutdownHook(new Thread(bookingService::flushTrains, "train-checkpoint-flush"));
+
+        startupNanos.put("total", System.nanoTime() - start);
+
+        sampleSteadyState();
+        logger.info(describe("Startup timings:", startupNanos) + describe(" | Warm operations:", steadyStateNanos));
+    }
+
+    public StaffService getStaffService() {
+        return staffService;
+    }
+
+    public CachingPassengerRepository getPassengerRepository() {
+        return passengerRepository;
+    }
+
+    public PassengerService getPassengerService() {
+        return passengerService;
+    }
+
+    public BookingService getBookingService() {
+        return bookingService;
+    }
+
+    /**
+     * Shared train service. It works on the same Train objects as the booking service,
+     * so seat counts are always current.
+     * @return the train service
+     */
+    public TrainService getTrainService() {
+        return trainService;
+    }
+
+    /**
+     * Time spent on each startup step, in insertion order, plus "total".
+     * @return step name to elapsed nanoseconds
+     */
+    public Map<String, Long> getStartupTimings() {
+        return Collections.unmodifiableMap(startupNanos);
+    }
+
+    /**
+     * Time taken by a sample of operations run right after startup, against warm caches.
+     * @return operation name to elapsed nanoseconds
+     */
+    public Map<String, Long> getSteadyStateTimings() {
+        return Collections.unmodifiableMap(steadyStateNanos);
+    }
+
+    /**
+     * How long this process has waited for the shared data file locks, per file.
+     * @return one summary line per locked file
+     */
+    public List<String> getLockWaitSummary() {
+        return FileLockManager.describeAll();
+    }
+
+    // --- Private Helpers ---
+
+    private <T> T timed(String step, Supplier<T> factory) {
+        return timed(startupNanos, step, factory);
+    }
+
+    private static <T> T timed(Map<String, Long> timings, String step, Supplier<T> factory) {
+        long start = System.nanoTime();
+        T result = factory.get();
+        timings.put(step, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Times typical read paths once the caches are warm.
+     */
+    private void sampleSteadyState() {
+        timed(steadyStateNanos, "revenueReport", bookingService::generateRevenueReport);
+        timed(steadyStateNanos, "bookingLookup", () -> bookingService.getBookingById("B001"));
+        timed(steadyStateNanos, "nextDepartures",
+                () -> trainService.getNextDepartures(LocalDateTime.now(), 10));
+        timed(steadyStateNanos, "passengerList", passengerService::getAllPassengers);
+    }
+
+    private static String describe(String title, Map<String, Long> timings) {
+        StringBuilder sb = new StringBuilder(title);
+        timings.forEach((step, nanos) -> sb.append(String.format(" %s=%.2fms", step, nanos / 1e6)));
+        return sb.toString();
+    }
+}
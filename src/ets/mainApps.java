@@ -1,12 +1,6 @@
 package ets;
 
-import ets.model.BookingRepository;
-import ets.model.StaffRepository;
-import ets.model.TrainRepository;
-import ets.service.BookingService;
-import ets.service.PassengerService;
 import ets.service.StaffService;
-import ets.service.TrainService;
 import ets.ui.*;
 import ets.util.ErrorMessage;
 
@@ -16,8 +10,9 @@ public class mainApps {
 
     public static void main(String[] args) {
 
-        StaffRepository staffRepo = new StaffRepository();
-        StaffService staffService = new StaffService(staffRepo);
+        // Services and caches are built once and shared by every menu
+        AppContext context = new AppContext();
+        StaffService staffService = context.getStaffService();
 
         boolean exitApp = false;
         Scanner scanner = new Scanner(System.in);
@@ -50,26 +45,22 @@ public class mainApps {
                     }
 
                     case PASSENGER -> {
-                        PassengerService passengerService = new PassengerService();
-                        PassengerUI passengerUI = new PassengerUI(passengerService, scanner);
+                        PassengerUI passengerUI = new PassengerUI(context.getPassengerService(), scanner);
                         passengerUI.showMenu();
                     }
 
                     case BOOKING -> {
-                        BookingRepository bookingRepo = new BookingRepository();
-                        TrainRepository trainRepo = new TrainRepository();
-                        BookingService bookingService = new BookingService(bookingRepo, trainRepo, staffService);
-
-                        new BookingUI(bookingService, loginStaffID, scanner).start();
+                        new BookingUI(context.getBookingService(), context.getTrainService(), loginStaffID,
+                                scanner, context.getPassengerRepository()).start();
                     }
                     case TRAIN -> {
-                        TrainService trainService = new TrainService();
-                        TrainUI trainUI = new TrainUI(trainService, scanner);
+                        TrainUI trainUI = new TrainUI(context.getTrainService(), scanner);
                         trainUI.showMenu();
                     }
 
                     case LOGOUT -> {
                         System.out.println("Logging out...");
+                        staffService.flushBookingHandles();
                         stayInMenu = false;
                     }
                 }
@@ -1,5 +1,6 @@
 package ets.model;
 
+import ets.util.Money;
 
 /**
  * Domain entity representing a confirmed Booking.
@@ -10,9 +11,11 @@ public class Booking {
     private String name;
     private SeatTier seatTier;
     private int numOfSeatBook;
-    private double totalFare;
+    private long totalFareSen; // fixed-point, in sen
     private Train train;
     private String staffId;
+    private int version; // 0 for records written before versioning
+    private int[] seatNumbers = new int[0]; // empty for records written before seat assignment
 
     public Booking() {
     }
@@ -33,7 +36,7 @@ public class Booking {
         this.name = name;
         this.seatTier = seatTier;
         this.numOfSeatBook = numOfSeatBook;
-        this.totalFare = totalFare;
+        this.totalFareSen = Money.ofRinggit(totalFare);
         this.train = train;
         this.staffId = staffId;
     }
@@ -51,8 +54,13 @@ public class Booking {
     public int getNumOfSeatBook() { return numOfSeatBook; }
     public void setNumOfSeatBook(int numOfSeatBook) { this.numOfSeatBook = numOfSeatBook; }
 
-    public double getTotalFare() { return totalFare; }
-    public void setTotalFare(double totalFare) { this.totalFare = totalFare; }
+    public double getTotalFare() { return Money.toRinggit(totalFareSen); }
+    public void setTotalFare(double totalFare) { this.totalFareSen = Money.ofRinggit(totalFare); }
+
+    /** @return total fare in sen, exact */
+    public long getTotalFareSen() { return totalFareSen; }
+    /** @param totalFareSen total fare in sen */
+    public void setTotalFareSen(long totalFareSen) { this.totalFareSen = totalFareSen; }
 
     public Train getTrain() { return train; }
     public void setTrain(Train train) { this.train = train; }
@@ -60,6 +68,14 @@ public class Booking {
     public String getStaffId() { return staffId; }
     public void setStaffId(String staffId) { this.staffId = staffId; }
 
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
+    /** @return assigned seat numbers within the seat tier, ascending; empty if none were assigned */
+    public int[] getSeatNumbers() { return seatNumbers.clone(); }
+    /** @param seatNumbers assigned seat numbers; null means none */
+    public void setSeatNumbers(int[] seatNumbers) { this.seatNumbers = seatNumbers == null ? new int[0] : seatNumbers.clone(); }
+
 
     /**
      * Checks equality based on the unique Booking ID.
@@ -88,7 +104,7 @@ public class Booking {
      */
     @Override
     public String toString() {
-        return String.format("Booking [ID=%s, Name=%s, Train=%s, Seats=%d, Fare=RM%.2f, Staff=%s]",
-                bookingID, name, (train != null ? train.getTrainID() : "null"), numOfSeatBook, totalFare, staffId);
+        return String.format("Booking [ID=%s, Name=%s, Train=%s, Seats=%d, Fare=RM%s, Staff=%s]",
+                bookingID, name, (train != null ? train.getTrainID() : "null"), numOfSeatBook, Money.format(totalFareSen), staffId);
     }
 }
\ No newline at end of file
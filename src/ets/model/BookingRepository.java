@@ -1,9 +1,16 @@
 package ets.model;
 
 import ets.util.AppConstants;
+import ets.util.FileLockManager;
+import ets.util.GroupCommitWriter;
+import ets.util.Money;
+import ets.util.PipeRecordReader;
+import ets.util.SeatNumbers;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,25 +23,43 @@ public class BookingRepository implements IBookingRepository {
 
     private static final Logger logger = Logger.getLogger(BookingRepository.class.getName());
 
+    private final String filePath;
+
+    public BookingRepository() {
+        this(AppConstants.BOOKING_FILE_PATH);
+    }
 
     /**
-     * Reads all bookings from the file.
+     * Constructor that allows tests to inject a custom file path.
+     * @param filePath path to the file used for persistence
+     */
+    public BookingRepository(String filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * Reads all bookings from the file, under a shared file lock.
      * @return ArrayList of Booking objects
      */
     @Override
     public ArrayList<Booking> getAll() {
+        return fileLock().read(this::readFile);
+    }
+
+    private ArrayList<Booking> readFile() {
         ArrayList<Booking> bookingList = new ArrayList<>();
-        File file = new File(AppConstants.BOOKING_FILE_PATH);
+        File file = new File(filePath);
 
         if (!file.exists()) {
             return bookingList;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        PipeRecordReader record = new PipeRecordReader();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 if (line.trim().isEmpty()) continue;
-                Booking booking = parseLineToBooking(line);
+                Booking booking = readBooking(record.reset(line));
                 if (booking != null) {
                     bookingList.add(booking);
                 }
@@ -48,15 +73,18 @@ public class BookingRepository implements IBookingRepository {
 
     /**
      * Overwrites the booking file with the provided collection.
+     * The write goes through the shared group-commit path (temp file + atomic rename), which
+     * takes the exclusive file lock only for the write itself.
      * @param bookings The list of bookings to persist
      */
     @Override
     public void saveAll(Collection<Booking> bookings) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(AppConstants.BOOKING_FILE_PATH, false))) {
-            for (Booking b : bookings) {
-                writer.write(formatBookingForFile(b));
-                writer.newLine();
-            }
+        List<String> lines = new ArrayList<>(bookings.size());
+        for (Booking b : bookings) {
+            lines.add(formatBookingForFile(b));
+        }
+        try {
+            GroupCommitWriter.forPath(filePath).commit(lines);
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Error writing to booking file", e);
         }
@@ -65,57 +93,116 @@ public class BookingRepository implements IBookingRepository {
 
     /**
      * Helper to append a single booking to the file.
+     * The read and the rewrite happen under one exclusive lock, so concurrent terminals cannot lose each other's bookings.
      * @param booking The booking object to add
      */
     @Override
     public void add(Booking booking) {
-        ArrayList<Booking> list = getAll();
-        list.add(booking);
-        saveAll(list);
+        fileLock().write(() -> {
+            ArrayList<Booking> list = getAll();
+            list.add(booking);
+            saveAll(list);
+        });
     }
 
 
     /**
-     * Helper to remove a booking by ID and update the file.
+     * Helper to remove a booking by ID and update the file, under one exclusive lock.
      * @param bookingId The ID of the booking to remove
      */
     @Override
     public void delete(String bookingId) {
-        ArrayList<Booking> list = getAll();
-        if (list.removeIf(b -> b.getBookingID().equals(bookingId))) {
-            saveAll(list);
-        }
+        fileLock().write(() -> {
+            ArrayList<Booking> list = getAll();
+            if (list.removeIf(b -> b.getBookingID().equals(bookingId))) {
+                saveAll(list);
+            }
+        });
+    }
+
+    /**
+     * The booking file's modification time and length.
+     */
+    @Override
+    public String stateToken() {
+        File file = new File(filePath);
+        return file.lastModified() + ":" + file.length();
+    }
+
+    /**
+     * Path of the booking file.
+     * @return file path
+     */
+    protected String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * Cross-process lock guarding this repository's file.
+     * @return the lock manager for the booking file
+     */
+    protected FileLockManager fileLock() {
+        return FileLockManager.forPath(filePath);
+    }
+
+    /**
+     * Parses a pipe-separated line into a Booking object.
+     * @param line pipe-separated string
+     * @return Booking object, or null if the line is corrupted
+     */
+    protected Booking parseLineToBooking(String line) {
+        return readBooking(new PipeRecordReader().reset(line));
     }
 
-    private Booking parseLineToBooking(String line) {
+    /**
+     * Decodes a booking from a record reader positioned at the Booking ID field.
+     * Lets bulk loads reuse one reader for every line.
+     * @param record reader over the booking fields
+     * @return Booking object, or null if the record is corrupted
+     */
+    protected Booking readBooking(PipeRecordReader record) {
         try {
-            String[] fields = line.split("\\|");
-            String id = fields[0];
-            String name = fields[1];
-            SeatTier tier = SeatTier.fromCode(fields[2].charAt(0));
-            int seats = Integer.parseInt(fields[3]);
-            double fare = Double.parseDouble(fields[4]);
-            String trainId = fields[5];
-            String staffId = (fields.length > 6) ? fields[6] : "UNKNOWN";
+            String id = record.nextString();
+            String name = record.nextString();
+            SeatTier tier = SeatTier.fromCode(record.nextChar());
+            int seats = record.nextInt();
+            long fareSen = record.nextCents();
+            String trainId = record.nextString();
+            String staffId = record.hasNext() ? record.nextString() : "UNKNOWN";
+            int version = record.hasNext() ? record.nextInt() : 0;
+            String seatNumbers = record.hasNext() ? record.nextString() : null;
 
             Train train = new Train();
             train.setTrainID(trainId);
 
-            return new Booking(id, name, tier, seats, fare, train, staffId);
+            Booking booking = new Booking(id, name, tier, seats, 0.0, train, staffId);
+            booking.setTotalFareSen(fareSen);
+            booking.setVersion(version);
+            booking.setSeatNumbers(SeatNumbers.parse(seatNumbers));
+            return booking;
         } catch (Exception e) {
             return null;
         }
     }
 
-    private String formatBookingForFile(Booking b) {
-        return String.join("|",
+    /**
+     * Formats a booking into its pipe-separated file representation.
+     * @param b booking object
+     * @return formatted booking line
+     */
+    protected String formatBookingForFile(Booking b) {
+        String line = String.join("|",
                 b.getBookingID(),
                 b.getName(),
                 String.valueOf(b.getSeatTier().getCode()),
                 String.valueOf(b.getNumOfSeatBook()),
-                String.format("%.2f", b.getTotalFare()),
+                Money.format(b.getTotalFareSen()),
                 b.getTrain().getTrainID(),
-                b.getStaffId()
+                b.getStaffId(),
+                String.valueOf(b.getVersion())
         );
+        // Seat numbers are the last field and left out when none were assigned
+        String seats = SeatNumbers.format(b.getSeatNumbers());
+        return seats.isEmpty() ? line : line + "|" + seats;
     }
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package ets.model;
+
+import ets.util.FileStamp;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.function.Supplier;
+
+/**
+ * CachingPassengerRepository - Keeps passengers in memory in front of another IPassengerRepository.
+ * The backing file's identity, modification time and size are checked on each read; the
+ * delegate is only re-read when they change (e.g. the file was edited by another process),
+ * so regular reads cost no parsing and no file reads. Saves replace the file by a rename,
+ * so the file key catches a rewrite even when the time and size come out the same.
+ *
+ * The delegate is never called while this cache's monitor is held, so a thread holding the
+ * file lock (see {@link #atomically}) and a reader cannot deadlock.
+ */
+public class CachingPassengerRepository implements IPassengerRepository {
+
+    private final IPassengerRepository delegate;
+    private final File file;
+
+    private LinkedHashMap<String, Passenger> cache;
+    private FileStamp cachedStamp;
+
+    /**
+     * @param delegate repository that actually reads and writes passengers
+     * @param filePath file the delegate uses, watched for outside changes
+     */
+    public CachingPassengerRepository(IPassengerRepository delegate, String filePath) {
+        this.delegate = delegate;
+        this.file = new File(filePath);
+    }
+
+    /**
+     * Convenience constructor caching a file-based repository.
+     * @param delegate file-based passenger repository
+     */
+    public CachingPassengerRepository(PassengerRepository delegate) {
+        this(delegate, delegate.getFilePath());
+    }
+
+    /**
+     * Repository behind the cache.
+     * @return wrapped repository
+     */
+    public IPassengerRepository getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns copies of the cached passengers, reloading only if the file changed.
+     */
+    @Override
+    public LinkedHashMap<String, Passenger> getAll() {
+        synchronized (this) {
+            if (cache != null && !isStale()) {
+                return copy(cache);
+            }
+        }
+        // Stamp before reading: a change during the read leaves the cache stale, not wrong
+        FileStamp stamp = FileStamp.of(file.toPath());
+        LinkedHashMap<String, Passenger> loaded = delegate.getAll();
+        synchronized (this) {
+            install(loaded, stamp);
+            return copy(cache);
+        }
+    }
+
+    /**
+     * Writes through to the delegate and keeps the saved state as the cache. The write and
+     * the new stamp are taken under the delegate's lock, so no other writer slips in between.
+     */
+    @Override
+    public void saveAll(Collection<Passenger> passengers) {
+        LinkedHashMap<String, Passenger> saved = new LinkedHashMap<>();
+        for (Passenger p : passengers) {
+            saved.put(p.getId(), new Passenger(p));
+        }
+        delegate.atomically(() -> {
+            delegate.saveAll(passengers);
+            FileStamp stamp = FileStamp.of(file.toPath());
+            synchronized (this) {
+                install(saved, stamp);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public String generateNewId() {
+        return delegate.generateNewId();
+    }
+
+    @Override
+    public <T> T atomically(Supplier<T> action) {
+        return delegate.atomically(action);
+    }
+
+    /**
+     * Stamp of the backing file, the same stamp the cache is checked against.
+     */
+    @Override
+    public String stateToken() {
+        return FileStamp.of(file.toPath()).toString();
+    }
+
+    /**
+     * Drops the cache so the next read goes to the delegate.
+     */
+    public synchronized void invalidate() {
+        cache = null;
+    }
+
+    // --- Private Helpers ---
+
+    private boolean isStale() {
+        return !FileStamp.of(file.toPath()).equals(cachedStamp);
+    }
+
+    private void install(LinkedHashMap<String, Passenger> passengers, FileStamp stamp) {
+        cache = passengers;
+        cachedStamp = stamp;
+    }
+
+    private static LinkedHashMap<String, Passenger> copy(LinkedHashMap<String, Passenger> passengers) {
+        LinkedHashMap<String, Passenger> copy = new LinkedHashMap<>();
+        for (Passenger p : passengers.values()) {
+            copy.put(p.getId(), new Passenger(p));
+        }
+        return copy;
+    }
+}
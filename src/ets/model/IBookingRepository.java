@@ -37,4 +37,30 @@ public interface IBookingRepository {
      * @param bookingId The ID of the booking to delete.
      */
     void delete(String bookingId);
-}
\ No newline at end of file
+
+    /**
+     * Reads the stored copy of one booking, e.g. to check its version before changing it.
+     * The default scans all records; implementations may answer it more cheaply.
+     *
+     * @param bookingId The ID of the booking to read.
+     * @return the stored Booking, or null if it no longer exists.
+     */
+    default Booking findById(String bookingId) {
+        for (Booking b : getAll()) {
+            if (b.getBookingID().equals(bookingId)) {
+                return b;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A token that changes whenever the stored bookings change, e.g. to tell whether a view
+     * derived from them is stale. The default has no such token.
+     *
+     * @return the current state token, or null if the storage cannot provide one.
+     */
+    default String stateToken() {
+        return null;
+    }
+}
@@ -1,6 +1,7 @@
 package ets.model;
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.function.Supplier;
 
 /**
  * IPassengerRepository - Describes how passengers are stored (file, database, in-memory for testing) without changing the service.
@@ -15,4 +16,29 @@ public interface IPassengerRepository {
      * Persists all passengers to the underlying storage.
      */
     void saveAll(Collection<Passenger> passengers);
+
+    /**
+     * Reserves a new unique passenger ID (e.g. P001, P002...).
+     */
+    String generateNewId();
+
+    /**
+     * Runs a read-modify-write (getAll, then saveAll) so that no other process can write
+     * the passengers in between. Stores that are not shared between processes run it directly.
+     * @param action work to perform
+     * @param <T>    result type
+     * @return the action's result
+     */
+    default <T> T atomically(Supplier<T> action) {
+        return action.get();
+    }
+
+    /**
+     * Token that changes whenever the stored passengers change, e.g. the file's stamp.
+     * A caller holding passengers read under an equal token need not read them again.
+     * @return the current state token, or null if the store cannot provide one
+     */
+    default String stateToken() {
+        return null;
+    }
 }
@@ -2,8 +2,22 @@ package ets.model;
 
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.Map;
 
 public interface IStaffRepository {
     LinkedHashMap<String, Staff> getAll();
     void saveAll(Collection<Staff> staffList);
+
+    /**
+     * Adds a batch of booking counts to the stored staff records.
+     * The default re-reads and rewrites all staff; file-based repositories do it under one lock.
+     * @param deltas Staff ID to number of bookings to add
+     */
+    default void addBookingHandles(Map<String, Integer> deltas) {
+        LinkedHashMap<String, Staff> stored = getAll();
+        // Updated copies, so staff objects the caller may still hold are not bumped twice
+        deltas.forEach((id, delta) -> stored.computeIfPresent(id, (key, s) -> new Staff(s.getName(),
+                s.getContactNo(), s.getIc(), s.getId(), s.getPassword(), s.getNoOfBookingHandle() + delta)));
+        saveAll(stored.values());
+    }
 }
@@ -0,0 +1,307 @@
+package ets.model;
+
+import ets.util.AppConstants;
+import ets.util.ErrorMessage;
+import ets.util.PipeRecordReader;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Journaled variant of the booking repository.
+ * add() and delete() append a single insert or tombstone record to a journal
+ * instead of rewriting the whole booking file. The current bookings are kept in
+ * memory: the snapshot is read once, and each read only replays the journal records
+ * appended since the last one, by this or any other terminal. A background compaction
+ * folds the journal back into the snapshot once it grows past a threshold; a changed
+ * snapshot or a shortened journal makes the next read start over from the snapshot.
+ */
+public class JournaledBookingRepository extends BookingRepository {
+
+    private static final Logger logger = Logger.getLogger(JournaledBookingRepository.class.getName());
+
+    private static final String INSERT = "I";
+    private static final String TOMBSTONE = "D";
+
+    // One shared daemon thread is enough to compact every journal in the process
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "booking-journal-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String journalPath;
+    private final int compactThreshold;
+    private final Object lock = new Object();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean(false);
+    private int journalRecords;
+
+    // Bookings as of journalOffset; journalOffset is -1 until the snapshot has been read
+    private final LinkedHashMap<String, Booking> state = new LinkedHashMap<>();
+    private long journalOffset = -1;
+    private long snapshotStamp;
+
+    public JournaledBookingRepository() {
+        this(AppConstants.BOOKING_FILE_PATH, AppConstants.BOOKING_JOURNAL_PATH,
+                AppConstants.BOOKING_JOURNAL_COMPACT_THRESHOLD);
+    }
+
+    /**
+     * Constructor that allows tests to inject custom file paths.
+     * @param snapshotPath     path to the compacted booking file
+     * @param journalPath      path to the append-only journal
+     * @param compactThreshold number of journal records that triggers a background compaction
+     */
+    public JournaledBookingRepository(String snapshotPath, String journalPath, int compactThreshold) {
+        super(snapshotPath);
+        this.journalPath = journalPath;
+        this.compactThreshold = compactThreshold;
+        this.journalRecords = countJournalRecords();
+    }
+
+    /**
+     * Returns the current bookings, replaying only the journal records not seen yet.
+     * @return ArrayList of Booking objects, copies the caller may change
+     */
+    @Override
+    public ArrayList<Booking> getAll() {
+        return fileLock().read(() -> {
+            synchronized (lock) {
+                catchUp();
+                ArrayList<Booking> bookings = new ArrayList<>(state.size());
+                state.values().forEach(b -> bookings.add(copy(b)));
+                return bookings;
+            }
+        });
+    }
+
+    /**
+     * Reads the stored copy of one booking from the journal-maintained state.
+     * @param bookingId The ID of the booking to read
+     * @return a copy of the stored Booking, or null if it no longer exists
+     */
+    @Override
+    public Booking findById(String bookingId) {
+        return fileLock().read(() -> {
+            synchronized (lock) {
+                catchUp();
+                Booking stored = state.get(bookingId);
+                return stored == null ? null : copy(stored);
+            }
+        });
+    }
+
+    /**
+     * Overwrites the snapshot with the provided collection and clears the journal.
+     * @param bookings The list of bookings to persist
+     */
+    @Override
+    public void saveAll(Collection<Booking> bookings) {
+        fileLock().write(() -> {
+            synchronized (lock) {
+                super.saveAll(bookings);
+                truncateJournal();
+            }
+        });
+    }
+
+    /**
+     * Appends an insert record for the booking to the journal.
+     * @param booking The booking object to add
+     */
+    @Override
+    public void add(Booking booking) {
+        append(INSERT + "|" + formatBookingForFile(booking));
+    }
+
+    /**
+     * Appends a tombstone record for the booking ID to the journal.
+     * @param bookingId The ID of the booking to remove
+     */
+    @Override
+    public void delete(String bookingId) {
+        append(TOMBSTONE + "|" + bookingId);
+    }
+
+    /**
+     * Folds the journal into the snapshot file and empties the journal.
+     * Replaying a journal twice is harmless (inserts overwrite by ID, tombstones
+     * are idempotent), so a crash between the two steps loses nothing.
+     */
+    public void compact() {
+        fileLock().write(() -> {
+            synchronized (lock) {
+                if (journalRecords == 0) return;
+                catchUp();
+                super.saveAll(state.values());
+                truncateJournal();
+            }
+        });
+    }
+
+    /**
+     * Number of records waiting in the journal since the last compaction.
+     * @return journal record count
+     */
+    public int getJournalRecordCount() {
+        synchronized (lock) {
+            return journalRecords;
+        }
+    }
+
+    // --- Private Helpers ---
+
+    private void append(String record) {
+        // The snapshot's lock also guards the journal, so appends from several terminals stay whole lines
+        boolean compactNow = fileLock().write(() -> {
+            synchronized (lock) {
+                try (BufferedWriter writer = new BufferedWriter(new FileWriter(journalPath, StandardCharsets.UTF_8, true))) {
+                    writer.write(record);
+                    writer.newLine();
+                } catch (IOException e) {
+                    logger.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, e);
+                    return false;
+                }
+                journalRecords++;
+                return journalRecords >= compactThreshold;
+            }
+        });
+        if (compactNow) {
+            scheduleCompaction();
+        }
+    }
+
+    private void scheduleCompaction() {
+        if (compactionScheduled.compareAndSet(false, true)) {
+            COMPACTOR.execute(() -> {
+                try {
+                    compact();
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * The snapshot's stamp and the journal's length; appends only ever grow the journal,
+     * and a compaction rewrites the snapshot.
+     */
+    @Override
+    public String stateToken() {
+        File snapshot = new File(getFilePath());
+        return snapshot.lastModified() + ":" + snapshot.length() + ":" + new File(journalPath).length();
+    }
+
+    /**
+     * Brings the in-memory state up to date with the files. Caller holds the file lock and lock.
+     */
+    private void catchUp() {
+        File snapshot = new File(getFilePath());
+        long stamp = snapshot.exists() ? snapshot.lastModified() * 31 + snapshot.length() : 0;
+        long journalLength = new File(journalPath).length();
+        if (journalOffset < 0 || stamp != snapshotStamp || journalLength < journalOffset) {
+            state.clear();
+            for (Booking b : super.getAll()) {
+                state.put(b.getBookingID(), b);
+            }
+            snapshotStamp = stamp;
+            journalOffset = 0;
+        }
+        if (journalLength > journalOffset) {
+            journalOffset += replayJournal(journalOffset, journalLength);
+        }
+    }
+
+    /**
+     * Applies the whole journal lines between two byte offsets to the state.
+     * @return number of bytes consumed; a trailing partial line is left for the next read
+     */
+    private long replayJournal(long from, long to) {
+        byte[] bytes = new byte[(int) (to - from)];
+        try (FileChannel channel = FileChannel.open(Paths.get(journalPath), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, from + buffer.position()) < 0) break;
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, ErrorMessage.FILE_READ_ERROR, e);
+            return 0;
+        }
+
+        PipeRecordReader record = new PipeRecordReader();
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') continue;
+            int lineEnd = i > lineStart && bytes[i - 1] == '\r' ? i - 1 : i;
+            applyJournalLine(new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8), record);
+            lineStart = i + 1;
+        }
+        return lineStart;
+    }
+
+    private void applyJournalLine(String line, PipeRecordReader record) {
+        if (line.length() < 3) return;
+        if (line.startsWith(INSERT + "|")) {
+            record.reset(line).skip();
+            Booking booking = readBooking(record);
+            if (booking != null) {
+                state.put(booking.getBookingID(), booking);
+            }
+        } else if (line.startsWith(TOMBSTONE + "|")) {
+            state.remove(line.substring(2));
+        } else {
+            logger.log(Level.WARNING, ErrorMessage.CORRUPTED_DATA + line);
+        }
+    }
+
+    private static Booking copy(Booking b) {
+        Train train = new Train();
+        train.setTrainID(b.getTrain() == null ? null : b.getTrain().getTrainID());
+        Booking copy = new Booking(b.getBookingID(), b.getName(), b.getSeatTier(), b.getNumOfSeatBook(), 0.0,
+                train, b.getStaffId());
+        copy.setTotalFareSen(b.getTotalFareSen());
+        copy.setVersion(b.getVersion());
+        copy.setSeatNumbers(b.getSeatNumbers());
+        return copy;
+    }
+
+    private void truncateJournal() {
+        Path path = Paths.get(journalPath);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(0);
+            journalRecords = 0;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, e);
+        }
+        journalOffset = -1; // the snapshot was rewritten; start over from it on the next read
+    }
+
+    private int countJournalRecords() {
+        File journal = new File(journalPath);
+        if (!journal.exists()) return 0;
+
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(journal, StandardCharsets.UTF_8))) {
+            while (reader.readLine() != null) {
+                count++;
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, ErrorMessage.FILE_READ_ERROR, e);
+        }
+        return count;
+    }
+}
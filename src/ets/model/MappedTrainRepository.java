@@ -0,0 +1,508 @@
+package ets.model;
+
+import ets.util.AppConstants;
+import ets.util.ErrorMessage;
+import ets.util.FileLockManager;
+import ets.util.SeatBits;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Binary implementation of TrainInterface backed by a memory-mapped file of fixed-width records.
+ * Destinations are interned in a small side table ("&lt;file&gt;.dst", one name per line) and
+ * records refer to them by index. Because every record has the same size, a save only
+ * rewrites the bytes of records that actually changed (e.g. a seat count), and loading
+ * is a single mapping instead of a text parse.
+ *
+ * Record layout (304 bytes): train ID (8 bytes ASCII, zero padded) | destination ref (int) |
+ * departure epoch day (int) | departure minute of day (short) | status (byte) | flags (byte) |
+ * standard seats sold (short) | standard seats (short) | premium seats sold (short) |
+ * premium seats (short) | standard price cents (long) | premium price cents (long) |
+ * record version (int; the former padding, so older files read as 0) |
+ * standard seats taken (128-byte bitmap, bit n set when seat n + 1 is taken) |
+ * premium seats taken (128-byte bitmap). The seat maps are valid only when the
+ * {@code SEAT_MAPS} flag is set. The seat fields were ints holding only the seat count,
+ * so the sold counts of older files read as 0. Version 1 files held the first 48 bytes
+ * of each record; they are upgraded in place when opened.
+ *
+ * The store may be shared by several processes. Every access holds the data file's lock
+ * (shared for loads, exclusive for saves and {@link #atomically}) and first re-reads the
+ * header and any destinations other processes appended, so their records, versions and
+ * interned names are seen. The lock is always taken before this object's monitor.
+ */
+public class MappedTrainRepository implements TrainInterface, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(MappedTrainRepository.class.getName());
+
+    private static final int MAGIC = 0x45545354; // "ETST"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    private static final int COUNT_OFFSET = 8;
+    private static final int RECORD_SIZE = 304;
+    private static final int V1_RECORD_SIZE = 48;
+    private static final int ID_WIDTH = 8;
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Field offsets inside a record
+    private static final int DEST_OFFSET = 8;
+    private static final int DATE_OFFSET = 12;
+    private static final int TIME_OFFSET = 16;
+    private static final int STATUS_OFFSET = 18;
+    private static final int STANDARD_SOLD_OFFSET = 20;
+    private static final int STANDARD_QTY_OFFSET = 22;
+    private static final int PREMIUM_SOLD_OFFSET = 24;
+    private static final int PREMIUM_QTY_OFFSET = 26;
+    private static final int STANDARD_PRICE_OFFSET = 28;
+    private static final int PREMIUM_PRICE_OFFSET = 36;
+    private static final int RECORD_VERSION_OFFSET = 44;
+    private static final int FLAGS_OFFSET = 19;
+    private static final int STANDARD_TAKEN_OFFSET = 48;
+    private static final int PREMIUM_TAKEN_OFFSET = 176;
+    private static final int SEAT_MAP_BYTES = 128;
+
+    private static final byte SEAT_MAPS = 1;
+
+    private final Path dataPath;
+    private final Path destinationPath;
+    private final FileChannel channel;
+    private final List<String> destinations = new ArrayList<>();
+    private final Map<String, Integer> destinationRefs = new HashMap<>();
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final FileLockManager fileLock;
+
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+    // Bytes of the destination table already read into destinations
+    private long destinationBytes;
+
+    /**
+     * Opens the default binary train store.
+     */
+    public MappedTrainRepository() {
+        this(AppConstants.TRAIN_BINARY_FILE_PATH);
+    }
+
+    /**
+     * Opens (or creates) a binary train store.
+     * @param filePath path of the record file; the destination table sits next to it
+     */
+    public MappedTrainRepository(String filePath) {
+        this.dataPath = Paths.get(filePath);
+        this.destinationPath = Paths.get(filePath + ".dst");
+        this.fileLock = FileLockManager.forPath(filePath);
+        try {
+            this.channel = FileChannel.open(dataPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            fileLock.write(() -> {
+                synchronized (this) {
+                    open();
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(ErrorMessage.FILE_READ_ERROR + " " + filePath, e);
+        }
+    }
+
+    /**
+     * Maps every record into a Train.
+     * @return list of trains in file order
+     */
+    @Override
+    public List<Train> loadAll() {
+        return fileLock.read(() -> {
+            synchronized (this) {
+                refreshQuietly();
+                List<Train> result = new ArrayList<>(count);
+                for (int slot = 0; slot < count; slot++) {
+                    result.add(readRecord(offset(slot)));
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Saves all trains. If the stored trains are an unchanged prefix of the list (the usual
+     * case: seat or status updates, new trains appended), only the changed records are
+     * rewritten in place; otherwise the records are rewritten from the start.
+     * @param trains trains to persist
+     * @throws UncheckedIOException if a train cannot be stored (e.g. a seat number out of range)
+     *         or the file cannot be grown; no record is changed then
+     */
+    @Override
+    public void saveAll(List<Train> trains) {
+        fileLock.write(() -> {
+            synchronized (this) {
+                write(trains);
+            }
+        });
+    }
+
+    /**
+     * Holds the data file's exclusive lock for the whole read-modify-write.
+     */
+    @Override
+    public <T> T atomically(Supplier<T> action) {
+        return fileLock.write(action);
+    }
+
+    /**
+     * Number of stored trains.
+     * @return train count
+     */
+    public int size() {
+        return fileLock.read(() -> {
+            synchronized (this) {
+                refreshQuietly();
+                return count;
+            }
+        });
+    }
+
+    /**
+     * Releases the file channel. The mapping itself is freed by the JVM.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, ErrorMessage.FILE_WRITE_ERROR, e);
+        }
+    }
+
+    // =========================================================================
+    // SECTION: Text format conversion
+    // =========================================================================
+
+    /**
+     * Converts a TrainFile.txt-style text file into a binary store.
+     * @param textPath   source text file
+     * @param binaryPath target binary file (replaced)
+     * @return number of trains converted
+     */
+    public static int convertTextToBinary(String textPath, String binaryPath) {
+        List<Train> trains = new TrainRepository(textPath).loadAll();
+        try (MappedTrainRepository target = new MappedTrainRepository(binaryPath)) {
+            target.saveAll(trains);
+        }
+        return trains.size();
+    }
+
+    /**
+     * Converts a binary store back into the TrainFile.txt text format.
+     * @param binaryPath source binary file
+     * @param textPath   target text file (replaced)
+     * @return number of trains converted
+     */
+    public static int convertBinaryToText(String binaryPath, String textPath) {
+        List<Train> trains;
+        try (MappedTrainRepository source = new MappedTrainRepository(binaryPath)) {
+            trains = source.loadAll();
+        }
+        new TrainRepository(textPath).saveAll(trains);
+        return trains.size();
+    }
+
+    // --- Private Helpers ---
+
+    /**
+     * Rewrites the records that changed. Caller holds the exclusive file lock and the monitor.
+     * Every record is encoded before the first one is written, so a train that cannot be
+     * stored leaves the records as they were.
+     */
+    private void write(List<Train> trains) {
+        try {
+            refresh();
+            List<byte[]> records = new ArrayList<>(trains.size());
+            for (Train train : trains) {
+                records.add(encode(train));
+            }
+            boolean sameLayout = trains.size() >= count;
+            for (int slot = 0; slot < count && sameLayout; slot++) {
+                sameLayout = trains.get(slot).getTrainID().equals(readId(offset(slot)));
+            }
+            if (!sameLayout) {
+                slotById.clear();
+                count = 0;
+            }
+            ensureCapacity(trains.size());
+            for (int slot = 0; slot < trains.size(); slot++) {
+                writeRecord(slot, records.get(slot));
+                slotById.put(trains.get(slot).getTrainID(), slot);
+            }
+            count = trains.size();
+            buffer.putInt(COUNT_OFFSET, count);
+            buffer.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException(ErrorMessage.FILE_WRITE_ERROR + " " + dataPath, e);
+        }
+    }
+
+    /**
+     * Creates the header of a new store, or checks the header of an existing one.
+     */
+    private void open() {
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                map(INITIAL_CAPACITY);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(COUNT_OFFSET, 0);
+                buffer.force();
+            } else {
+                upgrade();
+            }
+            refresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(ErrorMessage.FILE_READ_ERROR + " " + dataPath, e);
+        }
+    }
+
+    /**
+     * Rewrites a version 1 store with the current record size. All records are read before
+     * any is rewritten, since the larger records overlap the old ones. Caller holds the
+     * exclusive file lock.
+     */
+    private void upgrade() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != 1) return;
+
+        readNewDestinations();
+        int stored = header.getInt(COUNT_OFFSET);
+        if (stored < 0 || HEADER_SIZE + (long) stored * V1_RECORD_SIZE > channel.size()) {
+            throw new IOException("Not a train store (bad header): " + dataPath);
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE + (long) stored * V1_RECORD_SIZE);
+        List<Train> trains = new ArrayList<>(stored);
+        for (int slot = 0; slot < stored; slot++) {
+            trains.add(readRecord(HEADER_SIZE + slot * V1_RECORD_SIZE));
+        }
+
+        map(Math.max(stored, INITIAL_CAPACITY));
+        for (int slot = 0; slot < stored; slot++) {
+            writeRecord(slot, encode(trains.get(slot)));
+        }
+        buffer.putInt(4, VERSION);
+        buffer.force();
+        LOGGER.info("Upgraded train store " + dataPath + " to record version " + VERSION);
+    }
+
+    /**
+     * Catches up with other processes: reads destinations appended to the table, remaps
+     * the file if it grew, and re-reads the record count and slots. Caller holds the file lock.
+     */
+    private void refresh() throws IOException {
+        readNewDestinations();
+        long size = channel.size();
+        int records = (int) ((size - HEADER_SIZE) / RECORD_SIZE);
+        if (buffer == null || records > capacity) {
+            map(records);
+        }
+        int stored = buffer.getInt(COUNT_OFFSET);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || stored < 0 || stored > capacity) {
+            throw new IOException("Not a train store (bad header): " + dataPath);
+        }
+        count = stored;
+        slotById.clear();
+        for (int slot = 0; slot < count; slot++) {
+            slotById.put(readId(offset(slot)), slot);
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(ErrorMessage.FILE_READ_ERROR + " " + dataPath, e);
+        }
+    }
+
+    /**
+     * Reads the destination names appended since the last read. The table only ever grows,
+     * and a name is appended before any record refers to it.
+     */
+    private void readNewDestinations() throws IOException {
+        if (!Files.exists(destinationPath)) return;
+        try (FileChannel table = FileChannel.open(destinationPath, StandardOpenOption.READ)) {
+            long size = table.size();
+            if (size <= destinationBytes) return;
+            ByteBuffer bytes = ByteBuffer.allocate((int) (size - destinationBytes));
+            while (bytes.hasRemaining() && table.read(bytes, destinationBytes + bytes.position()) >= 0) {
+                // keep reading until the buffer is full
+            }
+            byte[] data = bytes.array();
+            int lineStart = 0;
+            for (int i = 0; i < data.length; i++) {
+                if (data[i] != '\n') continue;
+                int lineEnd = i > lineStart && data[i - 1] == '\r' ? i - 1 : i;
+                String name = new String(data, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+                destinationRefs.putIfAbsent(name, destinations.size());
+                destinations.add(name);
+                lineStart = i + 1;
+            }
+            destinationBytes += lineStart; // a partly written last line is read next time
+        }
+    }
+
+    private void map(int records) throws IOException {
+        capacity = records;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) records * RECORD_SIZE);
+    }
+
+    private void ensureCapacity(int records) throws IOException {
+        if (records <= capacity) return;
+        map(Math.max(records, capacity * 2));
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private String readId(int base) {
+        StringBuilder id = new StringBuilder(ID_WIDTH);
+        for (int i = 0; i < ID_WIDTH; i++) {
+            byte b = buffer.get(base + i);
+            if (b == 0) break;
+            id.append((char) b);
+        }
+        return id.toString();
+    }
+
+    /**
+     * Decodes the record starting at base. Version 1 records read the same way: their
+     * flags byte was padding, so they have no seat maps.
+     */
+    private Train readRecord(int base) {
+        Train train = new Train(
+                readId(base),
+                destinations.get(buffer.getInt(base + DEST_OFFSET)),
+                LocalDate.ofEpochDay(buffer.getInt(base + DATE_OFFSET)),
+                LocalTime.of(buffer.getShort(base + TIME_OFFSET) / 60, buffer.getShort(base + TIME_OFFSET) % 60),
+                buffer.getShort(base + STANDARD_QTY_OFFSET),
+                buffer.getShort(base + PREMIUM_QTY_OFFSET),
+                buffer.getLong(base + STANDARD_PRICE_OFFSET) / 100.0,
+                buffer.getLong(base + PREMIUM_PRICE_OFFSET) / 100.0,
+                TrainStatus.fromBoolean(buffer.get(base + STATUS_OFFSET) != 0)
+        );
+        train.setVersion(buffer.getInt(base + RECORD_VERSION_OFFSET));
+        train.setStandardSeatsSold(buffer.getShort(base + STANDARD_SOLD_OFFSET));
+        train.setPremiumSeatsSold(buffer.getShort(base + PREMIUM_SOLD_OFFSET));
+        if ((buffer.get(base + FLAGS_OFFSET) & SEAT_MAPS) != 0) {
+            train.setStandardSeatBits(readSeatMap(base + STANDARD_TAKEN_OFFSET));
+            train.setPremiumSeatBits(readSeatMap(base + PREMIUM_TAKEN_OFFSET));
+        }
+        return train;
+    }
+
+    /**
+     * Reads a bitmap as a seat bitset. Byte n of the bitmap holds seats 8n + 1 to 8n + 8,
+     * lowest bit first, so each 8 bytes read little-endian make one word of the bitset.
+     */
+    private long[] readSeatMap(int start) {
+        long[] bits = new long[SEAT_MAP_BYTES / Long.BYTES];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = Long.reverseBytes(buffer.getLong(start + i * Long.BYTES));
+        }
+        return bits;
+    }
+
+    private static void writeSeatMap(ByteBuffer record, int start, long[] bits, Train train) throws IOException {
+        int words = SEAT_MAP_BYTES / Long.BYTES;
+        if (SeatBits.highest(bits) > words * Long.SIZE) {
+            throw new IOException("Seat number out of range for " + train.getTrainID() + ": " + SeatBits.highest(bits));
+        }
+        for (int i = 0; i < Math.min(words, bits.length); i++) {
+            record.putLong(start + i * Long.BYTES, Long.reverseBytes(bits[i]));
+        }
+    }
+
+    private static short seatCount(int seats, Train train) throws IOException {
+        if (seats < 0 || seats > Short.MAX_VALUE) {
+            throw new IOException("Seat count out of range for " + train.getTrainID() + ": " + seats);
+        }
+        return (short) seats;
+    }
+
+    /**
+     * Encodes a train as a record.
+     */
+    private byte[] encode(Train train) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        byte[] id = train.getTrainID().getBytes(StandardCharsets.US_ASCII);
+        if (id.length > ID_WIDTH) {
+            throw new IOException("Train ID longer than " + ID_WIDTH + " characters: " + train.getTrainID());
+        }
+        record.put(id);
+        record.putInt(DEST_OFFSET, internDestination(train.getDestination()));
+        record.putInt(DATE_OFFSET, (int) train.getDepartureDate().toEpochDay());
+        LocalTime time = train.getDepartureTime();
+        record.putShort(TIME_OFFSET, (short) (time.getHour() * 60 + time.getMinute()));
+        record.put(STATUS_OFFSET, (byte) (train.getStatus().toBoolean() ? 1 : 0));
+        record.putShort(STANDARD_SOLD_OFFSET, seatCount(train.getStandardSeatsSold(), train));
+        record.putShort(STANDARD_QTY_OFFSET, seatCount(train.getStandardSeatQty(), train));
+        record.putShort(PREMIUM_SOLD_OFFSET, seatCount(train.getPremiumSeatsSold(), train));
+        record.putShort(PREMIUM_QTY_OFFSET, seatCount(train.getPremiumSeatQty(), train));
+        record.putLong(STANDARD_PRICE_OFFSET, Math.round(train.getStandardSeatPrice() * 100));
+        record.putLong(PREMIUM_PRICE_OFFSET, Math.round(train.getPremiumSeatPrice() * 100));
+        record.putInt(RECORD_VERSION_OFFSET, train.getVersion());
+        long[] standardTaken = train.getStandardSeatBits();
+        long[] premiumTaken = train.getPremiumSeatBits();
+        if (standardTaken != null && premiumTaken != null) {
+            record.put(FLAGS_OFFSET, SEAT_MAPS);
+            writeSeatMap(record, STANDARD_TAKEN_OFFSET, standardTaken, train);
+            writeSeatMap(record, PREMIUM_TAKEN_OFFSET, premiumTaken, train);
+        }
+        return record.array();
+    }
+
+    /**
+     * Writes an encoded record into its slot, touching the mapping only where the bytes differ.
+     */
+    private void writeRecord(int slot, byte[] bytes) {
+        int base = offset(slot);
+        for (int i = 0; i < RECORD_SIZE; i++) {
+            if (buffer.get(base + i) != bytes[i]) {
+                buffer.put(base + i, bytes[i]);
+            }
+        }
+    }
+
+    private int internDestination(String destination) throws IOException {
+        Integer ref = destinationRefs.get(destination);
+        if (ref != null) return ref;
+        if (destination.indexOf('\n') >= 0 || destination.indexOf('\r') >= 0) {
+            throw new IOException("Destination must be a single line: " + destination);
+        }
+        // The table is appended (and synced) before any record can refer to the new entry.
+        // The caller holds the exclusive lock and has read the table, so the index is free.
+        byte[] line = (destination + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        Files.write(destinationPath, line,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        destinationBytes += line.length;
+        ref = destinations.size();
+        destinations.add(destination);
+        destinationRefs.put(destination, ref);
+        return ref;
+    }
+}
@@ -0,0 +1,343 @@
+package ets.model;
+
+import ets.util.AppConstants;
+import ets.util.ErrorMessage;
+import ets.util.FileLockManager;
+import ets.util.FileStamp;
+import ets.util.GroupCommitWriter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Booking repository partitioned by train.
+ * Each train's bookings live in their own segment file ("&lt;trainId&gt;.txt", same line format
+ * as BookingFile.txt) and a small manifest ("manifest.idx", which no segment name can clash
+ * with) lists the segments with their booking counts. Adding or cancelling a booking rewrites
+ * only that train's segment; queries across all trains read the segments in parallel.
+ *
+ * Several terminals may share the directory. The manifest is re-read whenever its file
+ * changed, and every change re-reads, updates and saves it under the manifest's exclusive
+ * lock, so each terminal sees the others' segments and no count is lost.
+ */
+public class PartitionedBookingRepository implements IBookingRepository {
+
+    private static final Logger logger = Logger.getLogger(PartitionedBookingRepository.class.getName());
+
+    private static final String MANIFEST = "manifest.idx";
+    // Older stores kept the manifest where a train called "manifest" would put its segment
+    private static final String LEGACY_MANIFEST = "manifest.txt";
+    private static final String SEGMENT_SUFFIX = ".txt";
+    private static final Pattern SAFE_TRAIN_ID = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final File directory;
+    private final File manifestFile;
+    private FileStamp manifestStamp = FileStamp.MISSING;
+    // trainId -> number of bookings in its segment, in manifest order
+    private final LinkedHashMap<String, Integer> manifest = new LinkedHashMap<>();
+    private final Map<String, BookingRepository> segments = new HashMap<>();
+    // bookingId -> trainId, built on first delete by ID
+    private Map<String, String> trainByBookingId;
+
+    public PartitionedBookingRepository() {
+        this(AppConstants.BOOKING_PARTITION_DIR);
+    }
+
+    /**
+     * Constructor that allows tests to inject a custom directory.
+     * @param directoryPath directory holding the manifest and the segment files
+     */
+    public PartitionedBookingRepository(String directoryPath) {
+        this.directory = new File(directoryPath);
+        this.manifestFile = new File(directory, MANIFEST);
+        if (!directory.exists() && !directory.mkdirs()) {
+            logger.log(Level.SEVERE, ErrorMessage.FILE_CREATE_ERROR + " " + directoryPath);
+        }
+        loadManifest();
+    }
+
+    /**
+     * Reads every segment in parallel and returns the bookings grouped by train, in manifest order.
+     * @return ArrayList of Booking objects
+     */
+    @Override
+    public ArrayList<Booking> getAll() {
+        List<String> trainIds;
+        synchronized (this) {
+            refreshManifest();
+            trainIds = new ArrayList<>(manifest.keySet());
+        }
+        return trainIds.parallelStream()
+                .flatMap(trainId -> segment(trainId).getAll().stream())
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Reads a single train's bookings without touching any other segment.
+     * @param trainId Train ID
+     * @return bookings on that train
+     */
+    public synchronized ArrayList<Booking> getByTrain(String trainId) {
+        refreshManifest();
+        return manifest.containsKey(trainId) ? segment(trainId).getAll() : new ArrayList<>();
+    }
+
+    /**
+     * Number of bookings on a train, answered from the manifest.
+     * @param trainId Train ID
+     * @return booking count
+     */
+    public synchronized int countByTrain(String trainId) {
+        refreshManifest();
+        return manifest.getOrDefault(trainId, 0);
+    }
+
+    /**
+     * Replaces all data: each train's segment is rewritten and segments of trains
+     * without bookings are removed.
+     * @param bookings The collection of bookings to save
+     */
+    @Override
+    public synchronized void saveAll(Collection<Booking> bookings) {
+        LinkedHashMap<String, List<Booking>> byTrain = new LinkedHashMap<>();
+        for (Booking b : bookings) {
+            byTrain.computeIfAbsent(trainIdOf(b), id -> new ArrayList<>()).add(b);
+        }
+        updateManifest(() -> {
+            for (String trainId : new ArrayList<>(manifest.keySet())) {
+                if (!byTrain.containsKey(trainId)) {
+                    removeSegment(trainId);
+                }
+            }
+            manifest.clear();
+            byTrain.forEach((trainId, list) -> {
+                segment(trainId).saveAll(list);
+                manifest.put(trainId, list.size());
+            });
+            trainByBookingId = null;
+        });
+    }
+
+    /**
+     * Adds a booking by rewriting only its train's segment.
+     * @param booking The new Booking object to persist
+     */
+    @Override
+    public synchronized void add(Booking booking) {
+        String trainId = trainIdOf(booking);
+        updateManifest(() -> {
+            segment(trainId).add(booking);
+            manifest.merge(trainId, 1, Integer::sum);
+            if (trainByBookingId != null) {
+                trainByBookingId.put(booking.getBookingID(), trainId);
+            }
+        });
+    }
+
+    /**
+     * Removes a booking. The owning train is found through an ID index that is
+     * built once from all segments and then kept up to date.
+     * @param bookingId The ID of the booking to delete
+     */
+    @Override
+    public synchronized void delete(String bookingId) {
+        refreshManifest();
+        String trainId = trainOf(bookingId);
+        if (trainId != null) {
+            delete(trainId, bookingId);
+        }
+    }
+
+    /**
+     * Reads one booking from its train's segment, located through the ID index.
+     * @param bookingId The ID of the booking
+     * @return the stored Booking, or null if it does not exist
+     */
+    @Override
+    public synchronized Booking findById(String bookingId) {
+        refreshManifest();
+        String trainId = trainOf(bookingId);
+        if (trainId == null || !manifest.containsKey(trainId)) return null;
+        for (Booking b : segment(trainId).getAll()) {
+            if (b.getBookingID().equals(bookingId)) {
+                return b;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes a booking when its train is already known; touches only that train's segment.
+     * @param trainId   Train ID the booking is on
+     * @param bookingId The ID of the booking to delete
+     */
+    public synchronized void delete(String trainId, String bookingId) {
+        updateManifest(() -> {
+            if (!manifest.containsKey(trainId)) return;
+            ArrayList<Booking> list = segment(trainId).getAll();
+            if (!list.removeIf(b -> b.getBookingID().equals(bookingId))) return;
+
+            if (list.isEmpty()) {
+                removeSegment(trainId);
+                manifest.remove(trainId);
+            } else {
+                segment(trainId).saveAll(list);
+                manifest.put(trainId, list.size());
+            }
+            if (trainByBookingId != null) {
+                trainByBookingId.remove(bookingId);
+            }
+        });
+    }
+
+    /**
+     * Combines the modification time and length of every segment file.
+     */
+    @Override
+    public String stateToken() {
+        File[] files = segmentFiles();
+        if (files == null) return null;
+        Arrays.sort(files);
+        long hash = 17;
+        for (File f : files) {
+            hash = hash * 31 + f.getName().hashCode();
+            hash = hash * 31 + f.lastModified();
+            hash = hash * 31 + f.length();
+        }
+        return files.length + ":" + Long.toHexString(hash);
+    }
+
+    // --- Private Helpers ---
+
+    private String trainOf(String bookingId) {
+        if (trainByBookingId == null) {
+            trainByBookingId = new HashMap<>();
+            for (Booking b : getAll()) {
+                trainByBookingId.put(b.getBookingID(), b.getTrain().getTrainID());
+            }
+        }
+        return trainByBookingId.get(bookingId);
+    }
+
+    private static String trainIdOf(Booking booking) {
+        String trainId = booking.getTrain() == null ? null : booking.getTrain().getTrainID();
+        if (trainId == null || !SAFE_TRAIN_ID.matcher(trainId).matches()) {
+            throw new IllegalArgumentException("Booking " + booking.getBookingID()
+                    + " has no valid Train ID to partition by: " + trainId);
+        }
+        return trainId;
+    }
+
+    private BookingRepository segment(String trainId) {
+        synchronized (segments) {
+            return segments.computeIfAbsent(trainId,
+                    id -> new BookingRepository(new File(directory, id + SEGMENT_SUFFIX).getPath()));
+        }
+    }
+
+    private void removeSegment(String trainId) {
+        File file = new File(directory, trainId + SEGMENT_SUFFIX);
+        if (file.exists() && !file.delete()) {
+            logger.log(Level.WARNING, ErrorMessage.FILE_WRITE_ERROR + " " + file);
+        }
+    }
+
+    private File[] segmentFiles() {
+        return directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX)
+                && SAFE_TRAIN_ID.matcher(name.substring(0, name.length() - SEGMENT_SUFFIX.length())).matches());
+    }
+
+    private void loadManifest() {
+        File legacy = new File(directory, LEGACY_MANIFEST);
+        if (!manifestFile.exists() && legacy.exists() && !legacy.delete()) {
+            logger.log(Level.WARNING, ErrorMessage.FILE_WRITE_ERROR + " " + legacy);
+        }
+        if (!manifestFile.exists()) {
+            rebuildManifest();
+            return;
+        }
+        refreshManifest();
+    }
+
+    /**
+     * Re-reads the manifest if another terminal (or process) saved it since it was last read.
+     */
+    private void refreshManifest() {
+        FileLockManager.forPath(manifestFile.getPath()).read(() -> {
+            FileStamp stamp = FileStamp.of(manifestFile.toPath());
+            if (!stamp.equals(manifestStamp)) {
+                manifest.clear();
+                readManifest(manifestFile);
+                manifestStamp = stamp;
+                trainByBookingId = null; // may be missing the other terminal's bookings
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Applies a change as one read-modify-write of the manifest under its exclusive lock.
+     */
+    private void updateManifest(Runnable change) {
+        FileLockManager.forPath(manifestFile.getPath()).write(() -> {
+            refreshManifest();
+            change.run();
+            saveManifest();
+        });
+    }
+
+    private void readManifest(File file) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int sep = line.indexOf('|');
+                if (sep <= 0) continue;
+                try {
+                    manifest.put(line.substring(0, sep), Integer.parseInt(line.substring(sep + 1)));
+                } catch (NumberFormatException e) {
+                    logger.log(Level.WARNING, ErrorMessage.CORRUPTED_DATA + line);
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, ErrorMessage.FILE_READ_ERROR, e);
+        }
+    }
+
+    /**
+     * Recreates a lost manifest from the segment files in the directory.
+     */
+    private void rebuildManifest() {
+        File[] files = segmentFiles();
+        if (files == null || files.length == 0) return;
+        for (File f : files) {
+            String trainId = f.getName().substring(0, f.getName().length() - SEGMENT_SUFFIX.length());
+            manifest.put(trainId, segment(trainId).getAll().size());
+        }
+        saveManifest();
+    }
+
+    private void saveManifest() {
+        List<String> lines = new ArrayList<>(manifest.size());
+        manifest.forEach((trainId, count) -> lines.add(trainId + "|" + count));
+        try {
+            GroupCommitWriter.forPath(manifestFile.getPath()).commit(lines);
+            manifestStamp = FileStamp.of(manifestFile.toPath());
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, e);
+        }
+    }
+}
@@ -41,6 +41,15 @@ public class Passenger extends Person {
         this.passengerTier = passengerTier;
     }
 
+    /**
+     * Copy constructor
+     * @param other Passenger to copy
+     */
+    public Passenger(Passenger other) {
+        this(other.getName(), other.getContactNo(), other.getIc(), other.getId(),
+                other.getGender(), other.getDateJoined(), other.getPassengerTier());
+    }
+
     /**
      * Getter 1
      * @return gender (Passenger's gender)
@@ -1,45 +1,101 @@
 package ets.model;
 
+import ets.util.AppConstants;
+import ets.util.ErrorMessage;
+import ets.util.FileLockManager;
+import ets.util.FileStamp;
+import ets.util.GroupCommitWriter;
+import ets.util.IdAllocator;
+import ets.util.PipeRecordReader;
+
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * PassengerRepository - Filed-based implementation of IPassengerRepository
  */
 public class PassengerRepository implements IPassengerRepository {
 
-    private static final String FILE_NAME = "PassengerFile.txt";
+    private static final Logger logger = Logger.getLogger(PassengerRepository.class.getName());
+
     private static final DateTimeFormatter DATE_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+    private final String filePath;
+    private final IdAllocator idAllocator;
+
+    /**
+     * Default constructor using the standard passenger and ID sequence files.
+     */
+    public PassengerRepository() {
+        this(AppConstants.PASSENGER_FILE_PATH, AppConstants.ID_SEQUENCE_FILE_PATH);
+    }
+
+    /**
+     * Uses the ID sequence file in the same directory as the passenger file.
+     * @param filePath passenger file to read and write
+     */
+    public PassengerRepository(String filePath) {
+        this(filePath, Paths.get(filePath).resolveSibling(AppConstants.ID_SEQUENCE_FILE_PATH).toString());
+    }
+
+    /**
+     * @param filePath       passenger file to read and write
+     * @param idSequenceFile file holding the reserved ID blocks, or null to keep the sequence in memory
+     */
+    public PassengerRepository(String filePath, String idSequenceFile) {
+        this.filePath = filePath;
+        this.idAllocator = new IdAllocator(
+                "P", idSequenceFile, AppConstants.ID_BLOCK_SIZE, this::highestExistingNumber);
+    }
+
+    /**
+     * Passenger file backing this repository.
+     * @return file path
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * Reads all passengers under a shared file lock.
+     */
     @Override
     public LinkedHashMap<String, Passenger> getAll() {
+        return FileLockManager.forPath(filePath).read(this::readFile);
+    }
+
+    private LinkedHashMap<String, Passenger> readFile() {
         LinkedHashMap<String, Passenger> map = new LinkedHashMap<>();
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(FILE_NAME))) {
+        PipeRecordReader record = new PipeRecordReader();
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath, StandardCharsets.UTF_8))) {
             String line;
 
             while ((line = reader.readLine()) != null) {
-                String[] fields = line.split("\\|");
-                if (fields.length < 7) {
+                if (record.reset(line).fieldCount() < 7) {
                     continue; // skip corrupted/invalid line
                 }
 
-                String name = fields[0];
-                String contactNo = fields[1];
-                String ic = fields[2];
-                String id = fields[3];
-                char gender = fields[4].charAt(0);
-                LocalDate joinedDate = LocalDate.parse(fields[5], DATE_FORMATTER);
-                char tierCode = fields[6].charAt(0);
+                String name = record.nextString();
+                String contactNo = record.nextString();
+                String ic = record.nextString();
+                String id = record.nextString();
+                char gender = record.nextChar();
+                LocalDate joinedDate = record.nextDate();
+                char tierCode = record.nextChar();
                 PassengerTier tier = PassengerTier.fromCode(tierCode);
 
                 Passenger passenger = new Passenger(
@@ -50,55 +106,74 @@ public class PassengerRepository implements IPassengerRepository {
         } catch (java.io.FileNotFoundException e) {
             // First run: file does not exist yet -> treat as "no passengers".
             // Do nothing, just return empty map.
-            // (No stack trace printed, so your tests look clean.)
         } catch (IOException e) {
             // Real I/O error while reading an existing file
-            e.printStackTrace();
+            logger.log(Level.SEVERE, ErrorMessage.FILE_READ_ERROR, e);
         }
 
         return map;
     }
 
+    /**
+     * Writes all passengers through the shared group-commit path (temp file + atomic rename),
+     * which takes the exclusive file lock only for the write itself.
+     */
     @Override
     public void saveAll(Collection<Passenger> passengers) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(FILE_NAME))) {
-            for (Passenger p : passengers) {
-                writer.write(
-                        p.getName() + "|" +
-                                p.getContactNo() + "|" +
-                                p.getIc() + "|" +
-                                p.getId() + "|" +
-                                p.getGender() + "|" +
-                                p.getDateJoined().format(DATE_FORMATTER) + "|" +
-                                p.getPassengerTier().getCode()
-                );
-                writer.newLine();
-            }
+        List<String> lines = new ArrayList<>(passengers.size());
+        for (Passenger p : passengers) {
+            lines.add(
+                    p.getName() + "|" +
+                            p.getContactNo() + "|" +
+                            p.getIc() + "|" +
+                            p.getId() + "|" +
+                            p.getGender() + "|" +
+                            p.getDateJoined().format(DATE_FORMATTER) + "|" +
+                            p.getPassengerTier().getCode()
+            );
+        }
+        try {
+            GroupCommitWriter.forPath(filePath).commit(lines);
         } catch (IOException e) {
-            e.printStackTrace();
+            logger.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, e);
         }
     }
 
     /**
      * Helper to generate a new unique passenger ID (e.g. P001, P002...).
-     * You can keep this here or move it into a util class if preferred.
+     * IDs come from the shared block allocator; the passenger file is scanned
+     * only once, to seed the sequence on first use.
+     */
+    /**
+     * Stamp of the passenger file; every save replaces the file, so the stamp changes with it.
      */
+    @Override
+    public String stateToken() {
+        return FileStamp.of(Paths.get(filePath)).toString();
+    }
+
+    @Override
     public String generateNewId() {
-        LinkedHashMap<String, Passenger> passengers = getAll();
-        int maxNumber = 0;
-
-        for (Map.Entry<String, Passenger> entry : passengers.entrySet()) {
-            String id = entry.getKey(); // assume format P001, P002...
-            try {
-                int num = Integer.parseInt(id.substring(1));
-                if (num > maxNumber) {
-                    maxNumber = num;
-                }
-            } catch (Exception ignored) {
-            }
-        }
+        return idAllocator.nextId();
+    }
 
-        int next = maxNumber + 1;
-        return String.format("P%03d", next);
+    /**
+     * Holds the passenger file's exclusive lock for the whole read-modify-write.
+     */
+    @Override
+    public <T> T atomically(Supplier<T> action) {
+        return FileLockManager.forPath(filePath).write(action);
+    }
+
+    /**
+     * Highest numeric passenger ID currently stored.
+     * @return highest passenger number, or 0 if there are none
+     */
+    private long highestExistingNumber() {
+        long max = 0;
+        for (String id : getAll().keySet()) {
+            max = Math.max(max, IdAllocator.numberOf(id, "P"));
+        }
+        return max;
     }
 }
@@ -1,5 +1,6 @@
 package ets.model;
 
+import ets.util.Money;
 
 /**
  * Enum representing the loyalty tier of a passenger.
@@ -11,23 +12,23 @@ package ets.model;
  * NORMAL: No Discount (Multiplier 1.00)
  */
 public enum PassengerTier {
-    GOLD('G', 0.75),    // 25% discount (Pay 75%)
-    SILVER('S', 0.85),  // 15% discount (Pay 85%)
-    NORMAL('N', 1.00);  // No discount
+    GOLD('G', 7_500),    // 25% discount (Pay 75%)
+    SILVER('S', 8_500),  // 15% discount (Pay 85%)
+    NORMAL('N', 10_000); // No discount
 
     private final char code;
-    private final double priceMultiplier;
+    private final int priceBasisPoints;
 
 
     /**
      * Constructor for PassengerTier.
      *
      * @param code            The single-character code stored in the file (e.g., 'G').
-     * @param priceMultiplier The factor used to calculate the final price (e.g., 0.75).
+     * @param priceBasisPoints The factor used to calculate the final price, in basis points (e.g., 7500 = 0.75).
      */
-    PassengerTier(char code, double priceMultiplier) {
+    PassengerTier(char code, int priceBasisPoints) {
         this.code = code;
-        this.priceMultiplier = priceMultiplier;
+        this.priceBasisPoints = priceBasisPoints;
     }
 
     /**
@@ -36,7 +37,16 @@ public enum PassengerTier {
      * @return The multiplier (e.g., 0.75 for 25% discount).
      */
     public double getPriceMultiplier() {
-        return priceMultiplier;
+        return priceBasisPoints / (double) Money.BASIS_POINTS;
+    }
+
+    /**
+     * Gets the price multiplier as an exact fixed-point rate for fare calculation.
+     *
+     * @return The multiplier in basis points (e.g., 7500 for 25% discount).
+     */
+    public int getPriceBasisPoints() {
+        return priceBasisPoints;
     }
 
 
@@ -1,11 +1,13 @@
 package ets.model;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Staff extends Person {
 
     private String password;
-    private int noOfBookingHandle = 0;
+    // Bumped by concurrent bookings, so kept atomic
+    private final AtomicInteger noOfBookingHandle = new AtomicInteger();
 
     // Security Session Fields (Transient)
     private int failedAttempts = 0;
@@ -30,7 +32,7 @@ public class Staff extends Person {
     public Staff(String name, String contactNo, String ic, String id, String password, int noOfBookingHandle) {
         super(name, contactNo, ic, id);
         this.password = password;
-        this.noOfBookingHandle = noOfBookingHandle;
+        this.noOfBookingHandle.set(noOfBookingHandle);
     }
 
     // Getters and Setters
@@ -51,13 +53,20 @@ public class Staff extends Person {
      * Get number of booking handled by the staff
      * @return number of booking handled by staff in integer
      */
-    public int getNoOfBookingHandle() { return noOfBookingHandle; }
+    public int getNoOfBookingHandle() { return noOfBookingHandle.get(); }
 
     /**
-     * Get number of booking handled by the staff
+     * Set number of booking handled by the staff
      * @param noOfBookingHandle number of booking handled by staff in integer
      */
-    public void setNoOfBookingHandle(int noOfBookingHandle) { this.noOfBookingHandle = noOfBookingHandle; }
+    public void setNoOfBookingHandle(int noOfBookingHandle) { this.noOfBookingHandle.set(noOfBookingHandle); }
+
+    /**
+     * Atomically add to the number of booking handled by the staff
+     * @param delta number of bookings to add
+     * @return the new number of booking handled by staff
+     */
+    public int addNoOfBookingHandle(int delta) { return noOfBookingHandle.addAndGet(delta); }
 
     /**
      * Get number of login failed attempts by the staff
@@ -89,6 +98,6 @@ public class Staff extends Person {
      */
     @Override
     public String toString() {
-        return super.toString() + "\nBookings Handled  : " + noOfBookingHandle;
+        return super.toString() + "\nBookings Handled  : " + noOfBookingHandle.get();
     }
 }
\ No newline at end of file
@@ -2,10 +2,17 @@ package ets.model;
 
 import ets.util.AppConstants;
 import ets.util.ErrorMessage;
+import ets.util.FileLockManager;
+import ets.util.GroupCommitWriter;
+import ets.util.PipeRecordReader;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,10 +27,47 @@ public class StaffRepository implements IStaffRepository {
     /**
      * Reads the file and returns a Map of Staff objects.
      * Uses LinkedHashMap to preserve the insertion order of the file.
+     * The file is read under a shared lock, so a save from another terminal is never seen half-done.
      * @return a Map of staff objects
      */
     @Override
     public LinkedHashMap<String, Staff> getAll() {
+        return FileLockManager.forPath(AppConstants.STAFF_FILE_PATH).read(this::readFile);
+    }
+
+    /**
+     * Overwrites the file with the current list of staff.
+     * The write goes through the shared group-commit path (temp file + atomic rename),
+     * which takes the exclusive file lock only for the write itself.
+     * @param staffList current list of staff.
+     */
+    @Override
+    public void saveAll(Collection<Staff> staffList) {
+        List<String> lines = new ArrayList<>(staffList.size());
+        for (Staff staff : staffList) {
+            lines.add(formatStaffForFile(staff));
+        }
+        try {
+            GroupCommitWriter.forPath(AppConstants.STAFF_FILE_PATH).commit(lines);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, e);
+        }
+    }
+
+    /**
+     * Adds a batch of booking counts to the stored staff records.
+     * The file is re-read and rewritten under one exclusive lock, so counts written by
+     * other terminals in the meantime are kept.
+     * @param deltas Staff ID to number of bookings to add
+     */
+    @Override
+    public void addBookingHandles(Map<String, Integer> deltas) {
+        FileLockManager.forPath(AppConstants.STAFF_FILE_PATH).write(() -> IStaffRepository.super.addBookingHandles(deltas));
+    }
+
+    // --- Private Helpers for Clean Code ---
+
+    private LinkedHashMap<String, Staff> readFile() {
         LinkedHashMap<String, Staff> staffMap = new LinkedHashMap<>();
         File file = new File(AppConstants.STAFF_FILE_PATH);
 
@@ -32,11 +76,12 @@ public class StaffRepository implements IStaffRepository {
             return staffMap;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        PipeRecordReader record = new PipeRecordReader();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 if (line.trim().isEmpty()) continue;
-                Staff staff = parseLineToStaff(line);
+                Staff staff = parseLineToStaff(line, record);
                 if (staff != null) {
                     staffMap.put(staff.getId(), staff);
                 }
@@ -48,24 +93,6 @@ public class StaffRepository implements IStaffRepository {
         return staffMap;
     }
 
-    /**
-     * Overwrites the file with the current list of staff.
-     * @param staffList current list of staff.
-     */
-    @Override
-    public void saveAll(Collection<Staff> staffList) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(AppConstants.STAFF_FILE_PATH, false))) {
-            for (Staff staff : staffList) {
-                writer.write(formatStaffForFile(staff));
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            logger.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, e);
-        }
-    }
-
-    // --- Private Helpers for Clean Code ---
-
     /**
      * Create new file if the file does not exists from the public class
      * @param file instance
@@ -85,12 +112,14 @@ public class StaffRepository implements IStaffRepository {
      * Parses a pipe-separated string into a Staff object.
      * Includes Try-Catch for data corruption safety.
      * @param line pipe-separated string
+     * @param record reusable reader used to decode the line
      * @return Staff object, or null if parsing fails
      */
-    private Staff parseLineToStaff(String line) {
+    private Staff parseLineToStaff(String line, PipeRecordReader record) {
         try {
-            String[] fields = line.split("\\|");
-            return new Staff(fields[0], fields[1], fields[2], fields[3], fields[4], Integer.parseInt(fields[5]));
+            record.reset(line);
+            return new Staff(record.nextString(), record.nextString(), record.nextString(),
+                    record.nextString(), record.nextString(), record.nextInt());
         } catch (Exception e) {
             // Log specific data corruption errors
             logger.log(Level.WARNING, ErrorMessage.CORRUPTED_DATA + line);
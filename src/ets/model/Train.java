@@ -1,5 +1,7 @@
 package ets.model;
 
+import ets.util.SeatBits;
+
 import java.time.LocalDate;
 import java.time.LocalTime;
 
@@ -17,6 +19,11 @@ public class Train {
     private double standardSeatPrice;
     private double premiumSeatPrice;
     private TrainStatus status; // ACTIVE / DISCONTINUED
+    private int version; // bumped on every committed change; 0 for records written before versioning
+    private int standardSeatsSold; // committed with the seat counts; 0 for records written before they were kept
+    private int premiumSeatsSold;
+    private long[] standardSeatBits; // seats held by bookings, one bit per seat; null for records written before seat maps were kept
+    private long[] premiumSeatBits;
 
     /**
      * constructor
@@ -129,6 +136,65 @@ public class Train {
     }
 
 
+    /**
+     * Get record version.
+     * @return version of the stored record this train was read from or last written as
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Get number of standard seats sold.
+     * @return standard seats held by bookings, as committed with the seat quantity
+     */
+    public int getStandardSeatsSold() {
+        return standardSeatsSold;
+    }
+
+    /**
+     * Get number of premium seats sold.
+     * @return premium seats held by bookings, as committed with the seat quantity
+     */
+    public int getPremiumSeatsSold() {
+        return premiumSeatsSold;
+    }
+
+    /**
+     * Get standard seat numbers taken.
+     * @return seat numbers held by bookings, ascending, or null if the record has no seat map yet
+     */
+    public int[] getStandardSeatsTaken() {
+        return standardSeatBits == null ? null : SeatBits.toSeats(standardSeatBits);
+    }
+
+    /**
+     * Get premium seat numbers taken.
+     * @return seat numbers held by bookings, ascending, or null if the record has no seat map yet
+     */
+    public int[] getPremiumSeatsTaken() {
+        return premiumSeatBits == null ? null : SeatBits.toSeats(premiumSeatBits);
+    }
+
+    /**
+     * Get the standard seat map. This is the train's own array, not a copy: seats are taken
+     * in it in place, on a train not yet committed.
+     * @return bitset of the seats held by bookings (see {@link SeatBits}), or null if the
+     *         record has no seat map yet
+     */
+    public long[] getStandardSeatBits() {
+        return standardSeatBits;
+    }
+
+    /**
+     * Get the premium seat map. This is the train's own array, not a copy.
+     * @return bitset of the seats held by bookings, or null if the record has no seat map yet
+     */
+    public long[] getPremiumSeatBits() {
+        return premiumSeatBits;
+    }
+
+
     /**
      * Set train ID.
      * @param trainID unique train identifier in format TXXX
@@ -201,6 +267,62 @@ public class Train {
         this.status = status;
     }
 
+    /**
+     * Set record version.
+     * @param version version of the stored record
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Set number of standard seats sold.
+     * @param standardSeatsSold standard seats held by bookings
+     */
+    public void setStandardSeatsSold(int standardSeatsSold) {
+        this.standardSeatsSold = standardSeatsSold;
+    }
+
+    /**
+     * Set number of premium seats sold.
+     * @param premiumSeatsSold premium seats held by bookings
+     */
+    public void setPremiumSeatsSold(int premiumSeatsSold) {
+        this.premiumSeatsSold = premiumSeatsSold;
+    }
+
+    /**
+     * Set standard seat numbers taken.
+     * @param standardSeatsTaken seat numbers held by bookings; null if not known
+     */
+    public void setStandardSeatsTaken(int[] standardSeatsTaken) {
+        this.standardSeatBits = standardSeatsTaken == null ? null : SeatBits.of(standardSeatsTaken);
+    }
+
+    /**
+     * Set premium seat numbers taken.
+     * @param premiumSeatsTaken seat numbers held by bookings; null if not known
+     */
+    public void setPremiumSeatsTaken(int[] premiumSeatsTaken) {
+        this.premiumSeatBits = premiumSeatsTaken == null ? null : SeatBits.of(premiumSeatsTaken);
+    }
+
+    /**
+     * Set the standard seat map.
+     * @param standardSeatBits bitset of the seats held by bookings, copied; null if not known
+     */
+    public void setStandardSeatBits(long[] standardSeatBits) {
+        this.standardSeatBits = standardSeatBits == null ? null : standardSeatBits.clone();
+    }
+
+    /**
+     * Set the premium seat map.
+     * @param premiumSeatBits bitset of the seats held by bookings, copied; null if not known
+     */
+    public void setPremiumSeatBits(long[] premiumSeatBits) {
+        this.premiumSeatBits = premiumSeatBits == null ? null : premiumSeatBits.clone();
+    }
+
     /**
      * To String method.
      * @return multi-line string containing formatted train details that contains all fields
@@ -1,6 +1,7 @@
 package ets.model;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Abstraction for Train persistence.
@@ -17,6 +18,27 @@ public interface TrainInterface {
     /**
      * Saves all trains to thedata source.
      * @param trains trains to persist
+     * @throws java.io.UncheckedIOException if the trains could not be written
      */
     void saveAll(List<Train> trains);
+
+    /**
+     * Runs a read-modify-write (loadAll, then saveAll) so that no other process can write
+     * the trains in between. Stores that are not shared between processes run it directly.
+     * @param action work to perform
+     * @param <T>    result type
+     * @return the action's result
+     */
+    default <T> T atomically(Supplier<T> action) {
+        return action.get();
+    }
+
+    /**
+     * A token that changes whenever the stored trains change, e.g. to tell whether trains
+     * read earlier are stale. The default has no such token.
+     * @return the current state token, or null if the store cannot provide one
+     */
+    default String stateToken() {
+        return null;
+    }
 }
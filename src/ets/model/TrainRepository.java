@@ -2,18 +2,25 @@ package ets.model;
 
 import ets.util.AppConstants;
 import ets.util.ErrorMessage;
+import ets.util.FileLockManager;
+import ets.util.FileStamp;
+import ets.util.GroupCommitWriter;
+import ets.util.PipeRecordReader;
+import ets.util.SeatNumbers;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -43,11 +50,74 @@ public class TrainRepository implements TrainInterface {
     }
 
     /**
-     * Load all Train records from the configured file path.
+     * Load all Train records from the configured file path, under a shared file lock.
      * @return list of Train objects loaded from the file
      */
     @Override
     public List<Train> loadAll() {
+        return FileLockManager.forPath(filePath).read(this::readFile);
+    }
+
+    /**
+     * Persist all Train records to the configured file path.
+     * The write goes through the shared group-commit path (temp file + atomic rename), which
+     * takes the exclusive file lock only for the write itself.
+     * @param trains list of trains to be persisted to file
+     * @throws UncheckedIOException if the file could not be written; it then still holds the previous trains
+     */
+    @Override
+    public void saveAll(List<Train> trains) {
+        List<String> lines = new ArrayList<>(trains.size());
+        for (Train train : trains) {
+            String line = train.getTrainID() + "|"
+                    + train.getDestination() + "|"
+                    + train.getDepartureDate().format(DATE_FORMATTER) + "|"
+                    + train.getDepartureTime().format(TIME_FORMATTER) + "|"
+                    + train.getStandardSeatQty() + "|"
+                    + train.getPremiumSeatQty() + "|"
+                    + train.getStandardSeatPrice() + "|"
+                    + train.getPremiumSeatPrice() + "|"
+                    + train.getStatus().toBoolean() + "|"
+                    + train.getVersion() + "|"
+                    + train.getStandardSeatsSold() + "|"
+                    + train.getPremiumSeatsSold();
+            // Seat maps are written only once known, as seat ranges (e.g. "1-12,15")
+            if (train.getStandardSeatsTaken() != null && train.getPremiumSeatsTaken() != null) {
+                line += "|" + SeatNumbers.format(train.getStandardSeatsTaken())
+                        + "|" + SeatNumbers.format(train.getPremiumSeatsTaken());
+            }
+            lines.add(line);
+        }
+        try {
+            GroupCommitWriter.forPath(filePath).commit(lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException(ErrorMessage.FILE_WRITE_ERROR + " " + filePath, e);
+        }
+    }
+
+    /**
+     * Holds the exclusive file lock across a read-modify-write, so other terminals
+     * can neither read a half-applied change nor write in between.
+     * @param action work to perform
+     * @param <T>    result type
+     * @return the action's result
+     */
+    @Override
+    public <T> T atomically(Supplier<T> action) {
+        return FileLockManager.forPath(filePath).write(action);
+    }
+
+    /**
+     * The train file's key, modification time and length; saves replace the file, so every save changes it.
+     */
+    @Override
+    public String stateToken() {
+        return FileStamp.of(Paths.get(filePath)).toString();
+    }
+
+    // --- Private Helpers ---
+
+    private List<Train> readFile() {
         List<Train> result = new ArrayList<>();
         File trainFile = new File(filePath);
 
@@ -56,20 +126,28 @@ public class TrainRepository implements TrainInterface {
             return result;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(trainFile))) {
+        PipeRecordReader record = new PipeRecordReader();
+        try (BufferedReader reader = new BufferedReader(new FileReader(trainFile, StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 try {
-                    String[] fields = line.split("\\|");
-                    String trainID = fields[0];
-                    String destination = fields[1];
-                    LocalDate departureDate = LocalDate.parse(fields[2], DATE_FORMATTER);
-                    LocalTime departureTime = LocalTime.parse(fields[3], TIME_FORMATTER);
-                    int standardSeatQty = Integer.parseInt(fields[4]);
-                    int premiumSeatQty = Integer.parseInt(fields[5]);
-                    double standardSeatPrice = Double.parseDouble(fields[6]);
-                    double premiumSeatPrice = Double.parseDouble(fields[7]);
-                    boolean statusFlag = Boolean.parseBoolean(fields[8]);
+                    record.reset(line);
+                    String trainID = record.nextString();
+                    String destination = record.nextString();
+                    LocalDate departureDate = record.nextDate();
+                    LocalTime departureTime = record.nextTime();
+                    int standardSeatQty = record.nextInt();
+                    int premiumSeatQty = record.nextInt();
+                    double standardSeatPrice = record.nextFixed();
+                    double premiumSeatPrice = record.nextFixed();
+                    boolean statusFlag = record.nextBoolean();
+                    int version = record.hasNext() ? record.nextInt() : 0;
+                    int standardSeatsSold = record.hasNext() ? record.nextInt() : 0;
+                    int premiumSeatsSold = record.hasNext() ? record.nextInt() : 0;
+                    int[] standardSeatsTaken = record.hasNext() ? SeatNumbers.parse(record.nextString()) : null;
+                    // An empty premium list is a trailing empty field, which the reader does not see
+                    int[] premiumSeatsTaken = standardSeatsTaken == null ? null
+                            : record.hasNext() ? SeatNumbers.parse(record.nextString()) : new int[0];
 
                     Train train = new Train(
                             trainID,
@@ -82,6 +160,11 @@ public class TrainRepository implements TrainInterface {
                             premiumSeatPrice,
                             TrainStatus.fromBoolean(statusFlag)
                     );
+                    train.setVersion(version);
+                    train.setStandardSeatsSold(standardSeatsSold);
+                    train.setPremiumSeatsSold(premiumSeatsSold);
+                    train.setStandardSeatsTaken(standardSeatsTaken);
+                    train.setPremiumSeatsTaken(premiumSeatsTaken);
                     result.add(train);
                 } catch (Exception parseEx) {
                     LOGGER.log(Level.WARNING, ErrorMessage.CORRUPTED_DATA + line, parseEx);
@@ -92,31 +175,4 @@ public class TrainRepository implements TrainInterface {
         }
         return result;
     }
-
-    /**
-     * Persist all Train records to the configured file path.
-     * @param trains list of trains to be persisted to file
-     */
-    @Override
-    public void saveAll(List<Train> trains) {
-        File trainFile = new File(filePath);
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(trainFile))) {
-            for (Train train : trains) {
-                String line = train.getTrainID() + "|"
-                        + train.getDestination() + "|"
-                        + train.getDepartureDate().format(DATE_FORMATTER) + "|"
-                        + train.getDepartureTime().format(TIME_FORMATTER) + "|"
-                        + train.getStandardSeatQty() + "|"
-                        + train.getPremiumSeatQty() + "|"
-                        + train.getStandardSeatPrice() + "|"
-                        + train.getPremiumSeatPrice() + "|"
-                        + train.getStatus().toBoolean();
-
-                writer.write(line);
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, e);
-        }
-    }
 }
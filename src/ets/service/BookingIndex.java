@@ -0,0 +1,146 @@
+package ets.service;
+
+import ets.model.Booking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-memory index over bookings, keyed by case-normalized Booking ID, with
+ * secondary multimaps by Train ID, staff ID and passenger name.
+ * Owned by BookingService and kept in step with create/cancel so lookups
+ * never need to load every booking.
+ */
+public class BookingIndex {
+
+    private final Map<String, Booking> byId = new HashMap<>();
+    // Secondary key -> (Booking ID -> booking); the inner map gives O(1) removal and keeps insertion order
+    private final Map<String, Map<String, Booking>> byTrain = new HashMap<>();
+    private final Map<String, Map<String, Booking>> byStaff = new HashMap<>();
+    private final Map<String, Map<String, Booking>> byName = new HashMap<>();
+
+    /**
+     * Replaces the index content with the given bookings.
+     * @param bookings full set of bookings from the repository
+     */
+    public void rebuild(Collection<Booking> bookings) {
+        byId.clear();
+        byTrain.clear();
+        byStaff.clear();
+        byName.clear();
+        bookings.forEach(this::add);
+    }
+
+    /**
+     * Adds or replaces a booking in the index.
+     * @param booking booking to index
+     */
+    public void add(Booking booking) {
+        if (booking.getBookingID() == null) return;
+        String id = normalize(booking.getBookingID());
+        Booking previous = byId.put(id, booking);
+        if (previous != null) {
+            removeSecondary(id, previous);
+        }
+        put(byTrain, trainKey(booking), id, booking);
+        put(byStaff, booking.getStaffId(), id, booking);
+        put(byName, booking.getName(), id, booking);
+    }
+
+    /**
+     * Removes a booking from the index.
+     * @param bookingId ID of the booking to remove
+     * @return the removed booking, or null if it was not indexed
+     */
+    public Booking remove(String bookingId) {
+        if (bookingId == null) return null;
+        String id = normalize(bookingId);
+        Booking removed = byId.remove(id);
+        if (removed != null) {
+            removeSecondary(id, removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Looks up a booking by ID, ignoring case.
+     * @param bookingId Booking ID (e.g. "B001")
+     * @return the booking, or null if not found
+     */
+    public Booking findById(String bookingId) {
+        return bookingId == null ? null : byId.get(normalize(bookingId));
+    }
+
+    /**
+     * Bookings on a train, ignoring case.
+     * @param trainId Train ID (e.g. "T001")
+     * @return matching bookings in insertion order, empty if none
+     */
+    public List<Booking> findByTrain(String trainId) {
+        return lookup(byTrain, trainId);
+    }
+
+    /**
+     * Bookings made by a staff member, ignoring case.
+     * @param staffId Staff ID (e.g. "S001")
+     * @return matching bookings in insertion order, empty if none
+     */
+    public List<Booking> findByStaff(String staffId) {
+        return lookup(byStaff, staffId);
+    }
+
+    /**
+     * Bookings under a passenger name, ignoring case and surrounding spaces.
+     * @param name passenger name
+     * @return matching bookings in insertion order, empty if none
+     */
+    public List<Booking> findByPassengerName(String name) {
+        return lookup(byName, name);
+    }
+
+    /**
+     * Number of indexed bookings.
+     * @return booking count
+     */
+    public int size() {
+        return byId.size();
+    }
+
+    private static String normalize(String key) {
+        return key.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String trainKey(Booking booking) {
+        return booking.getTrain() == null ? null : booking.getTrain().getTrainID();
+    }
+
+    private static void put(Map<String, Map<String, Booking>> multimap, String key, String id, Booking booking) {
+        if (key == null) return;
+        multimap.computeIfAbsent(normalize(key), k -> new LinkedHashMap<>()).put(id, booking);
+    }
+
+    private static void remove(Map<String, Map<String, Booking>> multimap, String key, String id) {
+        if (key == null) return;
+        multimap.computeIfPresent(normalize(key), (k, bucket) -> {
+            bucket.remove(id);
+            return bucket.isEmpty() ? null : bucket;
+        });
+    }
+
+    private void removeSecondary(String id, Booking booking) {
+        remove(byTrain, trainKey(booking), id);
+        remove(byStaff, booking.getStaffId(), id);
+        remove(byName, booking.getName(), id);
+    }
+
+    private static List<Booking> lookup(Map<String, Map<String, Booking>> multimap, String key) {
+        if (key == null) return new ArrayList<>();
+        Map<String, Booking> bucket = multimap.get(normalize(key));
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket.values());
+    }
+}
@@ -2,8 +2,23 @@ package ets.service;
 
 import ets.model.*;
 import ets.util.AppConstants;
-
+import ets.util.ErrorMessage;
+import ets.util.IdAllocator;
+import ets.util.IntentLog;
+import ets.util.Money;
+
+import java.io.UncheckedIOException;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 /**
  * Handles the core business logic for the Booking Module.
@@ -12,10 +27,23 @@ import java.util.List;
  */
 public class BookingService {
 
+    private static final Logger logger = Logger.getLogger(BookingService.class.getName());
+
+    // Attempts at committing a seat change before giving up to other terminals
+    private static final int MAX_COMMIT_ATTEMPTS = 5;
+
     private final IBookingRepository bookingRepository;
-    private final TrainInterface trainRepository;
+    private final TrainRegistry trainRegistry;
     private final StaffService staffService;
     private final BookingValidator validator;
+    private final SeatInventory seatInventory;
+    private final RevenueAggregator revenueAggregator = new RevenueAggregator();
+    private final RevenueView revenueView;
+    private final IdAllocator bookingIdAllocator;
+    private final BookingTransactionManager transactions;
+    private final BookingIndex bookingIndex = new BookingIndex();
+    private final SeatMaps seatMaps = new SeatMaps(this::storedBookingsOnTrain);
+    private boolean bookingIndexLoaded = false;
 
 
     /**
@@ -29,10 +57,61 @@ public class BookingService {
     public BookingService(IBookingRepository bookingRepository,
                           TrainInterface trainRepository,
                           StaffService staffService) {
+        this(bookingRepository, trainRepository, staffService, null, new RevenueView(null), null, null);
+    }
+
+    /**
+     * Constructor that shares a seat inventory and a persisted revenue view between several services.
+     *
+     * @param bookingRepository Repository for handling Booking I/O
+     * @param trainRepository   Repository for handling Train I/O (seat updates); pass a shared
+     *                          TrainRegistry to work on the same trains as the train module
+     * @param staffService      Service for handling Staff performance tracking
+     * @param seatInventory     Shared in-memory seat inventory, or null for a private one
+     * @param revenueView       Incrementally maintained revenue aggregate
+     * @param idSequenceFile    File holding the booking ID high-water mark, or null to keep it in memory
+     */
+    public BookingService(IBookingRepository bookingRepository,
+                          TrainInterface trainRepository,
+                          StaffService staffService,
+                          SeatInventory seatInventory,
+                          RevenueView revenueView,
+                          String idSequenceFile) {
+        this(bookingRepository, trainRepository, staffService, seatInventory, revenueView, idSequenceFile, null);
+    }
+
+    /**
+     * Constructor that also makes bookings and cancellations crash-safe through an intent log.
+     *
+     * @param bookingRepository Repository for handling Booking I/O
+     * @param trainRepository   Repository for handling Train I/O (seat updates); pass a shared
+     *                          TrainRegistry to work on the same trains as the train module
+     * @param staffService      Service for handling Staff performance tracking
+     * @param seatInventory     Shared in-memory seat inventory, or null for a private one
+     * @param revenueView       Incrementally maintained revenue aggregate
+     * @param idSequenceFile    File holding the booking ID high-water mark, or null to keep it in memory
+     * @param intentLogFile     Intent log for multi-file transactions, or null to run without one
+     */
+    public BookingService(IBookingRepository bookingRepository,
+                          TrainInterface trainRepository,
+                          StaffService staffService,
+                          SeatInventory seatInventory,
+                          RevenueView revenueView,
+                          String idSequenceFile,
+                          String intentLogFile) {
         this.bookingRepository = bookingRepository;
-        this.trainRepository = trainRepository;
+        this.trainRegistry = asRegistry(trainRepository);
         this.staffService = staffService;
         this.validator = new BookingValidator();
+        this.seatInventory = seatInventory != null ? seatInventory : new SeatInventory();
+        // Committed seat changes (ours, staff edits, other terminals) become the inventory's counts
+        trainRegistry.addSeatCapacityListener(this.seatInventory::resync);
+        this.revenueView = revenueView;
+        this.bookingIdAllocator = new IdAllocator("B", idSequenceFile, AppConstants.ID_BLOCK_SIZE,
+                this::highestExistingBookingNumber);
+        this.transactions = new BookingTransactionManager(
+                intentLogFile != null ? new IntentLog(intentLogFile) : null,
+                bookingRepository, trainRegistry, staffService, seatMaps);
     }
 
 
@@ -44,21 +123,76 @@ public class BookingService {
      * @param seatTier      The class of seat (Standard/Premium)
      * @param quantity      Number of seats being booked
      * @param basePrice     The base price of the specific train seat
-     * @return The final total fare (double)
+     * @return The final total fare in RM, rounded to the sen
      */
     public double calculateFare(PassengerTier passengerTier, SeatTier seatTier, int quantity, double basePrice) {
-        double discountMultiplier = passengerTier.getPriceMultiplier();
-        double tax = AppConstants.SST_RATE;
-        return basePrice * quantity * discountMultiplier * tax;
+        return Money.toRinggit(calculateFareSen(passengerTier, seatTier, quantity, Money.ofRinggit(basePrice)));
+    }
+
+    /**
+     * Calculates the total ticket price in fixed point.
+     * The unit fare (Base Price * Tier Discount * Tax Rate) is rounded half-up to the sen,
+     * then multiplied by the quantity, so the result always equals a fare matrix quote.
+     *
+     * @param passengerTier The tier of the passenger (Gold/Silver/Normal)
+     * @param seatTier      The class of seat (Standard/Premium)
+     * @param quantity      Number of seats being booked
+     * @param basePriceSen  The base price of the specific train seat, in sen
+     * @return The final total fare in sen
+     */
+    public long calculateFareSen(PassengerTier passengerTier, SeatTier seatTier, int quantity, long basePriceSen) {
+        return Math.multiplyExact(FareMatrix.unitFare(basePriceSen, passengerTier), quantity);
+    }
+
+    /**
+     * Quotes a fare from the train's cached fare matrix: a table lookup times the quantity.
+     *
+     * @param train         The train being booked
+     * @param passengerTier The tier of the passenger (Gold/Silver/Normal)
+     * @param seatTier      The class of seat (Standard/Premium)
+     * @param quantity      Number of seats being booked
+     * @return The final total fare in sen
+     */
+    public long quoteFareSen(Train train, PassengerTier passengerTier, SeatTier seatTier, int quantity) {
+        return getFareMatrix(train).quote(seatTier, passengerTier, quantity);
+    }
+
+    /**
+     * Returns the unit fares of a train for every seat class and passenger tier,
+     * e.g. to show all fare options at once.
+     * @param train The train to price
+     * @return The train's current fare matrix
+     */
+    public FareMatrix getFareMatrix(Train train) {
+        return trainRegistry.getFareMatrices().get(train);
     }
 
     /**
-     * Retrieves the latest list of trains directly from the repository.
+     * Replaces the engine that sets seat prices, e.g. with a LoadFactorPricingEngine.
+     * Quotes follow the new prices immediately; fares already booked are not changed.
+     * @param pricingEngine The pricing engine to use
+     */
+    public void setPricingEngine(PricingEngine pricingEngine) {
+        trainRegistry.getFareMatrices().setPricingEngine(pricingEngine);
+    }
+
+    /**
+     * Reprices every train in the background. Bookings and quotes carry on meanwhile;
+     * a quote made before a train's turn prices it itself.
+     * @return The number of fare matrices built or changed, once done
+     */
+    public CompletableFuture<Integer> repriceAllTrains() {
+        return trainRegistry.getFareMatrices().repriceAllAsync(trainRegistry.loadAll());
+    }
+
+    /**
+     * Retrieves the live list of trains from the train registry.
+     * Seat counts are the committed ones; every booking commits its seats before returning.
      * Used by the UI to display available options.
      * @return List of all Train objects
      */
     public List<Train> getAvailableTrains() {
-        return trainRepository.loadAll();
+        return trainRegistry.loadAll();
     }
 
 
@@ -66,10 +200,16 @@ public class BookingService {
      * Create a new booking.
      * This method performs a transaction:
      * 1. Validates input.
-     * 2. Refreshes train data to prevent stale seat counts.
-     * 3. Deducts seats from the Train.
-     * 4. Saves the Booking AND the updated Train file.
-     * 5. Updates the Staff performance counter.
+     * 2. Atomically reserves the seats in the shared seat inventory.
+     * 3. Commits the seat change, with the seat numbers taken from the train's stored seat
+     *    map, to the train record (compare-and-bump on its version,
+     *    retried with fresh state if another terminal committed first). The commit is one
+     *    intent record covering steps 3-5, synced to the intent log; every terminal sees the
+     *    logged seats at once, and a background checkpoint writes them to the train file.
+     *    A crash part-way through is redone on the next startup.
+     * 4. Saves the Booking and records its fare in the revenue view.
+     * 5. Marks the intent applied, then updates the Staff performance counter. The counter
+     *    is written behind; an increment still pending when the terminal is killed is lost.
      *
      * @param newBooking      The booking object containing user inputs
      * @param uiSelectedTrain The train object selected in the UI (used for ID reference)
@@ -81,133 +221,445 @@ public class BookingService {
             return false;
         }
 
-        // 2. Load fresh train data to ensure seat counts are accurate
-        List<Train> allTrains = trainRepository.loadAll();
-        Train dbTrain = allTrains.stream()
-                .filter(t -> t.getTrainID().equals(uiSelectedTrain.getTrainID()))
-                .findFirst()
-                .orElse(null);
+        // 2. Locate the train; the inventory seeds itself from it on first sight
+        Train dbTrain = findTrain(uiSelectedTrain.getTrainID());
 
         if (dbTrain == null) return false; // Train not found in file
+        seatInventory.track(dbTrain);
 
-        // 3. Validate Seat Availability on the FRESH object
-        if (!validator.hasEnoughSeats(dbTrain, newBooking.getSeatTier(), newBooking.getNumOfSeatBook())) {
-            return false;
-        }
-
-        // 4. Logic: Update Train Seats in Memory
-        int currentSeats = (newBooking.getSeatTier() == SeatTier.STANDARD)
-                ? dbTrain.getStandardSeatQty() : dbTrain.getPremiumSeatQty();
-
-        if (newBooking.getSeatTier() == SeatTier.STANDARD) {
-            dbTrain.setStandardSeatQty(currentSeats - newBooking.getNumOfSeatBook());
-        } else {
-            dbTrain.setPremiumSeatQty(currentSeats - newBooking.getNumOfSeatBook());
-        }
-
-        // 5. Transaction: Save Everything
-        bookingRepository.add(newBooking);       // Save Booking
-        trainRepository.saveAll(allTrains);      // Save Updated Train Seats
-
-        // 6. Update Staff Stats
-        if (newBooking.getStaffId() != null) {
-            staffService.incrementBookingHandle(newBooking.getStaffId());
-        }
+        return transactions.run(() -> {
+            // 3. Reserve: the compare-and-set keeps concurrent bookings in this process from overselling;
+            //    the versioned commit does the same across terminals
+            if (!seatInventory.tryReserve(dbTrain.getTrainID(), newBooking.getSeatTier(), newBooking.getNumOfSeatBook())) {
+                return false;
+            }
+            newBooking.setVersion(1); // first version of its record
+            AtomicReference<String> txId = new AtomicReference<>();
+            // Seat numbers come from the train's stored seat map, taken in the same commit as the
+            // seat count and before the intent is logged, so a redo restores the same seats
+            if (!commitSeats(dbTrain, newBooking.getSeatTier(), -newBooking.getNumOfSeatBook(),
+                    t -> newBooking.setSeatNumbers(allocateSeats(t, newBooking)),
+                    t -> transactions.logCreate(t, newBooking), txId)) {
+                newBooking.setSeatNumbers(null);
+                seatInventory.resync(dbTrain); // drop the reservation; the train holds the committed counts
+                return false;
+            }
 
-        return true;
+            // 4. Save the Booking
+            RevenueView view = revenue(); // load before the write so the new booking is not counted twice
+            bookingRepository.add(newBooking);
+            newBooking.setTrain(dbTrain);
+            index().add(newBooking);
+            view.recordBooking(dbTrain, newBooking.getSeatTier(), newBooking.getTotalFareSen(),
+                    bookingRepository.stateToken());
+
+            // 5. Update Staff Stats. The intent is marked applied first: a redo raises the counter
+            //    only for a booking that never got this far, so no increment is counted twice
+            transactions.applied(txId.get());
+            if (newBooking.getStaffId() != null) {
+                staffService.incrementBookingHandle(newBooking.getStaffId());
+            }
+            return true;
+        });
     }
 
 
     /**
      * Cancels an existing booking and restores the seats to the Train.
+     * The stored record is checked first: a booking another terminal already cancelled
+     * is not cancelled (and its seats not restored) twice, and a booking whose stored
+     * version differs from the indexed one is re-read before it is cancelled.
+     * Like a booking, the seat restore and the delete are covered by one intent record.
      *
      * @param bookingID The unique ID of the booking to cancel
-     * @return true if successful, false if booking ID not found
+     * @return true if successful, false if booking ID not found or the seats could not be restored
      */
     public boolean cancelBooking(String bookingID) {
-        Booking booking = getBookingById(bookingID);
+        Booking booking = index().findById(bookingID);
         if (booking == null) return false;
 
-        // Load all trains to find the one we need to restore seats to
-        List<Train> allTrains = trainRepository.loadAll();
-
-        if (booking.getTrain() != null) {
-            for (Train t : allTrains) {
-                if (t.getTrainID().equals(booking.getTrain().getTrainID())) {
-                    // Restore Seats logic
-                    if (booking.getSeatTier() == SeatTier.STANDARD) {
-                        t.setStandardSeatQty(t.getStandardSeatQty() + booking.getNumOfSeatBook());
-                    } else {
-                        t.setPremiumSeatQty(t.getPremiumSeatQty() + booking.getNumOfSeatBook());
-                    }
-                    break;
-                }
-            }
-        }
-
-        // Commit changes
-        bookingRepository.delete(bookingID);
-        trainRepository.saveAll(allTrains); // Save restored seats
-        return true;
+        return transactions.run(() -> cancel(booking));
     }
 
 
     /**
      * Retrieves all bookings and "hydrates" them with full Train details.
      * The file only stores Train ID, so this method links the actual Train object.
+     * Trains are loaded once into a map keyed by Train ID, so hydration is one
+     * lookup per booking instead of a scan of the train list.
      *
      * @return List of fully populated Booking objects
      */
     public List<Booking> getAllBookings() {
-        List<Booking> bookings = bookingRepository.getAll();
-        List<Train> allTrains = trainRepository.loadAll(); // Use Repo directly
-
-        // Hydrate Bookings with full Train objects
-        for (Booking b : bookings) {
-            if (b.getTrain() == null) continue;
-            String trainId = b.getTrain().getTrainID();
+        return loadBookings(toTrainMap(getAvailableTrains()));
+    }
 
-            Train fullTrain = allTrains.stream()
-                    .filter(t -> t.getTrainID().equals(trainId))
-                    .findFirst()
-                    .orElse(null);
 
-            if (fullTrain != null) {
-                b.setTrain(fullTrain);
+    /**
+     * Finds the bookings on one train through the train index.
+     *
+     * @param trainId Train ID (e.g. "T001")
+     * @return bookings on the train, hydrated with the full Train
+     */
+    public List<Booking> findByTrain(String trainId) {
+        List<Booking> bookings = index().findByTrain(trainId);
+        if (!bookings.isEmpty()) {
+            Train train = findTrain(bookings.get(0).getTrain().getTrainID());
+            if (train != null) {
+                bookings.forEach(b -> b.setTrain(train));
             }
         }
         return bookings;
     }
 
 
+    /**
+     * Finds the bookings made by one staff member through the staff index.
+     *
+     * @param staffId Staff ID (e.g. "S001")
+     * @return bookings made by the staff member, hydrated
+     */
+    public List<Booking> findByStaff(String staffId) {
+        return hydrateAll(index().findByStaff(staffId));
+    }
+
+
+    /**
+     * Finds the bookings under a passenger name (case-insensitive) through the name index.
+     *
+     * @param name passenger name
+     * @return bookings under the name, hydrated
+     */
+    public List<Booking> findByPassengerName(String name) {
+        return hydrateAll(index().findByPassengerName(name));
+    }
+
+
     /**
      * Helper to find a specific booking by ID.
+     * Served from the booking-ID index, so only the matching booking is hydrated.
      *
      * @param id The Booking ID (e.g. "B001")
      * @return The Booking object, or null if not found
      */
     public Booking getBookingById(String id) {
-        return getAllBookings().stream()
-                .filter(b -> b.getBookingID().equalsIgnoreCase(id))
-                .findFirst()
-                .orElse(null);
+        Booking booking = index().findById(id);
+        if (booking == null || booking.getTrain() == null) return booking;
+
+        Train fullTrain = findTrain(booking.getTrain().getTrainID());
+        if (fullTrain != null) {
+            booking.setTrain(fullTrain);
+        }
+        return booking;
+    }
+
+
+    /**
+     * Builds the "Seat Revenue Analysis by Destination" report from the revenue view.
+     * Only trains are re-read (to pick up status changes); no booking is scanned.
+     *
+     * @return revenue grouped by destination and seat tier for active trains
+     */
+    public RevenueReport generateRevenueReport() {
+        RevenueView view = revenue();
+        view.syncTrains(getAvailableTrains());
+        return view.toReport();
+    }
+
+
+    /**
+     * Recomputes the revenue report with a full pass over the bookings.
+     * Slower than generateRevenueReport(); kept to audit the revenue view.
+     *
+     * @return revenue grouped by destination and seat tier for active trains
+     */
+    public RevenueReport generateRevenueReportFromBookings() {
+        List<Train> trains = getAvailableTrains();
+        List<Booking> bookings = loadBookings(toTrainMap(trains));
+        return revenueAggregator.aggregate(bookings, trains);
+    }
+
+
+    /**
+     * Builds the booking index and loads the revenue view up front, so the first
+     * search or report after startup is as fast as later ones.
+     */
+    public void warmUp() {
+        index();
+        revenue();
+    }
+
+
+    /**
+     * Redoes bookings and cancellations that a crash left half-applied.
+     * Call once at startup, before warmUp(), so the index and revenue view see the repaired data.
+     *
+     * @return number of transactions redone
+     */
+    public int recover() {
+        return transactions.recover();
+    }
+
+
+    /**
+     * Writes the seat changes still waiting for the background checkpoint to the train file,
+     * e.g. before the program exits.
+     *
+     * @throws java.io.UncheckedIOException if the train file could not be written; the changes
+     *         stay in the intent log and are written on the next checkpoint or startup
+     */
+    public void flushTrains() {
+        trainRegistry.checkpoint();
     }
 
 
     /**
      * Generates a new unique Booking ID (e.g., B001, B002).
-     * Scans existing bookings to find the highest number and increments it.
+     * IDs come from a block allocator, so this is O(1) and safe for concurrent callers.
+     * Existing bookings are scanned only once, to seed the sequence on first use.
      *
      * @return A formatted String ID
      */
     public String generateNewBookingId() {
-        int maxId = bookingRepository.getAll().stream()
-                .map(Booking::getBookingID)
-                .filter(id -> id != null && id.matches("B\\d+"))
-                .mapToInt(id -> Integer.parseInt(id.substring(1)))
+        return bookingIdAllocator.nextId();
+    }
+
+    // --- Private Helpers ---
+
+    private static TrainRegistry asRegistry(TrainInterface trainRepository) {
+        return trainRepository instanceof TrainRegistry shared ? shared : new TrainRegistry(trainRepository);
+    }
+
+    /**
+     * Cancels a booking found in the index, inside a transaction.
+     * @param booking the booking as held by the index
+     * @return true if cancelled, false if another terminal already cancelled it or the
+     *         seats could not be committed (the booking is then left as it was)
+     */
+    private boolean cancel(Booking booking) {
+        Booking stored = bookingRepository.findById(booking.getBookingID());
+        if (stored == null) {
+            index().remove(booking.getBookingID());
+            return false;
+        }
+        if (stored.getVersion() != booking.getVersion()) {
+            index().remove(booking.getBookingID());
+            index().add(stored);
+            booking = stored;
+        }
+
+        // Give the seats back to the train, freeing them in its seat map in the same commit
+        AtomicReference<String> txId = new AtomicReference<>();
+        Train train = (booking.getTrain() != null) ? findTrain(booking.getTrain().getTrainID()) : null;
+        if (train != null) {
+            booking.setTrain(train);
+            Booking cancelled = booking;
+            if (!commitSeats(train, booking.getSeatTier(), booking.getNumOfSeatBook(),
+                    t -> seatMaps.release(t, cancelled.getSeatTier(), cancelled.getSeatNumbers()),
+                    t -> transactions.logCancel(t, cancelled), txId)) {
+                return false;
+            }
+        }
+
+        // Commit changes
+        RevenueView view = revenue(); // load before the write so the cancellation is not applied twice
+        if (bookingRepository instanceof PartitionedBookingRepository partitioned && booking.getTrain() != null) {
+            partitioned.delete(booking.getTrain().getTrainID(), booking.getBookingID());
+        } else {
+            bookingRepository.delete(booking.getBookingID());
+        }
+        index().remove(booking.getBookingID());
+        if (booking.getTrain() != null) {
+            view.reverseBooking(booking.getTrain().getTrainID(), booking.getSeatTier(), booking.getTotalFareSen(),
+                    bookingRepository.stateToken());
+        }
+        transactions.applied(txId.get());
+        return true;
+    }
+
+    /**
+     * Loads a single train by ID: the live Train the train module also sees.
+     * @param trainId Train ID
+     * @return the Train, or null if it is not in the repository
+     */
+    private Train findTrain(String trainId) {
+        return trainRegistry.findById(trainId);
+    }
+
+    /**
+     * Adds a seat delta to a train's committed counts. Each attempt works on the latest
+     * stored version; a conflicting write from another terminal is retried.
+     * The transaction's intent is logged once the new counts are known; with an intent log that
+     * record is the commit, and the train file is left to the background checkpoint.
+     * @param train     train to change
+     * @param tier      seat tier
+     * @param delta     seats to add (negative to take)
+     * @param seatChange takes or frees the seat numbers on the train, before its counts change;
+     *                   throws IllegalStateException if the seats are not free
+     * @param logIntent logs the transaction given the train with its new counts; returns the transaction ID
+     * @param txId      receives the transaction ID of the committed attempt
+     * @return true if committed, false if not enough seats remain, every attempt conflicted,
+     *         or the intent or train could not be written (an intent already logged is then closed)
+     */
+    private boolean commitSeats(Train train, SeatTier tier, int delta,
+                                Consumer<Train> seatChange, Function<Train, String> logIntent,
+                                AtomicReference<String> txId) {
+        for (int attempt = 1; attempt <= MAX_COMMIT_ATTEMPTS; attempt++) {
+            try {
+                trainRegistry.stage(train.getTrainID(), trainRegistry.getVersion(train.getTrainID()), t -> {
+                    int before = tier == SeatTier.PREMIUM ? t.getPremiumSeatQty() : t.getStandardSeatQty();
+                    if (before + delta < 0) {
+                        throw new IllegalStateException("Not enough seats on " + t.getTrainID());
+                    }
+                    seatChange.accept(t);
+                    setSeats(t, tier, before + delta);
+                    addSold(t, tier, -delta);
+                    txId.set(logIntent.apply(t));
+                });
+                return true;
+            } catch (ConcurrentModificationException e) {
+                logger.fine("Seat commit conflict, retrying: " + e.getMessage());
+            } catch (IllegalStateException e) {
+                return false;
+            } catch (UncheckedIOException e) {
+                logger.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, e);
+                // The train was not written, so the logged intent must not be redone
+                transactions.complete(txId.getAndSet(null));
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stored bookings on a train, read when a train is given its seat map.
+     * @param trainId Train ID
+     * @return bookings on that train
+     */
+    private List<Booking> storedBookingsOnTrain(String trainId) {
+        if (bookingRepository instanceof PartitionedBookingRepository partitioned) {
+            return partitioned.getByTrain(trainId);
+        }
+        return bookingRepository.getAll().stream()
+                .filter(b -> b.getTrain() != null && trainId.equals(b.getTrain().getTrainID()))
+                .collect(Collectors.toList());
+    }
+
+    private int[] allocateSeats(Train train, Booking booking) {
+        int[] seats = seatMaps.allocate(train, booking.getSeatTier(), booking.getNumOfSeatBook());
+        if (seats == null) {
+            throw new IllegalStateException("Not enough free seats on " + train.getTrainID());
+        }
+        return seats;
+    }
+
+    private static void addSold(Train train, SeatTier tier, int seats) {
+        if (tier == SeatTier.PREMIUM) {
+            train.setPremiumSeatsSold(Math.max(0, train.getPremiumSeatsSold() + seats));
+        } else {
+            train.setStandardSeatsSold(Math.max(0, train.getStandardSeatsSold() + seats));
+        }
+    }
+
+    private static void setSeats(Train train, SeatTier tier, int quantity) {
+        if (tier == SeatTier.PREMIUM) {
+            train.setPremiumSeatQty(quantity);
+        } else {
+            train.setStandardSeatQty(quantity);
+        }
+    }
+
+    /**
+     * Loads all bookings, hydrates them and refreshes the booking-ID index.
+     * @param trainsById trains keyed by Train ID
+     * @return hydrated bookings
+     */
+    private List<Booking> loadBookings(Map<String, Train> trainsById) {
+        List<Booking> bookings = bookingRepository.getAll();
+
+        // Hydrate Bookings with full Train objects
+        for (Booking b : bookings) {
+            hydrate(b, trainsById);
+        }
+
+        // A full load is also a free refresh of the ID index
+        bookingIndex.rebuild(bookings);
+        bookingIndexLoaded = true;
+        return bookings;
+    }
+
+    /**
+     * Keys trains by Train ID for hydration.
+     * @param trains trains loaded once from the repository
+     * @return map of Train ID to Train
+     */
+    private Map<String, Train> toTrainMap(List<Train> trains) {
+        Map<String, Train> trainsById = new HashMap<>(trains.size() * 2);
+        for (Train t : trains) {
+            trainsById.put(t.getTrainID(), t);
+        }
+        return trainsById;
+    }
+
+    /**
+     * Replaces the ID-only Train reference on a booking with the full Train object.
+     * @param booking    booking to hydrate
+     * @param trainsById trains keyed by Train ID
+     */
+    private void hydrate(Booking booking, Map<String, Train> trainsById) {
+        if (booking.getTrain() == null) return;
+        Train fullTrain = trainsById.get(booking.getTrain().getTrainID());
+        if (fullTrain != null) {
+            booking.setTrain(fullTrain);
+        }
+    }
+
+    /**
+     * Hydrates an index query result, loading the trains only if there is something to hydrate.
+     * @param bookings bookings from the index
+     * @return the same bookings with full Train objects
+     */
+    private List<Booking> hydrateAll(List<Booking> bookings) {
+        if (!bookings.isEmpty()) {
+            Map<String, Train> trainsById = toTrainMap(getAvailableTrains());
+            bookings.forEach(b -> hydrate(b, trainsById));
+        }
+        return bookings;
+    }
+
+    /**
+     * Highest numeric Booking ID currently stored; used once to seed the ID allocator.
+     * @return highest booking number, or 0 if there are none
+     */
+    private long highestExistingBookingNumber() {
+        return bookingRepository.getAll().stream()
+                .mapToLong(b -> IdAllocator.numberOf(b.getBookingID(), "B"))
                 .max()
                 .orElse(0);
+    }
 
-        return String.format("B%03d", maxId + 1);
+    /**
+     * Returns the revenue view, loading it from disk or rebuilding it from the bookings on first use.
+     * @return the revenue view
+     */
+    private RevenueView revenue() {
+        if (!revenueView.isLoaded() && !revenueView.load(bookingRepository.stateToken())) {
+            String token = bookingRepository.stateToken(); // read before the bookings, so a racing write forces a rebuild
+            List<Train> trains = getAvailableTrains();
+            revenueView.rebuild(trains, loadBookings(toTrainMap(trains)), token);
+        }
+        return revenueView;
+    }
+
+    /**
+     * Returns the booking-ID index, loading it from the repository on first use.
+     * @return the booking index
+     */
+    private BookingIndex index() {
+        if (!bookingIndexLoaded) {
+            bookingIndex.rebuild(bookingRepository.getAll());
+            bookingIndexLoaded = true;
+        }
+        return bookingIndex;
     }
-}
\ No newline at end of file
+}
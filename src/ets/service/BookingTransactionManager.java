@@ -0,0 +1,337 @@
+package ets.service;
+
+import ets.model.Booking;
+import ets.model.IBookingRepository;
+import ets.model.PartitionedBookingRepository;
+import ets.model.SeatTier;
+import ets.model.Train;
+import ets.util.ErrorMessage;
+import ets.util.IntentLog;
+import ets.util.Money;
+import ets.util.PipeRecordReader;
+import ets.util.SeatNumbers;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Makes a booking or a cancellation all-or-nothing across the train, booking and staff files.
+ * Before the first file is touched, one intent record holding the final seat counts and seat
+ * numbers and the booking is synced to the intent log; that single sync is the commit point,
+ * and the only synchronous write of the transaction.
+ *
+ * The intent log is also the train registry's {@link TrainJournal}: the seat change is staged
+ * in the registry rather than written to the train file, and every read of the train file
+ * replays the logged seat changes it does not hold yet, so all terminals see them at once.
+ * Once the booking file is updated, the intent is marked applied and the staff counter is
+ * raised (written behind). A background checkpoint then writes the train file and completes
+ * the applied intents it holds.
+ *
+ * On startup, {@link #recover()} first writes every logged seat change to the train file,
+ * then redoes the booking step of every intent that was not applied, and clears the log.
+ * A booking is only added if missing (or deleted if present), so it may safely be redone.
+ * The staff counter is raised by one per redone booking and written once the log is cleared,
+ * so a crash during recovery may lose that increment but never counts it twice; an applied
+ * intent already handed its increment to the counter and is not counted again.
+ */
+public class BookingTransactionManager implements TrainJournal {
+
+    private static final Logger logger = Logger.getLogger(BookingTransactionManager.class.getName());
+
+    private static final String CREATE = "CREATE";
+    private static final String CANCEL = "CANCEL";
+
+    private final IntentLog log;
+    private final IBookingRepository bookingRepository;
+    private final TrainRegistry trainRegistry;
+    private final StaffService staffService;
+    private final SeatMaps seatMaps;
+
+    /**
+     * Attaches itself as the registry's journal when there is a log.
+     * @param log               intent log, or null to run without crash protection (e.g. in tests)
+     * @param bookingRepository repository the bookings are written to
+     * @param trainRegistry     registry the seat counts are committed through
+     * @param staffService      service holding the staff booking counters
+     * @param seatMaps          seat maps the logged seat changes are replayed on
+     */
+    public BookingTransactionManager(IntentLog log, IBookingRepository bookingRepository,
+                                     TrainRegistry trainRegistry, StaffService staffService,
+                                     SeatMaps seatMaps) {
+        this.log = log;
+        this.bookingRepository = bookingRepository;
+        this.trainRegistry = trainRegistry;
+        this.staffService = staffService;
+        this.seatMaps = seatMaps;
+        if (log != null) {
+            trainRegistry.setJournal(this);
+        }
+    }
+
+    /**
+     * Runs a booking or cancellation; recovery waits until it has finished.
+     * @param body the transaction
+     * @param <T>  result type
+     * @return the body's result
+     */
+    public <T> T run(Supplier<T> body) {
+        return log == null ? body.get() : log.inTransaction(body);
+    }
+
+    /**
+     * Logs a new booking. Called with the train already holding its new seat counts and
+     * seat numbers, but before its version is bumped and before anything is written.
+     * @param train   train with the seat counts after the booking
+     * @param booking the booking being created
+     * @return transaction ID, or null if there is no log
+     */
+    public String logCreate(Train train, Booking booking) {
+        if (log == null) return null;
+        return log.begin(String.join("|", CREATE, seatState(train),
+                booking.getBookingID(),
+                booking.getName(),
+                String.valueOf(booking.getSeatTier().getCode()),
+                String.valueOf(booking.getNumOfSeatBook()),
+                Money.format(booking.getTotalFareSen()),
+                booking.getStaffId() == null ? "" : booking.getStaffId(),
+                SeatNumbers.format(booking.getSeatNumbers())));
+    }
+
+    /**
+     * Logs a cancellation. Called like {@link #logCreate}, with the seats already given back.
+     * @param train   train with the seat counts after the cancellation
+     * @param booking the booking being cancelled
+     * @return transaction ID, or null if there is no log
+     */
+    public String logCancel(Train train, Booking booking) {
+        if (log == null) return null;
+        return log.begin(String.join("|", CANCEL, seatState(train), booking.getBookingID(),
+                String.valueOf(booking.getSeatTier().getCode()),
+                SeatNumbers.format(booking.getSeatNumbers())));
+    }
+
+    /**
+     * Marks a transaction's booking step as done. Its seat change completes it once a
+     * checkpoint has written the train file, which is scheduled here.
+     * @param txId ID returned by logCreate() or logCancel(); null is ignored
+     */
+    public void applied(String txId) {
+        if (log == null || txId == null) return;
+        trainRegistry.journalWrite(() -> log.applied(txId));
+        trainRegistry.scheduleCheckpoint();
+    }
+
+    /**
+     * Marks a transaction as fully applied, e.g. one whose seats could not be committed.
+     * @param txId ID returned by logCreate() or logCancel(); null is ignored
+     */
+    public void complete(String txId) {
+        if (log != null && txId != null) {
+            log.complete(txId);
+        }
+    }
+
+    /**
+     * Redoes the bookings and cancellations a crash left half-applied, then clears the log.
+     * Must run before the booking index and revenue view are loaded. If a file cannot be
+     * written, recovery stops and the log is kept, so the next startup redoes it again.
+     * @return number of transactions redone, including those only waiting for the train file
+     */
+    public int recover() {
+        if (log == null) return 0;
+        int redone;
+        try {
+            redone = log.recover(intents -> {
+                // The train file must hold every logged seat change before the log is cleared
+                trainRegistry.checkpoint();
+                for (IntentLog.Intent intent : intents) {
+                    if (intent.applied()) continue;
+                    try {
+                        redo(intent.payload());
+                    } catch (UncheckedIOException e) {
+                        throw e;
+                    } catch (RuntimeException e) {
+                        logger.log(Level.WARNING, ErrorMessage.CORRUPTED_DATA + intent.payload(), e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            logger.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, e);
+            return 0;
+        }
+        // Written only now that the log is cleared, so a second recovery cannot raise them again
+        staffService.flushBookingHandles();
+        if (redone > 0) {
+            logger.info("Redid " + redone + " incomplete booking transaction(s) from the intent log.");
+        }
+        return redone;
+    }
+
+    // =========================================================================
+    // SECTION: TrainJournal
+    // =========================================================================
+
+    /**
+     * Replays the seat changes of the pending intents: seat numbers are taken or freed and
+     * the logged seat counts set, on each train still at the version its intent was based on.
+     */
+    @Override
+    public List<String> replay(Map<String, Train> stored) {
+        List<String> held = new ArrayList<>();
+        if (log == null) return held;
+        for (IntentLog.Intent intent : log.pending()) {
+            try {
+                SeatChange change = SeatChange.parse(intent.payload());
+                Train train = stored.get(change.trainId());
+                if (train == null || train.getVersion() < change.baseVersion()) continue;
+                if (train.getVersion() == change.baseVersion()) {
+                    change.applyTo(train, seatMaps);
+                }
+                held.add(intent.id());
+            } catch (RuntimeException e) {
+                logger.log(Level.FINE, ErrorMessage.CORRUPTED_DATA + intent.payload(), e);
+            }
+        }
+        return held;
+    }
+
+    @Override
+    public String stateToken() {
+        return log == null ? null : log.stateToken();
+    }
+
+    @Override
+    public <T> T whileOpen(Supplier<T> action) {
+        return run(action);
+    }
+
+    /**
+     * Completes the applied intents the train file now holds. The others wait for their
+     * booking step, or for recovery if their terminal crashed.
+     */
+    @Override
+    public void checkpointed(List<String> ids) {
+        if (log == null || ids.isEmpty()) return;
+        Set<String> held = new HashSet<>(ids);
+        for (IntentLog.Intent intent : log.pending()) {
+            if (intent.applied() && held.contains(intent.id())) {
+                log.complete(intent.id());
+            }
+        }
+    }
+
+    // --- Private Helpers ---
+
+    private static String seatState(Train train) {
+        return String.join("|", train.getTrainID(), String.valueOf(train.getVersion()),
+                String.valueOf(train.getStandardSeatQty()), String.valueOf(train.getPremiumSeatQty()));
+    }
+
+    /**
+     * Redoes the booking step of an intent whose terminal crashed before it was applied.
+     * Its seat change is already in the train file (see {@link #recover()}).
+     */
+    private void redo(String payload) {
+        PipeRecordReader record = new PipeRecordReader().reset(payload);
+        String kind = record.nextString();
+        String trainId = record.nextString();
+        record.skip(); // base version
+        record.skip(); // standard seats
+        record.skip(); // premium seats
+
+        if (CREATE.equals(kind)) {
+            String bookingId = record.nextString();
+            String name = record.nextString();
+            SeatTier tier = SeatTier.fromCode(record.nextChar());
+            int seats = record.nextInt();
+            long fareSen = record.nextCents();
+            String staffId = record.hasNext() ? record.nextString() : null;
+            int[] seatNumbers = SeatNumbers.parse(record.hasNext() ? record.nextString() : null);
+            if (staffId != null && staffId.isEmpty()) {
+                staffId = null;
+            }
+
+            if (bookingRepository.findById(bookingId) == null) {
+                Train train = new Train();
+                train.setTrainID(trainId);
+                Booking booking = new Booking(bookingId, name, tier, seats, 0.0, train, staffId);
+                booking.setTotalFareSen(fareSen);
+                booking.setVersion(1);
+                booking.setSeatNumbers(seatNumbers);
+                bookingRepository.add(booking);
+            }
+            if (staffId != null) {
+                staffService.incrementBookingHandle(staffId);
+            }
+        } else if (CANCEL.equals(kind)) {
+            String bookingId = record.nextString();
+            if (bookingRepository.findById(bookingId) != null) {
+                if (bookingRepository instanceof PartitionedBookingRepository partitioned) {
+                    partitioned.delete(trainId, bookingId);
+                } else {
+                    bookingRepository.delete(bookingId);
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown transaction type: " + kind);
+        }
+    }
+
+    /**
+     * The seat part of an intent: the counts after the change, and the seat numbers taken
+     * (by a booking) or freed (by a cancellation).
+     */
+    private record SeatChange(boolean taken, String trainId, int baseVersion, int standardQty, int premiumQty,
+                              SeatTier tier, int[] seats) {
+
+        static SeatChange parse(String payload) {
+            PipeRecordReader record = new PipeRecordReader().reset(payload);
+            String kind = record.nextString();
+            if (!CREATE.equals(kind) && !CANCEL.equals(kind)) {
+                throw new IllegalArgumentException("Unknown transaction type: " + kind);
+            }
+            boolean taken = CREATE.equals(kind);
+            String trainId = record.nextString();
+            int baseVersion = record.nextInt();
+            int standardQty = record.nextInt();
+            int premiumQty = record.nextInt();
+            record.skip(); // booking ID
+            if (taken) {
+                record.skip(); // name
+            }
+            // Cancellations logged before seat numbers were kept hold no tier or seat numbers
+            SeatTier tier = record.hasNext() ? SeatTier.fromCode(record.nextChar()) : SeatTier.STANDARD;
+            if (taken) {
+                record.skip(); // seats
+                record.skip(); // fare
+                record.skip(); // staff ID
+            }
+            int[] seats = SeatNumbers.parse(record.hasNext() ? record.nextString() : null);
+            return new SeatChange(taken, trainId, baseVersion, standardQty, premiumQty, tier, seats);
+        }
+
+        /**
+         * Takes or frees the seat numbers, sets the counts, and bumps the train's version.
+         */
+        void applyTo(Train train, SeatMaps seatMaps) {
+            if (taken) {
+                seatMaps.claim(train, tier, seats);
+            } else {
+                seatMaps.release(train, tier, seats);
+            }
+            // Seats that left the counts were sold, and seats that came back were released
+            train.setStandardSeatsSold(Math.max(0, train.getStandardSeatsSold() + train.getStandardSeatQty() - standardQty));
+            train.setPremiumSeatsSold(Math.max(0, train.getPremiumSeatsSold() + train.getPremiumSeatQty() - premiumQty));
+            train.setStandardSeatQty(standardQty);
+            train.setPremiumSeatQty(premiumQty);
+            train.setVersion(baseVersion + 1);
+        }
+    }
+}
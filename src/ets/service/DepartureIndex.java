@@ -0,0 +1,101 @@
+package ets.service;
+
+import ets.model.Train;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Trains ordered by departure date and time.
+ * Range and next-N queries walk only the matching part of the tree instead of
+ * scanning every train. Trains departing at the same minute keep insertion order.
+ */
+public class DepartureIndex {
+
+    // Departure -> (Train ID -> Train)
+    private final NavigableMap<LocalDateTime, Map<String, Train>> byDeparture = new TreeMap<>();
+    private int size;
+
+    /**
+     * Adds a train under its current departure date and time.
+     * @param train train to index
+     */
+    public void add(Train train) {
+        Map<String, Train> slot = byDeparture.computeIfAbsent(departureOf(train), k -> new LinkedHashMap<>());
+        if (slot.put(train.getTrainID(), train) == null) {
+            size++;
+        }
+    }
+
+    /**
+     * Removes a train from the index.
+     * @param train train to remove (its departure must not have changed since it was added)
+     */
+    public void remove(Train train) {
+        remove(train.getTrainID(), departureOf(train));
+    }
+
+    /**
+     * Removes a train indexed under a given departure, e.g. one its train has since moved from.
+     * @param trainId   Train ID
+     * @param departure departure the train was added under
+     */
+    public void remove(String trainId, LocalDateTime departure) {
+        Map<String, Train> slot = byDeparture.get(departure);
+        if (slot != null && slot.remove(trainId) != null) {
+            size--;
+            if (slot.isEmpty()) {
+                byDeparture.remove(departure);
+            }
+        }
+    }
+
+    /**
+     * Trains departing within [from, to], in departure order.
+     * @param from earliest departure (inclusive)
+     * @param to   latest departure (inclusive)
+     * @return matching trains, empty if none or if from is after to
+     */
+    public List<Train> between(LocalDateTime from, LocalDateTime to) {
+        List<Train> result = new ArrayList<>();
+        if (from.isAfter(to)) return result;
+        for (Map<String, Train> slot : byDeparture.subMap(from, true, to, true).values()) {
+            result.addAll(slot.values());
+        }
+        return result;
+    }
+
+    /**
+     * The next trains departing at or after a point in time.
+     * @param from  earliest departure (inclusive)
+     * @param limit maximum number of trains to return
+     * @return up to limit trains, in departure order
+     */
+    public List<Train> next(LocalDateTime from, int limit) {
+        List<Train> result = new ArrayList<>(Math.min(limit, size));
+        for (Map<String, Train> slot : byDeparture.tailMap(from, true).values()) {
+            for (Train t : slot.values()) {
+                if (result.size() == limit) return result;
+                result.add(t);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of indexed trains.
+     * @return train count
+     */
+    public int size() {
+        return size;
+    }
+
+    static LocalDateTime departureOf(Train train) {
+        return LocalDateTime.of(train.getDepartureDate(), train.getDepartureTime());
+    }
+}
@@ -0,0 +1,115 @@
+package ets.service;
+
+import ets.model.PassengerTier;
+import ets.model.SeatTier;
+import ets.model.Train;
+import ets.util.AppConstants;
+import ets.util.Money;
+
+/**
+ * Unit fares of one train for every SeatTier x PassengerTier, in sen.
+ * Each unit fare is base price x tier discount x tax, rounded half-up to the sen once,
+ * so a quote is a table lookup times the quantity. A matrix is immutable and remembers
+ * the seat prices it was built from, so a cached matrix can tell when the train was repriced.
+ */
+public final class FareMatrix {
+
+    private static final int PASSENGER_TIERS = PassengerTier.values().length;
+
+    private final String trainId;
+    private final long standardPriceSen;
+    private final long premiumPriceSen;
+    // Indexed by [seatTier.ordinal() * PASSENGER_TIERS + passengerTier.ordinal()]
+    private final long[] unitFares = new long[SeatTier.values().length * PASSENGER_TIERS];
+
+    private FareMatrix(String trainId, long standardPriceSen, long premiumPriceSen) {
+        this.trainId = trainId;
+        this.standardPriceSen = standardPriceSen;
+        this.premiumPriceSen = premiumPriceSen;
+        for (SeatTier seatTier : SeatTier.values()) {
+            long base = seatTier == SeatTier.PREMIUM ? premiumPriceSen : standardPriceSen;
+            for (PassengerTier passengerTier : PassengerTier.values()) {
+                unitFares[slot(seatTier, passengerTier)] = unitFare(base, passengerTier);
+            }
+        }
+    }
+
+    /**
+     * Builds the matrix for a train's list prices.
+     * @param train train to price
+     * @return the fare matrix
+     */
+    public static FareMatrix of(Train train) {
+        return of(train.getTrainID(), PricingEngine.listPriceSen(train, SeatTier.STANDARD),
+                PricingEngine.listPriceSen(train, SeatTier.PREMIUM));
+    }
+
+    /**
+     * Builds the matrix for given seat prices, e.g. ones set by a pricing engine.
+     * @param trainId          train ID
+     * @param standardPriceSen standard seat price in sen
+     * @param premiumPriceSen  premium seat price in sen
+     * @return the fare matrix
+     */
+    public static FareMatrix of(String trainId, long standardPriceSen, long premiumPriceSen) {
+        return new FareMatrix(trainId, standardPriceSen, premiumPriceSen);
+    }
+
+    /**
+     * Fare of one seat: base price x tier discount x tax, rounded half-up to the sen.
+     * @param basePriceSen  seat price in sen
+     * @param passengerTier passenger loyalty tier
+     * @return unit fare in sen
+     */
+    public static long unitFare(long basePriceSen, PassengerTier passengerTier) {
+        return Money.times(basePriceSen, 1, passengerTier.getPriceBasisPoints(), AppConstants.SST_RATE_BASIS_POINTS);
+    }
+
+    /**
+     * Fare of one seat.
+     * @param seatTier      seat class
+     * @param passengerTier passenger loyalty tier
+     * @return unit fare in sen
+     */
+    public long getUnitFare(SeatTier seatTier, PassengerTier passengerTier) {
+        return unitFares[slot(seatTier, passengerTier)];
+    }
+
+    /**
+     * Total fare for a number of seats.
+     * @param seatTier      seat class
+     * @param passengerTier passenger loyalty tier
+     * @param quantity      number of seats
+     * @return total fare in sen
+     */
+    public long quote(SeatTier seatTier, PassengerTier passengerTier, int quantity) {
+        return Math.multiplyExact(getUnitFare(seatTier, passengerTier), quantity);
+    }
+
+    /**
+     * Whether this matrix was built from the given seat prices.
+     * @param standardPriceSen standard seat price in sen
+     * @param premiumPriceSen  premium seat price in sen
+     * @return true if the prices have not changed since the matrix was built
+     */
+    public boolean hasPrices(long standardPriceSen, long premiumPriceSen) {
+        return this.standardPriceSen == standardPriceSen && this.premiumPriceSen == premiumPriceSen;
+    }
+
+    /**
+     * Seat price the fares were calculated from, before passenger discount and tax.
+     * @param seatTier seat class
+     * @return seat price in sen
+     */
+    public long getSeatPrice(SeatTier seatTier) {
+        return seatTier == SeatTier.PREMIUM ? premiumPriceSen : standardPriceSen;
+    }
+
+    public String getTrainId() {
+        return trainId;
+    }
+
+    private static int slot(SeatTier seatTier, PassengerTier passengerTier) {
+        return seatTier.ordinal() * PASSENGER_TIERS + passengerTier.ordinal();
+    }
+}
@@ -0,0 +1,124 @@
+package ets.service;
+
+import ets.model.SeatTier;
+import ets.model.Train;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fare matrices keyed by Train ID.
+ * Seat prices come from a pluggable {@link PricingEngine} (list prices by default), given
+ * the seats sold that the train record commits with its seat counts, so every terminal
+ * prices a train from the same load.
+ * Matrices are built when a train is created or repriced; a lookup asks the engine for
+ * the current seat prices and rebuilds a matrix that no longer matches them, e.g. after
+ * a load step, or a reprice by another terminal, so a quote never uses outdated prices.
+ *
+ * Nothing here takes a lock: quotes read a concurrent map, and a batch reprice replaces
+ * matrices one by one, so repricing every train never holds up a booking.
+ */
+public class FareMatrixCache {
+
+    // One shared daemon thread runs the background repricing batches
+    private static final ExecutorService REPRICER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "fare-repricer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ConcurrentHashMap<String, FareMatrix> matrices = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private volatile PricingEngine pricingEngine = PricingEngine.LIST_PRICE;
+
+    public FareMatrixCache() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param clock clock the pricing engine is given the time of a quote from
+     */
+    public FareMatrixCache(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the train's fare matrix, building it if missing or outdated.
+     * @param train train to price
+     * @return the current fare matrix
+     */
+    public FareMatrix get(Train train) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        long standard = seatPrice(train, SeatTier.STANDARD, now);
+        long premium = seatPrice(train, SeatTier.PREMIUM, now);
+        FareMatrix matrix = matrices.get(train.getTrainID());
+        if (matrix == null || !matrix.hasPrices(standard, premium)) {
+            matrix = FareMatrix.of(train.getTrainID(), standard, premium);
+            matrices.put(train.getTrainID(), matrix);
+        }
+        return matrix;
+    }
+
+    /**
+     * Builds and caches the fare matrix for a train's current prices.
+     * @param train train that was created or repriced
+     * @return the new fare matrix
+     */
+    public FareMatrix rebuild(Train train) {
+        matrices.remove(train.getTrainID());
+        return get(train);
+    }
+
+    /**
+     * Brings the matrices of many trains up to date in the calling thread.
+     * @param trains trains to reprice
+     * @return number of matrices that were built or changed
+     */
+    public int repriceAll(Collection<Train> trains) {
+        int changed = 0;
+        for (Train train : trains) {
+            FareMatrix before = matrices.get(train.getTrainID());
+            if (get(train) != before) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Brings the matrices of many trains up to date on a background thread.
+     * @param trains trains to reprice; the caller must not modify the collection meanwhile
+     * @return the number of matrices that were built or changed, once done
+     */
+    public CompletableFuture<Integer> repriceAllAsync(Collection<Train> trains) {
+        return CompletableFuture.supplyAsync(() -> repriceAll(trains), REPRICER);
+    }
+
+    /**
+     * Replaces the pricing engine. Matrices follow the new prices on their next lookup.
+     * @param pricingEngine engine setting the seat prices
+     */
+    public void setPricingEngine(PricingEngine pricingEngine) {
+        this.pricingEngine = pricingEngine;
+    }
+
+    /**
+     * Number of cached matrices.
+     * @return cache size
+     */
+    public int size() {
+        return matrices.size();
+    }
+
+    // --- Private Helpers ---
+
+    private long seatPrice(Train train, SeatTier tier, LocalDateTime now) {
+        int seatsSold = tier == SeatTier.PREMIUM ? train.getPremiumSeatsSold() : train.getStandardSeatsSold();
+        return pricingEngine.seatPriceSen(train, tier, seatsSold, now);
+    }
+}
@@ -0,0 +1,114 @@
+package ets.service;
+
+import ets.model.SeatTier;
+import ets.model.Train;
+import ets.util.AppConstants;
+import ets.util.Money;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Yield-management pricing driven by two rule tables.
+ * <ul>
+ *   <li>Load rules step the price up as a tier sells out: load factor (percent of the
+ *       tier's seats sold) at or above a step to the rate applied, in basis points.</li>
+ *   <li>Last-minute rules drop the price of a train departing soon whose load is below
+ *       a threshold: hours left before departure, at or below a step, to the rate applied.</li>
+ * </ul>
+ * Both tables are expanded into arrays when the engine is created, so a quote is two
+ * array lookups. The result is kept within the seat price bounds the train validator
+ * enforces on list prices.
+ */
+public class LoadFactorPricingEngine implements PricingEngine {
+
+    private static final int PERCENT = 100;
+    // Last-minute rules reach back at most a year
+    private static final int MAX_LAST_MINUTE_HOURS = 24 * 365;
+
+    // Load factor 0..100 -> rate in basis points
+    private final int[] loadRates = new int[PERCENT + 1];
+    // Hours before departure 0..n -> rate in basis points; later than n hours is undiscounted
+    private final int[] lastMinuteRates;
+    private final int lowLoadPercent;
+
+    /**
+     * @param loadRules       lowest load factor (percent) of each step to its rate in basis points
+     * @param lastMinuteRules most hours before departure of each step to its rate in basis points
+     * @param lowLoadPercent  last-minute rates only apply below this load factor
+     * @throws IllegalArgumentException if a rule has a negative key or rate, a load key above 100
+     *         or a last-minute key beyond a year
+     */
+    public LoadFactorPricingEngine(Map<Integer, Integer> loadRules,
+                                   Map<Integer, Integer> lastMinuteRules,
+                                   int lowLoadPercent) {
+        NavigableMap<Integer, Integer> load = checked(loadRules, PERCENT);
+        NavigableMap<Integer, Integer> lastMinute = checked(lastMinuteRules, MAX_LAST_MINUTE_HOURS);
+        for (int percent = 0; percent <= PERCENT; percent++) {
+            Map.Entry<Integer, Integer> step = load.floorEntry(percent);
+            loadRates[percent] = step == null ? Money.BASIS_POINTS : step.getValue();
+        }
+        lastMinuteRates = new int[lastMinute.isEmpty() ? 0 : lastMinute.lastKey() + 1];
+        for (int hours = 0; hours < lastMinuteRates.length; hours++) {
+            lastMinuteRates[hours] = lastMinute.ceilingEntry(hours).getValue();
+        }
+        this.lowLoadPercent = lowLoadPercent;
+    }
+
+    /**
+     * Engine with the default rules: +10% from 50% sold, +25% from 70%, +50% from 85%
+     * and +75% from 95%; trains under 40% sold are 10% off within 48 hours of departure,
+     * 20% off within 24 hours and 30% off within 6 hours.
+     * @return the default engine
+     */
+    public static LoadFactorPricingEngine defaults() {
+        return new LoadFactorPricingEngine(
+                Map.of(50, 11_000, 70, 12_500, 85, 15_000, 95, 17_500),
+                Map.of(48, 9_000, 24, 8_000, 6, 7_000),
+                40);
+    }
+
+    @Override
+    public long seatPriceSen(Train train, SeatTier tier, int seatsSold, LocalDateTime now) {
+        int remaining = tier == SeatTier.PREMIUM ? train.getPremiumSeatQty() : train.getStandardSeatQty();
+        int capacity = Math.max(0, seatsSold) + Math.max(0, remaining);
+        int loadPercent = capacity == 0 ? PERCENT : (int) ((long) Math.max(0, seatsSold) * PERCENT / capacity);
+
+        int lastMinuteRate = Money.BASIS_POINTS;
+        if (loadPercent < lowLoadPercent) {
+            long hours = hoursToDeparture(train, now);
+            if (hours >= 0 && hours < lastMinuteRates.length) {
+                lastMinuteRate = lastMinuteRates[(int) hours];
+            }
+        }
+
+        long price = Money.times(PricingEngine.listPriceSen(train, tier), 1, loadRates[loadPercent], lastMinuteRate);
+        return clamp(price, tier);
+    }
+
+    // --- Private Helpers ---
+
+    private static long hoursToDeparture(Train train, LocalDateTime now) {
+        if (train.getDepartureDate() == null || train.getDepartureTime() == null) return -1;
+        return Duration.between(now, LocalDateTime.of(train.getDepartureDate(), train.getDepartureTime())).toHours();
+    }
+
+    private static long clamp(long priceSen, SeatTier tier) {
+        long min = Money.ofRinggit(tier == SeatTier.PREMIUM ? AppConstants.MIN_PREMIUM_PRICE : AppConstants.MIN_STANDARD_PRICE);
+        long max = Money.ofRinggit(tier == SeatTier.PREMIUM ? AppConstants.MAX_PREMIUM_PRICE : AppConstants.MAX_STANDARD_PRICE);
+        return Math.max(min, Math.min(max, priceSen));
+    }
+
+    private static NavigableMap<Integer, Integer> checked(Map<Integer, Integer> rules, int maxKey) {
+        NavigableMap<Integer, Integer> sorted = new TreeMap<>(rules);
+        sorted.forEach((key, rate) -> {
+            if (key < 0 || key > maxKey || rate < 0) {
+                throw new IllegalArgumentException("Invalid pricing rule: " + key + " -> " + rate);
+            }
+        });
+        return sorted;
+    }
+}
@@ -1,22 +1,37 @@
 package ets.service;
 
+import ets.model.CachingPassengerRepository;
 import ets.model.IPassengerRepository;
 import ets.model.Passenger;
 import ets.model.PassengerRepository;
 import ets.model.PassengerTier;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Optional;
 
 /**
- * PassengerService - Core business logic layer for the passenger module
+ * PassengerService - Core business logic layer for the passenger module.
+ * Passengers are held in memory, indexed by ID and by IC. Every lookup, check and write
+ * first compares the repository's state token with the one the indexes were loaded under,
+ * and reloads them only when it changed (another terminal saved), so a lookup or unique-IC
+ * check is O(1). Every write runs as one locked read-modify-write that updates the indexes
+ * in place and saves once, so terminals never save a stale list over each other and IC
+ * uniqueness holds across them. A repository without a state token is re-read every time.
  */
 public class PassengerService {
 
     private final IPassengerRepository repository;
     private final PassengerValidator validator;
+    private LinkedHashMap<String, Passenger> passengerCache = new LinkedHashMap<>();
+    private final HashMap<String, String> idByIc = new HashMap<>();
+    // State token the indexes were loaded or last saved under; null forces a reload
+    private String loadedToken;
 
     public PassengerService(IPassengerRepository repository,
                             PassengerValidator validator) {
@@ -28,15 +43,20 @@ public class PassengerService {
      * Convenience constructor if you just want to use the file-based repository.
      */
     public PassengerService() {
-        this(new PassengerRepository(), new PassengerValidator());
+        this(new CachingPassengerRepository(new PassengerRepository()), new PassengerValidator());
     }
 
     /**
      * Use for list all passenger data
      * @return all passengers data
      */
-    public Collection<Passenger> getAllPassengers() {
-        return repository.getAll().values();
+    public synchronized Collection<Passenger> getAllPassengers() {
+        refresh();
+        List<Passenger> copies = new ArrayList<>(passengerCache.size());
+        for (Passenger p : passengerCache.values()) {
+            copies.add(new Passenger(p));
+        }
+        return Collections.unmodifiableCollection(copies);
     }
 
     /**
@@ -75,14 +95,15 @@ public class PassengerService {
     /**
      * Search passenger using id
      * @param id Passenger's id
-     * @return passenger data
+     * @return a copy of the passenger data, so edits stay pending until updatePassenger
      */
-    public Optional<Passenger> findById(String id) {
+    public synchronized Optional<Passenger> findById(String id) {
         if (id == null) {
             return Optional.empty();
         }
-        Passenger p = repository.getAll().get(id);
-        return Optional.ofNullable(p);
+        refresh();
+        Passenger p = passengerCache.get(id);
+        return p == null ? Optional.empty() : Optional.of(new Passenger(p));
     }
 
     /**
@@ -93,54 +114,62 @@ public class PassengerService {
      * @param gender Passenger's gender
      * @return new passenger data
      */
-    public Passenger registerNewPassenger(String name,
-                                          String contactNo,
-                                          String ic,
-                                          char gender) {
+    public synchronized Passenger registerNewPassenger(String name,
+                                                       String contactNo,
+                                                       String ic,
+                                                       char gender) {
 
         validator.validateName(name);
         validator.validateContact(contactNo);
         validator.validateIc(ic);
-        ensureIcUnique(ic, null);
         validator.validateGender(gender);
 
-        PassengerRepository concreteRepo = ensureConcreteRepo();
+        return repository.atomically(() -> {
+            refresh();
+            ensureIcUnique(ic, null);
 
-        String id = concreteRepo.generateNewId();
-        LocalDate joinedDate = LocalDate.now();
-        PassengerTier defaultTier = PassengerTier.NORMAL;
+            String id = repository.generateNewId();
+            LocalDate joinedDate = LocalDate.now();
+            PassengerTier defaultTier = PassengerTier.NORMAL;
 
-        Passenger newPassenger = new Passenger(
-                name, contactNo, ic, id, Character.toUpperCase(gender),
-                joinedDate, defaultTier
-        );
+            Passenger newPassenger = new Passenger(
+                    name, contactNo, ic, id, Character.toUpperCase(gender),
+                    joinedDate, defaultTier
+            );
 
-        LinkedHashMap<String, Passenger> all = repository.getAll();
-        all.put(id, newPassenger);
-        repository.saveAll(all.values());
+            passengerCache.put(id, newPassenger);
+            idByIc.put(ic, id);
+            save();
 
-        return newPassenger;
+            return new Passenger(newPassenger);
+        });
     }
 
     /**
      * Update passenger information in the system
      * @param updatedPassenger updated passenger data
      */
-    public void updatePassenger(Passenger updatedPassenger) {
-        LinkedHashMap<String, Passenger> all = repository.getAll();
-
-        if (!all.containsKey(updatedPassenger.getId())) {
-            throw new IllegalArgumentException("Passenger not found: " + updatedPassenger.getId());
-        }
-
+    public synchronized void updatePassenger(Passenger updatedPassenger) {
         validator.validateName(updatedPassenger.getName());
         validator.validateContact(updatedPassenger.getContactNo());
         validator.validateIc(updatedPassenger.getIc());
-        ensureIcUnique(updatedPassenger.getIc(), updatedPassenger.getId());
         validator.validateGender(updatedPassenger.getGender());
 
-        all.put(updatedPassenger.getId(), updatedPassenger);
-        repository.saveAll(all.values());
+        repository.atomically(() -> {
+            refresh();
+            Passenger current = passengerCache.get(updatedPassenger.getId());
+
+            if (current == null) {
+                throw new IllegalArgumentException("Passenger not found: " + updatedPassenger.getId());
+            }
+            ensureIcUnique(updatedPassenger.getIc(), updatedPassenger.getId());
+
+            idByIc.remove(current.getIc());
+            idByIc.put(updatedPassenger.getIc(), updatedPassenger.getId());
+            passengerCache.put(updatedPassenger.getId(), new Passenger(updatedPassenger));
+            save();
+            return null;
+        });
     }
 
     /**
@@ -148,47 +177,66 @@ public class PassengerService {
      * @param passengerId Passenger's id
      * @param newTierCode Passenger's tier in the system
      */
-    public void changeTier(String passengerId, char newTierCode) {
-        LinkedHashMap<String, Passenger> all = repository.getAll();
-
-        Passenger p = all.get(passengerId);
-        if (p == null) {
-            throw new IllegalArgumentException("Passenger not found: " + passengerId);
-        }
-
+    public synchronized void changeTier(String passengerId, char newTierCode) {
         validator.validateTier(newTierCode);
         PassengerTier newTier = PassengerTier.fromCode(newTierCode);
-        p.setPassengerTier(newTier);
-        repository.saveAll(all.values());
+
+        repository.atomically(() -> {
+            refresh();
+            Passenger p = passengerCache.get(passengerId);
+            if (p == null) {
+                throw new IllegalArgumentException("Passenger not found: " + passengerId);
+            }
+
+            Passenger changed = new Passenger(p);
+            changed.setPassengerTier(newTier);
+            passengerCache.put(passengerId, changed);
+            save();
+            return null;
+        });
     }
 
 
     /**
-     * To check the PassengerRepository is concrete
-     * @return PassengerRepository
+     * Re-reads the passengers from the repository and rebuilds the IC index, unless the
+     * repository is unchanged since they were loaded
      */
-    private PassengerRepository ensureConcreteRepo() {
-        if (repository instanceof PassengerRepository repo) {
-            return repo;
+    private void refresh() {
+        String token = repository.stateToken();
+        if (token != null && token.equals(loadedToken)) {
+            return;
+        }
+        passengerCache = repository.getAll();
+        idByIc.clear();
+        for (Passenger p : passengerCache.values()) {
+            idByIc.put(p.getIc(), p.getId());
         }
-        throw new IllegalStateException(
-                "New ID generation requires PassengerRepository concrete type.");
+        loadedToken = token;
     }
 
     /**
-     * To ensure the IC is unique for all passengers
+     * Saves the passengers and records the token they were saved under. Called inside
+     * the repository's atomically step, so no other terminal can save in between.
+     * A save replaces the file, so an unchanged token means the save failed; the indexes
+     * are then reloaded from the stored passengers on next use.
+     */
+    private void save() {
+        String before = repository.stateToken();
+        loadedToken = null;
+        repository.saveAll(passengerCache.values());
+        String after = repository.stateToken();
+        loadedToken = after != null && !after.equals(before) ? after : null;
+    }
+
+    /**
+     * To ensure the IC is unique for all passengers, using the IC index
      * @param ic Passenger's ic
      * @param currentPassengerId Passenger's id
      */
     private void ensureIcUnique(String ic, String currentPassengerId) {
-        LinkedHashMap<String, Passenger> all = repository.getAll();
-
-        for (Passenger existing : all.values()) {
-            if (existing.getIc().equals(ic)) {
-                if (!existing.getId().equals(currentPassengerId)) {
-                    throw new IllegalArgumentException("IC is already registered in the system.");
-                }
-            }
+        String ownerId = idByIc.get(ic);
+        if (ownerId != null && !ownerId.equals(currentPassengerId)) {
+            throw new IllegalArgumentException("IC is already registered in the system.");
         }
     }
 
@@ -0,0 +1,41 @@
+package ets.service;
+
+import ets.model.SeatTier;
+import ets.model.Train;
+import ets.util.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * Decides the seat price a fare is calculated from.
+ * The price entered by staff on the Train is the list price; an engine may adjust it,
+ * e.g. for load or time to departure. Engines are called on every quote, so an
+ * implementation must be cheap and must not block.
+ */
+public interface PricingEngine {
+
+    /**
+     * Charges the list price unchanged.
+     */
+    PricingEngine LIST_PRICE = (train, tier, seatsSold, now) -> listPriceSen(train, tier);
+
+    /**
+     * Price of one seat before passenger discount and tax.
+     * @param train     train being priced
+     * @param tier      seat class
+     * @param seatsSold seats of this tier already booked on the train, as committed on its record
+     * @param now       time of the quote
+     * @return seat price in sen
+     */
+    long seatPriceSen(Train train, SeatTier tier, int seatsSold, LocalDateTime now);
+
+    /**
+     * The price entered by staff for a seat class.
+     * @param train train being priced
+     * @param tier  seat class
+     * @return list price in sen
+     */
+    static long listPriceSen(Train train, SeatTier tier) {
+        return Money.ofRinggit(tier == SeatTier.PREMIUM ? train.getPremiumSeatPrice() : train.getStandardSeatPrice());
+    }
+}
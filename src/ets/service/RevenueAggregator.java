@@ -0,0 +1,73 @@
+package ets.service;
+
+import ets.model.Booking;
+import ets.model.SeatTier;
+import ets.model.Train;
+import ets.model.TrainStatus;
+import ets.util.AppConstants;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Aggregation engine behind the revenue report.
+ * Groups booking revenue by destination and SeatTier in a single pass over the
+ * bookings, switching to a parallel stream once the booking list is large enough.
+ * Fares are summed as long sen, so the totals are exact whatever the summation order.
+ */
+public class RevenueAggregator {
+
+    private static final int TIER_COUNT = SeatTier.values().length;
+
+    /**
+     * Builds the report, running in parallel above AppConstants.PARALLEL_REPORT_THRESHOLD bookings.
+     * @param bookings hydrated bookings
+     * @param trains   all trains; active ones define the destinations listed
+     * @return the aggregated report
+     */
+    public RevenueReport aggregate(List<Booking> bookings, List<Train> trains) {
+        return aggregate(bookings, trains, bookings.size() >= AppConstants.PARALLEL_REPORT_THRESHOLD);
+    }
+
+    /**
+     * Builds the report. Only bookings on active trains are counted.
+     * @param bookings hydrated bookings
+     * @param trains   all trains; active ones define the destinations listed
+     * @param parallel true to aggregate with a parallel stream
+     * @return the aggregated report
+     */
+    public RevenueReport aggregate(List<Booking> bookings, List<Train> trains, boolean parallel) {
+        // Every active destination is listed, even if it has no revenue yet
+        LinkedHashMap<String, long[]> revenue = new LinkedHashMap<>();
+        for (Train t : trains) {
+            if (t.getStatus() == TrainStatus.ACTIVE) {
+                revenue.putIfAbsent(t.getDestination(), new long[TIER_COUNT]);
+            }
+        }
+
+        Stream<Booking> stream = parallel ? bookings.parallelStream() : bookings.stream();
+        Map<String, long[]> sums = stream
+                .filter(b -> b.getTrain() != null && b.getTrain().getStatus() == TrainStatus.ACTIVE)
+                .collect(HashMap::new, RevenueAggregator::accumulate, RevenueAggregator::combine);
+
+        combine(revenue, sums);
+        return new RevenueReport(revenue, bookings.size());
+    }
+
+    private static void accumulate(Map<String, long[]> sums, Booking b) {
+        sums.computeIfAbsent(b.getTrain().getDestination(), d -> new long[TIER_COUNT])
+                [b.getSeatTier().ordinal()] += b.getTotalFareSen();
+    }
+
+    private static void combine(Map<String, long[]> target, Map<String, long[]> source) {
+        source.forEach((destination, amounts) -> {
+            long[] into = target.computeIfAbsent(destination, d -> new long[TIER_COUNT]);
+            for (int i = 0; i < TIER_COUNT; i++) {
+                into[i] += amounts[i];
+            }
+        });
+    }
+}
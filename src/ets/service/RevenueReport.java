@@ -0,0 +1,109 @@
+package ets.service;
+
+import ets.model.SeatTier;
+import ets.util.Money;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of the "Seat Revenue Analysis by Destination" report.
+ * Holds revenue per destination and SeatTier for active trains; the UI only renders it.
+ * Amounts are kept in sen, so subtotals and the overall total are exact; the RM getters
+ * only convert for display.
+ */
+public class RevenueReport {
+
+    private final Map<String, long[]> revenueByDestination;
+    private final int bookingCount;
+
+    /**
+     * @param revenueByDestination revenue in sen per destination, indexed by SeatTier ordinal
+     * @param bookingCount         number of bookings the report was built from
+     */
+    public RevenueReport(LinkedHashMap<String, long[]> revenueByDestination, int bookingCount) {
+        this.revenueByDestination = revenueByDestination;
+        this.bookingCount = bookingCount;
+    }
+
+    /**
+     * Destinations covered by the report, in the order they should be printed.
+     * @return destination names
+     */
+    public Set<String> getDestinations() {
+        return Collections.unmodifiableSet(revenueByDestination.keySet());
+    }
+
+    /**
+     * Revenue for one destination and seat tier.
+     * @param destination destination name
+     * @param tier        seat tier
+     * @return revenue in RM, 0 if the destination has none
+     */
+    public double getRevenue(String destination, SeatTier tier) {
+        return Money.toRinggit(getRevenueSen(destination, tier));
+    }
+
+    /**
+     * Revenue for one destination and seat tier, exact.
+     * @param destination destination name
+     * @param tier        seat tier
+     * @return revenue in sen, 0 if the destination has none
+     */
+    public long getRevenueSen(String destination, SeatTier tier) {
+        long[] revenue = revenueByDestination.get(destination);
+        return revenue == null ? 0 : revenue[tier.ordinal()];
+    }
+
+    /**
+     * Revenue for one seat tier across all destinations.
+     * @param tier seat tier
+     * @return subtotal in RM
+     */
+    public double getSubtotal(SeatTier tier) {
+        return Money.toRinggit(getSubtotalSen(tier));
+    }
+
+    /**
+     * Revenue for one seat tier across all destinations, exact.
+     * @param tier seat tier
+     * @return subtotal in sen
+     */
+    public long getSubtotalSen(SeatTier tier) {
+        long total = 0;
+        for (long[] revenue : revenueByDestination.values()) {
+            total += revenue[tier.ordinal()];
+        }
+        return total;
+    }
+
+    /**
+     * Revenue across all destinations and tiers.
+     * @return overall total in RM
+     */
+    public double getTotal() {
+        return Money.toRinggit(getTotalSen());
+    }
+
+    /**
+     * Revenue across all destinations and tiers, exact.
+     * @return overall total in sen
+     */
+    public long getTotalSen() {
+        long total = 0;
+        for (SeatTier tier : SeatTier.values()) {
+            total += getSubtotalSen(tier);
+        }
+        return total;
+    }
+
+    /**
+     * Number of bookings the report was generated from.
+     * @return booking count
+     */
+    public int getBookingCount() {
+        return bookingCount;
+    }
+}
@@ -0,0 +1,510 @@
+package ets.service;
+
+import ets.model.Booking;
+import ets.model.SeatTier;
+import ets.model.Train;
+import ets.model.TrainStatus;
+import ets.util.AppConstants;
+import ets.util.ErrorMessage;
+import ets.util.FileLockManager;
+import ets.util.PipeRecordReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Incrementally maintained revenue aggregate (a materialized view over the bookings).
+ * Revenue is kept per destination x seat tier x train status and updated as bookings
+ * are created or cancelled, so the revenue report costs O(destinations) instead of
+ * O(bookings). Amounts are held and persisted in sen, so incremental updates never
+ * drift from a rebuild, and the whole view can be rebuilt from the bookings at any time.
+ *
+ * The file holds a snapshot of the per-train shares followed by one appended delta line
+ * per booking or cancellation, written under the file's exclusive lock and not synced.
+ * Before every read or update a terminal applies the deltas other terminals appended
+ * since, so all terminals converge on the same totals instead of overwriting each other.
+ * Each line records the booking repository's state token after the change; on startup
+ * the view is only trusted if its last token matches the repository's current one.
+ * Once enough deltas pile up, the file is rewritten as a fresh snapshot.
+ */
+public class RevenueView {
+
+    private static final Logger logger = Logger.getLogger(RevenueView.class.getName());
+    private static final int TIERS = SeatTier.values().length;
+    // "#2|generation|bookingCount|token": a snapshot header; "#|..." marks the old whole-file format
+    private static final String HEADER = "#2";
+    private static final String SHARE = "S";
+    private static final String DELTA = "D";
+    private static final int MAX_HEADER_BYTES = 256;
+
+    /**
+     * Revenue contributed by one train, tagged with the destination and status it counts under.
+     */
+    private static class Share {
+        private String destination;
+        private TrainStatus status;
+        private final long[] revenue = new long[TIERS];
+    }
+
+    private final String filePath;
+    private final int compactThreshold;
+    private final Map<String, Share> sharesByTrain = new LinkedHashMap<>();
+    // destination -> revenue indexed by [status.ordinal() * TIERS + tier.ordinal()]
+    private final Map<String, long[]> buckets = new LinkedHashMap<>();
+    // destination -> number of ACTIVE trains, so zero-revenue active destinations are still listed
+    private final Map<String, Integer> activeTrains = new LinkedHashMap<>();
+    private int bookingCount;
+    private boolean loaded;
+
+    // Position in the file: snapshot generation, bytes applied, deltas since the snapshot, token of the last line
+    private long generation = -1;
+    private long fileOffset;
+    private int deltaLines;
+    private String lastToken = "";
+    // Trains last passed to syncTrains, re-applied whenever another terminal's snapshot is reloaded
+    private Collection<Train> syncedTrains = List.of();
+
+    /**
+     * @param filePath file the view is persisted to, or null to keep it in memory only
+     */
+    public RevenueView(String filePath) {
+        this(filePath, AppConstants.REVENUE_VIEW_COMPACT_THRESHOLD);
+    }
+
+    /**
+     * Constructor that allows tests to set the compaction threshold.
+     * @param filePath         file the view is persisted to, or null to keep it in memory only
+     * @param compactThreshold number of appended deltas that triggers a snapshot rewrite
+     */
+    public RevenueView(String filePath, int compactThreshold) {
+        this.filePath = filePath;
+        this.compactThreshold = compactThreshold;
+    }
+
+    /**
+     * Whether the view has been loaded or rebuilt yet.
+     * @return true once the view holds data
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Loads the persisted view if it was last written at the given booking state.
+     * @param expectedToken the booking repository's current state token, or null if it has none
+     * @return true if the file was loaded, false if it is missing or stale and a rebuild is needed
+     */
+    public boolean load(String expectedToken) {
+        if (filePath == null || expectedToken == null) return false;
+        return locked(false, () -> {
+            reload();
+            if (generation < 0 || !expectedToken.equals(lastToken)) {
+                clear();
+                generation = -1;
+                return false;
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Rebuilds the view from scratch and persists it as a new snapshot.
+     * @param trains   all trains, registered first so destinations follow train order
+     * @param bookings hydrated bookings
+     * @param token    booking repository state token read before the bookings, or null
+     */
+    public void rebuild(Collection<Train> trains, Collection<Booking> bookings, String token) {
+        locked(true, () -> {
+            clear();
+            trains.forEach(this::registerTrain);
+            for (Booking b : bookings) {
+                if (b.getTrain() == null || b.getTrain().getDestination() == null) continue;
+                addToShare(shareFor(b.getTrain()), b.getSeatTier(), b.getTotalFareSen());
+            }
+            bookingCount = bookings.size();
+            lastToken = token == null ? "" : token;
+            loaded = true;
+            writeSnapshot();
+            return null;
+        });
+    }
+
+    /**
+     * Adds a committed booking's fare to the view.
+     * @param train train the booking is on
+     * @param tier  seat tier booked
+     * @param fare  total fare of the booking, in sen
+     * @param token booking repository state token after the booking was written, or null
+     */
+    public void recordBooking(Train train, SeatTier tier, long fare, String token) {
+        update(train.getTrainID(), train.getDestination(), train.getStatus(), tier, fare, 1, token);
+    }
+
+    /**
+     * Removes a cancelled booking's fare from the view.
+     * @param trainId Train ID the booking was on
+     * @param tier    seat tier booked
+     * @param fare    total fare of the booking, in sen
+     * @param token   booking repository state token after the booking was deleted, or null
+     */
+    public void reverseBooking(String trainId, SeatTier tier, long fare, String token) {
+        update(trainId, null, null, tier, -fare, -1, token);
+    }
+
+    /**
+     * Re-tags trains whose destination or status changed and registers new trains.
+     * Costs O(trains) and touches no bookings. Tags are derived from the trains, so they
+     * are only kept in memory (and in the next snapshot).
+     * @param trains current trains
+     */
+    public void syncTrains(Collection<Train> trains) {
+        locked(false, () -> {
+            catchUp();
+            syncedTrains = trains;
+            retag(trains);
+            return null;
+        });
+    }
+
+    /**
+     * Revenue for one destination, tier and train status.
+     * @param destination destination name
+     * @param tier        seat tier
+     * @param status      train status
+     * @return revenue in sen
+     */
+    public long getRevenue(String destination, SeatTier tier, TrainStatus status) {
+        return locked(false, () -> {
+            catchUp();
+            long[] bucket = buckets.get(destination);
+            return bucket == null ? 0 : bucket[slot(status, tier)];
+        });
+    }
+
+    /**
+     * Builds the report from the active buckets in O(destinations).
+     * @return revenue report for active trains
+     */
+    public RevenueReport toReport() {
+        return locked(false, () -> {
+            catchUp();
+            return buildReport();
+        });
+    }
+
+    // --- Private Helpers ---
+
+    private RevenueReport buildReport() {
+        LinkedHashMap<String, long[]> revenue = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> entry : buckets.entrySet()) {
+            if (activeTrains.getOrDefault(entry.getKey(), 0) == 0) continue;
+            long[] perTier = new long[TIERS];
+            for (SeatTier tier : SeatTier.values()) {
+                perTier[tier.ordinal()] = entry.getValue()[slot(TrainStatus.ACTIVE, tier)];
+            }
+            revenue.put(entry.getKey(), perTier);
+        }
+        return new RevenueReport(revenue, bookingCount);
+    }
+
+    /**
+     * Runs an action under the file lock (if the view is persisted), then this view's monitor.
+     * The order is always file lock first, so two terminals' threads cannot deadlock.
+     */
+    private <T> T locked(boolean exclusive, Supplier<T> action) {
+        Supplier<T> guarded = () -> {
+            synchronized (this) {
+                return action.get();
+            }
+        };
+        if (filePath == null) return guarded.get();
+        FileLockManager lock = FileLockManager.forPath(filePath);
+        return exclusive ? lock.write(guarded) : lock.read(guarded);
+    }
+
+    private void retag(Collection<Train> trains) {
+        for (Train t : trains) {
+            Share share = sharesByTrain.get(t.getTrainID());
+            if (share == null) {
+                registerTrain(t);
+            } else if (!share.destination.equals(t.getDestination()) || share.status != t.getStatus()) {
+                moveShare(share, t.getDestination(), t.getStatus());
+            }
+        }
+    }
+
+    private void update(String trainId, String destination, TrainStatus status,
+                        SeatTier tier, long amount, int countDelta, String token) {
+        locked(true, () -> {
+            catchUp();
+            Share share = sharesByTrain.get(trainId);
+            String dest = destination != null ? destination : share != null ? share.destination : "";
+            TrainStatus tag = status != null ? status : share != null ? share.status : TrainStatus.ACTIVE;
+            applyDelta(trainId, dest, tag, tier, amount, countDelta);
+            lastToken = token == null ? "" : token;
+            if (generation < 0) {
+                writeSnapshot(); // nothing on file yet to append to
+            } else {
+                append(String.join("|", DELTA, trainId, dest, String.valueOf(tag.toBoolean()),
+                        String.valueOf(tier.getCode()), String.valueOf(amount), String.valueOf(countDelta), lastToken));
+                if (deltaLines >= compactThreshold) {
+                    writeSnapshot();
+                }
+            }
+            return null;
+        });
+    }
+
+    private void applyDelta(String trainId, String destination, TrainStatus status,
+                            SeatTier tier, long amount, int countDelta) {
+        Share share = sharesByTrain.get(trainId);
+        if (share == null && !destination.isEmpty()) {
+            share = shareFor(trainId, destination, status);
+        }
+        if (share != null) {
+            addToShare(share, tier, amount);
+        }
+        bookingCount += countDelta;
+    }
+
+    private void clear() {
+        sharesByTrain.clear();
+        buckets.clear();
+        activeTrains.clear();
+        bookingCount = 0;
+        loaded = false;
+    }
+
+    private void registerTrain(Train train) {
+        shareFor(train);
+    }
+
+    private Share shareFor(Train train) {
+        return shareFor(train.getTrainID(), train.getDestination(), train.getStatus());
+    }
+
+    private Share shareFor(String trainId, String destination, TrainStatus status) {
+        Share share = sharesByTrain.get(trainId);
+        if (share == null) {
+            share = new Share();
+            share.destination = destination;
+            share.status = status;
+            sharesByTrain.put(trainId, share);
+            buckets.computeIfAbsent(destination, d -> new long[TIERS * TrainStatus.values().length]);
+            if (status == TrainStatus.ACTIVE) {
+                activeTrains.merge(destination, 1, Integer::sum);
+            }
+        }
+        return share;
+    }
+
+    private void addToShare(Share share, SeatTier tier, long amount) {
+        share.revenue[tier.ordinal()] += amount;
+        buckets.get(share.destination)[slot(share.status, tier)] += amount;
+    }
+
+    private void moveShare(Share share, String destination, TrainStatus status) {
+        long[] oldBucket = buckets.get(share.destination);
+        for (SeatTier tier : SeatTier.values()) {
+            oldBucket[slot(share.status, tier)] -= share.revenue[tier.ordinal()];
+        }
+        if (share.status == TrainStatus.ACTIVE) {
+            activeTrains.computeIfPresent(share.destination, (d, n) -> n > 1 ? n - 1 : null);
+        }
+
+        share.destination = destination;
+        share.status = status;
+        long[] newBucket = buckets.computeIfAbsent(destination, d -> new long[TIERS * TrainStatus.values().length]);
+        for (SeatTier tier : SeatTier.values()) {
+            newBucket[slot(status, tier)] += share.revenue[tier.ordinal()];
+        }
+        if (status == TrainStatus.ACTIVE) {
+            activeTrains.merge(destination, 1, Integer::sum);
+        }
+    }
+
+    private static int slot(TrainStatus status, SeatTier tier) {
+        return status.ordinal() * TIERS + tier.ordinal();
+    }
+
+    /**
+     * Applies what other terminals appended since the last read. Reloads everything if
+     * the file was rewritten as a new snapshot. Caller holds the file lock and the monitor.
+     */
+    private void catchUp() {
+        if (filePath == null || generation < 0) return;
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            String header = firstLine(readRange(channel, 0, Math.min(size, MAX_HEADER_BYTES)));
+            if (header == null || size < fileOffset || headerGeneration(header) != generation) {
+                reload();
+                return;
+            }
+            if (size > fileOffset) {
+                fileOffset += applyLines(readRange(channel, fileOffset, size));
+            }
+        } catch (NoSuchFileException e) {
+            reload();
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, ErrorMessage.CORRUPTED_DATA + filePath, e);
+            reload();
+        }
+    }
+
+    /**
+     * Reads the whole file into memory. Leaves the view empty and unbacked (generation -1)
+     * if the file is missing or not in the current format.
+     */
+    private void reload() {
+        clear();
+        generation = -1;
+        fileOffset = 0;
+        deltaLines = 0;
+        lastToken = "";
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            fileOffset = applyLines(readRange(channel, 0, channel.size()));
+            loaded = generation >= 0;
+            if (loaded) {
+                retag(syncedTrains);
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing persisted yet
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, ErrorMessage.CORRUPTED_DATA + filePath, e);
+            clear();
+            generation = -1;
+        }
+    }
+
+    /**
+     * Applies the whole lines in the buffer; a trailing partial line is left for the next read.
+     * @return number of bytes consumed
+     */
+    private int applyLines(byte[] bytes) {
+        PipeRecordReader record = new PipeRecordReader();
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') continue;
+            int lineEnd = i > lineStart && bytes[i - 1] == '\r' ? i - 1 : i;
+            if (lineEnd > lineStart) {
+                applyLine(record.reset(new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8)));
+            }
+            lineStart = i + 1;
+        }
+        return lineStart;
+    }
+
+    private void applyLine(PipeRecordReader record) {
+        String kind = record.nextString();
+        if (HEADER.equals(kind)) {
+            generation = record.nextLong();
+            bookingCount = record.nextInt();
+            lastToken = record.hasNext() ? record.nextString() : "";
+        } else if (SHARE.equals(kind) && generation >= 0) {
+            Share share = shareFor(record.nextString(), record.nextString(), TrainStatus.fromBoolean(record.nextBoolean()));
+            for (SeatTier tier : SeatTier.values()) {
+                addToShare(share, tier, record.nextLong());
+            }
+        } else if (DELTA.equals(kind) && generation >= 0) {
+            String trainId = record.nextString();
+            String destination = record.nextString();
+            TrainStatus status = TrainStatus.fromBoolean(record.nextBoolean());
+            SeatTier tier = SeatTier.fromCode(record.nextChar());
+            long amount = record.nextLong();
+            int countDelta = record.nextInt();
+            lastToken = record.hasNext() ? record.nextString() : "";
+            applyDelta(trainId, destination, status, tier, amount, countDelta);
+            deltaLines++;
+        } else {
+            throw new IllegalArgumentException("Unexpected revenue view record: " + kind);
+        }
+    }
+
+    private void append(String line) {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            fileOffset += bytes.length;
+            deltaLines++;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, e);
+        }
+    }
+
+    /**
+     * Rewrites the file as a snapshot of the current view (temp file + atomic rename, not synced:
+     * the view can always be rebuilt). Caller holds the exclusive file lock.
+     */
+    private void writeSnapshot() {
+        if (filePath == null) return;
+        StringBuilder sb = new StringBuilder(64 * (sharesByTrain.size() + 1));
+        long nextGeneration = Math.max(generation + 1, System.currentTimeMillis());
+        sb.append(HEADER).append('|').append(nextGeneration).append('|').append(bookingCount)
+                .append('|').append(lastToken).append('\n');
+        for (Map.Entry<String, Share> entry : sharesByTrain.entrySet()) {
+            Share share = entry.getValue();
+            sb.append(SHARE).append('|').append(entry.getKey()).append('|')
+                    .append(share.destination).append('|').append(share.status.toBoolean());
+            for (long amount : share.revenue) {
+                sb.append('|').append(amount);
+            }
+            sb.append('\n');
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        Path target = Paths.get(filePath);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            Files.write(temp, bytes);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            generation = nextGeneration;
+            fileOffset = bytes.length;
+            deltaLines = 0;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, e);
+        }
+    }
+
+    private static long headerGeneration(String header) {
+        if (!header.startsWith(HEADER + "|")) return -1;
+        PipeRecordReader record = new PipeRecordReader().reset(header);
+        record.skip();
+        return record.nextLong();
+    }
+
+    private static byte[] readRange(FileChannel channel, long from, long to) throws IOException {
+        byte[] bytes = new byte[(int) (to - from)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, from + buffer.position()) < 0) break;
+        }
+        return bytes;
+    }
+
+    private static String firstLine(byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                return new String(bytes, 0, i, StandardCharsets.UTF_8).trim();
+            }
+        }
+        return null;
+    }
+}
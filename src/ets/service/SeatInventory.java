@@ -0,0 +1,79 @@
+package ets.service;
+
+import ets.model.SeatTier;
+import ets.model.Train;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * In-memory seat inventory keyed by Train ID and SeatTier.
+ * Reservations are a compare-and-set on the remaining count, so two counters
+ * booking the same train can never oversell and bookings on different trains
+ * never contend. The counts are not persisted: a booking commits its seats through the
+ * TrainRegistry, whose seat-capacity listener resyncs the inventory from the committed train.
+ */
+public class SeatInventory {
+
+    private final ConcurrentHashMap<String, AtomicIntegerArray> seats = new ConcurrentHashMap<>();
+
+    /**
+     * Starts tracking a train, seeding it from the train's current seat counts.
+     * A train that is already tracked keeps its in-memory counts.
+     * @param train train to track
+     */
+    public void track(Train train) {
+        seats.computeIfAbsent(train.getTrainID(), id -> countsOf(train));
+    }
+
+    /**
+     * Overwrites the tracked counts from the train, e.g. after staff changed the seat quantity.
+     * @param train train whose counts are authoritative
+     */
+    public void resync(Train train) {
+        seats.put(train.getTrainID(), countsOf(train));
+    }
+
+    /**
+     * Atomically reserves seats if enough remain.
+     * @param trainId  Train ID
+     * @param tier     seat tier
+     * @param quantity number of seats requested
+     * @return true if the seats were reserved, false if the train is unknown or sold out
+     */
+    public boolean tryReserve(String trainId, SeatTier tier, int quantity) {
+        AtomicIntegerArray counts = seats.get(trainId);
+        if (counts == null || quantity <= 0) return false;
+
+        int slot = tier.ordinal();
+        while (true) {
+            int available = counts.get(slot);
+            if (available < quantity) {
+                return false;
+            }
+            if (counts.compareAndSet(slot, available, available - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Remaining seats for a train and tier.
+     * @param trainId Train ID
+     * @param tier    seat tier
+     * @return remaining seats, or -1 if the train is not tracked
+     */
+    public int available(String trainId, SeatTier tier) {
+        AtomicIntegerArray counts = seats.get(trainId);
+        return counts == null ? -1 : counts.get(tier.ordinal());
+    }
+
+    // --- Private Helpers ---
+
+    private static AtomicIntegerArray countsOf(Train train) {
+        AtomicIntegerArray counts = new AtomicIntegerArray(SeatTier.values().length);
+        counts.set(SeatTier.STANDARD.ordinal(), train.getStandardSeatQty());
+        counts.set(SeatTier.PREMIUM.ordinal(), train.getPremiumSeatQty());
+        return counts;
+    }
+}
@@ -0,0 +1,142 @@
+package ets.service;
+
+import ets.model.Booking;
+import ets.model.SeatTier;
+import ets.model.Train;
+import ets.util.SeatBits;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Seat maps of the trains, kept on the train record itself: each tier stores a bitset of
+ * the seats taken ({@link SeatBits}), committed together with its seat count, so every
+ * terminal assigns seats from the same map. A tier's map holds the seats taken plus the
+ * seats the train has left.
+ *
+ * The methods change a train's own bitset in place, before the train is committed (inside
+ * {@link TrainRegistry#update}), so a map is read and written under the same lock and
+ * version as its seat count and needs no locking of its own.
+ * A train stored before seat maps were kept is given one on its first seat change, built
+ * from the seat numbers of its stored bookings. Bookings made before seats were assigned
+ * hold no seat numbers; their seats stay outside the map and come back to it as free seats
+ * when cancelled.
+ */
+public class SeatMaps {
+
+    private static final Logger logger = Logger.getLogger(SeatMaps.class.getName());
+
+    private final Function<String, Collection<Booking>> storedBookingsOnTrain;
+
+    /**
+     * @param storedBookingsOnTrain Train ID to the stored bookings on that train
+     */
+    public SeatMaps(Function<String, Collection<Booking>> storedBookingsOnTrain) {
+        this.storedBookingsOnTrain = storedBookingsOnTrain;
+    }
+
+    /**
+     * Takes seats for a new booking. Called before the seat count is lowered.
+     * @param train    train being booked, not yet committed
+     * @param tier     seat tier
+     * @param quantity number of seats
+     * @return seat numbers, or null if not enough seats are free (the train is then unchanged)
+     */
+    public int[] allocate(Train train, SeatTier tier, int quantity) {
+        long[] bits = bits(train, tier);
+        int capacity = capacity(bits, remaining(train, tier));
+        if (bits.length < SeatBits.words(capacity)) {
+            bits = grow(train, tier, bits, capacity);
+        }
+        return SeatBits.allocate(bits, capacity, quantity);
+    }
+
+    /**
+     * Takes given seats again, e.g. when a logged booking is replayed. Called before the seat
+     * count is lowered.
+     * @param train train being booked, not yet committed
+     * @param tier  seat tier
+     * @param seats seat numbers
+     * @return true if taken, false if a seat is already taken (the train is then unchanged)
+     */
+    public boolean claim(Train train, SeatTier tier, int[] seats) {
+        if (seats.length == 0) return true;
+        long[] bits = bits(train, tier);
+        int highest = 0;
+        for (int seat : seats) {
+            highest = Math.max(highest, seat);
+        }
+        if (bits.length < SeatBits.words(highest)) {
+            bits = grow(train, tier, bits, highest);
+        }
+        return SeatBits.claim(bits, seats);
+    }
+
+    /**
+     * Frees seats. Called before the seat count is raised.
+     * @param train train the seats are on, not yet committed
+     * @param tier  seat tier
+     * @param seats seat numbers; seats not taken are ignored
+     */
+    public void release(Train train, SeatTier tier, int[] seats) {
+        if (seats.length == 0) return;
+        SeatBits.release(bits(train, tier), seats);
+    }
+
+    // --- Private Helpers ---
+
+    /**
+     * The train's own map of a tier, giving the train its maps first if it has none.
+     */
+    private long[] bits(Train train, SeatTier tier) {
+        if (train.getStandardSeatBits() == null || train.getPremiumSeatBits() == null) {
+            seed(train);
+        }
+        return tier == SeatTier.PREMIUM ? train.getPremiumSeatBits() : train.getStandardSeatBits();
+    }
+
+    private static int remaining(Train train, SeatTier tier) {
+        return tier == SeatTier.PREMIUM ? train.getPremiumSeatQty() : train.getStandardSeatQty();
+    }
+
+    /**
+     * Seats in a tier: those taken plus those the train has left. A quantity lowered below a
+     * taken seat keeps the map up to that seat, so no taken seat is ever dropped.
+     */
+    private static int capacity(long[] bits, int remaining) {
+        return Math.max(SeatBits.highest(bits), SeatBits.count(bits) + Math.max(0, remaining));
+    }
+
+    /**
+     * Gives the train a longer copy of a tier's map, e.g. after staff added seats.
+     */
+    private static long[] grow(Train train, SeatTier tier, long[] bits, int capacity) {
+        long[] grown = Arrays.copyOf(bits, SeatBits.words(capacity));
+        if (tier == SeatTier.PREMIUM) {
+            train.setPremiumSeatBits(grown);
+        } else {
+            train.setStandardSeatBits(grown);
+        }
+        return tier == SeatTier.PREMIUM ? train.getPremiumSeatBits() : train.getStandardSeatBits();
+    }
+
+    private void seed(Train train) {
+        long[][] maps = {new long[0], new long[0]};
+        for (Booking b : storedBookingsOnTrain.apply(train.getTrainID())) {
+            int[] seats = b.getSeatNumbers();
+            if (seats.length == 0) continue;
+            int tier = b.getSeatTier().ordinal();
+            int highest = Arrays.stream(seats).max().getAsInt();
+            if (maps[tier].length < SeatBits.words(highest)) {
+                maps[tier] = Arrays.copyOf(maps[tier], SeatBits.words(highest));
+            }
+            if (!SeatBits.claim(maps[tier], seats)) {
+                logger.warning("Seat numbers of booking " + b.getBookingID() + " clash; left out of the seat map.");
+            }
+        }
+        train.setStandardSeatBits(maps[SeatTier.STANDARD.ordinal()]);
+        train.setPremiumSeatBits(maps[SeatTier.PREMIUM.ordinal()]);
+    }
+}
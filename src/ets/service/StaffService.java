@@ -6,30 +6,49 @@ import ets.model.StaffRepository;
 import ets.util.AppConstants;
 import ets.util.ErrorMessage;
 import ets.util.PasswordUtil;
+import ets.util.WriteBehindCounters;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 
 /**
  * Handles all business logic for Staff operations.
  * Implements clean code standards and exception handling.
+ * Booking counters are bumped in memory and written behind in batches, so a booking
+ * does not rewrite the whole staff file; call {@link #flushBookingHandles()} on logout
+ * and {@link #close()} on shutdown.
  */
 public class StaffService {
 
     private final IStaffRepository repository;
     private final StaffValidator validator;
     private final LinkedHashMap<String, Staff> staffCache;
+    private final WriteBehindCounters bookingHandles;
+    // Orders counter increments against the count snapshot of a full save
+    private final Object counterLock = new Object();
 
     /**
      * Parameterised constructor for Dependency Injection
      * @param repository The data source provider interface
      */
     public StaffService(IStaffRepository repository) {
+        this(repository, AppConstants.STAFF_COUNTER_FLUSH_INTERVAL_MS, AppConstants.STAFF_COUNTER_FLUSH_THRESHOLD);
+    }
+
+    /**
+     * Constructor that allows tests to tune the booking counter write-behind.
+     * @param repository          The data source provider interface
+     * @param flushIntervalMillis Time between timed counter flushes, 0 to flush only on threshold or on demand
+     * @param flushThreshold      Pending booking increments that trigger a flush
+     */
+    public StaffService(IStaffRepository repository, long flushIntervalMillis, int flushThreshold) {
         this.repository = repository;
         this.validator = new StaffValidator();
         this.staffCache = this.repository.getAll();
+        this.bookingHandles = new WriteBehindCounters(repository::addBookingHandles, flushIntervalMillis, flushThreshold);
     }
 
     // =========================================================================
@@ -88,7 +107,7 @@ public class StaffService {
         Staff staff = new Staff(name, cn, ic, id, hashedPassword, 0);
 
         this.staffCache.put(id, staff);
-        repository.saveAll(staffCache.values());
+        saveStaff();
     }
 
     /**
@@ -108,7 +127,7 @@ public class StaffService {
             case AppConstants.FIELD_IC -> s.setIc(newValue);
             case AppConstants.FIELD_PASSWORD -> s.setPassword(PasswordUtil.hashPassword(newValue));
         }
-        repository.saveAll(staffCache.values());
+        saveStaff();
     }
 
     /**
@@ -122,12 +141,30 @@ public class StaffService {
             return false;
         }
         staffCache.remove(idToDelete);
-        repository.saveAll(staffCache.values());
+        saveStaff();
         return true;
     }
 
     // --- Private Helpers ---
 
+    /**
+     * Overwrites the staff file with the cached staff. Booking counts are written without
+     * their unflushed increments, which the next counter flush adds on top.
+     */
+    private void saveStaff() {
+        bookingHandles.whileNotFlushing(() -> {
+            List<Staff> snapshot = new ArrayList<>(staffCache.size());
+            synchronized (counterLock) {
+                for (Staff s : staffCache.values()) {
+                    snapshot.add(new Staff(s.getName(), s.getContactNo(), s.getIc(), s.getId(), s.getPassword(),
+                            s.getNoOfBookingHandle() - bookingHandles.getPending(s.getId())));
+                }
+            }
+            repository.saveAll(snapshot);
+            return null;
+        });
+    }
+
     /**
      * Checks if the staff account is currently locked due to excessive failed attempts
      * @param staff The staff object to check
@@ -191,14 +228,30 @@ public class StaffService {
 
     /**
      * REQUIRED BY: Booking.java
-     * Increments the booking handle count for a staff member statically
+     * Increments the booking handle count for a staff member.
+     * The count changes in memory at once and is written behind in a later batch.
      * @param staffId The ID of the staff member who handled the booking
      */
     public void incrementBookingHandle(String staffId) {
         Staff s = staffCache.get(staffId);
-        if (s != null) {
-            s.setNoOfBookingHandle(s.getNoOfBookingHandle() + 1);
-            repository.saveAll(staffCache.values());
+        if (s == null) return;
+        synchronized (counterLock) {
+            bookingHandles.add(staffId, 1);
+            s.addNoOfBookingHandle(1);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes all pending booking counts to the staff file now, e.g. on logout.
+     */
+    public void flushBookingHandles() {
+        bookingHandles.flush();
+    }
+
+    /**
+     * Stops the background counter flush and writes what is pending. Call on shutdown.
+     */
+    public void close() {
+        bookingHandles.close();
+    }
+}
@@ -0,0 +1,47 @@
+package ets.service;
+
+import ets.model.Train;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Durable log of seat changes that the train store may not hold yet.
+ * A {@link TrainRegistry} with a journal commits such changes by logging them only
+ * (see {@link TrainRegistry#stage}); every read of the store replays the logged changes on
+ * top of the stored trains, and a checkpoint later writes the replayed trains to the store
+ * and tells the journal which changes it now holds.
+ */
+public interface TrainJournal {
+
+    /**
+     * Applies the logged changes the stored trains do not hold yet, in the order logged.
+     * A change applies to a train still at the version it was based on, and bumps it.
+     * @param stored trains as read from the store, by Train ID; changed in place
+     * @return IDs of the logged changes the trains now hold, whether applied now or before
+     */
+    List<String> replay(Map<String, Train> stored);
+
+    /**
+     * A token that changes whenever a change is logged or the log is cleared.
+     * @return the current state token, or null if the journal cannot provide one
+     */
+    String stateToken();
+
+    /**
+     * Runs an action while the journal cannot be cleared, i.e. while recovery cannot start.
+     * The store lock is only taken inside it, in the same order as a logging transaction.
+     * @param action action to run
+     * @param <T>    result type
+     * @return the action's result
+     */
+    <T> T whileOpen(Supplier<T> action);
+
+    /**
+     * Called once the store holds the given changes. Changes whose other work is done
+     * can then be dropped from the log.
+     * @param ids IDs returned by {@link #replay} for the trains just written
+     */
+    void checkpointed(List<String> ids);
+}
@@ -0,0 +1,629 @@
+package ets.service;
+
+import ets.model.Train;
+import ets.model.TrainInterface;
+import ets.util.AppConstants;
+import ets.util.ErrorMessage;
+import ets.util.SeatBits;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Single authoritative in-memory set of trains, shared by TrainService, BookingService
+ * and SeatInventory. Every caller works on the same Train objects, so a seat change made
+ * by a booking is immediately visible to the train module and a save always writes the
+ * current state rather than a stale copy.
+ *
+ * Writes are optimistic across processes as well: every stored train carries a version
+ * (see {@link Train#getVersion()}). Before a write the store is re-read; trains another
+ * terminal has committed since are taken over, and a change based on an older version is
+ * rejected with a ConcurrentModificationException so the caller can retry on fresh state.
+ * A committed change bumps the train's version. The re-read and the write run as one
+ * {@link TrainInterface#atomically} step, so on a file store no other terminal can write between them.
+ *
+ * Reads catch up with other terminals too: when the store's state token (see
+ * {@link TrainInterface#stateToken()}) has moved since the registry last read or wrote it,
+ * the store is re-read and newer trains are taken over before the lookup is answered.
+ *
+ * With a {@link TrainJournal} attached, a booking's seat change is committed by logging it
+ * only ({@link #stage}): the journal record is the one synchronous write, and the train store
+ * is rewritten by a background checkpoint that batches every change logged meanwhile.
+ * Until then every read of the store replays the logged changes, so other terminals see
+ * them as if they were stored.
+ *
+ * Commits are serialized by a commit lock (and the store's own lock), not by this object's
+ * monitor: the monitor is only held for short in-memory steps, never for the store I/O or
+ * an update's callback (which may sync an intent log), so lookups by the booking and train
+ * modules are not held up while a commit writes.
+ */
+public class TrainRegistry implements TrainInterface {
+
+    private static final Logger logger = Logger.getLogger(TrainRegistry.class.getName());
+
+    // One shared daemon thread runs the checkpoints of every registry in the process
+    private static final ScheduledExecutorService CHECKPOINTER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "train-checkpoint");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final TrainInterface store;
+    private final LinkedHashMap<String, Train> trains = new LinkedHashMap<>();
+    private final List<Consumer<Train>> seatCapacityListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Train>> trainKeyListeners = new CopyOnWriteArrayList<>();
+    private final FareMatrixCache fareMatrices = new FareMatrixCache();
+    // Serializes commits in this process; lock order is commitLock, store lock, then the monitor
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final AtomicBoolean checkpointQueued = new AtomicBoolean(false);
+    private volatile TrainJournal journal;
+    private boolean loaded;
+    // Store (and journal) state token as of the last read or write; guarded by the monitor
+    private String storeToken;
+
+    /**
+     * @param store repository the registry is loaded from and persists to
+     */
+    public TrainRegistry(TrainInterface store) {
+        this.store = store;
+    }
+
+    /**
+     * Returns the live trains. The file is read on first use, and again when another
+     * terminal has changed it.
+     * @return new list holding the shared Train objects
+     */
+    @Override
+    public List<Train> loadAll() {
+        catchUp();
+        synchronized (this) {
+            ensureLoaded();
+            return new ArrayList<>(trains.values());
+        }
+    }
+
+    /**
+     * Compare-and-bump save. Each train in the list whose details differ from its stored
+     * record is written with its version bumped, provided the stored record still has the
+     * version the train was read at. Trains that are not the registry's own objects (e.g. a
+     * newly created train) are adopted, or merged into the live train with the same ID.
+     * Trains missing from the list are kept, so a partial list cannot drop data.
+     * @param list trains to persist
+     * @throws ConcurrentModificationException if another terminal committed one of the trains
+     *         first; nothing is written and the live trains hold the stored state
+     * @throws UncheckedIOException if the store could not be written; the live trains then
+     *         hold the stored state too, and trains this save would have adopted are dropped
+     */
+    @Override
+    public void saveAll(List<Train> list) {
+        List<Train> changedSeats = new ArrayList<>();
+        List<Train> changedKeys = new ArrayList<>();
+        commitLock.lock();
+        try {
+            store.atomically(() -> {
+                Map<String, Train> stored = readStore();
+                List<Train> snapshot;
+                int keysBeforeSave;
+                synchronized (this) {
+                    ensureLoaded();
+                    List<String> conflicts = new ArrayList<>();
+                    List<Train> dirty = new ArrayList<>();
+                    for (Train t : list) {
+                        Train disk = stored.get(t.getTrainID());
+                        Train live = trains.get(t.getTrainID());
+                        int base = live != null ? live.getVersion() : t.getVersion();
+                        if (disk != null && disk.getVersion() > base) {
+                            conflicts.add(t.getTrainID());
+                        } else if (disk == null || live != t || !sameDetails(t, disk)) {
+                            dirty.add(t);
+                        }
+                    }
+                    if (!conflicts.isEmpty()) {
+                        refresh(stored, changedSeats, changedKeys, true);
+                        throw new ConcurrentModificationException(
+                                "Trains changed by another session, reload and retry: " + conflicts);
+                    }
+
+                    refresh(stored, changedSeats, changedKeys, false);
+                    keysBeforeSave = changedKeys.size();
+                    for (Train t : dirty) {
+                        Train live = trains.get(t.getTrainID());
+                        Train disk = stored.get(t.getTrainID());
+                        if (disk == null || !sameKey(t, disk)) {
+                            changedKeys.add(live != null ? live : t);
+                        }
+                        if (live == null) {
+                            t.setVersion(t.getVersion() + 1);
+                            trains.put(t.getTrainID(), t);
+                        } else {
+                            if (live != t) {
+                                copyInto(t, live);
+                            }
+                            live.setVersion(live.getVersion() + 1);
+                        }
+                    }
+                    snapshot = dirty.isEmpty() ? null : snapshot(null);
+                }
+                if (snapshot != null) {
+                    try {
+                        store.saveAll(snapshot);
+                    } catch (UncheckedIOException e) {
+                        synchronized (this) {
+                            // Undo the adoptions and merges; only trains read from the store are kept
+                            trains.keySet().retainAll(stored.keySet());
+                            changedKeys.subList(keysBeforeSave, changedKeys.size()).clear();
+                            refresh(stored, changedSeats, changedKeys, true);
+                        }
+                        throw e;
+                    }
+                    recordStoreToken();
+                }
+                return null;
+            });
+        } finally {
+            commitLock.unlock();
+            notifySeatCapacity(changedSeats);
+            notifyListeners(trainKeyListeners, changedKeys);
+        }
+    }
+
+    /**
+     * Looks up a live train by ID, after catching up with other terminals' changes.
+     * An unknown ID re-reads the store once, in case the train was just added elsewhere.
+     * @param trainId Train ID
+     * @return the shared Train, or null if unknown
+     */
+    public Train findById(String trainId) {
+        catchUp();
+        synchronized (this) {
+            ensureLoaded();
+            Train train = trains.get(trainId);
+            if (train != null) return train;
+        }
+        Map<String, Train> stored = readStore();
+        List<Train> changedSeats = new ArrayList<>();
+        List<Train> changedKeys = new ArrayList<>();
+        Train train;
+        synchronized (this) {
+            refresh(stored, changedSeats, changedKeys, false);
+            train = trains.get(trainId);
+        }
+        notifySeatCapacity(changedSeats);
+        notifyListeners(trainKeyListeners, changedKeys);
+        return train;
+    }
+
+    /**
+     * Current version of a live train; bumped by every committed change.
+     * @param trainId Train ID
+     * @return version, or 0 if the train is unknown
+     */
+    public synchronized int getVersion(String trainId) {
+        ensureLoaded();
+        Train train = trains.get(trainId);
+        return train == null ? 0 : train.getVersion();
+    }
+
+    /**
+     * Applies an edit if the train is still at the version the caller last saw, then persists.
+     * The store is re-read first, so a change committed by another terminal also counts.
+     * Seat-capacity listeners are told when a seat quantity changed.
+     * @param trainId         Train ID
+     * @param expectedVersion version the caller based the edit on
+     * @param change          edit to apply, made to a copy of the live train that replaces the
+     *                        live state once written; if it throws, nothing is written
+     * @return the new version
+     * @throws IllegalArgumentException        if the train is unknown
+     * @throws ConcurrentModificationException if the train changed since expectedVersion;
+     *         the live train then holds the current state
+     * @throws UncheckedIOException            if the store could not be written; the live
+     *         train is left unchanged
+     */
+    public int update(String trainId, int expectedVersion, Consumer<Train> change) {
+        return commit(trainId, expectedVersion, change, true);
+    }
+
+    /**
+     * Like {@link #update}, for an edit that logs itself to the attached journal: the logged
+     * record is the commit, and the store is left for a later checkpoint (see
+     * {@link #scheduleCheckpoint()}). Without a journal the store is written at once.
+     * @param trainId         Train ID
+     * @param expectedVersion version the caller based the edit on
+     * @param change          edit to apply; must log the edited train to the journal, so a
+     *                        replay of the log yields the same train
+     * @return the new version
+     * @throws IllegalArgumentException        if the train is unknown
+     * @throws ConcurrentModificationException if the train changed since expectedVersion
+     */
+    public int stage(String trainId, int expectedVersion, Consumer<Train> change) {
+        return commit(trainId, expectedVersion, change, journal == null);
+    }
+
+    /**
+     * Runs a journal append that changes no train (e.g. a completion mark) under the store
+     * lock, so this registry does not take its own append for another terminal's change.
+     * @param append the append
+     */
+    public void journalWrite(Runnable append) {
+        store.atomically(() -> {
+            String before = stateToken();
+            append.run();
+            String after = stateToken();
+            synchronized (this) {
+                if (Objects.equals(before, storeToken)) {
+                    storeToken = after;
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Writes the trains to the store if the journal holds changes the store does not, then
+     * tells the journal which changes the store now holds. Runs inside
+     * {@link TrainJournal#whileOpen}, so the lock order matches a logging transaction.
+     * Does nothing without a journal.
+     * @throws UncheckedIOException if the store could not be written; the changes stay logged
+     */
+    public void checkpoint() {
+        TrainJournal current = journal;
+        if (current == null) return;
+        List<Train> changedSeats = new ArrayList<>();
+        List<Train> changedKeys = new ArrayList<>();
+        try {
+            current.whileOpen(() -> {
+                commitLock.lock();
+                try {
+                    return store.atomically(() -> {
+                        List<String> held = new ArrayList<>();
+                        Map<String, Integer> storedVersions = new HashMap<>();
+                        Map<String, Train> stored = readStore(held, storedVersions);
+                        boolean behind = false;
+                        for (Train t : stored.values()) {
+                            behind |= t.getVersion() != storedVersions.get(t.getTrainID());
+                        }
+                        List<Train> snapshot;
+                        synchronized (this) {
+                            ensureLoaded();
+                            refresh(stored, changedSeats, changedKeys, false);
+                            snapshot = behind ? snapshot(null) : null;
+                        }
+                        if (snapshot != null) {
+                            store.saveAll(snapshot);
+                        }
+                        current.checkpointed(held);
+                        recordStoreToken();
+                        return null;
+                    });
+                } finally {
+                    commitLock.unlock();
+                }
+            });
+        } finally {
+            notifySeatCapacity(changedSeats);
+            notifyListeners(trainKeyListeners, changedKeys);
+        }
+    }
+
+    /**
+     * Runs {@link #checkpoint()} in the background after a short delay, so the changes staged
+     * meanwhile are written together. A failed checkpoint is retried on the next schedule.
+     */
+    public void scheduleCheckpoint() {
+        if (journal == null || !checkpointQueued.compareAndSet(false, true)) return;
+        CHECKPOINTER.schedule(() -> {
+            checkpointQueued.set(false);
+            try {
+                checkpoint();
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, e);
+            }
+        }, AppConstants.TRAIN_CHECKPOINT_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Attaches the journal that staged changes are logged to. Attach it before the registry
+     * is first read, so the first load already replays it.
+     * @param journal the journal
+     */
+    public void setJournal(TrainJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Registers a callback for changes to a train's seat quantities, whether made here or
+     * picked up from another terminal, e.g. so the seat inventory can resync its counts.
+     * @param listener callback receiving the changed train
+     */
+    public void addSeatCapacityListener(Consumer<Train> listener) {
+        seatCapacityListeners.add(listener);
+    }
+
+    /**
+     * Registers a callback for trains added to the registry and for changes to a train's
+     * status, destination or departure, whether made here or picked up from another terminal,
+     * e.g. so TrainService can re-index just that train. Seat and price changes are not reported.
+     * Trains present when the registry first loads are not reported either; read them with
+     * {@link #loadAll()}.
+     * @param listener callback receiving the added or changed train
+     */
+    public void addTrainKeyListener(Consumer<Train> listener) {
+        trainKeyListeners.add(listener);
+    }
+
+    /**
+     * Fare matrices of the live trains, shared by everyone using this registry.
+     * @return the fare matrix cache
+     */
+    public FareMatrixCache getFareMatrices() {
+        return fareMatrices;
+    }
+
+    // --- Private Helpers ---
+
+    /**
+     * Applies an edit to a draft of the live train, then writes the store (or, when staged,
+     * records the journal's new token instead) and installs the draft.
+     */
+    private int commit(String trainId, int expectedVersion, Consumer<Train> change, boolean writeStore) {
+        List<Train> changedSeats = new ArrayList<>();
+        List<Train> changedKeys = new ArrayList<>();
+        commitLock.lock();
+        try {
+            return store.atomically(() -> {
+                Map<String, Train> stored = isCaughtUp() ? Map.of() : readStore();
+                Train live;
+                Train draft;
+                synchronized (this) {
+                    ensureLoaded();
+                    refresh(stored, changedSeats, changedKeys, false);
+                    live = trains.get(trainId);
+                    if (live == null) {
+                        throw new IllegalArgumentException("Train not found: " + trainId);
+                    }
+                    if (live.getVersion() != expectedVersion) {
+                        throw new ConcurrentModificationException("Train " + trainId
+                                + " was changed by another session (version " + live.getVersion()
+                                + ", expected " + expectedVersion + ").");
+                    }
+                    draft = copyOf(live);
+                }
+
+                // The edit (and any intent it logs) works on a draft, outside the monitor
+                change.accept(draft);
+                draft.setVersion(expectedVersion + 1);
+                List<Train> snapshot = null;
+                if (writeStore) {
+                    synchronized (this) {
+                        snapshot = snapshot(draft);
+                    }
+                    store.saveAll(snapshot);
+                }
+                recordStoreToken();
+
+                synchronized (this) {
+                    boolean seatsChanged = live.getStandardSeatQty() != draft.getStandardSeatQty()
+                            || live.getPremiumSeatQty() != draft.getPremiumSeatQty();
+                    boolean keyChanged = !sameKey(live, draft);
+                    copyInto(draft, live);
+                    live.setVersion(draft.getVersion());
+                    if (seatsChanged) {
+                        changedSeats.add(live);
+                    }
+                    if (keyChanged) {
+                        changedKeys.add(live);
+                    }
+                    return live.getVersion();
+                }
+            });
+        } finally {
+            commitLock.unlock();
+            notifySeatCapacity(changedSeats);
+            notifyListeners(trainKeyListeners, changedKeys);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        storeToken = stateToken(); // before the read, so a write in between is caught up later
+        trains.putAll(readStore(null, null));
+        loaded = true;
+    }
+
+    /**
+     * Takes over other terminals' changes if the store's token moved. The store is read
+     * outside the monitor; a change landing after the token was read is caught next time.
+     */
+    private void catchUp() {
+        String token = stateToken();
+        synchronized (this) {
+            if (token == null || !loaded || token.equals(storeToken)) return;
+        }
+        Map<String, Train> stored = readStore();
+        List<Train> changedSeats = new ArrayList<>();
+        List<Train> changedKeys = new ArrayList<>();
+        synchronized (this) {
+            refresh(stored, changedSeats, changedKeys, false);
+            storeToken = token;
+        }
+        notifySeatCapacity(changedSeats);
+        notifyListeners(trainKeyListeners, changedKeys);
+    }
+
+    /**
+     * Notes the token of a store this registry just wrote, so its own write is not re-read.
+     * Caller holds the store lock, so no other terminal can have written since.
+     */
+    private void recordStoreToken() {
+        String token = stateToken();
+        synchronized (this) {
+            storeToken = token;
+        }
+    }
+
+    /**
+     * Whether nothing changed since this registry last read or wrote the store, so a commit
+     * need not re-read it. Caller holds the store lock.
+     */
+    private boolean isCaughtUp() {
+        String token = stateToken();
+        synchronized (this) {
+            return token != null && loaded && token.equals(storeToken);
+        }
+    }
+
+    /**
+     * The store's state token, joined with the journal's when one is attached.
+     */
+    @Override
+    public String stateToken() {
+        String token = store.stateToken();
+        TrainJournal current = journal;
+        if (token == null || current == null) return token;
+        String journalToken = current.stateToken();
+        return journalToken == null ? null : token + "+" + journalToken;
+    }
+
+    private Map<String, Train> readStore() {
+        return readStore(null, null);
+    }
+
+    /**
+     * Reads the stored trains, with the journal's changes replayed on top.
+     * @param held           receives the IDs of the journal changes the trains hold, or null
+     * @param storedVersions receives each train's version as stored, before the replay, or null
+     */
+    private Map<String, Train> readStore(List<String> held, Map<String, Integer> storedVersions) {
+        Map<String, Train> stored = new LinkedHashMap<>();
+        for (Train t : store.loadAll()) {
+            stored.put(t.getTrainID(), t);
+            if (storedVersions != null) {
+                storedVersions.put(t.getTrainID(), t.getVersion());
+            }
+        }
+        TrainJournal current = journal;
+        if (current != null) {
+            List<String> replayed = current.replay(stored);
+            if (held != null) {
+                held.addAll(replayed);
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Takes over stored trains that are newer than the live ones, and trains not seen before.
+     * @param force also overwrite live trains at the same version (used to undo rejected edits)
+     */
+    private void refresh(Map<String, Train> stored, List<Train> changedSeats, List<Train> changedKeys,
+                         boolean force) {
+        for (Train disk : stored.values()) {
+            Train live = trains.get(disk.getTrainID());
+            if (live == null) {
+                trains.put(disk.getTrainID(), disk);
+                changedKeys.add(disk);
+            } else if (live != disk && (disk.getVersion() > live.getVersion() || force)) {
+                boolean seatsChanged = live.getStandardSeatQty() != disk.getStandardSeatQty()
+                        || live.getPremiumSeatQty() != disk.getPremiumSeatQty();
+                boolean keyChanged = !sameKey(live, disk);
+                copyInto(disk, live);
+                live.setVersion(disk.getVersion());
+                if (seatsChanged) {
+                    changedSeats.add(live);
+                }
+                if (keyChanged) {
+                    changedKeys.add(live);
+                }
+            }
+        }
+    }
+
+    private void notifySeatCapacity(List<Train> changed) {
+        notifyListeners(seatCapacityListeners, changed);
+    }
+
+    private static void notifyListeners(List<Consumer<Train>> listeners, List<Train> changed) {
+        for (Train train : changed) {
+            for (Consumer<Train> listener : listeners) {
+                listener.accept(train);
+            }
+        }
+    }
+
+    /**
+     * The live trains to write, with one train replaced by its draft. Caller holds the monitor;
+     * the store is then written without it. Commits hold the commit lock, and a lookup that
+     * re-reads the store waits for the store lock the commit holds, so the trains cannot change
+     * while the store writes them.
+     */
+    private List<Train> snapshot(Train replacement) {
+        List<Train> list = new ArrayList<>(trains.size());
+        for (Train t : trains.values()) {
+            list.add(replacement != null && t.getTrainID().equals(replacement.getTrainID()) ? replacement : t);
+        }
+        return list;
+    }
+
+    private static Train copyOf(Train source) {
+        Train copy = new Train();
+        copy.setTrainID(source.getTrainID());
+        copyInto(source, copy);
+        copy.setVersion(source.getVersion());
+        return copy;
+    }
+
+    /**
+     * Whether two trains agree on the fields TrainService indexes by.
+     */
+    private static boolean sameKey(Train a, Train b) {
+        return Objects.equals(a.getDestination(), b.getDestination())
+                && Objects.equals(a.getDepartureDate(), b.getDepartureDate())
+                && Objects.equals(a.getDepartureTime(), b.getDepartureTime())
+                && a.getStatus() == b.getStatus();
+    }
+
+    private static boolean sameDetails(Train a, Train b) {
+        return Objects.equals(a.getDestination(), b.getDestination())
+                && Objects.equals(a.getDepartureDate(), b.getDepartureDate())
+                && Objects.equals(a.getDepartureTime(), b.getDepartureTime())
+                && a.getStandardSeatQty() == b.getStandardSeatQty()
+                && a.getPremiumSeatQty() == b.getPremiumSeatQty()
+                && a.getStandardSeatsSold() == b.getStandardSeatsSold()
+                && a.getPremiumSeatsSold() == b.getPremiumSeatsSold()
+                && SeatBits.same(a.getStandardSeatBits(), b.getStandardSeatBits())
+                && SeatBits.same(a.getPremiumSeatBits(), b.getPremiumSeatBits())
+                && a.getStandardSeatPrice() == b.getStandardSeatPrice()
+                && a.getPremiumSeatPrice() == b.getPremiumSeatPrice()
+                && a.getStatus() == b.getStatus();
+    }
+
+    private static void copyInto(Train source, Train target) {
+        target.setDestination(source.getDestination());
+        target.setDepartureDate(source.getDepartureDate());
+        target.setDepartureTime(source.getDepartureTime());
+        target.setStandardSeatQty(source.getStandardSeatQty());
+        target.setPremiumSeatQty(source.getPremiumSeatQty());
+        target.setStandardSeatsSold(source.getStandardSeatsSold());
+        target.setPremiumSeatsSold(source.getPremiumSeatsSold());
+        target.setStandardSeatBits(source.getStandardSeatBits());
+        target.setPremiumSeatBits(source.getPremiumSeatBits());
+        target.setStandardSeatPrice(source.getStandardSeatPrice());
+        target.setPremiumSeatPrice(source.getPremiumSeatPrice());
+        target.setStatus(source.getStatus());
+    }
+}
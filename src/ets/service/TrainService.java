@@ -7,21 +7,41 @@ import ets.model.TrainRepository;
 import ets.model.TrainStatus;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Service layer for the Train module.
+ * Trains are read from the shared TrainRegistry. The lookup indexes below are built from it
+ * once and then kept up to date train by train: the registry reports every train added and
+ * every change to a status, destination or departure, whether made here, by the booking side
+ * or taken over from another terminal. Seat and price changes leave the indexes alone, and
+ * lookups never touch the store; an ID that is not indexed is looked up in the registry,
+ * which re-reads the store once in case another terminal just added it.
  */
 public class TrainService {
 
-    private final TrainInterface repository;
+    private final TrainRegistry registry;
     private final TrainValidator validator;
-    private final List<Train> trains;
+    // Case-normalized Train ID -> Train, for O(1) lookups and duplicate checks
+    private final Map<String, Train> idIndex = new HashMap<>();
+    // Case-normalized destination -> number of ACTIVE trains heading there
+    private final Map<String, Integer> activeDestinationIndex = new HashMap<>();
+    // ACTIVE trains ordered by departure, overall and per case-normalized destination
+    private final DepartureIndex activeDepartures = new DepartureIndex();
+    private final Map<String, DepartureIndex> activeDeparturesByDestination = new HashMap<>();
+    // Train ID -> the key fields the train is indexed under, to remove it once they change
+    private final Map<String, IndexKey> indexedKeys = new HashMap<>();
+    private boolean indexed;
     private static final DateTimeFormatter DATE_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter TIME_FORMATTER =
@@ -36,13 +56,15 @@ public class TrainService {
 
     /**
      * Constructor for dependency injection and testing.
+     * Passing a shared TrainRegistry lets this service work on the same Train objects as
+     * the booking side; any other repository gets a registry of its own.
      * @param repository repository implementation used to load and save trains
      * @param validator  validator used to enforce train-related business rules
      */
     public TrainService(TrainInterface repository, TrainValidator validator) {
-        this.repository = repository;
+        this.registry = repository instanceof TrainRegistry shared ? shared : new TrainRegistry(repository);
         this.validator = validator;
-        this.trains = new ArrayList<>(repository.loadAll());
+        registry.addTrainKeyListener(this::reindex);
     }
 
     /**
@@ -50,7 +72,7 @@ public class TrainService {
      * @return new List containing all trains
      */
     public List<Train> getAllTrains() {
-        return new ArrayList<>(trains);
+        return registry.loadAll();
     }
 
     /**
@@ -58,7 +80,7 @@ public class TrainService {
      * @return list of active trains
      */
     public List<Train> getActiveTrains() {
-        return trains.stream()
+        return registry.loadAll().stream()
                 .filter(t -> t.getStatus() == TrainStatus.ACTIVE)
                 .collect(Collectors.toList());
     }
@@ -68,20 +90,23 @@ public class TrainService {
      * @param trainId train ID to search
      * @return Optional containing the matching train if found or empty if not found
      */
-    public Optional<Train> findById(String trainId) {
-        return trains.stream()
-                .filter(t -> t.getTrainID().equalsIgnoreCase(trainId))
-                .findFirst();
+    public synchronized Optional<Train> findById(String trainId) {
+        if (trainId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(lookup(trainId));
     }
 
     /**
-     * Adds a new train to the list and persists the change.
+     * Persists a new train through the registry and builds its fare matrix.
      * @param train fully constructed to be added
      * @return the same Train instance that was added
+     * @throws java.util.ConcurrentModificationException if another terminal stored a train
+     *         with the same ID first
      */
     public Train addTrain(Train train) {
-        trains.add(train);
-        save();
+        registry.saveAll(List.of(train));
+        registry.getFareMatrices().rebuild(train);
         return train;
     }
 
@@ -110,15 +135,99 @@ public class TrainService {
      * @param train existing train whose status should be set to discontinue
      */
     public void discontinueTrain(Train train) {
-        train.setStatus(TrainStatus.DISCONTINUED);
-        save();
+        discontinueTrain(train, getVersion(train));
+    }
+
+    /**
+     * Marks the given Train as discontinued, unless it was changed since expectedVersion.
+     * @param train           existing train whose status should be set to discontinue
+     * @param expectedVersion version the caller based the change on
+     * @return the new version
+     * @throws java.util.ConcurrentModificationException if the train has a newer version
+     */
+    public int discontinueTrain(Train train, int expectedVersion) {
+        return registry.update(train.getTrainID(), expectedVersion,
+                t -> t.setStatus(TrainStatus.DISCONTINUED));
+    }
+
+    /**
+     * Active trains departing within a date/time range, in departure order.
+     * @param from earliest departure (inclusive)
+     * @param to   latest departure (inclusive)
+     * @return matching active trains
+     */
+    public synchronized List<Train> getActiveDeparturesBetween(LocalDateTime from, LocalDateTime to) {
+        ensureIndexed();
+        return activeDepartures.between(from, to);
+    }
+
+    /**
+     * Active trains to one destination departing within a date/time range, in departure order.
+     * @param destination destination (case-insensitive)
+     * @param from        earliest departure (inclusive)
+     * @param to          latest departure (inclusive)
+     * @return matching active trains
+     */
+    public synchronized List<Train> getActiveDeparturesBetween(String destination, LocalDateTime from, LocalDateTime to) {
+        ensureIndexed();
+        DepartureIndex index = destination == null ? null : activeDeparturesByDestination.get(normalize(destination));
+        return index == null ? new ArrayList<>() : index.between(from, to);
+    }
+
+    /**
+     * The next active departures from a point in time.
+     * @param from  earliest departure (inclusive)
+     * @param limit maximum number of trains
+     * @return up to limit active trains, in departure order
+     */
+    public synchronized List<Train> getNextDepartures(LocalDateTime from, int limit) {
+        ensureIndexed();
+        return activeDepartures.next(from, limit);
+    }
+
+    /**
+     * The next active departures to one destination, e.g. "next departures to Ipoh".
+     * @param destination destination (case-insensitive)
+     * @param from        earliest departure (inclusive)
+     * @param limit       maximum number of trains
+     * @return up to limit active trains, in departure order
+     */
+    public synchronized List<Train> getNextDepartures(String destination, LocalDateTime from, int limit) {
+        ensureIndexed();
+        DepartureIndex index = destination == null ? null : activeDeparturesByDestination.get(normalize(destination));
+        return index == null ? new ArrayList<>() : index.next(from, limit);
+    }
+
+    /**
+     * Current version of a train; pass it back to {@link #updateTrain} when editing.
+     * @param train train to look up
+     * @return version number
+     */
+    public int getVersion(Train train) {
+        return registry.getVersion(train.getTrainID());
+    }
+
+    /**
+     * Applies an edit to a train and persists it, unless the train was changed by
+     * someone else since the caller read expectedVersion. A repriced train gets its
+     * fare matrix rebuilt.
+     * @param train           train to edit
+     * @param expectedVersion version the edit is based on
+     * @param change          edit to apply
+     * @return the new version
+     * @throws java.util.ConcurrentModificationException if the train has a newer version
+     */
+    public int updateTrain(Train train, int expectedVersion, Consumer<Train> change) {
+        int version = registry.update(train.getTrainID(), expectedVersion, change);
+        registry.getFareMatrices().get(train);
+        return version;
     }
 
     /**
      * Persists the current list of trains to the underlying repository.
      */
     public void save() {
-        repository.saveAll(trains);
+        registry.saveAll(registry.loadAll());
     }
 
 
@@ -203,9 +312,8 @@ public class TrainService {
      * @param trainId train ID to check
      * @return true if a train with the same ID already exists, false otherwise
      */
-    public boolean isDuplicateTrainId(String trainId) {
-        return trains.stream()
-                .anyMatch(t -> t.getTrainID().equalsIgnoreCase(trainId));
+    public synchronized boolean isDuplicateTrainId(String trainId) {
+        return trainId != null && lookup(trainId) != null;
     }
 
     /**
@@ -213,10 +321,9 @@ public class TrainService {
      * @param destination destination to check
      * @return rue if an active train exists with the same destination, false otherwise
      */
-    public boolean isDuplicateDestination(String destination) {
-        return trains.stream()
-                .anyMatch(t -> t.getDestination().equalsIgnoreCase(destination)
-                        && t.getStatus() == TrainStatus.ACTIVE);
+    public synchronized boolean isDuplicateDestination(String destination) {
+        ensureIndexed();
+        return destination != null && activeDestinationIndex.containsKey(normalize(destination));
     }
 
     /**
@@ -236,4 +343,98 @@ public class TrainService {
     public LocalTime parseTime(String value) {
         return LocalTime.parse(value, TIME_FORMATTER);
     }
+
+    /**
+     * Builds the indexes from the registry on first use.
+     */
+    private void ensureIndexed() {
+        if (indexed) return;
+        registry.loadAll().forEach(this::indexTrain);
+        indexed = true;
+    }
+
+    /**
+     * Indexed train with the given ID, falling back to the registry for an unknown ID
+     * (which then reports the train if another terminal added it).
+     * @param trainId Train ID, any case
+     * @return the train, or null if there is none
+     */
+    private Train lookup(String trainId) {
+        ensureIndexed();
+        Train train = idIndex.get(normalize(trainId));
+        if (train == null) {
+            // The registry's own lookup is case-sensitive, but its re-read reports every new train
+            registry.findById(trainId);
+            train = idIndex.get(normalize(trainId));
+        }
+        return train;
+    }
+
+    /**
+     * Moves one train to the index entries matching its current key fields. Called by the
+     * registry for added trains and key changes; indexes not built yet pick it up when built.
+     * @param train added or changed train
+     */
+    private synchronized void reindex(Train train) {
+        if (!indexed) return;
+        unindexTrain(train.getTrainID());
+        indexTrain(train);
+    }
+
+    /**
+     * Adds a train to the ID index and, if active, to the destination and departure indexes.
+     * @param train train to index
+     */
+    private void indexTrain(Train train) {
+        IndexKey key = new IndexKey(normalize(train.getDestination()), DepartureIndex.departureOf(train),
+                train.getStatus() == TrainStatus.ACTIVE);
+        idIndex.put(normalize(train.getTrainID()), train);
+        indexedKeys.put(train.getTrainID(), key);
+        if (key.active()) {
+            activeDestinationIndex.merge(key.destination(), 1, Integer::sum);
+            activeDepartures.add(train);
+            activeDeparturesByDestination
+                    .computeIfAbsent(key.destination(), d -> new DepartureIndex())
+                    .add(train);
+        }
+    }
+
+    /**
+     * Removes a train from every index, using the key fields it was indexed under.
+     * @param trainId Train ID
+     */
+    private void unindexTrain(String trainId) {
+        IndexKey key = indexedKeys.remove(trainId);
+        if (key == null) return;
+        idIndex.remove(normalize(trainId));
+        if (key.active()) {
+            activeDestinationIndex.computeIfPresent(key.destination(), (d, n) -> n > 1 ? n - 1 : null);
+            activeDepartures.remove(trainId, key.departure());
+            DepartureIndex byDestination = activeDeparturesByDestination.get(key.destination());
+            if (byDestination != null) {
+                byDestination.remove(trainId, key.departure());
+                if (byDestination.size() == 0) {
+                    activeDeparturesByDestination.remove(key.destination());
+                }
+            }
+        }
+    }
+
+    /**
+     * Key fields a train was indexed under.
+     * @param destination normalized destination
+     * @param departure   departure date and time
+     * @param active      whether the train was ACTIVE
+     */
+    private record IndexKey(String destination, LocalDateTime departure, boolean active) {
+    }
+
+    /**
+     * Normalizes IDs and destinations so index keys match equalsIgnoreCase semantics.
+     * @param value raw ID or destination
+     * @return upper-cased key
+     */
+    private static String normalize(String value) {
+        return value.toUpperCase(Locale.ROOT);
+    }
 }
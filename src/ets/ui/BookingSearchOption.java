@@ -0,0 +1,42 @@
+package ets.ui;
+
+import java.util.Arrays;
+
+/**
+ * Enum representing the fields a booking can be searched by.
+ */
+public enum BookingSearchOption {
+    BY_BOOKING_ID(1, "Booking ID"),
+    BY_TRAIN_ID(2, "Train ID"),
+    BY_STAFF_ID(3, "Staff ID"),
+    BY_PASSENGER_NAME(4, "Passenger Name");
+
+    private final int id;
+    private final String description;
+
+    BookingSearchOption(int id, String description) {
+        this.id = id;
+        this.description = description;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Converts a raw integer input from the user into a type-safe Enum option.
+     *
+     * @param id The number entered by the user.
+     * @return The corresponding BookingSearchOption, or null if the ID is invalid.
+     */
+    public static BookingSearchOption fromId(int id) {
+        return Arrays.stream(values())
+                .filter(option -> option.id == id)
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -2,11 +2,17 @@ package ets.ui;
 
 import ets.model.*;
 import ets.service.BookingService;
+import ets.service.FareMatrix;
+import ets.service.RevenueReport;
+import ets.service.TrainService;
+import ets.util.Money;
+import ets.util.SeatNumbers;
 
 import java.util.List;
 import java.util.Scanner;
 import java.util.ArrayList;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 
@@ -18,23 +24,28 @@ import java.time.format.DateTimeFormatter;
 public class BookingUI {
 
     private final BookingService bookingService;
+    private final TrainService trainService;
     private final IPassengerRepository passengerRepository;
     private final String currentStaffId;
     private final Scanner scanner;
 
 
     /**
-     * Constructor injecting dependencies.
+     * Constructor injecting dependencies, including the train service and a shared passenger repository.
      *
-     * @param bookingService Service to handle booking logic
-     * @param staffId        ID of the currently logged-in staff
-     * @param scanner        Shared scanner instance
+     * @param bookingService      Service to handle booking logic
+     * @param trainService        Service used to list upcoming departures
+     * @param staffId             ID of the currently logged-in staff
+     * @param scanner             Shared scanner instance
+     * @param passengerRepository Passenger source (typically the shared cache)
      */
-    public BookingUI(BookingService bookingService, String staffId, Scanner scanner) {
+    public BookingUI(BookingService bookingService, TrainService trainService, String staffId, Scanner scanner,
+                     IPassengerRepository passengerRepository) {
         this.bookingService = bookingService;
+        this.trainService = trainService;
         this.currentStaffId = staffId;
         this.scanner = scanner;
-        this.passengerRepository = new PassengerRepository();
+        this.passengerRepository = passengerRepository;
     }
 
 
@@ -75,8 +86,8 @@ public class BookingUI {
         System.out.println("(Enter 'X' at any prompt to cancel operation)");
 
         // 1. Display Trains with PRICES (Detailed Table)
-        System.out.println("\nAvailable Trains (Active & Has Seats):");
-        List<Train> trains = bookingService.getAvailableTrains();
+        System.out.println("\nUpcoming Trains (Active & Has Seats):");
+        List<Train> trains = getUpcomingBookableTrains();
         boolean hasAvailableTrains = false;
 
         // Display table of the available train
@@ -92,15 +103,17 @@ public class BookingUI {
         for (Train t : trains) {
             if (t.getStatus() == TrainStatus.ACTIVE && (t.getStandardSeatQty() > 0 || t.getPremiumSeatQty() > 0)) {
                 String departureInfo = t.getDepartureTime() + " (" + t.getDepartureDate() + ")";
+                // Current prices, which may differ from the list prices under load-based pricing
+                FareMatrix fares = bookingService.getFareMatrix(t);
 
                 System.out.printf(rowFmt,
                         t.getTrainID(),
                         t.getDestination(),
                         departureInfo,
                         t.getStandardSeatQty(),
-                        t.getStandardSeatPrice(),
+                        Money.toRinggit(fares.getSeatPrice(SeatTier.STANDARD)),
                         t.getPremiumSeatQty(),
-                        t.getPremiumSeatPrice());
+                        Money.toRinggit(fares.getSeatPrice(SeatTier.PREMIUM)));
 
                 hasAvailableTrains = true;
             }
@@ -127,6 +140,7 @@ public class BookingUI {
                 System.out.println("Error: Invalid Train ID. Please try again.");
             }
         }
+        printFareOptions(selectedTrain);
 
         // 3. Seat Tier
         SeatTier tier = null;
@@ -199,8 +213,7 @@ public class BookingUI {
         }
 
         // 7. Calculate Fare
-        double basePrice = (tier == SeatTier.STANDARD) ? selectedTrain.getStandardSeatPrice() : selectedTrain.getPremiumSeatPrice();
-        double fare = bookingService.calculateFare(selectedPassenger.getPassengerTier(), tier, qty, basePrice);
+        long fareSen = bookingService.quoteFareSen(selectedTrain, selectedPassenger.getPassengerTier(), tier, qty);
 
         // 8. Review Screen
         System.out.println("\n==========================");
@@ -213,7 +226,7 @@ public class BookingUI {
         System.out.println("Departure Time : " + selectedTrain.getDepartureTime());
         System.out.println("Seat Tier      : " + tier.getLabel());
         System.out.println("Seat Quantity  : " + qty);
-        System.out.printf("Total Fare     : RM %.2f\n", fare);
+        System.out.println("Total Fare     : RM " + Money.format(fareSen));
         System.out.println("==========================");
         System.out.println("Note: SST & Discounts (if applicable) included in total fare.");
 
@@ -236,10 +249,11 @@ public class BookingUI {
 
         // 10. Execute Creation
         Booking newBooking = new Booking(id, selectedPassenger.getName(), tier, qty, 0.0, selectedTrain, currentStaffId);
-        newBooking.setTotalFare(fare);
+        newBooking.setTotalFareSen(fareSen);
 
         if (bookingService.createBooking(newBooking, selectedTrain)) {
             System.out.println("A new Booking Details with the Booking ID of " + id + " has been added.");
+            System.out.println("Seat Number(s) : " + tier.getLabel() + " " + SeatNumbers.format(newBooking.getSeatNumbers()));
         } else {
             System.out.println("Error creating booking (System Validation Failed).");
         }
@@ -277,21 +291,51 @@ public class BookingUI {
     }
 
     /**
-     * Prompts for Booking ID and displays details if found.
+     * Prompts for a search field and value, then displays the matching bookings.
+     * Every search is served by one of BookingService's indexes.
      */
     private void handleSearchBooking() {
         System.out.println("\n--- Search Booking ---");
-        Booking b = null;
-        while (b == null) {
-            String id = promptInput("Please enter the booking ID");
-            if (id == null) return;
+        for (BookingSearchOption opt : BookingSearchOption.values()) {
+            System.out.printf("%d. By %s%n", opt.getId(), opt.getDescription());
+        }
 
-            b = bookingService.getBookingById(id);
-            if (b == null) {
-                System.out.println("Booking ID was not found.");
+        BookingSearchOption option = null;
+        while (option == null) {
+            String input = promptInput("Search by");
+            if (input == null) return;
+            try {
+                option = BookingSearchOption.fromId(Integer.parseInt(input));
+            } catch (NumberFormatException e) {
+                option = null;
+            }
+            if (option == null) {
+                System.out.println("Error: Invalid option. Please enter a number from the list.");
             }
         }
-        displayBookingDetail(b);
+
+        List<Booking> results = List.of();
+        while (results.isEmpty()) {
+            String value = promptInput("Please enter the " + option.getDescription());
+            if (value == null) return;
+
+            results = switch (option) {
+                case BY_BOOKING_ID -> {
+                    Booking b = bookingService.getBookingById(value);
+                    yield (b == null) ? List.of() : List.of(b);
+                }
+                case BY_TRAIN_ID -> bookingService.findByTrain(value);
+                case BY_STAFF_ID -> bookingService.findByStaff(value);
+                case BY_PASSENGER_NAME -> bookingService.findByPassengerName(value);
+            };
+            if (results.isEmpty()) {
+                System.out.println("No booking was found for that " + option.getDescription() + ".");
+            }
+        }
+
+        for (Booking b : results) {
+            displayBookingDetail(b);
+        }
     }
 
     /**
@@ -301,12 +345,15 @@ public class BookingUI {
         System.out.println("\n--- Cancel Booking ---");
         Booking b = null;
         while (b == null) {
-            String id = promptInput("Please enter the booking ID");
-            if (id == null) return;
+            String input = promptInput("Please enter the booking ID or passenger name");
+            if (input == null) return;
 
-            b = bookingService.getBookingById(id);
+            b = bookingService.getBookingById(input);
             if (b == null) {
-                System.out.println("Booking ID was not found.");
+                b = selectFromMatches(bookingService.findByPassengerName(input));
+                if (b == null) {
+                    System.out.println("No booking was found for that booking ID or passenger name.");
+                }
             }
         }
 
@@ -334,19 +381,17 @@ public class BookingUI {
 
     /**
      * Generates a revenue report based on destination and seat tier.
+     * Aggregation happens in BookingService; this method only renders the result.
      */
     private void handleGenerateReport() {
         MainUI.clearScreen();
-        List<Booking> bookingList = bookingService.getAllBookings();
-        List<Train> trainList = bookingService.getAvailableTrains();
+        RevenueReport report = bookingService.generateRevenueReport();
 
-        if (bookingList.isEmpty()) {
+        if (report.getBookingCount() == 0) {
             System.out.println("Oops, the report cannot be generated due to insufficient Data.");
             return;
         }
 
-        double totalDestinationFare = 0.0;
-        double[] subtotal = {0.0, 0.0};
         String formattedDate = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
 
         System.out.println("--------------------------------------------------------");
@@ -357,44 +402,24 @@ public class BookingUI {
 
         System.out.println("Revenue by Destination (Standard Seat):");
         System.out.println("--------------------------------------------------------");
-        for (Train t : trainList) {
-            if (t.getStatus() != TrainStatus.ACTIVE) continue;
-
-            for (Booking b : bookingList) {
-                if (b.getTrain() != null && t.getDestination().equals(b.getTrain().getDestination())
-                        && b.getSeatTier() == SeatTier.STANDARD) {
-                    totalDestinationFare += b.getTotalFare();
-                    subtotal[0] += b.getTotalFare();
-                }
-            }
-            System.out.printf("%-15s  : RM %8.2f\n", t.getDestination(), totalDestinationFare);
-            totalDestinationFare = 0.0;
+        for (String destination : report.getDestinations()) {
+            System.out.printf("%-15s  : RM %8.2f\n", destination, report.getRevenue(destination, SeatTier.STANDARD));
         }
 
         System.out.println("--------------------------------------------------------");
         System.out.println("Revenue by Destination (Premium Seat):");
         System.out.println("--------------------------------------------------------");
-        for (Train t : trainList) {
-            if (t.getStatus() != TrainStatus.ACTIVE) continue;
-
-            for (Booking b : bookingList) {
-                if (b.getTrain() != null && t.getDestination().equals(b.getTrain().getDestination())
-                        && b.getSeatTier() == SeatTier.PREMIUM) {
-                    totalDestinationFare += b.getTotalFare();
-                    subtotal[1] += b.getTotalFare();
-                }
-            }
-            System.out.printf("%-15s  : RM %8.2f\n", t.getDestination(), totalDestinationFare);
-            totalDestinationFare = 0.0;
+        for (String destination : report.getDestinations()) {
+            System.out.printf("%-15s  : RM %8.2f\n", destination, report.getRevenue(destination, SeatTier.PREMIUM));
         }
 
         System.out.println("--------------------------------------------------------");
         System.out.println("Total Revenue");
         System.out.println("--------------------------------------------------------");
-        System.out.printf("Standard Seat : RM %8.2f\n", subtotal[0]);
-        System.out.printf("Premium Seat  : RM %8.2f\n", subtotal[1]);
+        System.out.printf("Standard Seat : RM %8.2f\n", report.getSubtotal(SeatTier.STANDARD));
+        System.out.printf("Premium Seat  : RM %8.2f\n", report.getSubtotal(SeatTier.PREMIUM));
         System.out.println("--------------------------------------------------------");
-        System.out.printf("Overall Total Revenue: RM %8.2f\n", subtotal[0] + subtotal[1]);
+        System.out.printf("Overall Total Revenue: RM %8.2f\n", report.getTotal());
         System.out.println("--------------------------------------------------------");
         System.out.println("\nNote: Discontinued train will not be included in the report!\n");
     }
@@ -415,10 +440,32 @@ public class BookingUI {
         System.out.println("Departure Time  : " + (b.getTrain() != null ? b.getTrain().getDepartureTime() : "N/A"));
         System.out.println("Seat Tier       : " + b.getSeatTier().getLabel());
         System.out.println("Seat Quantity   : " + b.getNumOfSeatBook());
+        System.out.println("Seat Number(s)  : " + (b.getSeatNumbers().length > 0 ? SeatNumbers.format(b.getSeatNumbers()) : "Not assigned"));
         System.out.printf("Total Fare      : RM %.2f\n", b.getTotalFare());
         System.out.println("Train Status    : " + (b.getTrain() != null && b.getTrain().getStatus() == TrainStatus.ACTIVE ? "Active" : "Discontinued"));
     }
 
+    /**
+     * Display the unit fare of every seat tier and passenger tier on a train, SST included
+     * @param train Selected train
+     */
+    private void printFareOptions(Train train) {
+        FareMatrix fares = bookingService.getFareMatrix(train);
+        System.out.println("\n--- Fare per Seat (RM, incl. SST) ---");
+        System.out.printf("%-10s", "Seat");
+        for (PassengerTier pt : PassengerTier.values()) {
+            System.out.printf(" %10s", pt);
+        }
+        System.out.println();
+        for (SeatTier st : SeatTier.values()) {
+            System.out.printf("%-10s", st.getLabel());
+            for (PassengerTier pt : PassengerTier.values()) {
+                System.out.printf(" %10s", Money.format(fares.getUnitFare(st, pt)));
+            }
+            System.out.println();
+        }
+    }
+
     private void printMenu() {
         System.out.println("\n         --------------------------------------------");
         System.out.println("         |               Booking Menu               |");
@@ -451,6 +498,46 @@ public class BookingUI {
         }
     }
 
+    /**
+     * Lets the user pick one booking when a passenger name matches several.
+     * @param matches bookings found by name
+     * @return the chosen booking, or null if there were no matches or the user exited
+     */
+    private Booking selectFromMatches(List<Booking> matches) {
+        if (matches.size() <= 1) {
+            return matches.isEmpty() ? null : matches.get(0);
+        }
+
+        System.out.println("Multiple bookings found:");
+        for (Booking m : matches) {
+            System.out.printf("  %-6s %-20s %-6s %-15s%n", m.getBookingID(), m.getName(),
+                    m.getTrain() != null ? m.getTrain().getTrainID() : "N/A",
+                    m.getTrain() != null ? m.getTrain().getDestination() : "N/A");
+        }
+        while (true) {
+            String id = promptInput("Please enter the booking ID from the list");
+            if (id == null) return null;
+            for (Booking m : matches) {
+                if (m.getBookingID().equalsIgnoreCase(id)) return m;
+            }
+            System.out.println("Error: That booking ID is not in the list.");
+        }
+    }
+
+    /**
+     * Active trains that have not departed yet and still have seats, in departure order.
+     * @return bookable trains
+     */
+    private List<Train> getUpcomingBookableTrains() {
+        List<Train> upcoming = new ArrayList<>();
+        for (Train t : trainService.getNextDepartures(LocalDateTime.now(), Integer.MAX_VALUE)) {
+            if (t.getStandardSeatQty() > 0 || t.getPremiumSeatQty() > 0) {
+                upcoming.add(t);
+            }
+        }
+        return upcoming;
+    }
+
     private void waitForEnter() {
         System.out.println("\nPress Enter to continue...");
         scanner.nextLine();
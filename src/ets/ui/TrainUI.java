@@ -7,10 +7,13 @@ import ets.service.TrainService;
 import ets.util.ErrorMessage;
 import ets.util.AppConstants;
 
+import java.io.UncheckedIOException;
 import java.time.format.DateTimeParseException;
+import java.util.ConcurrentModificationException;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.logging.Handler;
@@ -38,6 +41,8 @@ public class TrainUI {
 
     private final TrainService trainService;
     private final Scanner scanner;
+    // Version of the train being modified, as last shown to the user
+    private int selectedVersion;
 
     /**
      * Creates a TrainUI instance.
@@ -487,9 +492,17 @@ public class TrainUI {
         System.out.println(preview);
 
         if (askYesNo("Confirm Add Train ?")) {
-            trainService.createTrain(req);
-            MainUI.clearScreen();
-            System.out.println("Added successfully!");
+            try {
+                trainService.createTrain(req);
+                MainUI.clearScreen();
+                System.out.println("Added successfully!");
+            } catch (ConcurrentModificationException ex) {
+                System.out.println();
+                LOGGER.log(Level.WARNING, String.format(ErrorMessage.DUPLICATE_TRAIN_ID, req.trainId));
+            } catch (UncheckedIOException ex) {
+                System.out.println();
+                LOGGER.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, ex);
+            }
             MainUI.systemPause();
         } else {
             MainUI.clearScreen();
@@ -569,6 +582,7 @@ public class TrainUI {
             }
 
             Train t = opt.get();
+            selectedVersion = trainService.getVersion(t);
             boolean backToSearch = false;
 
             while (!backToSearch) {
@@ -612,8 +626,6 @@ public class TrainUI {
                     case DISCONTINUE -> discontinueTrain(t);
                     case EXIT -> backToSearch = true;
                 }
-
-                trainService.save();
             }
         }
     }
@@ -636,9 +648,10 @@ public class TrainUI {
                 if (confirmChange("Standard Seat Quantity",
                         String.valueOf(t.getStandardSeatQty()),
                         String.valueOf(qty))) {
-                    t.setStandardSeatQty(qty);
-                    System.out.println("Changed successfully!");
-                    MainUI.systemPause();
+                    if (applyChange(t, train -> train.setStandardSeatQty(qty))) {
+                        System.out.println("Changed successfully!");
+                        MainUI.systemPause();
+                    }
                 }
                 return;
             } catch (IllegalArgumentException ex) {
@@ -667,9 +680,10 @@ public class TrainUI {
                 if (confirmChange("Premium Seat Quantity",
                         String.valueOf(t.getPremiumSeatQty()),
                         String.valueOf(qty))) {
-                    t.setPremiumSeatQty(qty);
-                    System.out.println("Changed successfully!");
-                    MainUI.systemPause();
+                    if (applyChange(t, train -> train.setPremiumSeatQty(qty))) {
+                        System.out.println("Changed successfully!");
+                        MainUI.systemPause();
+                    }
                 }
                 return;
             } catch (IllegalArgumentException ex) {
@@ -699,9 +713,10 @@ public class TrainUI {
                         "Standard Seat Price",
                         String.format("RM %.2f", t.getStandardSeatPrice()),
                         String.format("RM %.2f", price))) {
-                    t.setStandardSeatPrice(price);
-                    System.out.println("Changed successfully!");
-                    MainUI.systemPause();
+                    if (applyChange(t, train -> train.setStandardSeatPrice(price))) {
+                        System.out.println("Changed successfully!");
+                        MainUI.systemPause();
+                    }
                 }
                 return;
             } catch (IllegalArgumentException ex) {
@@ -731,9 +746,10 @@ public class TrainUI {
                         "Premium Seat Price",
                         String.format("RM %.2f", t.getPremiumSeatPrice()),
                         String.format("RM %.2f", price))) {
-                    t.setPremiumSeatPrice(price);
-                    System.out.println("Changed successfully!");
-                    MainUI.systemPause();
+                    if (applyChange(t, train -> train.setPremiumSeatPrice(price))) {
+                        System.out.println("Changed successfully!");
+                        MainUI.systemPause();
+                    }
                 }
                 return;
             } catch (IllegalArgumentException ex) {
@@ -744,6 +760,41 @@ public class TrainUI {
         }
     }
 
+    /**
+     * Applies a confirmed edit through TrainService, based on the version the user was shown.
+     * If another session changed the train meanwhile, the edit is dropped and the user is
+     * asked to review the refreshed details.
+     * @param t      train being modified
+     * @param change edit to apply
+     * @return true if the edit was saved
+     */
+    private boolean applyChange(Train t, Consumer<Train> change) {
+        try {
+            selectedVersion = trainService.updateTrain(t, selectedVersion, change);
+            return true;
+        } catch (ConcurrentModificationException ex) {
+            reportConflict(t);
+            return false;
+        } catch (UncheckedIOException ex) {
+            System.out.println();
+            LOGGER.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, ex);
+            MainUI.systemPause();
+            return false;
+        }
+    }
+
+    /**
+     * Tells the user their edit lost to another session and picks up the current version.
+     * @param t train being modified, already holding the current details
+     */
+    private void reportConflict(Train t) {
+        selectedVersion = trainService.getVersion(t);
+        System.out.println();
+        LOGGER.log(Level.WARNING, ErrorMessage.TRAIN_CHANGED_ELSEWHERE);
+        System.out.println();
+        MainUI.systemPause();
+    }
+
     /**
      * UI flow to discontinue a train via TrainService.
      * @param t train to be discontinued
@@ -757,9 +808,17 @@ public class TrainUI {
         }
 
         if (confirmChange("Train Status", "Active", "Discontinued")) {
-            trainService.discontinueTrain(t);
-            System.out.println("Changed successfully!");
-            MainUI.systemPause();
+            try {
+                selectedVersion = trainService.discontinueTrain(t, selectedVersion);
+                System.out.println("Changed successfully!");
+                MainUI.systemPause();
+            } catch (ConcurrentModificationException ex) {
+                reportConflict(t);
+            } catch (UncheckedIOException ex) {
+                System.out.println();
+                LOGGER.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, ex);
+                MainUI.systemPause();
+            }
         }
     }
 
@@ -9,6 +9,35 @@ public class AppConstants {
     public static final String STAFF_FILE_PATH = "StaffFile.txt";
     public static final String BOOKING_FILE_PATH = "BookingFile.txt";
     public static final String TRAIN_FILE_PATH = "TrainFile.txt";
+    public static final String PASSENGER_FILE_PATH = "PassengerFile.txt";
+    public static final String TRAIN_BINARY_FILE_PATH = "TrainFile.bin";
+    public static final String BOOKING_JOURNAL_PATH = "BookingJournal.txt";
+    public static final String BOOKING_PARTITION_DIR = "bookings";
+    public static final String REVENUE_VIEW_FILE_PATH = "RevenueView.txt";
+    public static final String ID_SEQUENCE_FILE_PATH = "IdSequence.txt";
+    public static final String BOOKING_INTENT_LOG_PATH = "BookingIntent.log";
+
+    // Persistence Tuning
+    // Number of journal records appended before the booking log is folded into the snapshot
+    public static final int BOOKING_JOURNAL_COMPACT_THRESHOLD = 500;
+    // Number of revenue deltas appended before the revenue view file is rewritten as a snapshot
+    public static final int REVENUE_VIEW_COMPACT_THRESHOLD = 500;
+    // Size above which the booking intent log is compacted down to its incomplete intents (bytes)
+    public static final long INTENT_LOG_COMPACT_BYTES = 64 * 1024;
+    // Time a group-commit leader waits for concurrent saves before flushing (ms)
+    public static final long GROUP_COMMIT_WINDOW_MS = 2;
+    // Booking count above which the revenue report aggregates in parallel
+    public static final int PARALLEL_REPORT_THRESHOLD = 10_000;
+    // Number of IDs reserved per write to the ID sequence file
+    public static final int ID_BLOCK_SIZE = 50;
+    // Lock waits longer than this are logged as a warning (ms)
+    public static final long LOCK_WAIT_WARN_MS = 200;
+    // Time between background flushes of the staff booking counters (ms)
+    public static final long STAFF_COUNTER_FLUSH_INTERVAL_MS = 5_000;
+    // Pending staff booking increments that trigger an early flush
+    public static final int STAFF_COUNTER_FLUSH_THRESHOLD = 20;
+    // Time a staged seat change waits for others before the train file is rewritten (ms)
+    public static final long TRAIN_CHECKPOINT_DELAY_MS = 1_000;
 
     // Business Rules
     public static final int MAX_LOGIN_ATTEMPTS = 4;
@@ -28,8 +57,8 @@ public class AppConstants {
     public static final String FIELD_IC = "IC";
     public static final String FIELD_PASSWORD = "PASSWORD";
 
-    // Tax Rate
-    public static final double SST_RATE = 1.06;
+    // Tax Rate (x1.06), in basis points so fares stay exact
+    public static final int SST_RATE_BASIS_POINTS = 10_600;
 
     // ---- Seat Quantity Rules ----
 
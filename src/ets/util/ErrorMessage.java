@@ -9,6 +9,7 @@ public class ErrorMessage {
     public static final String FILE_READ_ERROR = "Critical: Unable to read data file.";
     public static final String FILE_WRITE_ERROR = "Critical: Unable to save data file.";
     public static final String FILE_CREATE_ERROR = "Error creating new data file.";
+    public static final String FILE_LOCK_ERROR = "Critical: Unable to lock data file.";
     public static final String CORRUPTED_DATA = "Skipping corrupted data line: ";
 
     // ===FOR VALIDATION ===
@@ -62,4 +63,6 @@ public class ErrorMessage {
     // === STATUS ===
     public static final String TRAIN_ALREADY_DISCONTINUED =
             "Train already discontinued!";
+    public static final String TRAIN_CHANGED_ELSEWHERE =
+            "Train was changed in another session. Please review the current details and try again.";
 }
\ No newline at end of file
@@ -0,0 +1,240 @@
+package ets.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cross-process read/write lock for a data file, so several terminals can share the same
+ * files on disk. Readers take a shared FileChannel lock and writers an exclusive one.
+ * The lock is held on a sidecar "&lt;file&gt;.lock" file, because saves replace the data
+ * file by renaming a temp file over it.
+ *
+ * A FileChannel lock belongs to the whole JVM, so threads of one process are first
+ * ordered by an in-process read/write lock; all readers of a process then share a single
+ * OS lock. Both locks are reentrant, and a thread holding the write lock may also read,
+ * so a read-modify-write can run entirely under one write lock.
+ * Time spent waiting for the lock is recorded per file; slow waits are logged.
+ */
+public class FileLockManager {
+
+    private static final Logger logger = Logger.getLogger(FileLockManager.class.getName());
+
+    private static final ConcurrentHashMap<Path, FileLockManager> MANAGERS = new ConcurrentHashMap<>();
+
+    // Can be overridden at launch with -Dets.lockWaitWarnMs=<millis>
+    private static final long WAIT_WARN_NANOS =
+            Long.getLong("ets.lockWaitWarnMs", AppConstants.LOCK_WAIT_WARN_MS) * 1_000_000L;
+
+    private final Path target;
+    private final Path lockPath;
+    private final ReentrantReadWriteLock localLock = new ReentrantReadWriteLock(true);
+    private final Object osLockGuard = new Object();
+
+    private FileChannel channel;
+    private FileLock sharedLock;
+    private int sharedHolders;
+
+    // --- Metrics ---
+    private final LongAdder acquisitions = new LongAdder();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private FileLockManager(Path target) {
+        this.target = target;
+        this.lockPath = target.resolveSibling(target.getFileName() + ".lock");
+    }
+
+    /**
+     * Returns the shared lock for a file, so every repository touching the same path
+     * coordinates through the same instance.
+     * @param filePath path of the data file
+     * @return the lock manager for that file
+     */
+    public static FileLockManager forPath(String filePath) {
+        Path key = Paths.get(filePath).toAbsolutePath().normalize();
+        return MANAGERS.computeIfAbsent(key, FileLockManager::new);
+    }
+
+    /**
+     * Lock wait statistics of every file locked so far, for diagnostics.
+     * @return one line per file, ordered by path
+     */
+    public static List<String> describeAll() {
+        Map<Path, FileLockManager> sorted = new TreeMap<>(MANAGERS);
+        List<String> lines = new ArrayList<>(sorted.size());
+        sorted.forEach((path, manager) -> lines.add(String.format("%s: %d locks, avg wait %.3f ms, max wait %.3f ms",
+                path.getFileName(), manager.getAcquisitions(),
+                manager.getAverageWaitNanos() / 1e6, manager.getMaxWaitNanos() / 1e6)));
+        return lines;
+    }
+
+    /**
+     * Runs a read under the shared lock.
+     * @param action read to perform
+     * @param <T>    result type
+     * @return the action's result
+     */
+    public <T> T read(Supplier<T> action) {
+        long start = System.nanoTime();
+        localLock.readLock().lock();
+        boolean osLocked = false;
+        try {
+            // A thread holding the write lock already has the file exclusively
+            if (!localLock.isWriteLockedByCurrentThread()) {
+                acquireShared();
+                osLocked = true;
+            }
+            recordWait(System.nanoTime() - start);
+            return action.get();
+        } finally {
+            if (osLocked) {
+                releaseShared();
+            }
+            localLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a write, or a read-modify-write, under the exclusive lock.
+     * @param action write to perform
+     * @param <T>    result type
+     * @return the action's result
+     */
+    public <T> T write(Supplier<T> action) {
+        long start = System.nanoTime();
+        localLock.writeLock().lock();
+        FileLock exclusive = null;
+        try {
+            if (localLock.getWriteHoldCount() == 1) {
+                exclusive = channel().lock(0, Long.MAX_VALUE, false);
+            }
+            recordWait(System.nanoTime() - start);
+            return action.get();
+        } catch (IOException e) {
+            throw new UncheckedIOException(ErrorMessage.FILE_LOCK_ERROR + " " + target, e);
+        } finally {
+            release(exclusive);
+            localLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a write under the exclusive lock.
+     * @param action write to perform
+     */
+    public void write(Runnable action) {
+        write(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Whether the calling thread holds the exclusive lock, e.g. inside a read-modify-write.
+     * @return true if this thread holds the write lock
+     */
+    public boolean isWriteLockedByCurrentThread() {
+        return localLock.isWriteLockedByCurrentThread();
+    }
+
+    /**
+     * Whether the calling thread holds the shared lock, in which case it cannot take the exclusive one.
+     * @return true if this thread holds the read lock
+     */
+    public boolean isReadLockedByCurrentThread() {
+        return localLock.getReadHoldCount() > 0;
+    }
+
+    /**
+     * Number of times the lock was acquired, shared or exclusive.
+     * @return total acquisitions
+     */
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * Longest time a caller waited for the lock.
+     * @return wait in nanoseconds
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /**
+     * Average time callers waited for the lock.
+     * @return wait in nanoseconds, 0 if the lock was never taken
+     */
+    public long getAverageWaitNanos() {
+        long count = acquisitions.sum();
+        return count == 0 ? 0 : totalWaitNanos.get() / count;
+    }
+
+    // --- Private Helpers ---
+
+    private void acquireShared() {
+        synchronized (osLockGuard) {
+            if (sharedHolders == 0) {
+                try {
+                    sharedLock = channel().lock(0, Long.MAX_VALUE, true);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(ErrorMessage.FILE_LOCK_ERROR + " " + target, e);
+                }
+            }
+            sharedHolders++;
+        }
+    }
+
+    private void releaseShared() {
+        synchronized (osLockGuard) {
+            if (--sharedHolders == 0) {
+                release(sharedLock);
+                sharedLock = null;
+            }
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        synchronized (osLockGuard) {
+            if (channel == null || !channel.isOpen()) {
+                channel = FileChannel.open(lockPath,
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            return channel;
+        }
+    }
+
+    private void release(FileLock lock) {
+        if (lock == null || !lock.isValid()) return;
+        try {
+            lock.release();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, ErrorMessage.FILE_LOCK_ERROR + " " + target, e);
+        }
+    }
+
+    private void recordWait(long nanos) {
+        acquisitions.increment();
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+        if (nanos > WAIT_WARN_NANOS) {
+            logger.warning(String.format("Waited %.1f ms for the lock on %s", nanos / 1e6, target.getFileName()));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ets.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Identifies one version of a file: its key (inode), modification time and size.
+ * Files saved through {@link GroupCommitWriter} are replaced by a rename, so the key
+ * changes on every save even when the time and size come out the same; comparing
+ * stamps therefore tells whether another process rewrote a file since it was read.
+ *
+ * @param fileKey  file key, or null if the file system has none (or there is no file)
+ * @param modified modification time, or null if there is no file
+ * @param length   size in bytes
+ */
+public record FileStamp(Object fileKey, FileTime modified, long length) {
+
+    /** Stamp of a file that does not exist. */
+    public static final FileStamp MISSING = new FileStamp(null, null, 0);
+
+    /**
+     * Reads the current stamp of a file.
+     * @param path file to stamp
+     * @return its stamp, or {@link #MISSING} if it does not exist
+     */
+    public static FileStamp of(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new FileStamp(attributes.fileKey(), attributes.lastModifiedTime(), attributes.size());
+        } catch (IOException e) {
+            return MISSING;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package ets.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shared write path for the file-based repositories.
+ * Every save hands over the complete file content. Concurrent saves to the same
+ * file are coalesced: the first caller becomes the leader, waits for the commit
+ * window, and writes only the newest content on behalf of everyone queued behind it.
+ * Each flush goes to a temp file, is fsynced once and then atomically renamed over
+ * the target, so a crash mid-write never leaves a truncated data file.
+ *
+ * Callers do not lock the file for a plain save: the leader takes the file's exclusive
+ * {@link FileLockManager} lock only around the temp write and the rename, after the commit
+ * window, so other terminals are not locked out while saves are being coalesced. A caller
+ * already holding that lock (a read-modify-write) is written straight away instead of
+ * queueing, since a leader would wait for the lock it holds.
+ */
+public class GroupCommitWriter {
+
+    private static final ConcurrentHashMap<Path, GroupCommitWriter> WRITERS = new ConcurrentHashMap<>();
+
+    // Can be overridden at launch with -Dets.commitWindowMs=<millis>
+    private static volatile long commitWindowMillis =
+            Long.getLong("ets.commitWindowMs", AppConstants.GROUP_COMMIT_WINDOW_MS);
+
+    private final Path target;
+    private final FileLockManager fileLock;
+    private final Object pendingLock = new Object();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private List<String> pendingLines;
+    private long requestedSeq;
+    private long committedSeq;
+
+    // --- Metrics ---
+    private final LongAdder commitRequests = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    private GroupCommitWriter(Path target) {
+        this.target = target;
+        this.fileLock = FileLockManager.forPath(target.toString());
+    }
+
+    /**
+     * Returns the shared writer for a file, so all repositories writing the same
+     * path coalesce into the same commit queue.
+     * @param filePath path of the data file
+     * @return the writer responsible for that file
+     */
+    public static GroupCommitWriter forPath(String filePath) {
+        Path key = Paths.get(filePath).toAbsolutePath().normalize();
+        return WRITERS.computeIfAbsent(key, GroupCommitWriter::new);
+    }
+
+    /**
+     * Get the commit window applied by a leader before flushing.
+     * @return commit window in milliseconds
+     */
+    public static long getCommitWindowMillis() {
+        return commitWindowMillis;
+    }
+
+    /**
+     * Set the commit window applied by a leader before flushing.
+     * @param millis commit window in milliseconds, 0 to flush immediately
+     */
+    public static void setCommitWindowMillis(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Commit window cannot be negative.");
+        }
+        commitWindowMillis = millis;
+    }
+
+    /**
+     * Durably replaces the file with the given lines.
+     * Returns once a flush containing these lines (or newer ones) is on disk.
+     * @param lines complete file content, one record per line
+     * @throws IOException if the flush fails
+     */
+    public void commit(List<String> lines) throws IOException {
+        if (fileLock.isWriteLockedByCurrentThread()) {
+            commitRequests.increment();
+            flush(lines);
+            return;
+        }
+
+        long ticket;
+        synchronized (pendingLock) {
+            pendingLines = lines;
+            ticket = ++requestedSeq;
+        }
+        commitRequests.increment();
+
+        flushLock.lock();
+        try {
+            if (committedSeq >= ticket) {
+                return; // A previous leader already flushed our content or a newer one
+            }
+            awaitCommitWindow();
+
+            List<String> batch;
+            long batchSeq;
+            synchronized (pendingLock) {
+                batch = pendingLines;
+                batchSeq = requestedSeq;
+            }
+
+            try {
+                fileLock.write(() -> {
+                    try {
+                        flush(batch);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            committedSeq = batchSeq;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Number of save requests received by this writer.
+     * @return total commit requests
+     */
+    public long getCommitRequests() {
+        return commitRequests.sum();
+    }
+
+    /**
+     * Number of physical flushes performed; lower than the request count when saves were coalesced.
+     * @return total flushes
+     */
+    public long getFlushCount() {
+        return flushCount.sum();
+    }
+
+    /**
+     * Latency of the most recent flush (write + fsync + rename).
+     * @return latency in nanoseconds
+     */
+    public long getLastFlushNanos() {
+        return lastFlushNanos.get();
+    }
+
+    /**
+     * Slowest flush observed so far.
+     * @return latency in nanoseconds
+     */
+    public long getMaxFlushNanos() {
+        return maxFlushNanos.get();
+    }
+
+    /**
+     * Average flush latency so far.
+     * @return latency in nanoseconds, 0 if nothing has been flushed
+     */
+    public long getAverageFlushNanos() {
+        long flushes = flushCount.sum();
+        return flushes == 0 ? 0 : totalFlushNanos.get() / flushes;
+    }
+
+    // --- Private Helpers ---
+
+    private void awaitCommitWindow() {
+        long window = commitWindowMillis;
+        if (window <= 0) return;
+        try {
+            Thread.sleep(window);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the lines and records the flush. Caller holds the file's exclusive lock.
+     */
+    private void flush(List<String> lines) throws IOException {
+        long start = System.nanoTime();
+        writeAtomically(lines);
+        recordFlush(System.nanoTime() - start);
+    }
+
+    private void writeAtomically(List<String> lines) throws IOException {
+        if (Files.isDirectory(target)) {
+            throw new IOException("Target is a directory: " + target);
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8))) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+            writer.flush();
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void recordFlush(long nanos) {
+        flushCount.increment();
+        totalFlushNanos.addAndGet(nanos);
+        lastFlushNanos.set(nanos);
+        maxFlushNanos.accumulateAndGet(nanos, Math::max);
+    }
+}
@@ -0,0 +1,155 @@
+package ets.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent, monotonic ID allocator (e.g. B001, B002 or P001, P002).
+ * IDs are handed out from an in-memory block; only when a block is used up is the
+ * new high-water mark written to the sequence file. Each ID therefore costs O(1),
+ * concurrent callers never receive the same ID, and a restart resumes after the
+ * last reserved block (skipping at most one block of unused numbers).
+ */
+public class IdAllocator {
+
+    private static final Logger logger = Logger.getLogger(IdAllocator.class.getName());
+
+    // Several prefixes share one sequence file, so block reservations are serialized
+    private static final Object FILE_LOCK = new Object();
+    private static final int MIN_DIGITS = 3;
+
+    private final String prefix;
+    private final String sequenceFile;
+    private final int blockSize;
+    private final LongSupplier existingMax;
+
+    private long next;
+    private long blockEnd;
+    private boolean initialised;
+
+    /**
+     * @param prefix       ID prefix, e.g. "B"
+     * @param sequenceFile file holding the high-water marks, or null to keep the sequence in memory only
+     * @param blockSize    number of IDs reserved per write to the sequence file
+     * @param existingMax  highest number already in use; consulted once, on first allocation
+     */
+    public IdAllocator(String prefix, String sequenceFile, int blockSize, LongSupplier existingMax) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive.");
+        }
+        this.prefix = prefix;
+        this.sequenceFile = sequenceFile;
+        this.blockSize = blockSize;
+        this.existingMax = existingMax;
+    }
+
+    /**
+     * Hands out the next ID.
+     * @return formatted ID, zero-padded to at least three digits
+     */
+    public synchronized String nextId() {
+        if (!initialised) {
+            next = existingMax.getAsLong() + 1;
+            blockEnd = next - 1;
+            initialised = true;
+        }
+        if (next > blockEnd) {
+            reserveBlock();
+        }
+        return format(next++);
+    }
+
+    /**
+     * Extracts the numeric part of an ID with this allocator's prefix.
+     * @param id    ID to parse, e.g. "B012"
+     * @param prefix expected prefix
+     * @return the number, or 0 if the ID does not match
+     */
+    public static long numberOf(String id, String prefix) {
+        if (id == null || id.length() <= prefix.length() || !id.startsWith(prefix)) return 0;
+        long value = 0;
+        for (int i = prefix.length(); i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') return 0;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // --- Private Helpers ---
+
+    private String format(long number) {
+        String digits = Long.toString(number);
+        StringBuilder id = new StringBuilder(prefix.length() + Math.max(MIN_DIGITS, digits.length()));
+        id.append(prefix);
+        for (int i = digits.length(); i < MIN_DIGITS; i++) {
+            id.append('0');
+        }
+        return id.append(digits).toString();
+    }
+
+    /**
+     * Reserves the next block. The stored mark is re-read under the file lock, so
+     * allocators for the same prefix in different services never hand out the same block.
+     */
+    private void reserveBlock() {
+        if (sequenceFile == null) {
+            blockEnd = next + blockSize - 1;
+            return;
+        }
+        synchronized (FILE_LOCK) {
+            // Other terminals reserve from the same file; the exclusive lock spans read and write
+            FileLockManager.forPath(sequenceFile).write(this::reserveStoredBlock);
+        }
+    }
+
+    private void reserveStoredBlock() {
+        Map<String, Long> marks = readAll();
+        Long stored = marks.get(prefix);
+        if (stored != null) {
+            next = Math.max(next, stored + 1);
+        }
+        blockEnd = next + blockSize - 1;
+        marks.put(prefix, blockEnd);
+
+        List<String> lines = new ArrayList<>(marks.size());
+        marks.forEach((p, mark) -> lines.add(p + "|" + mark));
+        try {
+            GroupCommitWriter.forPath(sequenceFile).commit(lines);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, e);
+        }
+    }
+
+    private Map<String, Long> readAll() {
+        Map<String, Long> marks = new LinkedHashMap<>();
+        File file = new File(sequenceFile);
+        if (!file.exists()) return marks;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int sep = line.indexOf('|');
+                if (sep <= 0) continue;
+                try {
+                    marks.put(line.substring(0, sep), Long.parseLong(line.substring(sep + 1)));
+                } catch (NumberFormatException e) {
+                    logger.log(Level.WARNING, ErrorMessage.CORRUPTED_DATA + line);
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, ErrorMessage.FILE_READ_ERROR, e);
+        }
+        return marks;
+    }
+}
@@ -0,0 +1,318 @@
+package ets.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only redo log for changes that span several data files.
+ * A transaction first writes one intent record describing every change it is about to
+ * make; that record is fsynced and is the transaction's commit point. The changes are
+ * then applied to the data files, and a completion record (not synced) is appended.
+ * A transaction that leaves part of its work to be written later first appends an
+ * "applied" record (not synced either), and completes once that part is stored.
+ * After a crash, intents without a completion record are returned by {@link #pending()}
+ * so they can be redone; the redo must therefore be idempotent.
+ * Pending intents may also be read while transactions run, e.g. to replay changes a data
+ * file does not hold yet; {@link #pending()} then only reads what was appended since.
+ *
+ * Running transactions hold the log's shared file lock, so recovery, which takes the
+ * exclusive lock, never mistakes another terminal's in-flight transaction for a crashed one.
+ * For the same reason, a log that has grown past its size limit is compacted under the
+ * exclusive lock once a transaction ends: every intent still pending then is kept, and
+ * everything completed is dropped.
+ */
+public class IntentLog {
+
+    private static final Logger logger = Logger.getLogger(IntentLog.class.getName());
+
+    private static final String BEGIN = "B";
+    private static final String APPLIED = "A";
+    private static final String COMPLETE = "C";
+
+    private final Path path;
+    private final FileLockManager fileLock;
+    private final long compactBytes;
+    // Start time plus a random tag, so logs opened in the same millisecond (e.g. by two
+    // terminals) never hand out the same ID
+    private final String idPrefix = Long.toString(System.currentTimeMillis(), 36)
+            + Integer.toString(ThreadLocalRandom.current().nextInt(36 * 36 * 36 * 36), 36) + "-";
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Intents read so far, up to readOffset of the file with key readKey; guarded by this object
+    private final LinkedHashMap<String, Intent> open = new LinkedHashMap<>();
+    private Object readKey;
+    private long readOffset;
+
+    /**
+     * @param filePath path of the log file; created on first write
+     */
+    public IntentLog(String filePath) {
+        this(filePath, AppConstants.INTENT_LOG_COMPACT_BYTES);
+    }
+
+    /**
+     * @param filePath     path of the log file; created on first write
+     * @param compactBytes log size at which it is compacted after a transaction
+     */
+    public IntentLog(String filePath, long compactBytes) {
+        this.path = Paths.get(filePath);
+        this.fileLock = FileLockManager.forPath(filePath);
+        this.compactBytes = compactBytes;
+    }
+
+    /**
+     * An intent that was logged but not completed.
+     * @param id      transaction ID
+     * @param payload record written by {@link #begin}
+     * @param applied whether {@link #applied} was recorded, i.e. only the deferred part is left
+     */
+    public record Intent(String id, String payload, boolean applied) { }
+
+    /**
+     * Runs a transaction. Recovery cannot start while it runs.
+     * Afterwards the log is compacted if it has grown past its size limit.
+     * @param body transaction body, which calls begin() and complete()
+     * @param <T>  result type
+     * @return the body's result
+     */
+    public <T> T inTransaction(Supplier<T> body) {
+        T result = fileLock.read(body);
+        // A nested transaction still holds the shared lock, so only the outermost one compacts
+        if (!fileLock.isReadLockedByCurrentThread() && size() >= compactBytes) {
+            compact();
+        }
+        return result;
+    }
+
+    /**
+     * Durably records a transaction's intent. Once this returns, the changes it describes
+     * will be redone after a crash.
+     * @param payload single-line description of every change in the transaction
+     * @return transaction ID, to pass to complete()
+     * @throws UncheckedIOException if the record could not be written; nothing is committed
+     */
+    public String begin(String payload) {
+        String id = idPrefix + sequence.incrementAndGet();
+        append(BEGIN + "|" + id + "|" + payload, true);
+        return id;
+    }
+
+    /**
+     * Marks a transaction's data file changes as applied while part of it is still being
+     * written behind. A redo then only needs to repeat that part. Not synced, like complete().
+     * @param id transaction ID returned by begin()
+     */
+    public void applied(String id) {
+        try {
+            fileLock.read(() -> {
+                append(APPLIED + "|" + id, false);
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            logger.log(Level.WARNING, ErrorMessage.FILE_WRITE_ERROR, e);
+        }
+    }
+
+    /**
+     * Marks a transaction as fully applied. Not synced: losing the mark only means
+     * an idempotent redo after a crash. May be called after the transaction has ended,
+     * e.g. once a written-behind change is stored; the shared lock keeps the mark from
+     * landing in a log that is being compacted.
+     * @param id transaction ID returned by begin()
+     */
+    public void complete(String id) {
+        try {
+            fileLock.read(() -> {
+                append(COMPLETE + "|" + id, false);
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            logger.log(Level.WARNING, ErrorMessage.FILE_WRITE_ERROR, e);
+        }
+    }
+
+    /**
+     * Runs crash recovery under the exclusive lock, i.e. once no terminal is inside a
+     * transaction. The pending intents are handed to the redo action, then the log is emptied.
+     * @param redo action that re-applies the pending intents, in the order they were logged
+     * @return number of intents redone
+     */
+    public int recover(Consumer<List<Intent>> redo) {
+        return fileLock.write(() -> {
+            List<Intent> intents = pending();
+            redo.accept(intents);
+            truncate();
+            return intents.size();
+        });
+    }
+
+    /**
+     * Intents that have no completion record, in the order they were logged.
+     * Only the records appended since the last call are read, unless the log was replaced
+     * (compacted or emptied) meanwhile. A record still being appended is read next time.
+     * @return pending intents
+     */
+    public synchronized List<Intent> pending() {
+        for (int attempt = 1; ; attempt++) {
+            FileStamp before = FileStamp.of(path);
+            if (before.fileKey() == null || !before.fileKey().equals(readKey) || before.length() < readOffset) {
+                open.clear();
+                readOffset = 0;
+                readKey = before.fileKey();
+            }
+            if (before == FileStamp.MISSING) return new ArrayList<>();
+
+            try {
+                readFrom(readOffset);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, ErrorMessage.FILE_READ_ERROR, e);
+            }
+            // A log replaced while it was read is read again from the start
+            Object key = FileStamp.of(path).fileKey();
+            if (key == null || key.equals(readKey) || attempt == 3) break;
+            readKey = null;
+        }
+        return new ArrayList<>(open.values());
+    }
+
+    /**
+     * A token that changes whenever a record is appended or the log is replaced.
+     * @return the log's current file stamp, as text
+     */
+    public String stateToken() {
+        return FileStamp.of(path).toString();
+    }
+
+    /**
+     * Drops every completed intent, keeping the pending ones.
+     * Runs under the exclusive lock, so no terminal is inside a transaction meanwhile.
+     */
+    public void compact() {
+        fileLock.write(() -> {
+            List<Intent> intents = pending();
+            if (intents.isEmpty()) {
+                truncate();
+            } else {
+                rewrite(intents);
+            }
+        });
+    }
+
+    // --- Private Helpers ---
+
+    private long size() {
+        try {
+            return Files.exists(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private synchronized void rewrite(List<Intent> intents) {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        StringBuilder records = new StringBuilder();
+        for (Intent intent : intents) {
+            records.append(BEGIN).append('|').append(intent.id()).append('|').append(intent.payload())
+                    .append(System.lineSeparator());
+            if (intent.applied()) {
+                records.append(APPLIED).append('|').append(intent.id()).append(System.lineSeparator());
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(records.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, ErrorMessage.FILE_WRITE_ERROR, e);
+            return;
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, ErrorMessage.FILE_WRITE_ERROR, e);
+        }
+    }
+
+    private synchronized void append(String record, boolean sync) {
+        byte[] bytes = (record + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(ErrorMessage.FILE_WRITE_ERROR + " " + path, e);
+        }
+    }
+
+    /**
+     * Empties the log by replacing it, so readers notice even if it grows past their last offset.
+     */
+    private void truncate() {
+        if (!Files.exists(path)) return;
+        rewrite(List.of());
+    }
+
+    /**
+     * Reads the records from an offset to the last complete line. Caller holds the monitor.
+     */
+    private void readFrom(long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size() - offset;
+            if (length <= 0) return;
+            ByteBuffer buffer = ByteBuffer.allocate((int) length);
+            int read;
+            do {
+                read = channel.read(buffer, offset + buffer.position());
+            } while (read > 0 && buffer.hasRemaining());
+            byte[] bytes = buffer.array();
+            int lineStart = 0;
+            for (int i = 0; i < buffer.position(); i++) {
+                if (bytes[i] == '\n') {
+                    int end = i > lineStart && bytes[i - 1] == '\r' ? i - 1 : i;
+                    apply(new String(bytes, lineStart, end - lineStart, StandardCharsets.UTF_8));
+                    lineStart = i + 1;
+                }
+            }
+            readOffset = offset + lineStart;
+        }
+    }
+
+    private void apply(String line) {
+        int idEnd = line.indexOf('|', 2);
+        if (line.startsWith(BEGIN + "|") && idEnd > 0) {
+            String id = line.substring(2, idEnd);
+            open.put(id, new Intent(id, line.substring(idEnd + 1), false));
+        } else if (line.startsWith(APPLIED + "|")) {
+            open.computeIfPresent(line.substring(2), (id, intent) -> new Intent(id, intent.payload(), true));
+        } else if (line.startsWith(COMPLETE + "|")) {
+            open.remove(line.substring(2));
+        } else if (!line.isEmpty()) {
+            logger.log(Level.WARNING, ErrorMessage.CORRUPTED_DATA + line);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package ets.util;
+
+/**
+ * Fixed-point money arithmetic on amounts held as a long number of sen (1/100 RM).
+ * Sums are exact, rates are applied in basis points with a single half-up rounding,
+ * and nothing here allocates except the String returned by {@link #format(long)}.
+ */
+public final class Money {
+
+    public static final int SEN_PER_RINGGIT = 100;
+    // Rates are expressed in basis points: 10_000 = x1.00
+    public static final int BASIS_POINTS = 10_000;
+
+    private Money() {
+    }
+
+    /**
+     * Converts a ringgit amount (e.g. a seat price entered as a double) to sen, rounding half-up.
+     * @param ringgit amount in RM
+     * @return amount in sen
+     */
+    public static long ofRinggit(double ringgit) {
+        return Math.round(ringgit * SEN_PER_RINGGIT);
+    }
+
+    /**
+     * Converts sen to ringgit for display or legacy callers.
+     * @param sen amount in sen
+     * @return amount in RM
+     */
+    public static double toRinggit(long sen) {
+        return sen / (double) SEN_PER_RINGGIT;
+    }
+
+    /**
+     * Multiplies an amount by a quantity and by two rates, rounding once at the end.
+     * @param sen          unit amount in sen
+     * @param quantity     number of units
+     * @param rateBp       first rate in basis points (e.g. a discount, 7_500 = x0.75)
+     * @param secondRateBp second rate in basis points (e.g. tax, 10_600 = x1.06)
+     * @return rounded amount in sen
+     * @throws ArithmeticException if the result overflows a long
+     */
+    public static long times(long sen, int quantity, int rateBp, int secondRateBp) {
+        long raw = Math.multiplyExact(Math.multiplyExact(Math.multiplyExact(sen, quantity), rateBp), secondRateBp);
+        return divideHalfUp(raw, (long) BASIS_POINTS * BASIS_POINTS);
+    }
+
+    /**
+     * Applies a rate in basis points, rounding half-up.
+     * @param sen    amount in sen
+     * @param rateBp rate in basis points
+     * @return rounded amount in sen
+     */
+    public static long applyRate(long sen, int rateBp) {
+        return divideHalfUp(Math.multiplyExact(sen, rateBp), BASIS_POINTS);
+    }
+
+    /**
+     * Formats an amount with two decimals and no grouping (e.g. "1234.50", "-0.05"),
+     * the form used in the data files.
+     * @param sen amount in sen
+     * @return formatted amount
+     */
+    public static String format(long sen) {
+        return appendTo(new StringBuilder(12), sen).toString();
+    }
+
+    /**
+     * Appends an amount with two decimals to a builder, without String.format.
+     * @param sb  builder to append to
+     * @param sen amount in sen
+     * @return the same builder
+     */
+    public static StringBuilder appendTo(StringBuilder sb, long sen) {
+        if (sen < 0) {
+            sb.append('-');
+        }
+        long abs = Math.abs(sen);
+        long fraction = abs % SEN_PER_RINGGIT;
+        sb.append(abs / SEN_PER_RINGGIT).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction);
+    }
+
+    /**
+     * Parses an amount such as "50", "80.5" or "120.00" into sen. Digits past the second
+     * decimal are rounded half-up.
+     * @param text  amount in RM
+     * @param start index of the first character
+     * @param end   index after the last character
+     * @return amount in sen
+     * @throws NumberFormatException if the text is not a plain decimal number
+     */
+    public static long parse(CharSequence text, int start, int end) {
+        boolean negative = start < end && text.charAt(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) throw new NumberFormatException("Empty amount");
+
+        long whole = 0;
+        int digits = 0;
+        for (; i < end && text.charAt(i) != '.'; i++, digits++) {
+            whole = Math.addExact(Math.multiplyExact(whole, 10), digit(text, i));
+        }
+        long fraction = 0;
+        int scale = 0;
+        boolean roundUp = false;
+        if (i < end) {
+            for (i++; i < end; i++, digits++) {
+                int d = digit(text, i);
+                if (scale < 2) {
+                    fraction = fraction * 10 + d;
+                    scale++;
+                } else if (scale++ == 2) {
+                    roundUp = d >= 5;
+                }
+            }
+        }
+        if (digits == 0) throw new NumberFormatException("No digits in " + text.subSequence(start, end));
+        for (; scale < 2; scale++) {
+            fraction *= 10;
+        }
+        long sen = Math.addExact(Math.multiplyExact(whole, SEN_PER_RINGGIT), fraction + (roundUp ? 1 : 0));
+        return negative ? -sen : sen;
+    }
+
+    /**
+     * Parses an amount such as "120.00" into sen.
+     * @param text amount in RM
+     * @return amount in sen
+     */
+    public static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    // --- Private Helpers ---
+
+    private static long divideHalfUp(long value, long divisor) {
+        long half = divisor / 2;
+        return value >= 0 ? (value + half) / divisor : -((-value + half) / divisor);
+    }
+
+    private static int digit(CharSequence text, int i) {
+        char c = text.charAt(i);
+        if (c < '0' || c > '9') {
+            throw new NumberFormatException("Not a digit at " + i + ": " + text);
+        }
+        return c - '0';
+    }
+}
@@ -0,0 +1,248 @@
+package ets.util;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Cursor over one pipe-delimited record (e.g. "T001|Penang|2030-01-01|10:00|100|...").
+ * Fields are decoded in place from the line, so numbers, prices, dates and times are
+ * parsed without the regex split and without substring copies. One instance can be
+ * reused for every line of a file; it is not thread-safe.
+ */
+public class PipeRecordReader {
+
+    private static final char DELIMITER = '|';
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private CharSequence line;
+    private int pos;
+    private int fieldEnd;
+
+    /**
+     * Points the reader at a new record.
+     * @param line record to read
+     * @return this reader, positioned at the first field
+     */
+    public PipeRecordReader reset(CharSequence line) {
+        this.line = line;
+        this.pos = 0;
+        return this;
+    }
+
+    /**
+     * Whether another non-empty field follows. Like String.split, a trailing
+     * delimiter does not count as an extra field.
+     * @return true if a field remains
+     */
+    public boolean hasNext() {
+        return pos < line.length();
+    }
+
+    /**
+     * Number of fields in the current record, counted without allocating.
+     * @return field count (0 for an empty line)
+     */
+    public int fieldCount() {
+        int length = line.length();
+        if (length == 0) return 0;
+        int count = 1;
+        for (int i = 0; i < length; i++) {
+            if (line.charAt(i) == DELIMITER) count++;
+        }
+        return line.charAt(length - 1) == DELIMITER ? count - 1 : count;
+    }
+
+    /**
+     * Skips the next field.
+     */
+    public void skip() {
+        advance();
+        pos = fieldEnd + 1;
+    }
+
+    /**
+     * Reads the next field as text. Only text fields need a copy.
+     * @return field value
+     */
+    public String nextString() {
+        int start = advance();
+        String value = line.subSequence(start, fieldEnd).toString();
+        pos = fieldEnd + 1;
+        return value;
+    }
+
+    /**
+     * Reads the first character of the next field (e.g. tier or gender codes).
+     * @return first character
+     */
+    public char nextChar() {
+        int start = advance();
+        if (start == fieldEnd) throw new IllegalArgumentException("Empty field at " + start);
+        pos = fieldEnd + 1;
+        return line.charAt(start);
+    }
+
+    /**
+     * Reads the next field as a signed decimal int.
+     * @return parsed value
+     */
+    public int nextInt() {
+        int start = advance();
+        long value = parseDigits(start, fieldEnd);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Out of int range: " + line.subSequence(start, fieldEnd));
+        }
+        pos = fieldEnd + 1;
+        return (int) value;
+    }
+
+    /**
+     * Reads the next field as a signed decimal long of up to 18 digits.
+     * @return parsed value
+     */
+    public long nextLong() {
+        int start = advance();
+        int digits = fieldEnd - start - (start < fieldEnd && line.charAt(start) == '-' ? 1 : 0);
+        if (digits > 18) {
+            throw new NumberFormatException("Out of long range: " + line.subSequence(start, fieldEnd));
+        }
+        long value = parseDigits(start, fieldEnd);
+        pos = fieldEnd + 1;
+        return value;
+    }
+
+    /**
+     * Reads the next field as a money amount (e.g. "120.50") in sen, without going through a double.
+     * @return amount in sen
+     * @see Money#parse(CharSequence, int, int)
+     */
+    public long nextCents() {
+        int start = advance();
+        long sen = Money.parse(line, start, fieldEnd);
+        pos = fieldEnd + 1;
+        return sen;
+    }
+
+    /**
+     * Reads the next field as a fixed-point decimal such as a price ("50.00", "80.5", "120").
+     * Values with up to 15 significant digits and 6 decimals are decoded exactly as
+     * Double.parseDouble would; anything else falls back to it.
+     * @return parsed value
+     */
+    public double nextFixed() {
+        int start = advance();
+        int end = fieldEnd;
+        pos = end + 1;
+
+        int dot = -1;
+        boolean plain = end > start;
+        for (int i = start; i < end && plain; i++) {
+            char c = line.charAt(i);
+            if (c == '.' && dot < 0) {
+                dot = i;
+            } else if ((c < '0' || c > '9') && !(c == '-' && i == start)) {
+                plain = false;
+            }
+        }
+        boolean negative = plain && line.charAt(start) == '-';
+        int integerDigits = (dot < 0 ? end : dot) - start - (negative ? 1 : 0);
+        int scale = dot < 0 ? 0 : end - dot - 1;
+        if (!plain || integerDigits == 0 || scale >= POWERS_OF_TEN.length || integerDigits + scale > MAX_EXACT_DIGITS) {
+            return Double.parseDouble(line.subSequence(start, end).toString());
+        }
+
+        long mantissa = dot < 0 ? parseDigits(start, end) : parseDigits(start, dot);
+        for (int i = dot + 1; dot >= 0 && i < end; i++) {
+            mantissa = mantissa * 10 + (negative ? -digit(i) : digit(i));
+        }
+        return mantissa / POWERS_OF_TEN[scale];
+    }
+
+    /**
+     * Reads the next field as an ISO date (yyyy-MM-dd).
+     * @return parsed date
+     */
+    public LocalDate nextDate() {
+        int start = advance();
+        if (fieldEnd - start != 10 || line.charAt(start + 4) != '-' || line.charAt(start + 7) != '-') {
+            throw new IllegalArgumentException("Not a yyyy-MM-dd date: " + line.subSequence(start, fieldEnd));
+        }
+        pos = fieldEnd + 1;
+        return LocalDate.of(digits(start, 4), digits(start + 5, 2), digits(start + 8, 2));
+    }
+
+    /**
+     * Reads the next field as a 24-hour time (HH:mm).
+     * @return parsed time
+     */
+    public LocalTime nextTime() {
+        int start = advance();
+        if (fieldEnd - start != 5 || line.charAt(start + 2) != ':') {
+            throw new IllegalArgumentException("Not an HH:mm time: " + line.subSequence(start, fieldEnd));
+        }
+        pos = fieldEnd + 1;
+        return LocalTime.of(digits(start, 2), digits(start + 3, 2));
+    }
+
+    /**
+     * Reads the next field as a boolean with Boolean.parseBoolean semantics.
+     * @return true only if the field is "true", ignoring case
+     */
+    public boolean nextBoolean() {
+        int start = advance();
+        boolean value = fieldEnd - start == 4
+                && Character.toLowerCase(line.charAt(start)) == 't'
+                && Character.toLowerCase(line.charAt(start + 1)) == 'r'
+                && Character.toLowerCase(line.charAt(start + 2)) == 'u'
+                && Character.toLowerCase(line.charAt(start + 3)) == 'e';
+        pos = fieldEnd + 1;
+        return value;
+    }
+
+    // --- Private Helpers ---
+
+    /**
+     * Locates the end of the next field.
+     * @return start index of the field
+     */
+    private int advance() {
+        // Like String.split, a trailing delimiter does not open another field
+        if (line == null || (pos >= line.length() && pos > 0)) {
+            throw new IllegalArgumentException("Record has no more fields.");
+        }
+        int end = pos;
+        while (end < line.length() && line.charAt(end) != DELIMITER) {
+            end++;
+        }
+        fieldEnd = end;
+        return pos;
+    }
+
+    private long parseDigits(int start, int end) {
+        boolean negative = start < end && line.charAt(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end) throw new NumberFormatException("Empty number at " + start);
+        long value = 0;
+        for (; i < end; i++) {
+            value = value * 10 + digit(i);
+        }
+        return negative ? -value : value;
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            value = value * 10 + digit(i);
+        }
+        return value;
+    }
+
+    private int digit(int index) {
+        char c = line.charAt(index);
+        if (c < '0' || c > '9') {
+            throw new NumberFormatException("Unexpected character '" + c + "' at " + index);
+        }
+        return c - '0';
+    }
+}
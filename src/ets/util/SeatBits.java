@@ -0,0 +1,239 @@
+package ets.util;
+
+import java.util.Arrays;
+
+/**
+ * Seat map kept as a bitset: bit {@code n} of the array (word {@code n / 64}) is set when
+ * seat {@code n + 1} is taken. Bits at or past a map's capacity are always clear, so the
+ * array may be longer than the capacity needs. A request for several seats gets the first
+ * block of contiguous free seats long enough to hold it, or the lowest free seats if no
+ * block is; the search skips whole 64-seat words at a time, so even a 999-seat tier is
+ * scanned in a few dozen word operations.
+ *
+ * The methods work on the caller's array in place and do no locking.
+ */
+public final class SeatBits {
+
+    private static final int WORD_BITS = 64;
+
+    private SeatBits() {
+    }
+
+    /**
+     * Number of words needed for a capacity.
+     * @param capacity number of seats
+     * @return array length
+     */
+    public static int words(int capacity) {
+        return (Math.max(0, capacity) + WORD_BITS - 1) / WORD_BITS;
+    }
+
+    /**
+     * Builds a map from seat numbers.
+     * @param seats seat numbers, each at least 1
+     * @return the map, just long enough for the highest seat
+     */
+    public static long[] of(int[] seats) {
+        int highest = 0;
+        for (int seat : seats) {
+            highest = Math.max(highest, seat);
+        }
+        long[] bits = new long[words(highest)];
+        for (int seat : seats) {
+            set(bits, seat - 1);
+        }
+        return bits;
+    }
+
+    /**
+     * Seats taken.
+     * @param bits the map
+     * @return seat numbers, ascending
+     */
+    public static int[] toSeats(long[] bits) {
+        int[] seats = new int[count(bits)];
+        int n = 0;
+        for (int word = 0; word < bits.length; word++) {
+            long set = bits[word];
+            while (set != 0) {
+                seats[n++] = word * WORD_BITS + Long.numberOfTrailingZeros(set) + 1;
+                set &= set - 1;
+            }
+        }
+        return seats;
+    }
+
+    /**
+     * Number of seats taken.
+     * @param bits the map
+     * @return seats taken
+     */
+    public static int count(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Highest seat taken.
+     * @param bits the map
+     * @return seat number, or 0 if no seat is taken
+     */
+    public static int highest(long[] bits) {
+        for (int word = bits.length - 1; word >= 0; word--) {
+            if (bits[word] != 0) {
+                return word * WORD_BITS + WORD_BITS - Long.numberOfLeadingZeros(bits[word]);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Whether two maps hold the same seats, whatever their lengths.
+     * @param a a map, or null
+     * @param b a map, or null
+     * @return true if both are null or both hold the same seats
+     */
+    public static boolean same(long[] a, long[] b) {
+        if (a == null || b == null) return a == b;
+        long[] shorter = a.length <= b.length ? a : b;
+        long[] longer = shorter == a ? b : a;
+        if (!Arrays.equals(shorter, 0, shorter.length, longer, 0, shorter.length)) return false;
+        for (int i = shorter.length; i < longer.length; i++) {
+            if (longer[i] != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether a seat is taken.
+     * @param bits the map
+     * @param seat seat number
+     * @return true if taken
+     */
+    public static boolean isTaken(long[] bits, int seat) {
+        return seat >= 1 && (seat - 1) / WORD_BITS < bits.length && isSet(bits, seat - 1);
+    }
+
+    /**
+     * Takes seats for a booking.
+     * @param bits     the map, at least {@link #words(int) words(capacity)} long
+     * @param capacity number of seats in the tier
+     * @param quantity number of seats wanted
+     * @return the seat numbers taken, ascending, or null if fewer seats are free (nothing changes then)
+     */
+    public static int[] allocate(long[] bits, int capacity, int quantity) {
+        if (quantity <= 0 || quantity > capacity - count(bits)) return null;
+
+        int[] seats = new int[quantity];
+        int start = findFreeRun(bits, capacity, quantity);
+        if (start >= 0) {
+            for (int i = 0; i < quantity; i++) {
+                seats[i] = start + i + 1;
+            }
+        } else {
+            int bit = -1;
+            for (int i = 0; i < quantity; i++) {
+                bit = nextFree(bits, capacity, bit + 1);
+                seats[i] = bit + 1;
+            }
+        }
+        for (int seat : seats) {
+            set(bits, seat - 1);
+        }
+        return seats;
+    }
+
+    /**
+     * Takes the given seats, e.g. those of a booking loaded from file.
+     * @param bits  the map, long enough for the highest seat
+     * @param seats seat numbers to take
+     * @return true if taken, false if a seat is invalid or already taken (nothing changes then)
+     */
+    public static boolean claim(long[] bits, int[] seats) {
+        if (seats == null) return false;
+        for (int seat : seats) {
+            if (seat < 1 || (seat - 1) / WORD_BITS >= bits.length || isSet(bits, seat - 1)) return false;
+        }
+        int[] sorted = seats.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] == sorted[i - 1]) return false;
+        }
+        for (int seat : sorted) {
+            set(bits, seat - 1);
+        }
+        return true;
+    }
+
+    /**
+     * Frees seats. Seats that are out of range or already free are ignored.
+     * @param bits  the map
+     * @param seats seat numbers to free
+     * @return number of seats freed
+     */
+    public static int release(long[] bits, int[] seats) {
+        if (seats == null) return 0;
+        int freed = 0;
+        for (int seat : seats) {
+            if (isTaken(bits, seat)) {
+                bits[(seat - 1) / WORD_BITS] &= ~(1L << (seat - 1));
+                freed++;
+            }
+        }
+        return freed;
+    }
+
+    // --- Private Helpers ---
+
+    private static boolean isSet(long[] bits, int bit) {
+        return (bits[bit / WORD_BITS] & (1L << bit)) != 0;
+    }
+
+    private static void set(long[] bits, int bit) {
+        bits[bit / WORD_BITS] |= 1L << bit;
+    }
+
+    /** Index of the first free seat at or after bit, or capacity if there is none. */
+    private static int nextFree(long[] bits, int capacity, int bit) {
+        int word = bit / WORD_BITS;
+        int end = Math.min(bits.length, words(capacity));
+        if (word >= end) return capacity;
+        long free = ~bits[word] & (-1L << bit);
+        while (true) {
+            if (free != 0) {
+                return Math.min(capacity, word * WORD_BITS + Long.numberOfTrailingZeros(free));
+            }
+            if (++word == end) return capacity;
+            free = ~bits[word];
+        }
+    }
+
+    /** Index of the first taken seat at or after bit, or capacity if there is none. */
+    private static int nextTaken(long[] bits, int capacity, int bit) {
+        int word = bit / WORD_BITS;
+        int end = Math.min(bits.length, words(capacity));
+        if (word >= end) return capacity;
+        long set = bits[word] & (-1L << bit);
+        while (true) {
+            if (set != 0) {
+                return Math.min(capacity, word * WORD_BITS + Long.numberOfTrailingZeros(set));
+            }
+            if (++word == end) return capacity;
+            set = bits[word];
+        }
+    }
+
+    /** Start of the first run of at least length free seats, or -1 if there is none. */
+    private static int findFreeRun(long[] bits, int capacity, int length) {
+        int start = nextFree(bits, capacity, 0);
+        while (start + length <= capacity) {
+            int end = nextTaken(bits, capacity, start);
+            if (end - start >= length) return start;
+            start = nextFree(bits, capacity, end);
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,61 @@
+package ets.util;
+
+import java.util.Arrays;
+
+/**
+ * Compact text form of a set of seat numbers, as stored on a booking record:
+ * ascending ranges separated by commas, e.g. "12-14,20" for seats 12, 13, 14 and 20.
+ */
+public final class SeatNumbers {
+
+    private SeatNumbers() {
+    }
+
+    /**
+     * Formats seat numbers as ranges.
+     * @param seats seat numbers, in any order; null or empty gives ""
+     * @return compact form
+     */
+    public static String format(int[] seats) {
+        if (seats == null || seats.length == 0) return "";
+        int[] sorted = seats.clone();
+        Arrays.sort(sorted);
+        StringBuilder sb = new StringBuilder(sorted.length * 4);
+        for (int i = 0; i < sorted.length; ) {
+            int first = sorted[i];
+            int last = first;
+            while (++i < sorted.length && sorted[i] == last + 1) {
+                last = sorted[i];
+            }
+            if (sb.length() > 0) sb.append(',');
+            sb.append(first);
+            if (last != first) sb.append('-').append(last);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parses the compact form.
+     * @param text ranges such as "12-14,20"; null or blank gives an empty array
+     * @return seat numbers, ascending
+     * @throws NumberFormatException if the text is malformed
+     */
+    public static int[] parse(String text) {
+        if (text == null || text.isBlank()) return new int[0];
+        int[] seats = new int[8];
+        int count = 0;
+        for (String part : text.trim().split(",")) {
+            int dash = part.indexOf('-');
+            int first = Integer.parseInt(dash < 0 ? part.trim() : part.substring(0, dash).trim());
+            int last = dash < 0 ? first : Integer.parseInt(part.substring(dash + 1).trim());
+            if (first < 1 || last < first) throw new NumberFormatException("Invalid seat range: " + part);
+            for (int seat = first; seat <= last; seat++) {
+                if (count == seats.length) seats = Arrays.copyOf(seats, count * 2);
+                seats[count++] = seat;
+            }
+        }
+        int[] result = Arrays.copyOf(seats, count);
+        Arrays.sort(result);
+        return result;
+    }
+}
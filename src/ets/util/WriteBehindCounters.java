@@ -0,0 +1,169 @@
+package ets.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Write-behind buffer for keyed counters.
+ * Increments are collected as in-memory atomic deltas and handed to a sink in one batch,
+ * either on a timer, once a threshold of pending increments is reached, or when
+ * {@link #flush()} is called (e.g. on logout or shutdown). The sink adds the deltas
+ * to the stored values, so a batch from several terminals never overwrites the others.
+ * Increments not yet flushed are lost if the process is killed; callers that cannot
+ * accept this must flush themselves.
+ */
+public class WriteBehindCounters {
+
+    private static final Logger logger = Logger.getLogger(WriteBehindCounters.class.getName());
+
+    // One shared daemon thread runs the timed and threshold flushes of every buffer in the process
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "counter-write-behind");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Consumer<Map<String, Integer>> sink;
+    private final long intervalMillis;
+    private final int threshold;
+    private final ConcurrentHashMap<String, AtomicInteger> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingTotal = new AtomicInteger();
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushQueued = new AtomicBoolean(false);
+    private volatile ScheduledFuture<?> timer;
+
+    // --- Metrics ---
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder flushedIncrements = new LongAdder();
+
+    /**
+     * @param sink           adds a batch of deltas (key to amount) to the stored counters
+     * @param intervalMillis time between timed flushes, 0 to flush only on threshold or on demand
+     * @param threshold      pending increments that trigger a background flush
+     */
+    public WriteBehindCounters(Consumer<Map<String, Integer>> sink, long intervalMillis, int threshold) {
+        this.sink = sink;
+        this.intervalMillis = intervalMillis;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Adds to a counter in memory. The timer is started on first use.
+     * @param key   counter key
+     * @param delta amount to add
+     */
+    public void add(String key, int delta) {
+        startTimer();
+        pending.computeIfAbsent(key, k -> new AtomicInteger()).addAndGet(delta);
+        if (pendingTotal.addAndGet(delta) >= threshold && flushQueued.compareAndSet(false, true)) {
+            FLUSHER.execute(() -> {
+                flushQueued.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * Amount added to a counter that has not been written yet.
+     * @param key counter key
+     * @return pending delta, 0 if none
+     */
+    public int getPending(String key) {
+        AtomicInteger value = pending.get(key);
+        return value == null ? 0 : value.get();
+    }
+
+    /**
+     * Writes every pending delta now, in one batch. If the sink fails, the deltas are kept
+     * for the next flush.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<String, Integer> batch = new LinkedHashMap<>();
+            pending.forEach((key, value) -> {
+                int delta = value.getAndSet(0);
+                if (delta != 0) {
+                    batch.put(key, delta);
+                }
+            });
+            if (batch.isEmpty()) return;
+
+            int total = batch.values().stream().mapToInt(Integer::intValue).sum();
+            try {
+                sink.accept(batch);
+            } catch (RuntimeException e) {
+                batch.forEach((key, delta) -> pending.computeIfAbsent(key, k -> new AtomicInteger()).addAndGet(delta));
+                logger.log(Level.SEVERE, ErrorMessage.FILE_WRITE_ERROR, e);
+                return;
+            }
+            pendingTotal.addAndGet(-total);
+            flushCount.increment();
+            flushedIncrements.add(total);
+        }
+    }
+
+    /**
+     * Runs an action while no flush is in progress, e.g. a full save that must see a
+     * stable set of pending deltas.
+     * @param action action to run
+     * @param <T>    result type
+     * @return the action's result
+     */
+    public <T> T whileNotFlushing(Supplier<T> action) {
+        synchronized (flushLock) {
+            return action.get();
+        }
+    }
+
+    /**
+     * Stops the timer and writes whatever is still pending.
+     */
+    public void close() {
+        synchronized (this) {
+            if (timer != null) {
+                timer.cancel(false);
+                timer = null;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Number of batches written.
+     * @return flush count
+     */
+    public long getFlushCount() {
+        return flushCount.sum();
+    }
+
+    /**
+     * Total of all deltas written, across every batch.
+     * @return flushed increments
+     */
+    public long getFlushedIncrements() {
+        return flushedIncrements.sum();
+    }
+
+    // --- Private Helpers ---
+
+    private void startTimer() {
+        if (intervalMillis <= 0 || timer != null) return;
+        synchronized (this) {
+            if (timer == null) {
+                timer = FLUSHER.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
@@ -24,6 +24,8 @@ public class BookingRepositoryIntegrationTest {
     // Define the real file and a backup file
     private final File dataFile = new File(AppConstants.BOOKING_FILE_PATH);
     private final File backupFile = new File(AppConstants.BOOKING_FILE_PATH + ".bak");
+    private final File lockFile = new File(AppConstants.BOOKING_FILE_PATH + ".lock");
+    private boolean lockFileExisted;
 
     /**
      * Prepares a clean environment.
@@ -35,6 +37,7 @@ public class BookingRepositoryIntegrationTest {
         if (dataFile.exists()) {
             dataFile.renameTo(backupFile);
         }
+        lockFileExisted = lockFile.exists();
 
         // 2. Initialize Repo (It will create a new, empty BookingFile.txt for testing)
         repository = new BookingRepository();
@@ -55,6 +58,11 @@ public class BookingRepositoryIntegrationTest {
         if (backupFile.exists()) {
             backupFile.renameTo(dataFile);
         }
+
+        // 3. Remove the lock sidecar the test created, if it was not there before
+        if (!lockFileExisted) {
+            lockFile.delete();
+        }
     }
 
     /**
@@ -89,6 +97,23 @@ public class BookingRepositoryIntegrationTest {
         assertEquals("T001", retrieved.getTrain().getTrainID());
     }
 
+    /**
+     * Verifies that assigned seat numbers are persisted with the booking and read back.
+     */
+    @Test
+    void testSeatNumbersRoundTrip() {
+        Train train = new Train();
+        train.setTrainID("T001");
+        Booking b = new Booking("B101", "Seated Passenger", SeatTier.STANDARD, 3, 150.0, train, "S001");
+        b.setSeatNumbers(new int[]{7, 8, 12});
+
+        repository.add(b);
+
+        Booking retrieved = new BookingRepository().getAll().get(0);
+        assertEquals(3, retrieved.getNumOfSeatBook());
+        assertArrayEquals(new int[]{7, 8, 12}, retrieved.getSeatNumbers());
+    }
+
     @Test
     void testDeleteBooking() {
         // Setup
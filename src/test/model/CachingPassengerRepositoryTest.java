@@ -0,0 +1,86 @@
+package test.model;
+
+import ets.model.CachingPassengerRepository;
+import ets.model.Passenger;
+import ets.model.PassengerRepository;
+import ets.model.PassengerTier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the caching passenger repository decorator.
+ */
+class CachingPassengerRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private CountingRepository delegate;
+    private CachingPassengerRepository cache;
+
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("Passengers.txt");
+        delegate = new CountingRepository(file.toString());
+        cache = new CachingPassengerRepository(delegate);
+    }
+
+    /**
+     * Verifies that repeated reads and write-throughs never re-read the file.
+     */
+    @Test
+    void testReadsAreServedFromCache() {
+        cache.saveAll(List.of(passenger("P001", "010203040506")));
+        cache.getAll();
+        cache.getAll();
+
+        assertEquals(0, delegate.reads, "Saved state should be cached without reading back");
+
+        LinkedHashMap<String, Passenger> copy = cache.getAll();
+        copy.get("P001").setName("Changed");
+        assertEquals("Alice", cache.getAll().get("P001").getName(), "Callers must get copies");
+    }
+
+    /**
+     * Verifies that a change to the file made outside the cache triggers a reload.
+     */
+    @Test
+    void testExternalChangeRefreshesCache() throws IOException {
+        cache.saveAll(List.of(passenger("P001", "010203040506")));
+
+        Files.writeString(file, Files.readString(file)
+                + "Bob|0987654321|020304050607|P002|M|2024-01-01|N\n");
+
+        assertEquals(2, cache.getAll().size());
+        assertEquals(1, delegate.reads);
+    }
+
+    private static Passenger passenger(String id, String ic) {
+        return new Passenger("Alice", "0123456789", ic, id, 'F', LocalDate.of(2024, 1, 1), PassengerTier.NORMAL);
+    }
+
+    private static class CountingRepository extends PassengerRepository {
+        private int reads;
+
+        CountingRepository(String filePath) {
+            super(filePath);
+        }
+
+        @Override
+        public LinkedHashMap<String, Passenger> getAll() {
+            reads++;
+            return super.getAll();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package test.model;
+
+import ets.model.Booking;
+import ets.model.JournaledBookingRepository;
+import ets.model.SeatTier;
+import ets.model.Train;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the journaled booking repository.
+ */
+class JournaledBookingRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JournaledBookingRepository newRepo(int threshold) {
+        return new JournaledBookingRepository(
+                tempDir.resolve("bookings.txt").toString(),
+                tempDir.resolve("bookings.journal").toString(),
+                threshold);
+    }
+
+    private Booking booking(String id) {
+        Train train = new Train();
+        train.setTrainID("T001");
+        return new Booking(id, "Journal Test", SeatTier.STANDARD, 1, 50.0, train, "S001");
+    }
+
+    /**
+     * Verifies that add() appends to the journal without touching the snapshot
+     * and that a fresh repository replays it.
+     */
+    @Test
+    void testAddAppendsToJournalAndReplays() throws IOException {
+        JournaledBookingRepository repo = newRepo(100);
+        repo.add(booking("B001"));
+        repo.add(booking("B002"));
+
+        assertFalse(Files.exists(tempDir.resolve("bookings.txt")), "Snapshot should not be written on add");
+        assertEquals(2, Files.readAllLines(tempDir.resolve("bookings.journal")).size());
+
+        List<Booking> replayed = newRepo(100).getAll();
+        assertEquals(2, replayed.size());
+        assertEquals("B001", replayed.get(0).getBookingID());
+    }
+
+    /**
+     * Verifies that a tombstone hides a booking held in the snapshot.
+     */
+    @Test
+    void testDeleteWritesTombstone() {
+        JournaledBookingRepository repo = newRepo(100);
+        repo.saveAll(List.of(booking("B001"), booking("B002")));
+
+        repo.delete("B001");
+
+        List<Booking> results = repo.getAll();
+        assertEquals(1, results.size());
+        assertEquals("B002", results.get(0).getBookingID());
+        assertEquals(1, repo.getJournalRecordCount());
+    }
+
+    /**
+     * Verifies that compaction folds the journal into the snapshot.
+     */
+    @Test
+    void testCompactFoldsJournalIntoSnapshot() throws IOException {
+        JournaledBookingRepository repo = newRepo(100);
+        repo.add(booking("B001"));
+        repo.add(booking("B002"));
+        repo.delete("B001");
+
+        repo.compact();
+
+        assertEquals(0, repo.getJournalRecordCount());
+        assertEquals(List.of("B002|Journal Test|S|1|50.00|T001|S001|0"),
+                Files.readAllLines(tempDir.resolve("bookings.txt")));
+        assertEquals(1, repo.getAll().size());
+    }
+
+    /**
+     * Verifies that names outside ASCII survive the journal and the snapshot, which are UTF-8
+     * whatever the platform charset.
+     */
+    @Test
+    void testNonAsciiNamesRoundTrip() throws IOException {
+        JournaledBookingRepository repo = newRepo(100);
+        Booking booking = booking("B001");
+        booking.setName("Zoë Tan 陈");
+        repo.add(booking);
+
+        assertEquals("Zoë Tan 陈", newRepo(100).findById("B001").getName());
+        assertTrue(Files.readString(tempDir.resolve("bookings.journal"), StandardCharsets.UTF_8).contains("Zoë Tan 陈"));
+
+        repo.compact();
+        assertEquals("Zoë Tan 陈", newRepo(100).findById("B001").getName());
+        assertTrue(Files.readString(tempDir.resolve("bookings.txt"), StandardCharsets.UTF_8).contains("Zoë Tan 陈"));
+    }
+
+    /**
+     * Verifies that findById follows records appended by another repository on the same
+     * files (another terminal), including a compaction it ran.
+     */
+    @Test
+    void testFindByIdFollowsOtherWriters() {
+        JournaledBookingRepository mine = newRepo(100);
+        JournaledBookingRepository theirs = newRepo(100);
+        mine.add(booking("B001"));
+        assertNotNull(mine.findById("B001"));
+        assertNull(mine.findById("B002"));
+
+        theirs.add(booking("B002"));
+        theirs.delete("B001");
+        assertNotNull(mine.findById("B002"));
+        assertNull(mine.findById("B001"));
+
+        theirs.compact();
+        theirs.add(booking("B003"));
+        assertEquals(List.of("B002", "B003"), mine.getAll().stream().map(Booking::getBookingID).toList());
+        mine.findById("B002").setName("Changed");
+        assertEquals("Journal Test", mine.findById("B002").getName(), "Callers get copies");
+    }
+}
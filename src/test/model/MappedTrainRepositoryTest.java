@@ -0,0 +1,216 @@
+package test.model;
+
+import ets.model.MappedTrainRepository;
+import ets.model.Train;
+import ets.model.TrainRepository;
+import ets.model.TrainStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the memory-mapped binary train store.
+ */
+class MappedTrainRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Verifies that trains survive a save, a reopen and growth past the initial mapping.
+     */
+    @Test
+    void testRoundTripAcrossReopen() {
+        String path = tempDir.resolve("trains.bin").toString();
+        List<Train> trains = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            trains.add(train(String.format("T%03d", i), i % 2 == 0 ? "Penang" : "Ipoh", i));
+        }
+
+        try (MappedTrainRepository repo = new MappedTrainRepository(path)) {
+            repo.saveAll(trains);
+        }
+        try (MappedTrainRepository repo = new MappedTrainRepository(path)) {
+            List<Train> loaded = repo.loadAll();
+            assertEquals(100, loaded.size());
+            Train t = loaded.get(41);
+            assertEquals("T042", t.getTrainID());
+            assertEquals("Penang", t.getDestination());
+            assertEquals(LocalDate.of(2030, 1, 1).plusDays(42), t.getDepartureDate());
+            assertEquals(LocalTime.of(10, 42), t.getDepartureTime());
+            assertEquals(50.42, t.getStandardSeatPrice());
+            assertEquals(TrainStatus.ACTIVE, t.getStatus());
+        }
+    }
+
+    /**
+     * Verifies in-place seat updates and full rewrites when trains are removed.
+     */
+    @Test
+    void testInPlaceUpdatesAndRewrite() {
+        String path = tempDir.resolve("trains.bin").toString();
+        try (MappedTrainRepository repo = new MappedTrainRepository(path)) {
+            repo.saveAll(List.of(train("T001", "Penang", 1), train("T002", "Ipoh", 2)));
+
+            List<Train> trains = repo.loadAll();
+            trains.get(1).setStandardSeatQty(7);
+            repo.saveAll(trains);
+            assertEquals(7, repo.loadAll().get(1).getStandardSeatQty());
+
+            repo.saveAll(List.of(train("T002", "Ipoh", 2)));
+            assertEquals(1, repo.size());
+            assertEquals("T002", repo.loadAll().get(0).getTrainID());
+        }
+    }
+
+    /**
+     * Verifies that the seats sold are stored beside the seat counts.
+     */
+    @Test
+    void testSeatsSoldRoundTrip() {
+        String path = tempDir.resolve("trains.bin").toString();
+        Train sold = train("T001", "Penang", 1);
+        sold.setStandardSeatsSold(95);
+        sold.setPremiumSeatsSold(3);
+        try (MappedTrainRepository repo = new MappedTrainRepository(path)) {
+            repo.saveAll(List.of(sold));
+        }
+        try (MappedTrainRepository repo = new MappedTrainRepository(path)) {
+            Train t = repo.loadAll().get(0);
+            assertEquals(101, t.getStandardSeatQty());
+            assertEquals(1, t.getPremiumSeatQty());
+            assertEquals(95, t.getStandardSeatsSold());
+            assertEquals(3, t.getPremiumSeatsSold());
+        }
+    }
+
+    /**
+     * Verifies that seat maps are stored with the train, and that a train without them reads as null.
+     */
+    @Test
+    void testSeatMapsRoundTrip() {
+        String path = tempDir.resolve("trains.bin").toString();
+        Train mapped = train("T001", "Penang", 1);
+        mapped.setStandardSeatsTaken(new int[]{1, 2, 3, 64, 65, 999});
+        mapped.setPremiumSeatsTaken(new int[0]);
+        try (MappedTrainRepository repo = new MappedTrainRepository(path)) {
+            repo.saveAll(List.of(mapped, train("T002", "Ipoh", 2)));
+        }
+        try (MappedTrainRepository repo = new MappedTrainRepository(path)) {
+            List<Train> loaded = repo.loadAll();
+            assertArrayEquals(new int[]{1, 2, 3, 64, 65, 999}, loaded.get(0).getStandardSeatsTaken());
+            assertArrayEquals(new int[0], loaded.get(0).getPremiumSeatsTaken());
+            assertNull(loaded.get(1).getStandardSeatsTaken());
+        }
+    }
+
+    /**
+     * Verifies that a store written with the version 1 record layout is upgraded when opened.
+     */
+    @Test
+    void testUpgradesVersion1Store() throws IOException {
+        Path path = tempDir.resolve("trains.bin");
+        ByteBuffer v1 = ByteBuffer.allocate(16 + 2 * 48);
+        v1.putInt(0, 0x45545354).putInt(4, 1).putInt(8, 2);
+        for (int slot = 0; slot < 2; slot++) {
+            int base = 16 + slot * 48;
+            v1.put(base, (byte) ('1' + slot));
+            v1.putInt(base + 8, slot);
+            v1.putInt(base + 12, (int) LocalDate.of(2030, 1, 1).toEpochDay());
+            v1.putShort(base + 16, (short) 600);
+            v1.put(base + 18, (byte) 1);
+            v1.putShort(base + 20, (short) 5);
+            v1.putShort(base + 22, (short) 95);
+            v1.putShort(base + 26, (short) 10);
+            v1.putLong(base + 28, 5000);
+            v1.putLong(base + 36, 8050);
+            v1.putInt(base + 44, 3);
+        }
+        Files.write(path, v1.array());
+        Files.writeString(tempDir.resolve("trains.bin.dst"), "Penang\nIpoh\n");
+
+        try (MappedTrainRepository repo = new MappedTrainRepository(path.toString())) {
+            List<Train> trains = repo.loadAll();
+            assertEquals(2, trains.size());
+            assertEquals("2", trains.get(1).getTrainID());
+            assertEquals("Ipoh", trains.get(1).getDestination());
+            assertEquals(95, trains.get(1).getStandardSeatQty());
+            assertEquals(5, trains.get(1).getStandardSeatsSold());
+            assertEquals(80.5, trains.get(1).getPremiumSeatPrice());
+            assertEquals(3, trains.get(1).getVersion());
+            assertNull(trains.get(1).getStandardSeatsTaken());
+
+            trains.get(0).setStandardSeatsTaken(new int[]{4});
+            trains.get(0).setPremiumSeatsTaken(new int[0]);
+            repo.saveAll(trains);
+        }
+        try (MappedTrainRepository repo = new MappedTrainRepository(path.toString())) {
+            List<Train> trains = repo.loadAll();
+            assertEquals("Penang", trains.get(0).getDestination());
+            assertArrayEquals(new int[]{4}, trains.get(0).getStandardSeatsTaken());
+            assertEquals(LocalTime.of(10, 0), trains.get(1).getDepartureTime());
+        }
+    }
+
+    /**
+     * Verifies that two stores on one file (two processes) see each other's records,
+     * versions and newly interned destinations.
+     */
+    @Test
+    void testSeesOtherWritersOnSameFile() {
+        String path = tempDir.resolve("trains.bin").toString();
+        try (MappedTrainRepository first = new MappedTrainRepository(path);
+             MappedTrainRepository second = new MappedTrainRepository(path)) {
+            first.saveAll(List.of(train("T001", "Penang", 1)));
+            assertEquals(1, second.size());
+
+            List<Train> trains = second.loadAll();
+            trains.get(0).setVersion(4);
+            trains.add(train("T002", "Kuantan", 2));
+            second.saveAll(trains);
+            assertEquals(4, first.loadAll().get(0).getVersion());
+
+            first.atomically(() -> {
+                List<Train> latest = first.loadAll();
+                latest.add(train("T003", "Ipoh", 3));
+                first.saveAll(latest);
+                return null;
+            });
+            List<Train> seen = second.loadAll();
+            assertEquals(3, seen.size());
+            assertEquals("Kuantan", seen.get(1).getDestination());
+            assertEquals("Ipoh", seen.get(2).getDestination());
+        }
+    }
+
+    /**
+     * Verifies conversion from the text format and back.
+     */
+    @Test
+    void testTextConversionRoundTrip() throws Exception {
+        String text = tempDir.resolve("TrainFile.txt").toString();
+        String binary = tempDir.resolve("TrainFile.bin").toString();
+        String back = tempDir.resolve("TrainBack.txt").toString();
+        new TrainRepository(text).saveAll(List.of(train("T001", "Penang", 1), train("T002", "Ipoh", 2)));
+
+        assertEquals(2, MappedTrainRepository.convertTextToBinary(text, binary));
+        assertEquals(2, MappedTrainRepository.convertBinaryToText(binary, back));
+
+        assertEquals(Files.readAllLines(Path.of(text)), Files.readAllLines(Path.of(back)));
+    }
+
+    private static Train train(String id, String destination, int n) {
+        return new Train(id, destination, LocalDate.of(2030, 1, 1).plusDays(n), LocalTime.of(10, n % 60),
+                100 + n, n, 50 + n / 100.0, 80.5, n % 5 == 0 ? TrainStatus.DISCONTINUED : TrainStatus.ACTIVE);
+    }
+}
@@ -0,0 +1,118 @@
+package test.model;
+
+import ets.model.Booking;
+import ets.model.PartitionedBookingRepository;
+import ets.model.SeatTier;
+import ets.model.Train;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the train-partitioned booking repository.
+ */
+class PartitionedBookingRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Verifies that a cancellation only rewrites the affected train's segment.
+     */
+    @Test
+    void testDeleteTouchesOnlyOneSegment() throws Exception {
+        PartitionedBookingRepository repo = new PartitionedBookingRepository(tempDir.toString());
+        repo.add(booking("B001", "T001"));
+        repo.add(booking("B002", "T002"));
+        repo.add(booking("B003", "T002"));
+
+        File t001 = tempDir.resolve("T001.txt").toFile();
+        List<String> t001Before = Files.readAllLines(t001.toPath());
+        long t001Modified = t001.lastModified();
+
+        repo.delete("B002");
+
+        assertEquals(t001Before, Files.readAllLines(t001.toPath()));
+        assertEquals(t001Modified, t001.lastModified());
+        assertEquals(1, repo.countByTrain("T002"));
+        assertEquals("B003", repo.getByTrain("T002").get(0).getBookingID());
+        assertEquals(2, repo.getAll().size());
+    }
+
+    /**
+     * Verifies that the manifest survives a reopen and that emptied segments are removed.
+     */
+    @Test
+    void testManifestAndEmptySegments() {
+        PartitionedBookingRepository repo = new PartitionedBookingRepository(tempDir.toString());
+        repo.saveAll(List.of(booking("B001", "T001"), booking("B002", "T002")));
+        repo.delete("T001", "B001");
+
+        assertFalse(tempDir.resolve("T001.txt").toFile().exists());
+
+        PartitionedBookingRepository reopened = new PartitionedBookingRepository(tempDir.toString());
+        assertEquals(0, reopened.countByTrain("T001"));
+        assertEquals(1, reopened.countByTrain("T002"));
+        assertEquals(1, reopened.getAll().size());
+
+        assertTrue(tempDir.resolve("manifest.idx").toFile().delete());
+        assertEquals(1, new PartitionedBookingRepository(tempDir.toString()).countByTrain("T002"),
+                "A lost manifest should be rebuilt from the segments");
+    }
+
+    /**
+     * Verifies that bookings without a usable Train ID are rejected.
+     */
+    @Test
+    void testRejectsUnsafeTrainId() {
+        PartitionedBookingRepository repo = new PartitionedBookingRepository(tempDir.toString());
+        assertThrows(IllegalArgumentException.class, () -> repo.add(booking("B001", "../T001")));
+    }
+
+    /**
+     * Verifies that a train called "manifest" gets an ordinary segment and leaves the manifest intact.
+     */
+    @Test
+    void testTrainNamedManifestDoesNotClobberManifest() {
+        PartitionedBookingRepository repo = new PartitionedBookingRepository(tempDir.toString());
+        repo.add(booking("B001", "manifest"));
+        repo.add(booking("B002", "T001"));
+
+        PartitionedBookingRepository reopened = new PartitionedBookingRepository(tempDir.toString());
+        assertEquals(1, reopened.countByTrain("manifest"));
+        assertEquals(1, reopened.countByTrain("T001"));
+        assertEquals(2, reopened.getAll().size());
+    }
+
+    /**
+     * Verifies that two repositories on one directory (two terminals) see each other's segments.
+     */
+    @Test
+    void testSeesOtherTerminalsSegments() {
+        PartitionedBookingRepository first = new PartitionedBookingRepository(tempDir.toString());
+        PartitionedBookingRepository second = new PartitionedBookingRepository(tempDir.toString());
+        first.add(booking("B001", "T001"));
+        second.add(booking("B002", "T002"));
+        first.add(booking("B003", "T002"));
+
+        assertEquals(3, second.getAll().size());
+        assertEquals(2, second.countByTrain("T002"));
+        assertNotNull(second.findById("B003"));
+
+        second.delete("B001");
+        assertEquals(0, first.countByTrain("T001"));
+        assertEquals(2, first.getAll().size());
+    }
+
+    private static Booking booking(String id, String trainId) {
+        Train train = new Train();
+        train.setTrainID(trainId);
+        return new Booking(id, "User", SeatTier.STANDARD, 1, 50.0, train, "S001");
+    }
+}
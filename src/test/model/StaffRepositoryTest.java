@@ -23,6 +23,8 @@ public class StaffRepositoryTest {
     private StaffRepository repository;
     private final File dataFile = new File(AppConstants.STAFF_FILE_PATH);
     private final File backupFile = new File(AppConstants.STAFF_FILE_PATH + ".bak");
+    private final File lockFile = new File(AppConstants.STAFF_FILE_PATH + ".lock");
+    private boolean lockFileExisted;
 
     /**
      * Setup method to prepare the test environment.
@@ -34,6 +36,7 @@ public class StaffRepositoryTest {
         // REFACTOR: Removed "if (exists)" check to improve branch coverage.
         // renameTo() returns false if dataFile is missing, which is safe to ignore here.
         dataFile.renameTo(backupFile);
+        lockFileExisted = lockFile.exists();
 
         repository = new StaffRepository();
     }
@@ -50,6 +53,11 @@ public class StaffRepositoryTest {
 
         // renameTo() returns false if backupFile is missing (safe).
         backupFile.renameTo(dataFile);
+
+        // Remove the lock sidecar the test created, if it was not there before
+        if (!lockFileExisted) {
+            lockFile.delete();
+        }
     }
 
     /**
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.*;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -31,10 +32,10 @@ void testLoadAllHandlesIOExceptionGracefully(@TempDir Path tempDir) {
 }
 
 /**
- * Verifies that saveAll catches IOExceptions
+ * Verifies that saveAll reports IOExceptions to the caller and leaves the target untouched
  */
 @Test
-void testSaveAllHandlesIOExceptionGracefully(@TempDir Path tempDir) {
+void testSaveAllReportsIOException(@TempDir Path tempDir) {
     // Again, use a directory instead of a regular file
     File dirAsFile = tempDir.resolve("train_dir").toFile();
     assertTrue(dirAsFile.mkdir());
@@ -55,8 +56,53 @@ void testSaveAllHandlesIOExceptionGracefully(@TempDir Path tempDir) {
             )
     );
 
-    assertDoesNotThrow(() -> repo.saveAll(trains));
+    assertThrows(UncheckedIOException.class, () -> repo.saveAll(trains));
 
     assertTrue(dirAsFile.isDirectory());
 }
+
+/**
+ * Verifies that seats sold are saved with the train, and that older records without them read as 0
+ */
+@Test
+void testSeatsSoldRoundTripAndOlderRecords(@TempDir Path tempDir) throws IOException {
+    Path file = tempDir.resolve("TrainFile.txt");
+    Train train = new Train("T001", "Penang", LocalDate.of(2035, 5, 5), LocalTime.of(15, 30),
+            42, 8, 40.0, 100.0, TrainStatus.ACTIVE);
+    train.setStandardSeatsSold(8);
+    train.setPremiumSeatsSold(2);
+    new TrainRepository(file.toString()).saveAll(List.of(train));
+
+    Train loaded = new TrainRepository(file.toString()).loadAll().get(0);
+    assertEquals(8, loaded.getStandardSeatsSold());
+    assertEquals(2, loaded.getPremiumSeatsSold());
+    assertEquals(42, loaded.getStandardSeatQty());
+
+    Files.writeString(file, "T002|Ipoh|2035-05-05|15:30|50|10|40.0|100.0|true|3" + System.lineSeparator());
+    Train older = new TrainRepository(file.toString()).loadAll().get(0);
+    assertEquals(3, older.getVersion());
+    assertEquals(0, older.getStandardSeatsSold());
+    assertEquals(0, older.getPremiumSeatsSold());
+}
+
+/**
+ * Verifies that the seat maps are saved with the train, and that records without them read as null
+ */
+@Test
+void testSeatsTakenRoundTrip(@TempDir Path tempDir) {
+    Path file = tempDir.resolve("TrainFile.txt");
+    Train mapped = new Train("T001", "Penang", LocalDate.of(2035, 5, 5), LocalTime.of(15, 30),
+            42, 8, 40.0, 100.0, TrainStatus.ACTIVE);
+    mapped.setStandardSeatsTaken(new int[]{1, 2, 3, 7});
+    mapped.setPremiumSeatsTaken(new int[0]);
+    Train unmapped = new Train("T002", "Ipoh", LocalDate.of(2035, 5, 5), LocalTime.of(15, 30),
+            50, 10, 40.0, 100.0, TrainStatus.ACTIVE);
+    new TrainRepository(file.toString()).saveAll(List.of(mapped, unmapped));
+
+    List<Train> loaded = new TrainRepository(file.toString()).loadAll();
+    assertArrayEquals(new int[]{1, 2, 3, 7}, loaded.get(0).getStandardSeatsTaken());
+    assertArrayEquals(new int[0], loaded.get(0).getPremiumSeatsTaken());
+    assertNull(loaded.get(1).getStandardSeatsTaken());
+    assertNull(loaded.get(1).getPremiumSeatsTaken());
+}
 }
@@ -2,10 +2,22 @@ package test.service;
 
 import ets.model.*;
 import ets.service.BookingService;
+import ets.service.BookingTransactionManager;
+import ets.service.LoadFactorPricingEngine;
+import ets.service.RevenueReport;
+import ets.service.RevenueView;
+import ets.service.SeatMaps;
 import ets.service.StaffService;
+import ets.service.TrainRegistry;
+import ets.util.IntentLog;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
@@ -24,6 +36,10 @@ public class BookingServiceTest {
     private BookingService bookingService;
     private MockBookingRepository mockBookingRepo;
     private MockTrainRepository mockTrainRepo;
+    private StaffService staffService;
+
+    @TempDir
+    Path tempDir;
 
     /**
      * Setup runs before every single test.
@@ -37,8 +53,8 @@ public class BookingServiceTest {
         MockStaffRepository mockStaffRepo = new MockStaffRepository();
 
         // 2. Setup Dependencies
-        StaffService staffService = new StaffService(mockStaffRepo);
         mockStaffRepo.save(new Staff("Admin", "0123456789", "999999010101", "S001", "pass", 0));
+        staffService = new StaffService(mockStaffRepo);
 
         // 3. Initialize BookingService
         bookingService = new BookingService(mockBookingRepo, mockTrainRepo, staffService);
@@ -61,6 +77,71 @@ public class BookingServiceTest {
         assertEquals(424.00, normFare, 0.01);
     }
 
+    /**
+     * Verifies that load-based prices follow seats sold on another terminal.
+     * Scenario: two services share one train file; the first sells 8 of 10 standard seats.
+     * Expected: the second prices the train at 80% load (+25%), and a cancellation lowers it again.
+     */
+    @Test
+    void testLoadPricingFollowsSeatsSoldElsewhere() {
+        String trainFile = tempDir.resolve("TrainFile.txt").toString();
+        Train train = new Train("T001", "Penang", LocalDate.now().plusDays(7), LocalTime.NOON,
+                10, 10, 100.0, 200.0, TrainStatus.ACTIVE);
+        new TrainRepository(trainFile).saveAll(List.of(train));
+        BookingService first = new BookingService(mockBookingRepo, new TrainRepository(trainFile), staffService);
+        BookingService second = new BookingService(new MockBookingRepository(), new TrainRepository(trainFile), staffService);
+        second.setPricingEngine(LoadFactorPricingEngine.defaults());
+
+        Train firstTrain = first.getAvailableTrains().get(0);
+        assertTrue(first.createBooking(new Booking("B001", "User", SeatTier.STANDARD, 8, 800.0, firstTrain, "S001"), firstTrain));
+        assertEquals(8, firstTrain.getStandardSeatsSold());
+
+        Train seen = second.getAvailableTrains().get(0);
+        assertEquals(8, seen.getStandardSeatsSold());
+        assertEquals(12_500, second.getFareMatrix(seen).getSeatPrice(SeatTier.STANDARD));
+
+        assertTrue(first.cancelBooking("B001"));
+        seen = second.getAvailableTrains().get(0);
+        assertEquals(0, seen.getStandardSeatsSold());
+        assertEquals(10_000, second.getFareMatrix(seen).getSeatPrice(SeatTier.STANDARD));
+    }
+
+    /**
+     * Verifies that terminals sharing a train file never hand out the same seat.
+     * Scenario: two services share one train file and one booking file; each books in turn,
+     * and one cancels a booking the other made.
+     * Expected: every booking gets seats no other booking holds, and cancelled seats are reused.
+     */
+    @Test
+    void testSeatsNotSharedBetweenTerminals() {
+        String trainFile = tempDir.resolve("TrainFile.txt").toString();
+        Train train = new Train("T001", "Penang", LocalDate.now().plusDays(7), LocalTime.NOON,
+                10, 10, 100.0, 200.0, TrainStatus.ACTIVE);
+        new TrainRepository(trainFile).saveAll(List.of(train));
+        BookingService first = new BookingService(mockBookingRepo, new TrainRepository(trainFile), staffService);
+        BookingService second = new BookingService(mockBookingRepo, new TrainRepository(trainFile), staffService);
+
+        Booking a = new Booking("B001", "A", SeatTier.STANDARD, 2, 200.0, first.getAvailableTrains().get(0), "S001");
+        assertTrue(first.createBooking(a, a.getTrain()));
+        Booking b = new Booking("B002", "B", SeatTier.STANDARD, 3, 300.0, second.getAvailableTrains().get(0), "S001");
+        assertTrue(second.createBooking(b, b.getTrain()));
+        Booking c = new Booking("B003", "C", SeatTier.STANDARD, 1, 100.0, first.getAvailableTrains().get(0), "S001");
+        assertTrue(first.createBooking(c, c.getTrain()));
+
+        assertArrayEquals(new int[]{1, 2}, a.getSeatNumbers());
+        assertArrayEquals(new int[]{3, 4, 5}, b.getSeatNumbers());
+        assertArrayEquals(new int[]{6}, c.getSeatNumbers());
+
+        assertTrue(second.cancelBooking("B001"));
+        Booking d = new Booking("B004", "D", SeatTier.STANDARD, 2, 200.0, first.getAvailableTrains().get(0), "S001");
+        assertTrue(first.createBooking(d, d.getTrain()));
+        assertArrayEquals(new int[]{1, 2}, d.getSeatNumbers(), "Seats freed by the other terminal are reused");
+
+        Train stored = new TrainRepository(trainFile).loadAll().get(0);
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6}, stored.getStandardSeatsTaken());
+        assertEquals(4, stored.getStandardSeatQty());
+    }
+
     // --- 2. CREATE BOOKING ---
     /**
      * Verifies the "Happy Path" for creating a booking.
@@ -134,19 +215,365 @@ public class BookingServiceTest {
         assertEquals(10, dbTrain.getStandardSeatQty(), "Seats should be restored to 10");
     }
 
-    // --- 4. GENERATE ID ---
     /**
-     * Verifies auto-increment logic for IDs.
+     * Verifies that bookings get seat numbers and that a cancellation frees exactly those seats.
+     * Scenario: a 10-seat train with an older booking that has no seat numbers.
+     * Expected: the old booking stays unseated and its seats stay outside the seat map,
+     * new bookings get contiguous seats, and cancelled seats are reused.
+     */
+    @Test
+    void testSeatsAssignedAndReleased() {
+        Train dbTrain = new Train("T001", "Penang", LocalDate.now(), LocalTime.now(),
+                8, 10, 50.0, 80.0, TrainStatus.ACTIVE);
+        mockTrainRepo.save(dbTrain);
+        mockBookingRepo.add(new Booking("B001", "Old", SeatTier.STANDARD, 2, 100.0, dbTrain, "S001"));
+
+        Booking first = new Booking("B002", "First", SeatTier.STANDARD, 3, 150.0, dbTrain, "S001");
+        Booking second = new Booking("B003", "Second", SeatTier.STANDARD, 2, 100.0, dbTrain, "S001");
+        assertTrue(bookingService.createBooking(first, dbTrain));
+        assertTrue(bookingService.createBooking(second, dbTrain));
+        assertArrayEquals(new int[0], bookingService.getBookingById("B001").getSeatNumbers());
+        assertArrayEquals(new int[]{1, 2, 3}, first.getSeatNumbers());
+        assertArrayEquals(new int[]{4, 5}, second.getSeatNumbers());
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5}, dbTrain.getStandardSeatsTaken());
+
+        assertTrue(bookingService.cancelBooking("B002"));
+        Booking third = new Booking("B004", "Third", SeatTier.STANDARD, 4, 200.0, dbTrain, "S001");
+        assertTrue(bookingService.createBooking(third, dbTrain));
+        assertArrayEquals(new int[]{1, 2, 3, 6}, third.getSeatNumbers(),
+                "No block of 4 is free, so the lowest free seats are taken");
+    }
+
+    /**
+     * Verifies that a booking already cancelled by another terminal is not cancelled twice.
+     * Scenario: the booking is removed from storage behind this service's back.
+     * Expected: cancel returns false and the seats are not restored again.
+     */
+    @Test
+    void testCancelBooking_AlreadyCancelledElsewhere() {
+        Train dbTrain = new Train("T001", "Penang", LocalDate.now(), LocalTime.now(),
+                10, 10, 50.0, 80.0, TrainStatus.ACTIVE);
+        mockTrainRepo.save(dbTrain);
+        Booking booking = new Booking("B001", "User", SeatTier.STANDARD, 2, 100.0, dbTrain, "S001");
+        assertTrue(bookingService.createBooking(booking, dbTrain));
+        assertEquals(1, mockBookingRepo.getAll().get(0).getVersion(), "New records start at version 1");
+
+        mockBookingRepo.delete("B001");
+        dbTrain.setStandardSeatQty(10); // the other terminal restored the seats
+
+        assertFalse(bookingService.cancelBooking("B001"));
+        assertEquals(10, dbTrain.getStandardSeatQty(), "Seats must not be restored twice");
+        assertNull(bookingService.getBookingById("B001"));
+    }
+
+    /**
+     * Verifies that a cancellation whose seat commit fails leaves the booking untouched.
+     * Scenario: without an intent log the train file is written at once, and it cannot be
+     * written while the booking is cancelled.
+     * Expected: cancel returns false, the booking keeps its record and seats, and the
+     * cancellation succeeds once the train can be written again.
+     */
+    @Test
+    void testCancelBooking_SeatCommitFails() {
+        FailingTrainRepository failingRepo = new FailingTrainRepository();
+        Train dbTrain = new Train("T001", "Penang", LocalDate.now(), LocalTime.now(),
+                10, 10, 50.0, 80.0, TrainStatus.ACTIVE);
+        failingRepo.save(dbTrain);
+        BookingService logged = new BookingService(mockBookingRepo, failingRepo, staffService,
+                null, new RevenueView(null), null, null);
+        Booking booking = new Booking("B001", "User", SeatTier.STANDARD, 2, 100.0, dbTrain, "S001");
+        assertTrue(logged.createBooking(booking, dbTrain));
+
+        failingRepo.failing = true;
+        assertFalse(logged.cancelBooking("B001"), "Cancel must fail when the seats cannot be restored");
+        assertEquals(8, dbTrain.getStandardSeatQty());
+        assertNotNull(mockBookingRepo.findById("B001"), "Booking must stay stored");
+        assertNotNull(logged.getBookingById("B001"), "Booking must stay indexed");
+        Booking other = new Booking("B002", "Other", SeatTier.STANDARD, 1, 50.0, dbTrain, "S001");
+        failingRepo.failing = false;
+        assertTrue(logged.createBooking(other, dbTrain));
+        assertArrayEquals(new int[]{3}, other.getSeatNumbers(), "The booking must keep its seats");
+
+        assertTrue(logged.cancelBooking("B001"));
+        assertEquals(9, dbTrain.getStandardSeatQty());
+        assertNull(mockBookingRepo.findById("B001"));
+    }
+
+    /**
+     * Verifies that a train file write failure reaches the seat commit on the real file store.
+     * Scenario: without an intent log the train file is written at once, and its temp path
+     * is a directory, so the rewrite fails.
+     * Expected: the booking fails, the file keeps its seats, no booking is stored, and
+     * booking succeeds once the file can be written again.
+     */
+    @Test
+    void testCreateBooking_TrainFileUnwritable() throws IOException {
+        String trainFile = tempDir.resolve("TrainFile.txt").toString();
+        Train train = new Train("T001", "Penang", LocalDate.now().plusDays(7), LocalTime.NOON,
+                10, 10, 100.0, 200.0, TrainStatus.ACTIVE);
+        new TrainRepository(trainFile).saveAll(List.of(train));
+        BookingService service = new BookingService(mockBookingRepo, new TrainRepository(trainFile), staffService,
+                null, new RevenueView(null), null, null);
+        Train live = service.getAvailableTrains().get(0);
+
+        Path blocker = Files.createDirectory(tempDir.resolve("TrainFile.txt.tmp"));
+        Booking booking = new Booking("B001", "User", SeatTier.STANDARD, 2, 200.0, live, "S001");
+        assertFalse(service.createBooking(booking, live), "Booking must fail when the train cannot be written");
+        assertEquals(10, new TrainRepository(trainFile).loadAll().get(0).getStandardSeatQty());
+        assertEquals(10, live.getStandardSeatQty());
+        assertNull(mockBookingRepo.findById("B001"));
+
+        Files.delete(blocker);
+        assertTrue(service.createBooking(booking, live));
+        assertEquals(8, new TrainRepository(trainFile).loadAll().get(0).getStandardSeatQty());
+        assertArrayEquals(new int[]{1, 2}, booking.getSeatNumbers());
+    }
+
+    /**
+     * Verifies that with an intent log a booking does not rewrite the train file, yet every
+     * terminal sees its seats at once.
+     * Scenario: two terminals share the train file and intent log; the first books twice.
+     * Expected: the file still holds the old counts, the second terminal sees the new counts
+     * and assigns the next free seats, and a checkpoint writes the file and empties the log.
+     */
+    @Test
+    void testBookingsAreLoggedOnlyUntilCheckpoint() {
+        String trainFile = tempDir.resolve("TrainFile.txt").toString();
+        String logFile = tempDir.resolve("intent.log").toString();
+        new TrainRepository(trainFile).saveAll(List.of(new Train("T001", "Penang", LocalDate.now().plusDays(7),
+                LocalTime.NOON, 10, 10, 100.0, 200.0, TrainStatus.ACTIVE)));
+        BookingService first = new BookingService(mockBookingRepo, new TrainRepository(trainFile), staffService,
+                null, new RevenueView(null), null, logFile);
+        BookingService second = new BookingService(mockBookingRepo, new TrainRepository(trainFile), staffService,
+                null, new RevenueView(null), null, logFile);
+        Train train = first.getAvailableTrains().get(0);
+
+        assertTrue(first.createBooking(new Booking("B001", "User", SeatTier.STANDARD, 2, 200.0, train, "S001"), train));
+        assertTrue(first.createBooking(new Booking("B002", "User", SeatTier.STANDARD, 1, 100.0, train, "S001"), train));
+        assertEquals(10, new TrainRepository(trainFile).loadAll().get(0).getStandardSeatQty(), "File not rewritten yet");
+
+        Train seen = second.getAvailableTrains().get(0);
+        assertEquals(7, seen.getStandardSeatQty());
+        Booking next = new Booking("B003", "User", SeatTier.STANDARD, 1, 100.0, seen, "S001");
+        assertTrue(second.createBooking(next, seen));
+        assertArrayEquals(new int[]{4}, next.getSeatNumbers());
+
+        first.flushTrains();
+        Train stored = new TrainRepository(trainFile).loadAll().get(0);
+        assertEquals(6, stored.getStandardSeatQty());
+        assertArrayEquals(new int[]{1, 2, 3, 4}, stored.getStandardSeatsTaken());
+        assertTrue(new IntentLog(logFile).pending().isEmpty(), "Checkpointed intents are completed");
+    }
+
+    /**
+     * Verifies that a train file write failure during a checkpoint loses no seat change.
+     * Scenario: the train file's temp path is a directory while a booking is checkpointed.
+     * Expected: the booking succeeds, the checkpoint fails and keeps the intent, and the
+     * next checkpoint writes the seats.
+     */
+    @Test
+    void testCheckpointFailureKeepsIntent() throws IOException {
+        String trainFile = tempDir.resolve("TrainFile.txt").toString();
+        String logFile = tempDir.resolve("intent.log").toString();
+        new TrainRepository(trainFile).saveAll(List.of(new Train("T001", "Penang", LocalDate.now().plusDays(7),
+                LocalTime.NOON, 10, 10, 100.0, 200.0, TrainStatus.ACTIVE)));
+        BookingService logged = new BookingService(mockBookingRepo, new TrainRepository(trainFile), staffService,
+                null, new RevenueView(null), null, logFile);
+        Train live = logged.getAvailableTrains().get(0);
+
+        Path blocker = Files.createDirectory(tempDir.resolve("TrainFile.txt.tmp"));
+        assertTrue(logged.createBooking(new Booking("B001", "User", SeatTier.STANDARD, 2, 200.0, live, "S001"), live));
+        assertThrows(UncheckedIOException.class, logged::flushTrains);
+        assertEquals(10, new TrainRepository(trainFile).loadAll().get(0).getStandardSeatQty());
+        assertEquals(1, new IntentLog(logFile).pending().size());
+
+        Files.delete(blocker);
+        logged.flushTrains();
+        assertEquals(8, new TrainRepository(trainFile).loadAll().get(0).getStandardSeatQty());
+        assertTrue(new IntentLog(logFile).pending().isEmpty());
+    }
+
+    // --- 4. LOOKUP ---
+    /**
+     * Verifies that a single lookup is served from the booking-ID index and hydrated.
+     * Expected: case-insensitive match with the full Train attached; unknown IDs return null.
+     */
+    @Test
+    void testGetBookingById_HydratesFromIndex() {
+        Train dbTrain = new Train("T001", "Penang", LocalDate.now(), LocalTime.now(),
+                8, 10, 50.0, 80.0, TrainStatus.ACTIVE);
+        mockTrainRepo.save(dbTrain);
+
+        Train idOnly = new Train();
+        idOnly.setTrainID("T001");
+        mockBookingRepo.add(new Booking("B001", "User", SeatTier.STANDARD, 2, 100.0, idOnly, "S001"));
+
+        Booking found = bookingService.getBookingById("b001");
+
+        assertNotNull(found);
+        assertEquals("Penang", found.getTrain().getDestination(), "Train should be hydrated");
+        assertNull(bookingService.getBookingById("B999"));
+    }
+
+    /**
+     * Verifies the train, staff and passenger-name indexes, including after a cancellation.
+     */
+    @Test
+    void testSecondaryIndexesFollowCreateAndCancel() {
+        Train t1 = new Train("T001", "Penang", LocalDate.now(), LocalTime.now(), 10, 10, 50.0, 80.0, TrainStatus.ACTIVE);
+        Train t2 = new Train("T002", "Ipoh", LocalDate.now(), LocalTime.now(), 10, 10, 50.0, 80.0, TrainStatus.ACTIVE);
+        mockTrainRepo.save(t1);
+        mockTrainRepo.save(t2);
+        bookingService.createBooking(new Booking("B001", "Alice Tan", SeatTier.STANDARD, 1, 50.0, t1, "S001"), t1);
+        bookingService.createBooking(new Booking("B002", "Alice Tan", SeatTier.STANDARD, 1, 50.0, t2, "S002"), t2);
+        bookingService.createBooking(new Booking("B003", "Bob", SeatTier.STANDARD, 1, 50.0, t2, "S001"), t2);
+
+        List<Booking> onT2 = bookingService.findByTrain("t002");
+        assertEquals(2, onT2.size());
+        assertEquals("Ipoh", onT2.get(0).getTrain().getDestination());
+        assertEquals(2, bookingService.findByStaff("S001").size());
+        assertEquals(2, bookingService.findByPassengerName(" alice tan ").size());
+
+        bookingService.cancelBooking("B002");
+
+        assertEquals(1, bookingService.findByTrain("T002").size());
+        assertEquals(0, bookingService.findByStaff("S002").size());
+        assertEquals("B001", bookingService.findByPassengerName("Alice Tan").get(0).getBookingID());
+    }
+
+    // --- 5. REVENUE REPORT ---
+    /**
+     * Verifies that the revenue view follows create and cancel without rescanning bookings.
+     */
+    @Test
+    void testRevenueReportFollowsCreateAndCancel() {
+        Train dbTrain = new Train("T001", "Penang", LocalDate.now(), LocalTime.now(),
+                10, 10, 50.0, 80.0, TrainStatus.ACTIVE);
+        mockTrainRepo.save(dbTrain);
+
+        bookingService.createBooking(new Booking("B001", "User", SeatTier.STANDARD, 2, 100.0, dbTrain, "S001"), dbTrain);
+        bookingService.createBooking(new Booking("B002", "User", SeatTier.PREMIUM, 1, 80.0, dbTrain, "S001"), dbTrain);
+        bookingService.cancelBooking("B001");
+
+        RevenueReport report = bookingService.generateRevenueReport();
+        assertEquals(0.0, report.getRevenue("Penang", SeatTier.STANDARD), 0.01);
+        assertEquals(80.0, report.getRevenue("Penang", SeatTier.PREMIUM), 0.01);
+        assertEquals(report.getTotal(), bookingService.generateRevenueReportFromBookings().getTotal(), 0.01);
+    }
+
+    // --- 6. GENERATE ID ---
+    /**
+     * Verifies the block ID allocator.
      * Expected:
-     * - Empty Repo -> B001
-     * - Repo has B005 -> Returns B006
+     * - Empty Repo -> B001, then B002 without rescanning
+     * - A fresh service over a repo holding B005 seeds from it -> B006, B007
      */
     @Test
     void testGenerateNewBookingId() {
         assertEquals("B001", bookingService.generateNewBookingId());
+        assertEquals("B002", bookingService.generateNewBookingId());
 
         mockBookingRepo.add(new Booking("B005", "User", SeatTier.STANDARD, 1, 50.0, null, "S001"));
-        assertEquals("B006", bookingService.generateNewBookingId());
+        BookingService seeded = new BookingService(mockBookingRepo, mockTrainRepo,
+                new StaffService(new MockStaffRepository()));
+        assertEquals("B006", seeded.generateNewBookingId());
+        assertEquals("B007", seeded.generateNewBookingId());
+    }
+
+    // --- 7. CRASH RECOVERY ---
+    /**
+     * Verifies that a booking whose intent was logged but never applied (a crash right
+     * after the commit point) is redone on startup, and that redoing it again changes nothing.
+     * Expected: seats taken, booking stored, staff counter raised; the log is then empty.
+     */
+    @Test
+    void testRecoverRedoesLoggedBooking() {
+        Train dbTrain = new Train("T001", "Penang", LocalDate.now(), LocalTime.now(),
+                10, 10, 50.0, 80.0, TrainStatus.ACTIVE);
+        mockTrainRepo.save(dbTrain);
+        String logFile = tempDir.resolve("intent.log").toString();
+
+        // The crashed terminal got as far as syncing its intent
+        Train afterBooking = new Train("T001", "Penang", dbTrain.getDepartureDate(), dbTrain.getDepartureTime(),
+                8, 10, 50.0, 80.0, TrainStatus.ACTIVE);
+        Booking lost = new Booking("B001", "User", SeatTier.STANDARD, 2, 100.0, afterBooking, "S001");
+        lost.setSeatNumbers(new int[]{1, 2});
+        new BookingTransactionManager(new IntentLog(logFile), mockBookingRepo,
+                new TrainRegistry(mockTrainRepo), staffService, new SeatMaps(trainId -> List.of()))
+                .logCreate(afterBooking, lost);
+
+        BookingService restarted = new BookingService(mockBookingRepo, mockTrainRepo, staffService,
+                null, new RevenueView(null), null, logFile);
+        assertEquals(1, restarted.recover());
+
+        assertEquals(8, dbTrain.getStandardSeatQty());
+        assertEquals(1, dbTrain.getVersion());
+        assertNotNull(mockBookingRepo.findById("B001"));
+        assertArrayEquals(new int[]{1, 2}, mockBookingRepo.findById("B001").getSeatNumbers());
+        assertArrayEquals(new int[]{1, 2}, dbTrain.getStandardSeatsTaken(), "The redo takes the logged seats");
+        assertEquals(1, staffService.getStaffById("S001").getNoOfBookingHandle());
+        assertEquals(0, restarted.recover(), "Recovered intents are cleared");
+    }
+
+    /**
+     * Verifies that a completed booking and cancellation leave nothing to redo,
+     * and that the intent log does not disturb the normal flow.
+     */
+    @Test
+    void testCompletedTransactionsAreNotRedone() {
+        Train dbTrain = new Train("T001", "Penang", LocalDate.now(), LocalTime.now(),
+                10, 10, 50.0, 80.0, TrainStatus.ACTIVE);
+        mockTrainRepo.save(dbTrain);
+        BookingService logged = new BookingService(mockBookingRepo, mockTrainRepo, staffService,
+                null, new RevenueView(null), null, tempDir.resolve("intent.log").toString());
+
+        assertTrue(logged.createBooking(new Booking("B001", "User", SeatTier.PREMIUM, 3, 240.0, dbTrain, "S001"), dbTrain));
+        assertTrue(logged.createBooking(new Booking("B002", "User", SeatTier.PREMIUM, 1, 80.0, dbTrain, "S001"), dbTrain));
+        assertTrue(logged.cancelBooking("B001"));
+        staffService.flushBookingHandles();
+        logged.flushTrains();
+
+        assertEquals(0, logged.recover());
+        assertEquals(9, dbTrain.getPremiumSeatQty());
+        assertEquals(1, mockBookingRepo.getAll().size());
+        assertEquals(2, staffService.getStaffById("S001").getNoOfBookingHandle());
+    }
+
+    /**
+     * Verifies that a terminal starting up while another one has a staff increment pending
+     * neither redoes that terminal's booking nor counts it twice.
+     * Scenario: two terminals share the train, booking, staff and intent log files; the first
+     * books, and the second starts and recovers before the first writes its staff counter.
+     * Expected: the booking is not redone (recovery only writes its seats to the train file),
+     * and the stored count rises by exactly one.
+     */
+    @Test
+    void testRecoveryOnAnotherTerminalDoesNotCountBookingTwice() {
+        String trainFile = tempDir.resolve("TrainFile.txt").toString();
+        String logFile = tempDir.resolve("intent.log").toString();
+        new TrainRepository(trainFile).saveAll(List.of(new Train("T001", "Penang", LocalDate.now().plusDays(7),
+                LocalTime.NOON, 10, 10, 100.0, 200.0, TrainStatus.ACTIVE)));
+        SharedStaffRepository staffFile = new SharedStaffRepository();
+        staffFile.save(new Staff("Admin", "0123456789", "999999010101", "S001", "pass", 4));
+
+        StaffService firstStaff = new StaffService(staffFile, 0, 100);
+        BookingService first = new BookingService(mockBookingRepo, new TrainRepository(trainFile), firstStaff,
+                null, new RevenueView(null), null, logFile);
+        Train train = first.getAvailableTrains().get(0);
+        assertTrue(first.createBooking(new Booking("B001", "User", SeatTier.STANDARD, 2, 200.0, train, "S001"), train));
+        assertEquals(5, firstStaff.getStaffById("S001").getNoOfBookingHandle());
+        assertEquals(4, staffFile.getAll().get("S001").getNoOfBookingHandle(), "The increment is still pending");
+
+        StaffService secondStaff = new StaffService(staffFile, 0, 100);
+        BookingService second = new BookingService(mockBookingRepo, new TrainRepository(trainFile), secondStaff,
+                null, new RevenueView(null), null, logFile);
+        second.recover();
+
+        firstStaff.flushBookingHandles();
+        secondStaff.flushBookingHandles();
+        assertEquals(5, staffFile.getAll().get("S001").getNoOfBookingHandle(), "Counted once");
+        assertEquals(1, mockBookingRepo.getAll().size());
+        assertEquals(8, new TrainRepository(trainFile).loadAll().get(0).getStandardSeatQty());
     }
 
     // --- Internal mock classes ---
@@ -165,6 +592,27 @@ public class BookingServiceTest {
         public void saveAll(List<Train> trains) { /* Simulates saving to file */ }
     }
 
+    static class FailingTrainRepository extends MockTrainRepository {
+        boolean failing;
+        @Override
+        public void saveAll(List<Train> trains) {
+            if (failing) throw new UncheckedIOException(new IOException("Disk full"));
+        }
+    }
+
+    /** Staff store whose saves are kept, like a staff file shared by several terminals. */
+    static class SharedStaffRepository implements IStaffRepository {
+        private final LinkedHashMap<String, Staff> db = new LinkedHashMap<>();
+        public void save(Staff s) { db.put(s.getId(), s); }
+        public LinkedHashMap<String, Staff> getAll() {
+            LinkedHashMap<String, Staff> copies = new LinkedHashMap<>();
+            db.forEach((id, s) -> copies.put(id, new Staff(s.getName(), s.getContactNo(), s.getIc(), id,
+                    s.getPassword(), s.getNoOfBookingHandle())));
+            return copies;
+        }
+        public void saveAll(Collection<Staff> list) { db.clear(); list.forEach(this::save); }
+    }
+
     static class MockStaffRepository implements IStaffRepository {
         private final LinkedHashMap<String, Staff> db = new LinkedHashMap<>();
         public void save(Staff s) { db.put(s.getId(), s); }
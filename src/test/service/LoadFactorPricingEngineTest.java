@@ -0,0 +1,100 @@
+package test.service;
+
+import ets.model.PassengerTier;
+import ets.model.SeatTier;
+import ets.model.Train;
+import ets.model.TrainStatus;
+import ets.service.FareMatrix;
+import ets.service.FareMatrixCache;
+import ets.service.LoadFactorPricingEngine;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for load-factor pricing and its use by the fare matrix cache.
+ */
+class LoadFactorPricingEngineTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    private final LoadFactorPricingEngine engine = LoadFactorPricingEngine.defaults();
+
+    private static Train train(String id, int standardLeft, double standardPrice, LocalDateTime departure) {
+        return new Train(id, "Penang", departure.toLocalDate(), departure.toLocalTime(),
+                standardLeft, 0, standardPrice, standardPrice + 50.0, TrainStatus.ACTIVE);
+    }
+
+    /**
+     * Verifies that the price steps up as the remaining seats fall.
+     */
+    @Test
+    void testPriceStepsUpWithLoad() {
+        LocalDateTime nextWeek = NOW.plusDays(7);
+        assertEquals(10_000, engine.seatPriceSen(train("T1", 100, 100.0, nextWeek), SeatTier.STANDARD, 0, NOW));
+        assertEquals(10_000, engine.seatPriceSen(train("T1", 51, 100.0, nextWeek), SeatTier.STANDARD, 49, NOW));
+        assertEquals(11_000, engine.seatPriceSen(train("T1", 50, 100.0, nextWeek), SeatTier.STANDARD, 50, NOW));
+        assertEquals(15_000, engine.seatPriceSen(train("T1", 10, 100.0, nextWeek), SeatTier.STANDARD, 90, NOW));
+        assertEquals(17_500, engine.seatPriceSen(train("T1", 5, 100.0, nextWeek), SeatTier.STANDARD, 95, NOW));
+    }
+
+    /**
+     * Verifies that only lightly loaded trains get cheaper close to departure.
+     */
+    @Test
+    void testLastMinuteDropOnlyWithLowLoad() {
+        assertEquals(9_000, engine.seatPriceSen(train("T1", 90, 100.0, NOW.plusHours(30)), SeatTier.STANDARD, 10, NOW));
+        assertEquals(8_000, engine.seatPriceSen(train("T1", 90, 100.0, NOW.plusHours(20)), SeatTier.STANDARD, 10, NOW));
+        assertEquals(7_000, engine.seatPriceSen(train("T1", 90, 100.0, NOW.plusHours(5)), SeatTier.STANDARD, 10, NOW));
+        assertEquals(10_000, engine.seatPriceSen(train("T1", 90, 100.0, NOW.plusHours(49)), SeatTier.STANDARD, 10, NOW));
+        // 60% sold: load step applies, last-minute drop does not
+        assertEquals(11_000, engine.seatPriceSen(train("T1", 40, 100.0, NOW.plusHours(5)), SeatTier.STANDARD, 60, NOW));
+    }
+
+    /**
+     * Verifies that adjusted prices stay within the validator's seat price bounds.
+     */
+    @Test
+    void testPricesStayWithinBounds() {
+        assertEquals(99_998, engine.seatPriceSen(train("T1", 1, 900.0, NOW.plusDays(7)), SeatTier.STANDARD, 99, NOW));
+        assertEquals(5_000, engine.seatPriceSen(train("T1", 90, 55.0, NOW.plusHours(1)), SeatTier.STANDARD, 10, NOW));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LoadFactorPricingEngine(Map.of(101, 12_000), Map.of(), 40));
+    }
+
+    /**
+     * Verifies that the cache follows the engine as seats sell, and that a large batch
+     * reprices in the background.
+     */
+    @Test
+    void testCacheFollowsLoadAndRepricesInBatch() throws Exception {
+        FareMatrixCache cache = new FareMatrixCache(Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        cache.setPricingEngine(engine);
+
+        Train t = train("T1", 50, 100.0, NOW.plusDays(7));
+        FareMatrix quiet = cache.get(t);
+        assertEquals(10_000, quiet.getSeatPrice(SeatTier.STANDARD));
+
+        t.setStandardSeatsSold(50); // committed by a booking, here or on another terminal
+        FareMatrix busy = cache.get(t);
+        assertNotSame(quiet, busy);
+        // 110.00 x 0.75 x 1.06 = 87.45
+        assertEquals(8_745, busy.getUnitFare(SeatTier.STANDARD, PassengerTier.GOLD));
+        assertSame(busy, cache.get(t));
+
+        List<Train> fleet = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            fleet.add(train("F" + i, 100, 80.0, NOW.plusDays(3)));
+        }
+        assertEquals(5_000, cache.repriceAllAsync(fleet).get());
+        assertEquals(5_001, cache.size());
+        assertEquals(0, cache.repriceAll(fleet), "Unchanged prices keep their matrices");
+    }
+}
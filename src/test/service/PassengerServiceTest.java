@@ -1,5 +1,6 @@
 package test.service;
 
+import ets.model.CachingPassengerRepository;
 import ets.model.Passenger;
 import ets.model.PassengerRepository;
 import ets.model.PassengerTier;
@@ -8,10 +9,13 @@ import ets.service.PassengerValidator;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,6 +32,12 @@ class PassengerServiceTest {
     // Real file + backup (similar to your Booking test)
     private final File dataFile   = new File("PassengerFile.txt");
     private final File backupFile = new File("PassengerFile.txt.bak");
+    private final File lockFile   = new File("PassengerFile.txt.lock");
+    private boolean lockFileExisted;
+
+    // Keep the ID sequence out of the working directory
+    @TempDir
+    Path tempDir;
 
     /**
      * Move the original data to a new data file
@@ -45,12 +55,18 @@ class PassengerServiceTest {
             assertTrue(dataFile.delete(), "Failed to delete test PassengerFile.txt");
         }
 
+        lockFileExisted = lockFile.exists();
+
         // 3. Use normal repository & service (they will use PassengerFile.txt)
-        repo = new PassengerRepository();
+        repo = new PassengerRepository(dataFile.getPath(), sequenceFile());
         validator = new PassengerValidator();
         service = new PassengerService(repo, validator);
     }
 
+    private String sequenceFile() {
+        return tempDir.resolve("IdSequence.txt").toString();
+    }
+
     /**
      * Move the backup file back to the original
      */
@@ -66,6 +82,11 @@ class PassengerServiceTest {
             boolean ok = backupFile.renameTo(dataFile);
             assertTrue(ok, "Failed to restore original PassengerFile.txt from backup");
         }
+
+        // 3. Remove the lock sidecar the test created, if it was not there before
+        if (!lockFileExisted) {
+            lockFile.delete();
+        }
     }
 
     /**
@@ -214,4 +235,82 @@ class PassengerServiceTest {
         assertEquals("IC is already registered in the system.", ex.getMessage());
     }
 
+    /**
+     * Verifies the resident store: edits to a looked-up passenger stay pending until
+     * updatePassenger, and changing a passenger's IC frees the old IC for reuse.
+     */
+    @Test
+    void updatePassenger_changedIc_releasesOldIc() {
+        Passenger created = service.registerNewPassenger("Alice", "0123456789", "010203040506", 'F');
+
+        Passenger pending = service.findById(created.getId()).orElseThrow();
+        pending.setName("Not Saved");
+        assertEquals("Alice", service.findById(created.getId()).orElseThrow().getName());
+
+        pending.setIc("020304050607");
+        service.updatePassenger(pending);
+
+        Passenger bob = service.registerNewPassenger("Bob", "0987654321", "010203040506", 'M');
+        assertNotEquals(created.getId(), bob.getId());
+        assertThrows(IllegalArgumentException.class,
+                () -> service.registerNewPassenger("Carol", "0111111111", "020304050607", 'F'));
+
+        PassengerService reloaded = new PassengerService(new PassengerRepository(dataFile.getPath(), sequenceFile()), validator);
+        assertEquals(2, reloaded.getAllPassengers().size());
+        assertEquals("020304050607", reloaded.findById(created.getId()).orElseThrow().getIc());
+    }
+
+    /**
+     * Verifies that two services on the same file (two terminals) see each other's
+     * passengers: neither overwrites the other's registration, and IC stays unique.
+     */
+    @Test
+    void testTwoTerminalsShareThePassengerFile() {
+        PassengerService other = new PassengerService(
+                new CachingPassengerRepository(new PassengerRepository(dataFile.getPath(), sequenceFile())), validator);
+
+        Passenger alice = service.registerNewPassenger("Alice", "0123456789", "010101010101", 'F');
+        Passenger bob = other.registerNewPassenger("Bob", "0987654321", "020202020202", 'M');
+
+        assertThrows(IllegalArgumentException.class,
+                () -> other.registerNewPassenger("Carol", "0111111111", "010101010101", 'F'));
+        service.changeTier(alice.getId(), 'G');
+
+        assertEquals(2, service.getAllPassengers().size());
+        assertEquals(2, other.getAllPassengers().size());
+        assertTrue(service.findById(bob.getId()).isPresent());
+        assertEquals(PassengerTier.GOLD, other.findById(alice.getId()).orElseThrow().getPassengerTier());
+    }
+
+    /**
+     * Verifies that lookups and writes work on the in-memory indexes, re-reading the file
+     * only after another terminal saved it.
+     */
+    @Test
+    void testIndexesReloadOnlyWhenFileChanges() {
+        int[] reads = {0};
+        PassengerService counted = new PassengerService(new PassengerRepository(dataFile.getPath(), sequenceFile()) {
+            @Override
+            public LinkedHashMap<String, Passenger> getAll() {
+                reads[0]++;
+                return super.getAll();
+            }
+        }, validator);
+
+        Passenger alice = counted.registerNewPassenger("Alice", "0123456789", "010101010101", 'F');
+        reads[0] = 0; // the first use loads the file (and seeds the ID sequence from it)
+        counted.registerNewPassenger("Bob", "0987654321", "020202020202", 'M');
+        counted.changeTier(alice.getId(), 'G');
+        for (int i = 0; i < 10; i++) {
+            assertTrue(counted.findById(alice.getId()).isPresent());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> counted.registerNewPassenger("Carol", "0111111111", "010101010101", 'F'));
+        assertEquals(0, reads[0], "Unchanged file is not read again");
+
+        Passenger dave = service.registerNewPassenger("Dave", "0122222222", "030303030303", 'M');
+        assertTrue(counted.findById(dave.getId()).isPresent());
+        assertEquals(1, reads[0], "A save by another terminal is picked up");
+        assertEquals(PassengerTier.GOLD, counted.findById(alice.getId()).orElseThrow().getPassengerTier());
+    }
 }
@@ -0,0 +1,78 @@
+package test.service;
+
+import ets.model.Booking;
+import ets.model.SeatTier;
+import ets.model.Train;
+import ets.model.TrainStatus;
+import ets.service.RevenueAggregator;
+import ets.service.RevenueReport;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the single-pass revenue aggregation.
+ */
+class RevenueAggregatorTest {
+
+    private final RevenueAggregator aggregator = new RevenueAggregator();
+
+    private Train train(String id, String destination, TrainStatus status) {
+        return new Train(id, destination, LocalDate.of(2030, 1, 1), LocalTime.of(10, 0),
+                100, 10, 50.0, 80.0, status);
+    }
+
+    /**
+     * Verifies grouping by destination and tier, and that discontinued trains are excluded.
+     * Two active trains to the same destination must not double count.
+     */
+    @Test
+    void testAggregatesByDestinationAndTier() {
+        Train penang1 = train("T001", "Penang", TrainStatus.ACTIVE);
+        Train penang2 = train("T002", "Penang", TrainStatus.ACTIVE);
+        Train ipoh = train("T003", "Ipoh", TrainStatus.ACTIVE);
+        Train johor = train("T004", "Johor", TrainStatus.DISCONTINUED);
+
+        List<Booking> bookings = List.of(
+                new Booking("B001", "A", SeatTier.STANDARD, 1, 100.0, penang1, "S001"),
+                new Booking("B002", "B", SeatTier.STANDARD, 1, 50.0, penang2, "S001"),
+                new Booking("B003", "C", SeatTier.PREMIUM, 1, 80.0, penang1, "S001"),
+                new Booking("B004", "D", SeatTier.PREMIUM, 1, 999.0, johor, "S001"));
+
+        RevenueReport report = aggregator.aggregate(bookings, List.of(penang1, penang2, ipoh, johor), false);
+
+        assertEquals(List.of("Penang", "Ipoh"), new ArrayList<>(report.getDestinations()));
+        assertEquals(150.0, report.getRevenue("Penang", SeatTier.STANDARD), 0.001);
+        assertEquals(80.0, report.getRevenue("Penang", SeatTier.PREMIUM), 0.001);
+        assertEquals(0.0, report.getRevenue("Ipoh", SeatTier.STANDARD), 0.001);
+        assertEquals(230.0, report.getTotal(), 0.001);
+        assertEquals(4, report.getBookingCount());
+    }
+
+    /**
+     * Verifies that the parallel path produces the same totals as the sequential one.
+     */
+    @Test
+    void testParallelMatchesSequential() {
+        Train penang = train("T001", "Penang", TrainStatus.ACTIVE);
+        Train ipoh = train("T002", "Ipoh", TrainStatus.ACTIVE);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            bookings.add(new Booking("B" + i, "P", i % 2 == 0 ? SeatTier.STANDARD : SeatTier.PREMIUM,
+                    1, 10.0, i % 3 == 0 ? penang : ipoh, "S001"));
+        }
+
+        RevenueReport sequential = aggregator.aggregate(bookings, List.of(penang, ipoh), false);
+        RevenueReport parallel = aggregator.aggregate(bookings, List.of(penang, ipoh), true);
+
+        for (SeatTier tier : SeatTier.values()) {
+            assertEquals(sequential.getRevenue("Penang", tier), parallel.getRevenue("Penang", tier), 0.001);
+            assertEquals(sequential.getRevenue("Ipoh", tier), parallel.getRevenue("Ipoh", tier), 0.001);
+        }
+    }
+}
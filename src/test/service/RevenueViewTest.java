@@ -0,0 +1,144 @@
+package test.service;
+
+import ets.model.Booking;
+import ets.model.SeatTier;
+import ets.model.Train;
+import ets.model.TrainStatus;
+import ets.service.RevenueReport;
+import ets.service.RevenueView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the incrementally maintained revenue view.
+ */
+class RevenueViewTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Train train(String id, String destination) {
+        return new Train(id, destination, LocalDate.of(2030, 1, 1), LocalTime.of(10, 0),
+                100, 10, 50.0, 80.0, TrainStatus.ACTIVE);
+    }
+
+    /**
+     * Verifies that create/cancel updates are reflected in the report without a rebuild.
+     */
+    @Test
+    void testRecordAndReverse() {
+        RevenueView view = new RevenueView(null);
+        Train penang = train("T001", "Penang");
+        view.rebuild(List.of(penang, train("T002", "Ipoh")), List.of(), null);
+
+        view.recordBooking(penang, SeatTier.STANDARD, 10_000, null);
+        view.recordBooking(penang, SeatTier.PREMIUM, 4_000, null);
+        view.reverseBooking("T001", SeatTier.STANDARD, 10_000, null);
+
+        RevenueReport report = view.toReport();
+        assertEquals(List.of("Penang", "Ipoh"), new ArrayList<>(report.getDestinations()));
+        assertEquals(0.0, report.getRevenue("Penang", SeatTier.STANDARD), 0.001);
+        assertEquals(40.0, report.getRevenue("Penang", SeatTier.PREMIUM), 0.001);
+        assertEquals(1, report.getBookingCount());
+    }
+
+    /**
+     * Verifies that discontinuing a train moves its revenue out of the active buckets.
+     */
+    @Test
+    void testSyncTrainsMovesDiscontinuedRevenue() {
+        RevenueView view = new RevenueView(null);
+        Train penang = train("T001", "Penang");
+        view.rebuild(List.of(penang), List.of(
+                new Booking("B001", "A", SeatTier.STANDARD, 1, 60.0, penang, "S001")), null);
+
+        penang.setStatus(TrainStatus.DISCONTINUED);
+        view.syncTrains(List.of(penang));
+
+        assertTrue(view.toReport().getDestinations().isEmpty());
+        assertEquals(6_000, view.getRevenue("Penang", SeatTier.STANDARD, TrainStatus.DISCONTINUED));
+    }
+
+    /**
+     * Verifies that the persisted view reloads, and is rejected when the booking state moved on.
+     */
+    @Test
+    void testPersistAndReload() {
+        String file = tempDir.resolve("revenue.txt").toString();
+        Train penang = train("T001", "Penang");
+        RevenueView view = new RevenueView(file);
+        view.rebuild(List.of(penang), List.of(), "t0");
+        view.recordBooking(penang, SeatTier.PREMIUM, 2_550, "t1");
+
+        RevenueView reloaded = new RevenueView(file);
+        assertTrue(reloaded.load("t1"));
+        assertEquals(2_550, reloaded.toReport().getRevenueSen("Penang", SeatTier.PREMIUM));
+        assertEquals(1, reloaded.toReport().getBookingCount());
+
+        assertFalse(new RevenueView(file).load("t2"), "Stale view should ask for a rebuild");
+        assertFalse(new RevenueView(file).load(null), "A repository without a token cannot vouch for the view");
+    }
+
+    /**
+     * Verifies that two views over one file (two terminals) see each other's bookings
+     * instead of overwriting them.
+     */
+    @Test
+    void testViewsOnOneFileConverge() {
+        String file = tempDir.resolve("revenue.txt").toString();
+        Train penang = train("T001", "Penang");
+        Train ipoh = train("T002", "Ipoh");
+        RevenueView first = new RevenueView(file);
+        first.rebuild(List.of(penang, ipoh), List.of(), "t0");
+        RevenueView second = new RevenueView(file);
+        assertTrue(second.load("t0"));
+
+        first.recordBooking(penang, SeatTier.STANDARD, 5_000, "t1");
+        second.recordBooking(ipoh, SeatTier.PREMIUM, 8_000, "t2");
+        first.reverseBooking("T001", SeatTier.STANDARD, 5_000, "t3");
+        second.recordBooking(penang, SeatTier.PREMIUM, 1_000, "t4");
+
+        for (RevenueView view : List.of(first, second)) {
+            RevenueReport report = view.toReport();
+            assertEquals(0, report.getRevenueSen("Penang", SeatTier.STANDARD));
+            assertEquals(1_000, report.getRevenueSen("Penang", SeatTier.PREMIUM));
+            assertEquals(8_000, report.getRevenueSen("Ipoh", SeatTier.PREMIUM));
+            assertEquals(2, report.getBookingCount());
+        }
+        assertTrue(new RevenueView(file).load("t4"));
+    }
+
+    /**
+     * Verifies that appended deltas are folded into a new snapshot once the threshold is hit,
+     * and that another view picks the snapshot up.
+     */
+    @Test
+    void testCompactsDeltasIntoSnapshot() throws Exception {
+        Path path = tempDir.resolve("revenue.txt");
+        String file = path.toString();
+        Train penang = train("T001", "Penang");
+        RevenueView view = new RevenueView(file, 3);
+        view.rebuild(List.of(penang), List.of(), "t0");
+        RevenueView other = new RevenueView(file, 3);
+        assertTrue(other.load("t0"));
+
+        for (int i = 1; i <= 4; i++) {
+            view.recordBooking(penang, SeatTier.STANDARD, 1_000, "t" + i);
+        }
+
+        List<String> lines = Files.readAllLines(path);
+        assertEquals(3, lines.size(), "Header, one share and the delta written after compaction");
+        assertTrue(lines.get(0).startsWith("#2|"));
+        assertEquals(4_000, other.toReport().getRevenueSen("Penang", SeatTier.STANDARD));
+        assertEquals(4, other.toReport().getBookingCount());
+    }
+}
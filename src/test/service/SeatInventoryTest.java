@@ -0,0 +1,72 @@
+package test.service;
+
+import ets.model.SeatTier;
+import ets.model.Train;
+import ets.model.TrainStatus;
+import ets.service.SeatInventory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the lock-free seat inventory.
+ */
+class SeatInventoryTest {
+
+    private SeatInventory inventory;
+    private Train train;
+
+    @BeforeEach
+    void setUp() {
+        train = new Train("T001", "Penang", LocalDate.of(2030, 1, 1), LocalTime.of(10, 0),
+                100, 10, 50.0, 80.0, TrainStatus.ACTIVE);
+        inventory = new SeatInventory();
+        inventory.track(train);
+    }
+
+    /**
+     * Verifies reserve/resync arithmetic and that untracked trains cannot be reserved.
+     */
+    @Test
+    void testReserveAndResync() {
+        assertTrue(inventory.tryReserve("T001", SeatTier.PREMIUM, 4));
+        assertEquals(6, inventory.available("T001", SeatTier.PREMIUM));
+        assertFalse(inventory.tryReserve("T001", SeatTier.PREMIUM, 7), "Should not oversell");
+
+        inventory.resync(train);
+        assertEquals(10, inventory.available("T001", SeatTier.PREMIUM), "The committed train is authoritative");
+
+        assertFalse(inventory.tryReserve("T999", SeatTier.STANDARD, 1));
+        assertEquals(-1, inventory.available("T999", SeatTier.STANDARD));
+    }
+
+    /**
+     * Verifies that concurrent reservations never exceed the available seats.
+     */
+    @Test
+    void testConcurrentReservationsNeverOversell() throws InterruptedException {
+        AtomicInteger granted = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 50; j++) {
+                    if (inventory.tryReserve("T001", SeatTier.STANDARD, 1)) {
+                        granted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread t : threads) t.join();
+
+        assertEquals(100, granted.get());
+        assertEquals(0, inventory.available("T001", SeatTier.STANDARD));
+    }
+}
@@ -0,0 +1,61 @@
+package test.service;
+
+import ets.model.SeatTier;
+import ets.model.Train;
+import ets.model.TrainStatus;
+import ets.service.SeatMaps;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Latency benchmark for seat assignment through SeatMaps on a 999-seat train: three-seat
+ * bookings until the train is full, then a two-seat booking and its cancellation on the full
+ * train, where the only free block is found by scanning the whole map.
+ * Not a unit test; run manually, e.g. {@code java test.service.SeatMapsBenchmark 300}.
+ */
+public class SeatMapsBenchmark {
+
+    private static final int SEATS = 999;
+    private static final int CYCLES = 1_000;
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        SeatMaps seatMaps = new SeatMaps(trainId -> List.of());
+        long bestFill = Long.MAX_VALUE;
+        long bestCycle = Long.MAX_VALUE;
+
+        for (int round = 1; round <= rounds; round++) {
+            Train train = new Train("T001", "Penang", LocalDate.of(2030, 1, 1), LocalTime.NOON,
+                    SEATS, 0, 50.0, 80.0, TrainStatus.ACTIVE);
+            train.setStandardSeatsTaken(new int[0]);
+            train.setPremiumSeatsTaken(new int[0]);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < SEATS / 3; i++) {
+                seatMaps.allocate(train, SeatTier.STANDARD, 3);
+                train.setStandardSeatQty(train.getStandardSeatQty() - 3);
+            }
+            long fill = (System.nanoTime() - start) / (SEATS / 3);
+
+            // Leave a block of two near the end, and one shorter gap before it
+            seatMaps.release(train, SeatTier.STANDARD, new int[]{100, 700, 701});
+            train.setStandardSeatQty(3);
+            start = System.nanoTime();
+            for (int i = 0; i < CYCLES; i++) {
+                int[] seats = seatMaps.allocate(train, SeatTier.STANDARD, 2);
+                seatMaps.release(train, SeatTier.STANDARD, seats);
+            }
+            long cycle = (System.nanoTime() - start) / CYCLES;
+
+            // The first third of the rounds warms the JIT up
+            if (round > rounds / 3) {
+                bestFill = Math.min(bestFill, fill);
+                bestCycle = Math.min(bestCycle, cycle);
+            }
+        }
+        System.out.printf("%d-seat train: allocate(3) while filling %d ns, allocate(2) + release when full %d ns%n",
+                SEATS, bestFill, bestCycle);
+    }
+}
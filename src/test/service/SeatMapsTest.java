@@ -0,0 +1,128 @@
+package test.service;
+
+import ets.model.Booking;
+import ets.model.SeatTier;
+import ets.model.Train;
+import ets.model.TrainStatus;
+import ets.service.SeatMaps;
+import ets.service.TrainRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the seat maps kept on the train record.
+ */
+class SeatMapsTest {
+
+    private final SeatMaps seatMaps = new SeatMaps(trainId -> List.of());
+
+    private static Train train(int standardSeats) {
+        Train train = new Train("T001", "Penang", LocalDate.of(2030, 1, 1), LocalTime.of(10, 0),
+                standardSeats, 0, 50.0, 80.0, TrainStatus.ACTIVE);
+        train.setStandardSeatsTaken(new int[0]);
+        train.setPremiumSeatsTaken(new int[0]);
+        return train;
+    }
+
+    /**
+     * Verifies that seats are taken in the train's own bitset, which grows with the seats left.
+     */
+    @Test
+    void testAllocatesOnTheTrainsBitset() {
+        Train train = train(130);
+        assertArrayEquals(new int[]{1, 2, 3}, seatMaps.allocate(train, SeatTier.STANDARD, 3));
+        long[] bits = train.getStandardSeatBits();
+        assertEquals(3, bits.length, "Sized for 130 seats");
+        train.setStandardSeatQty(127);
+        assertArrayEquals(new int[]{4, 5}, seatMaps.allocate(train, SeatTier.STANDARD, 2));
+        assertSame(bits, train.getStandardSeatBits(), "Taken in place");
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5}, train.getStandardSeatsTaken());
+        assertNull(seatMaps.allocate(train, SeatTier.PREMIUM, 1), "No premium seats left");
+    }
+
+    /**
+     * Verifies that the map follows the seat quantity without dropping taken seats.
+     */
+    @Test
+    void testMapFollowsSeatQuantity() {
+        Train train = train(10);
+        assertTrue(seatMaps.claim(train, SeatTier.STANDARD, new int[]{9}));
+        train.setStandardSeatQty(2);
+        // Seat 9 is taken, so seats 1..8 stay in the map even with two seats left
+        assertArrayEquals(new int[]{1, 2, 3}, seatMaps.allocate(train, SeatTier.STANDARD, 3));
+        seatMaps.release(train, SeatTier.STANDARD, new int[]{1, 2, 3, 9});
+        assertNull(seatMaps.allocate(train, SeatTier.STANDARD, 3), "Only two seats left");
+        assertArrayEquals(new int[]{1, 2}, seatMaps.allocate(train, SeatTier.STANDARD, 2));
+        train.setStandardSeatQty(200);
+        int[] far = seatMaps.allocate(train, SeatTier.STANDARD, 200);
+        assertEquals(202, far[far.length - 1], "The bitset grows with the seats added");
+    }
+
+    /**
+     * Verifies that a train stored before seat maps were kept gets one from its bookings.
+     */
+    @Test
+    void testSeedsMapFromStoredBookings() {
+        Train train = new Train("T001", "Penang", LocalDate.of(2030, 1, 1), LocalTime.of(10, 0),
+                8, 5, 50.0, 80.0, TrainStatus.ACTIVE);
+        Booking booked = new Booking("B001", "User", SeatTier.STANDARD, 2, 100.0, train, "S001");
+        booked.setSeatNumbers(new int[]{1, 2});
+        SeatMaps seeded = new SeatMaps(trainId -> List.of(booked));
+        assertArrayEquals(new int[]{3}, seeded.allocate(train, SeatTier.STANDARD, 1));
+        assertArrayEquals(new int[0], train.getPremiumSeatsTaken());
+    }
+
+    /**
+     * Verifies that concurrent commits on a 999-seat train never hand out a seat twice:
+     * the registry's commit serializes the in-place changes to the bitset.
+     */
+    @Test
+    void testConcurrentCommitsNeverOverlap() throws Exception {
+        BookingServiceTest.MockTrainRepository repo = new BookingServiceTest.MockTrainRepository();
+        repo.save(train(999));
+        TrainRegistry registry = new TrainRegistry(repo);
+        Set<Integer> seats = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                while (true) {
+                    int[][] taken = new int[1][];
+                    try {
+                        registry.update("T001", registry.getVersion("T001"), train -> {
+                            taken[0] = seatMaps.allocate(train, SeatTier.STANDARD, 3);
+                            if (taken[0] != null) {
+                                train.setStandardSeatQty(train.getStandardSeatQty() - 3);
+                            }
+                        });
+                    } catch (ConcurrentModificationException e) {
+                        continue;
+                    }
+                    if (taken[0] == null) return;
+                    for (int seat : taken[0]) {
+                        assertTrue(seats.add(seat), "Seat " + seat + " handed out twice");
+                    }
+                }
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        assertEquals(999, seats.size());
+        assertEquals(0, registry.findById("T001").getStandardSeatQty());
+    }
+}
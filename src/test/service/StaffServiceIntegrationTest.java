@@ -20,6 +20,8 @@ public class StaffServiceIntegrationTest {
     private StaffService service;
     private final File dataFile = new File(AppConstants.STAFF_FILE_PATH);
     private final File backupFile = new File(AppConstants.STAFF_FILE_PATH + ".bak");
+    private final File lockFile = new File(AppConstants.STAFF_FILE_PATH + ".lock");
+    private boolean lockFileExisted;
 
     /**
      * Setup:
@@ -32,6 +34,7 @@ public class StaffServiceIntegrationTest {
         // REFACTOR: Removed "if (exists)" check to ensure 100% branch coverage.
         // renameTo() returns false if dataFile is missing, which is safe to ignore here.
         dataFile.renameTo(backupFile);
+        lockFileExisted = lockFile.exists();
 
         // Initialize REAL repository logic (writing to disk)
         StaffRepository realRepo = new StaffRepository();
@@ -53,6 +56,11 @@ public class StaffServiceIntegrationTest {
 
         // renameTo() returns false if backupFile is missing (safe).
         backupFile.renameTo(dataFile);
+
+        // Remove the lock sidecar the test created, if it was not there before
+        if (!lockFileExisted) {
+            lockFile.delete();
+        }
     }
 
     /**
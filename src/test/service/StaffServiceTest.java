@@ -156,6 +156,68 @@ public class StaffServiceTest {
         assertNull(service.getStaffById("S999"));
     }
 
+    /**
+     * Tests the write-behind of booking counters.
+     * Verifies that increments show at once in memory but reach the repository only on flush
+     * or at the threshold, and that a full save in between does not count them twice.
+     */
+    @Test
+    void testBookingCountersAreWrittenBehind() throws InterruptedException {
+        StaffService buffered = new StaffService(fakeRepo, 0, 3);
+        buffered.updateStaffField("S001", AppConstants.FIELD_NAME, "Super Admin");
+
+        buffered.incrementBookingHandle("S001");
+        buffered.incrementBookingHandle("S001");
+        assertEquals(7, buffered.getStaffById("S001").getNoOfBookingHandle());
+        assertEquals(5, fakeRepo.getAll().get("S001").getNoOfBookingHandle(), "Not written before a flush");
+
+        buffered.updateStaffField("S001", AppConstants.FIELD_CONTACT, "0111111111");
+        assertEquals(5, fakeRepo.getAll().get("S001").getNoOfBookingHandle(), "A full save leaves pending increments out");
+
+        buffered.flushBookingHandles();
+        assertEquals(7, fakeRepo.getAll().get("S001").getNoOfBookingHandle());
+        assertEquals("0111111111", fakeRepo.getAll().get("S001").getContactNo());
+
+        // Reaching the threshold flushes in the background
+        for (int i = 0; i < 3; i++) {
+            buffered.incrementBookingHandle("S001");
+        }
+        for (int i = 0; i < 100 && fakeRepo.getAll().get("S001").getNoOfBookingHandle() != 10; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(10, fakeRepo.getAll().get("S001").getNoOfBookingHandle());
+        buffered.close();
+    }
+
+    /**
+     * Tests booking counters racing full saves.
+     * Verifies that every increment is written exactly once.
+     */
+    @Test
+    void testIncrementsRacingFullSavesAreCountedOnce() throws InterruptedException {
+        StaffService buffered = new StaffService(fakeRepo, 0, 10);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 200; j++) {
+                    buffered.incrementBookingHandle("S001");
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i < 50; i++) {
+            buffered.updateStaffField("S001", AppConstants.FIELD_NAME, i % 2 == 0 ? "Super Admin" : "Admin");
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        buffered.flushBookingHandles();
+
+        assertEquals(805, fakeRepo.getAll().get("S001").getNoOfBookingHandle());
+        assertEquals(805, buffered.getStaffById("S001").getNoOfBookingHandle());
+        buffered.close();
+    }
+
     // =========================================================================
     // TEST HELPER: FAKE REPOSITORY
     // =========================================================================
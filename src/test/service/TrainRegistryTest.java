@@ -0,0 +1,291 @@
+package test.service;
+
+import ets.model.SeatTier;
+import ets.model.Train;
+import ets.model.TrainInterface;
+import ets.model.TrainStatus;
+import ets.service.SeatInventory;
+import ets.service.TrainRegistry;
+import ets.service.TrainService;
+import ets.service.TrainValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the shared, versioned train registry.
+ */
+class TrainRegistryTest {
+
+    private InMemoryTrainRepository repo;
+    private TrainRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        repo = new InMemoryTrainRepository();
+        repo.store.add(new Train("T001", "Penang", LocalDate.of(2030, 1, 1), LocalTime.of(10, 0),
+                100, 10, 50.0, 80.0, TrainStatus.ACTIVE));
+        registry = new TrainRegistry(repo);
+    }
+
+    /**
+     * Verifies that the train service and the booking side see the same Train object,
+     * so a seat change is visible everywhere and a later train save does not revert it.
+     */
+    @Test
+    void testServicesShareLiveTrains() {
+        TrainService trainService = new TrainService(registry, new TrainValidator());
+        Train bookingSide = registry.findById("T001");
+        bookingSide.setStandardSeatQty(70);
+
+        assertSame(bookingSide, trainService.findById("T001").orElseThrow());
+        assertEquals(70, trainService.findById("T001").orElseThrow().getStandardSeatQty());
+
+        trainService.save();
+        assertEquals(70, repo.saved.get(0).getStandardSeatQty());
+        assertEquals(1, repo.saved.get(0).getVersion(), "A changed train is written with its version bumped");
+    }
+
+    /**
+     * Verifies that an edit based on an outdated version is rejected and leaves the train unchanged.
+     */
+    @Test
+    void testStaleUpdateIsRejected() {
+        int seen = registry.getVersion("T001");
+        int next = registry.update("T001", seen, t -> t.setStandardSeatPrice(60.0));
+        assertEquals(seen + 1, next);
+
+        assertThrows(ConcurrentModificationException.class,
+                () -> registry.update("T001", seen, t -> t.setStandardSeatPrice(55.0)));
+        assertEquals(60.0, registry.findById("T001").getStandardSeatPrice(), 0.001);
+        assertEquals(60.0, repo.saved.get(0).getStandardSeatPrice(), 0.001);
+
+        assertThrows(IllegalArgumentException.class, () -> registry.update("T999", 1, t -> { }));
+    }
+
+    /**
+     * Verifies that a seat-capacity edit notifies listeners so the seat inventory follows it,
+     * while a price edit does not.
+     */
+    @Test
+    void testCapacityChangeResyncsInventory() {
+        SeatInventory inventory = new SeatInventory();
+        inventory.track(registry.findById("T001"));
+        List<String> notified = new ArrayList<>();
+        registry.addSeatCapacityListener(inventory::resync);
+        registry.addSeatCapacityListener(t -> notified.add(t.getTrainID()));
+
+        int version = registry.update("T001", registry.getVersion("T001"), t -> t.setStandardSeatPrice(65.0));
+        assertTrue(notified.isEmpty());
+
+        registry.update("T001", version, t -> t.setStandardSeatQty(150));
+        assertEquals(List.of("T001"), notified);
+        assertEquals(150, inventory.available("T001", SeatTier.STANDARD));
+    }
+
+    /**
+     * Verifies that a foreign copy of a known train is merged into the live object and
+     * bumps its version, and that a new train is adopted.
+     */
+    @Test
+    void testSaveAllMergesCopiesAndAdoptsNewTrains() {
+        Train live = registry.findById("T001");
+        int before = registry.getVersion("T001");
+        Train copy = new Train("T001", "Ipoh", live.getDepartureDate(), live.getDepartureTime(),
+                100, 10, 50.0, 80.0, TrainStatus.ACTIVE);
+        Train added = new Train("T002", "Johor", LocalDate.of(2030, 2, 1), LocalTime.of(9, 0),
+                80, 8, 60.0, 90.0, TrainStatus.ACTIVE);
+
+        registry.saveAll(List.of(copy, added));
+
+        assertSame(live, registry.findById("T001"));
+        assertEquals("Ipoh", live.getDestination());
+        assertEquals(before + 1, registry.getVersion("T001"));
+        assertSame(added, registry.findById("T002"));
+        assertEquals(2, repo.saved.size());
+    }
+
+    /**
+     * Verifies that a failed store write leaves the live trains as stored.
+     * Expected: the error reaches the caller, the merged copy is undone, the new train is
+     * dropped, and versions are unchanged.
+     */
+    @Test
+    void testFailedSaveRollsBackLiveTrains() {
+        Train live = registry.findById("T001");
+        int before = registry.getVersion("T001");
+        Train copy = new Train("T001", "Ipoh", live.getDepartureDate(), live.getDepartureTime(),
+                100, 10, 50.0, 80.0, TrainStatus.ACTIVE);
+        Train added = new Train("T002", "Johor", LocalDate.of(2030, 2, 1), LocalTime.of(9, 0),
+                80, 8, 60.0, 90.0, TrainStatus.ACTIVE);
+
+        repo.failing = true;
+        assertThrows(UncheckedIOException.class, () -> registry.saveAll(List.of(copy, added)));
+        assertThrows(UncheckedIOException.class, () -> registry.update("T001", before, t -> t.setStandardSeatQty(90)));
+
+        assertSame(live, registry.findById("T001"));
+        assertEquals("Penang", live.getDestination());
+        assertEquals(100, live.getStandardSeatQty());
+        assertEquals(before, registry.getVersion("T001"));
+        assertNull(registry.findById("T002"));
+        assertEquals(1, registry.loadAll().size());
+    }
+
+    /**
+     * Verifies optimistic concurrency between two terminals sharing one store: the stale
+     * terminal's write is rejected, it picks up the committed state, and its retry succeeds.
+     */
+    @Test
+    void testConflictAcrossTerminalsIsRejectedAndRetried() {
+        TrainRegistry other = new TrainRegistry(repo);
+        int seenHere = registry.getVersion("T001");
+        int seenThere = other.getVersion("T001");
+
+        other.update("T001", seenThere, t -> t.setStandardSeatQty(t.getStandardSeatQty() - 5));
+
+        assertThrows(ConcurrentModificationException.class,
+                () -> registry.update("T001", seenHere, t -> t.setStandardSeatQty(t.getStandardSeatQty() - 3)));
+        assertEquals(95, registry.findById("T001").getStandardSeatQty(), "Rejected write sees the committed state");
+
+        registry.update("T001", registry.getVersion("T001"), t -> t.setStandardSeatQty(t.getStandardSeatQty() - 3));
+        assertEquals(92, repo.saved.get(0).getStandardSeatQty());
+        assertEquals(seenHere + 2, repo.saved.get(0).getVersion());
+
+        Train staleCopy = other.findById("T001");
+        staleCopy.setPremiumSeatPrice(99.0);
+        assertThrows(ConcurrentModificationException.class, () -> other.saveAll(List.of(staleCopy)));
+        assertEquals(80.0, staleCopy.getPremiumSeatPrice(), 0.001, "Rejected save is undone");
+        assertEquals(92, staleCopy.getStandardSeatQty());
+    }
+
+    /**
+     * Verifies that the train service's indexes follow trains added or changed through the
+     * registry by someone else (e.g. another service or a terminal's change taken over).
+     */
+    @Test
+    void testTrainServiceIndexesFollowRegistry() {
+        TrainService trainService = new TrainService(registry, new TrainValidator());
+        assertTrue(trainService.isDuplicateDestination("penang"));
+
+        TrainService otherService = new TrainService(registry, new TrainValidator());
+        otherService.addTrain(new Train("T002", "Ipoh", LocalDate.of(2030, 1, 2), LocalTime.of(9, 0),
+                100, 10, 40.0, 70.0, TrainStatus.ACTIVE));
+        registry.update("T001", registry.getVersion("T001"), t -> t.setStatus(TrainStatus.DISCONTINUED));
+
+        assertTrue(trainService.findById("t002").isPresent());
+        assertTrue(trainService.isDuplicateDestination("Ipoh"));
+        assertFalse(trainService.isDuplicateDestination("Penang"));
+        assertEquals(List.of("T002"), trainService.getNextDepartures(LocalDate.of(2030, 1, 1).atStartOfDay(), 5)
+                .stream().map(Train::getTrainID).toList());
+    }
+
+    /**
+     * Verifies that the train service indexes the registry once and then re-indexes only the
+     * train whose status, destination or departure changed; seat commits leave the indexes alone.
+     */
+    @Test
+    void testTrainServiceReindexesOnlyChangedTrains() {
+        AtomicInteger loads = new AtomicInteger();
+        TrainRegistry counted = new TrainRegistry(repo) {
+            @Override
+            public List<Train> loadAll() {
+                loads.incrementAndGet();
+                return super.loadAll();
+            }
+        };
+        TrainService trainService = new TrainService(counted, new TrainValidator());
+        assertTrue(trainService.findById("T001").isPresent());
+        assertEquals(1, loads.get());
+
+        for (int i = 0; i < 20; i++) {
+            counted.update("T001", counted.getVersion("T001"), t -> t.setStandardSeatQty(t.getStandardSeatQty() - 1));
+            assertEquals(1, trainService.getNextDepartures(LocalDate.of(2030, 1, 1).atStartOfDay(), 5).size());
+        }
+        assertEquals(80, trainService.findById("T001").orElseThrow().getStandardSeatQty());
+
+        counted.update("T001", counted.getVersion("T001"), t -> {
+            t.setDestination("Ipoh");
+            t.setDepartureDate(LocalDate.of(2030, 6, 1));
+        });
+        assertTrue(trainService.getActiveDeparturesBetween(LocalDate.of(2030, 1, 1).atStartOfDay(),
+                LocalDate.of(2030, 5, 1).atStartOfDay()).isEmpty(), "The old departure is unindexed");
+        assertEquals(List.of("T001"), trainService.getNextDepartures("ipoh", LocalDate.of(2030, 1, 1).atStartOfDay(), 5)
+                .stream().map(Train::getTrainID).toList());
+        assertFalse(trainService.isDuplicateDestination("Penang"));
+
+        // Another terminal adds a train: an unknown ID is looked up in the store
+        new TrainRegistry(repo).saveAll(List.of(new Train("T002", "Johor", LocalDate.of(2030, 2, 1),
+                LocalTime.of(9, 0), 80, 8, 60.0, 90.0, TrainStatus.ACTIVE)));
+        assertTrue(trainService.isDuplicateTrainId("t002"));
+        assertTrue(trainService.isDuplicateDestination("Johor"));
+        assertEquals(1, loads.get(), "The indexes were never rebuilt");
+    }
+
+    /**
+     * Verifies that lookups are not held up while an update's callback runs (e.g. syncing an
+     * intent log), and that they see the committed state once the update returns.
+     */
+    @Test
+    void testLookupsRunDuringUpdateCallback() throws Exception {
+        Train live = registry.findById("T001");
+        AtomicInteger seenDuringCallback = new AtomicInteger(-1);
+        registry.update("T001", registry.getVersion("T001"), t -> {
+            t.setStandardSeatQty(99);
+            Thread reader = new Thread(() -> seenDuringCallback.set(registry.findById("T001").getStandardSeatQty()));
+            reader.start();
+            try {
+                reader.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertEquals(100, seenDuringCallback.get(), "A lookup during the callback sees the last committed state");
+        assertEquals(99, live.getStandardSeatQty());
+        assertEquals(1, registry.getVersion("T001"));
+    }
+
+    private static class InMemoryTrainRepository implements TrainInterface {
+        private final List<Train> store = new ArrayList<>();
+        private List<Train> saved = new ArrayList<>();
+        private boolean failing;
+
+        @Override
+        public List<Train> loadAll() {
+            List<Train> copies = new ArrayList<>();
+            for (Train t : store) {
+                copies.add(copyOf(t));
+            }
+            return copies;
+        }
+
+        @Override
+        public void saveAll(List<Train> trains) {
+            if (failing) throw new UncheckedIOException(new IOException("Disk full"));
+            saved = new ArrayList<>();
+            for (Train t : trains) {
+                saved.add(copyOf(t));
+            }
+            store.clear();
+            store.addAll(saved);
+        }
+
+        private static Train copyOf(Train t) {
+            Train copy = new Train(t.getTrainID(), t.getDestination(), t.getDepartureDate(),
+                    t.getDepartureTime(), t.getStandardSeatQty(), t.getPremiumSeatQty(),
+                    t.getStandardSeatPrice(), t.getPremiumSeatPrice(), t.getStatus());
+            copy.setVersion(t.getVersion());
+            return copy;
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package test.service;
 
+import ets.model.PassengerTier;
+import ets.model.SeatTier;
 import ets.model.Train;
 import ets.model.TrainCreationRequest;
 import ets.model.TrainInterface;
 import ets.model.TrainStatus;
+import ets.service.FareMatrix;
+import ets.service.TrainRegistry;
 import ets.service.TrainService;
 import ets.service.TrainValidator;
 import ets.util.AppConstants;
@@ -11,6 +15,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
 
@@ -150,6 +155,34 @@ class TrainServiceTest {
         assertEquals(3, repo.internalStore().size());
     }
 
+    /**
+     * Verifies that fare matrices are built on create and rebuilt on reprice,
+     * and that a quote is the unit fare times the quantity.
+     */
+    @Test
+    void testFareMatrixFollowsPrices() {
+        TrainRegistry registry = new TrainRegistry(repo);
+        service = new TrainService(registry, new TrainValidator());
+        Train t = service.findById("T100").orElseThrow();
+
+        // Gold: 50.00 x 0.75 x 1.06 = 39.75
+        FareMatrix fares = registry.getFareMatrices().get(t);
+        assertEquals(3_975, fares.getUnitFare(SeatTier.STANDARD, PassengerTier.GOLD));
+        assertEquals(12_720, fares.getUnitFare(SeatTier.PREMIUM, PassengerTier.NORMAL));
+        assertEquals(3 * 3_975, fares.quote(SeatTier.STANDARD, PassengerTier.GOLD, 3));
+        assertSame(fares, registry.getFareMatrices().get(t), "Unchanged prices reuse the matrix");
+
+        service.updateTrain(t, service.getVersion(t), train -> train.setStandardSeatPrice(60.0));
+        FareMatrix repriced = registry.getFareMatrices().get(t);
+        assertNotSame(fares, repriced);
+        assertEquals(4_770, repriced.getUnitFare(SeatTier.STANDARD, PassengerTier.GOLD));
+
+        int before = registry.getFareMatrices().size();
+        service.addTrain(new Train("T300", "Melaka", LocalDate.of(2030, 3, 3), LocalTime.of(15, 0),
+                90, 15, 55.0, 130.0, TrainStatus.ACTIVE));
+        assertEquals(before + 1, registry.getFareMatrices().size(), "A new train is priced on creation");
+    }
+
     /**
      * Verifies that discontinueTrain updates the status and triggers save().
      */
@@ -181,6 +214,60 @@ class TrainServiceTest {
         assertFalse(service.isDuplicateDestination("Unknown"));
     }
 
+    /**
+     * Verifies that the ID and destination indexes follow create, lookup and discontinue.
+     */
+    @Test
+    void testIndexesStayConsistent() {
+        assertTrue(service.findById("t100").isPresent(), "Lookup should ignore case");
+        assertTrue(service.isDuplicateDestination("PENANG"));
+
+        TrainCreationRequest req = new TrainCreationRequest();
+        req.trainId = "T300";
+        req.destination = "Ipoh";
+        req.departureDate = LocalDate.of(2030, 3, 1);
+        req.departureTime = LocalTime.of(8, 0);
+        req.standardSeatQty = 60;
+        req.premiumSeatQty = 5;
+        req.standardSeatPrice = 55.0;
+        req.premiumSeatPrice = 95.0;
+        service.createTrain(req);
+
+        assertTrue(service.isDuplicateTrainId("t300"));
+        assertTrue(service.isDuplicateDestination("ipoh"));
+
+        service.discontinueTrain(service.findById("T300").orElseThrow());
+        assertFalse(service.isDuplicateDestination("Ipoh"), "Discontinued train should leave the destination index");
+        assertTrue(service.isDuplicateTrainId("T300"), "Discontinued train keeps its ID");
+    }
+
+    /**
+     * Verifies departure range, next-N and per-destination queries, including after a discontinue.
+     */
+    @Test
+    void testDepartureQueries() {
+        Train ipohEarly = new Train("T301", "Ipoh", LocalDate.of(2030, 1, 1), LocalTime.of(8, 0),
+                50, 5, 55.0, 95.0, TrainStatus.ACTIVE);
+        Train ipohLate = new Train("T302", "Ipoh", LocalDate.of(2030, 3, 1), LocalTime.of(8, 0),
+                50, 5, 55.0, 95.0, TrainStatus.ACTIVE);
+        service.addTrain(ipohLate);
+        service.addTrain(ipohEarly);
+
+        List<Train> january = service.getActiveDeparturesBetween(
+                LocalDateTime.of(2030, 1, 1, 0, 0), LocalDateTime.of(2030, 1, 31, 23, 59));
+        assertEquals(List.of("T301", "T100"), january.stream().map(Train::getTrainID).toList(),
+                "Only active trains, in departure order");
+
+        assertEquals("T301", service.getNextDepartures(LocalDateTime.of(2029, 1, 1, 0, 0), 1).get(0).getTrainID());
+        assertEquals(List.of("T301", "T302"), service.getNextDepartures("IPOH", LocalDateTime.of(2029, 1, 1, 0, 0), 5)
+                .stream().map(Train::getTrainID).toList());
+
+        service.discontinueTrain(ipohEarly);
+        assertEquals(1, service.getActiveDeparturesBetween("ipoh",
+                LocalDateTime.of(2029, 1, 1, 0, 0), LocalDateTime.of(2031, 1, 1, 0, 0)).size());
+        assertTrue(service.getNextDepartures("Johor", LocalDateTime.of(2029, 1, 1, 0, 0), 5).isEmpty());
+    }
+
     /**
      * Verifies that parseDate and parseTime use the shared formatters correctly.
      */
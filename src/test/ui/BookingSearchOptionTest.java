@@ -0,0 +1,32 @@
+package test.ui;
+
+import ets.ui.BookingSearchOption;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BookingSearchOption Enum.
+ */
+class BookingSearchOptionTest {
+
+    /**
+     * Verifies that valid numbers map to the matching search field.
+     */
+    @Test
+    void fromId_validIds_returnEnum() {
+        assertEquals(BookingSearchOption.BY_BOOKING_ID, BookingSearchOption.fromId(1));
+        assertEquals(BookingSearchOption.BY_TRAIN_ID, BookingSearchOption.fromId(2));
+        assertEquals(BookingSearchOption.BY_STAFF_ID, BookingSearchOption.fromId(3));
+        assertEquals(BookingSearchOption.BY_PASSENGER_NAME, BookingSearchOption.fromId(4));
+    }
+
+    /**
+     * Verifies that numbers outside the list return null.
+     */
+    @Test
+    void fromId_invalidIds_returnNull() {
+        assertNull(BookingSearchOption.fromId(0));
+        assertNull(BookingSearchOption.fromId(5));
+    }
+}
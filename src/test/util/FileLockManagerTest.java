@@ -0,0 +1,92 @@
+package test.util;
+
+import ets.util.FileLockManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the cross-process file lock manager.
+ */
+class FileLockManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Verifies that a write may nest reads and writes (read-modify-write) without
+     * tripping over the JVM-wide file lock, and that the sidecar lock file is used.
+     */
+    @Test
+    void testNestedReadInsideWrite() {
+        String path = tempDir.resolve("data.txt").toString();
+        FileLockManager lock = FileLockManager.forPath(path);
+        assertSame(lock, FileLockManager.forPath(tempDir.resolve("./data.txt").toString()));
+
+        String result = lock.write(() -> lock.read(() -> lock.write(() -> "nested")));
+
+        assertEquals("nested", result);
+        assertTrue(Files.exists(tempDir.resolve("data.txt.lock")));
+        assertEquals(3, lock.getAcquisitions());
+    }
+
+    /**
+     * Verifies that readers run together while a writer excludes everyone,
+     * and that the writer's wait is recorded.
+     */
+    @Test
+    void testReadersShareWritersExclude() throws InterruptedException {
+        FileLockManager lock = FileLockManager.forPath(tempDir.resolve("shared.txt").toString());
+        CountDownLatch bothReading = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Thread t = new Thread(() -> lock.read(() -> {
+                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                bothReading.countDown();
+                await(release);
+                inside.decrementAndGet();
+                return null;
+            }));
+            readers.add(t);
+            t.start();
+        }
+        assertTrue(bothReading.await(5, TimeUnit.SECONDS), "Readers should hold the lock together");
+
+        AtomicInteger seenByWriter = new AtomicInteger(-1);
+        Thread writer = new Thread(() -> lock.write(() -> seenByWriter.set(inside.get())));
+        writer.start();
+        Thread.sleep(50);
+        release.countDown();
+        writer.join(5000);
+        for (Thread t : readers) {
+            t.join(5000);
+        }
+
+        assertEquals(2, maxInside.get());
+        assertEquals(0, seenByWriter.get(), "Writer must wait until all readers are done");
+        assertTrue(lock.getMaxWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(40));
+        assertEquals(3, lock.getAcquisitions());
+        assertTrue(FileLockManager.describeAll().stream().anyMatch(l -> l.startsWith("shared.txt:")));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package test.util;
+
+import ets.util.GroupCommitWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the shared group-commit write path.
+ */
+class GroupCommitWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Verifies that a commit replaces the file content and leaves no temp file behind.
+     */
+    @Test
+    void testCommitReplacesFileAtomically() throws IOException {
+        Path file = tempDir.resolve("data.txt");
+        Files.write(file, List.of("old"));
+
+        GroupCommitWriter writer = GroupCommitWriter.forPath(file.toString());
+        writer.commit(List.of("A|1", "B|2"));
+
+        assertEquals(List.of("A|1", "B|2"), Files.readAllLines(file));
+        assertFalse(Files.exists(tempDir.resolve("data.txt.tmp")));
+        assertEquals(1, writer.getFlushCount());
+        assertTrue(writer.getLastFlushNanos() > 0);
+    }
+
+    /**
+     * Verifies that concurrent saves are coalesced and the newest content wins.
+     */
+    @Test
+    void testConcurrentCommitsAreCoalesced() throws Exception {
+        Path file = tempDir.resolve("burst.txt");
+        GroupCommitWriter writer = GroupCommitWriter.forPath(file.toString());
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final int n = i;
+            threads.add(new Thread(() -> {
+                try {
+                    writer.commit(List.of("T|" + n));
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread t : threads) t.join();
+
+        assertEquals(8, writer.getCommitRequests());
+        assertTrue(writer.getFlushCount() <= 8);
+        assertEquals(1, Files.readAllLines(file).size());
+    }
+
+    /**
+     * Verifies that a directory target is rejected instead of being replaced.
+     */
+    @Test
+    void testDirectoryTargetIsRejected() throws IOException {
+        Path dir = Files.createDirectory(tempDir.resolve("dir"));
+        GroupCommitWriter writer = GroupCommitWriter.forPath(dir.toString());
+
+        assertThrows(IOException.class, () -> writer.commit(List.of("x")));
+        assertTrue(Files.isDirectory(dir));
+    }
+}
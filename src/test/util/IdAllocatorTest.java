@@ -0,0 +1,70 @@
+package test.util;
+
+import ets.util.IdAllocator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the block ID allocator.
+ */
+class IdAllocatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Verifies formatting beyond 999 and numeric parsing of IDs.
+     */
+    @Test
+    void testFormatAndParse() {
+        IdAllocator allocator = new IdAllocator("B", null, 10, () -> 998);
+        assertEquals("B999", allocator.nextId());
+        assertEquals("B1000", allocator.nextId());
+
+        assertEquals(12, IdAllocator.numberOf("B012", "B"));
+        assertEquals(0, IdAllocator.numberOf("P012", "B"));
+        assertEquals(0, IdAllocator.numberOf("BX1", "B"));
+    }
+
+    /**
+     * Verifies that a restart resumes after the last reserved block and that
+     * two allocators sharing a sequence file never collide.
+     */
+    @Test
+    void testPersistedBlocksDoNotCollide() {
+        String file = tempDir.resolve("seq.txt").toString();
+        IdAllocator first = new IdAllocator("P", file, 5, () -> 0);
+        assertEquals("P001", first.nextId());
+
+        IdAllocator second = new IdAllocator("P", file, 5, () -> 0);
+        assertEquals("P006", second.nextId(), "Second allocator should start after the first block");
+
+        IdAllocator other = new IdAllocator("B", file, 5, () -> 0);
+        assertEquals("B001", other.nextId(), "Prefixes keep separate sequences");
+    }
+
+    /**
+     * Verifies that concurrent callers receive distinct IDs.
+     */
+    @Test
+    void testConcurrentCallersGetUniqueIds() throws InterruptedException {
+        IdAllocator allocator = new IdAllocator("B", null, 7, () -> 0);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 250; j++) ids.add(allocator.nextId());
+            });
+            threads[i].start();
+        }
+        for (Thread t : threads) t.join();
+
+        assertEquals(1000, ids.size());
+    }
+}
@@ -0,0 +1,63 @@
+package test.util;
+
+import ets.util.IntentLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the intent log.
+ */
+class IntentLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Verifies that completed intents are dropped once the log passes its size limit.
+     */
+    @Test
+    void testCompactsCompletedIntents() throws IOException {
+        Path file = tempDir.resolve("intent.log");
+        IntentLog log = new IntentLog(file.toString(), 200);
+
+        for (int i = 0; i < 10; i++) {
+            int n = i;
+            log.inTransaction(() -> {
+                log.complete(log.begin("CREATE|B" + n));
+                return null;
+            });
+        }
+
+        assertTrue(Files.size(file) < 200, "Log should have been compacted");
+        assertTrue(log.pending().isEmpty());
+    }
+
+    /**
+     * Verifies that compaction keeps the intents of crashed transactions for recovery.
+     */
+    @Test
+    void testCompactionKeepsPendingIntents() {
+        Path file = tempDir.resolve("intent.log");
+        IntentLog log = new IntentLog(file.toString(), 0);
+
+        String crashed = log.begin("CANCEL|B001");
+        log.inTransaction(() -> {
+            log.complete(log.begin("CREATE|B002"));
+            return null;
+        });
+
+        List<IntentLog.Intent> pending = log.pending();
+        assertEquals(1, pending.size());
+        assertEquals(crashed, pending.get(0).id());
+        assertEquals("CANCEL|B001", pending.get(0).payload());
+        assertEquals(1, log.recover(intents -> { }));
+        assertTrue(log.pending().isEmpty());
+    }
+}
@@ -0,0 +1,59 @@
+package test.util;
+
+import ets.util.Money;
+import ets.util.PipeRecordReader;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the fixed-point money helpers.
+ */
+class MoneyTest {
+
+    /**
+     * Verifies formatting and parsing round-trip without String.format, including
+     * single-digit sen, negatives and extra decimals.
+     */
+    @Test
+    void testFormatAndParse() {
+        assertEquals("1234.50", Money.format(123_450));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("-0.05", Money.format(-5));
+        assertEquals("80.00", Money.format(8_000));
+
+        assertEquals(8_050, Money.parse("80.5"));
+        assertEquals(12_000, Money.parse("120"));
+        assertEquals(-5, Money.parse("-0.05"));
+        assertEquals(1_001, Money.parse("10.005"), "Third decimal rounds half-up");
+        assertThrows(NumberFormatException.class, () -> Money.parse("12.3x"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("."));
+
+        PipeRecordReader record = new PipeRecordReader().reset("B001|265.00|7.5");
+        record.skip();
+        assertEquals(26_500, record.nextCents());
+        assertEquals(750, record.nextCents());
+    }
+
+    /**
+     * Verifies that rates are applied with one half-up rounding and that sums stay exact
+     * where doubles drift.
+     */
+    @Test
+    void testRatesAndExactSums() {
+        // 33.33 x 3 x 0.85 x 1.06 = 90.09099 -> 90.09
+        assertEquals(9_009, Money.times(3_333, 3, 8_500, 10_600));
+        // 0.05 x 0.5 = 0.025 -> 0.03
+        assertEquals(3, Money.applyRate(5, 5_000));
+        assertEquals(-3, Money.applyRate(-5, 5_000));
+
+        long sen = 0;
+        double ringgit = 0.0;
+        for (int i = 0; i < 10_000; i++) {
+            sen += Money.ofRinggit(0.10);
+            ringgit += 0.10;
+        }
+        assertEquals(100_000, sen);
+        assertNotEquals(1000.0, ringgit, "Double sums drift; the sen sum does not");
+    }
+}
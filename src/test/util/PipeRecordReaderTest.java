@@ -0,0 +1,65 @@
+package test.util;
+
+import ets.util.PipeRecordReader;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the in-place pipe-delimited record reader.
+ */
+class PipeRecordReaderTest {
+
+    private final PipeRecordReader record = new PipeRecordReader();
+
+    /**
+     * Verifies decoding of every field type in a train record.
+     */
+    @Test
+    void testDecodesTrainRecord() {
+        record.reset("T001|Penang|2030-01-31|09:05|100|-3|50.00|80.5|TRUE");
+
+        assertEquals(9, record.fieldCount());
+        assertEquals("T001", record.nextString());
+        record.skip();
+        assertEquals(LocalDate.of(2030, 1, 31), record.nextDate());
+        assertEquals(LocalTime.of(9, 5), record.nextTime());
+        assertEquals(100, record.nextInt());
+        assertEquals(-3, record.nextInt());
+        assertEquals(50.0, record.nextFixed());
+        assertEquals(80.5, record.nextFixed());
+        assertTrue(record.nextBoolean());
+        assertFalse(record.hasNext());
+    }
+
+    /**
+     * Verifies that fixed-point decoding matches Double.parseDouble, including the fallback path.
+     */
+    @Test
+    void testFixedMatchesParseDouble() {
+        String[] samples = {"0.1", "999.99", "-0.05", "123", "1234567.891", "0.1234567", "1e3", ".5", "-.25"};
+        for (String s : samples) {
+            assertEquals(Double.parseDouble(s), record.reset(s).nextFixed(), s);
+        }
+    }
+
+    /**
+     * Verifies split-compatible handling of trailing delimiters and errors on bad or missing fields.
+     */
+    @Test
+    void testMalformedRecords() {
+        record.reset("B001|Alice|");
+        assertEquals(2, record.fieldCount());
+        record.skip();
+        record.skip();
+        assertFalse(record.hasNext());
+        assertThrows(IllegalArgumentException.class, record::nextString);
+
+        assertThrows(NumberFormatException.class, () -> record.reset("12a").nextInt());
+        assertThrows(IllegalArgumentException.class, () -> record.reset("2030/01/01").nextDate());
+        assertThrows(RuntimeException.class, () -> record.reset("2030-02-30").nextDate());
+    }
+}
@@ -0,0 +1,73 @@
+package test.util;
+
+import ets.util.PipeRecordReader;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Throughput benchmark for train record parsing: regex split + JDK parsers versus PipeRecordReader.
+ * Not a unit test; run manually, e.g. {@code java test.util.RecordParserBenchmark 200000}.
+ */
+public class RecordParserBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = String.format("T%03d|Destination %d|2030-%02d-%02d|%02d:%02d|%d|%d|%d.%02d|%d.50|%b",
+                    i, i % 50, i % 12 + 1, i % 28 + 1, i % 24, i % 60, 100 + i % 900, i % 100,
+                    50 + i % 900, i % 100, 60 + i % 900, i % 3 != 0);
+        }
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            long checksum = parseWithSplit(lines);
+            long splitNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long checksum2 = parseWithReader(lines);
+            long readerNanos = System.nanoTime() - start;
+
+            if (checksum != checksum2) {
+                throw new IllegalStateException("Parsers disagree: " + checksum + " vs " + checksum2);
+            }
+            System.out.printf("Round %d: split %.0f rec/ms, reader %.0f rec/ms (%.1fx)%n", round,
+                    count / (splitNanos / 1e6), count / (readerNanos / 1e6), (double) splitNanos / readerNanos);
+        }
+    }
+
+    private static long parseWithSplit(String[] lines) {
+        long checksum = 0;
+        for (String line : lines) {
+            String[] f = line.split("\\|");
+            checksum += f[0].length() + f[1].length();
+            checksum += LocalDate.parse(f[2], DATE_FORMATTER).toEpochDay();
+            checksum += LocalTime.parse(f[3], TIME_FORMATTER).toSecondOfDay();
+            checksum += Integer.parseInt(f[4]) + Integer.parseInt(f[5]);
+            checksum += (long) (Double.parseDouble(f[6]) * 100) + (long) (Double.parseDouble(f[7]) * 100);
+            checksum += Boolean.parseBoolean(f[8]) ? 1 : 0;
+        }
+        return checksum;
+    }
+
+    private static long parseWithReader(String[] lines) {
+        PipeRecordReader record = new PipeRecordReader();
+        long checksum = 0;
+        for (String line : lines) {
+            record.reset(line);
+            checksum += record.nextString().length() + record.nextString().length();
+            checksum += record.nextDate().toEpochDay();
+            checksum += record.nextTime().toSecondOfDay();
+            checksum += record.nextInt() + record.nextInt();
+            checksum += (long) (record.nextFixed() * 100) + (long) (record.nextFixed() * 100);
+            checksum += record.nextBoolean() ? 1 : 0;
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,79 @@
+package test.util;
+
+import ets.util.SeatBits;
+import ets.util.SeatNumbers;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the bitset seat map and the seat number format.
+ */
+class SeatBitsTest {
+
+    /**
+     * Verifies contiguous allocation, including blocks that cross a 64-seat word,
+     * and the fallback to scattered seats when no block is long enough.
+     */
+    @Test
+    void testAllocatesContiguousSeatsWherePossible() {
+        long[] bits = new long[SeatBits.words(130)];
+        assertArrayEquals(new int[]{1, 2, 3}, SeatBits.allocate(bits, 130, 3));
+        assertTrue(SeatBits.claim(bits, new int[]{5, 60}));
+        // Seats 6..59 are free; a block of 60 must start after seat 60
+        int[] block = SeatBits.allocate(bits, 130, 60);
+        assertEquals(61, block[0]);
+        assertEquals(120, block[59]);
+        assertArrayEquals(new int[]{6, 7, 8}, SeatBits.allocate(bits, 130, 3), "Seat 4 alone is too short a block");
+        assertEquals(3 + 2 + 60 + 3, SeatBits.count(bits));
+
+        assertEquals(3, SeatBits.release(bits, new int[]{2, 62, 64}));
+        assertArrayEquals(new int[]{9, 10, 11, 12}, SeatBits.allocate(bits, 130, 4));
+        assertNull(SeatBits.allocate(bits, 130, 130 - SeatBits.count(bits) + 1));
+        assertEquals(120, SeatBits.highest(bits));
+    }
+
+    /**
+     * Verifies that scattered seats are used once no block is long enough, and that
+     * claims reject taken, duplicate or out-of-range seats without changing anything.
+     */
+    @Test
+    void testScatteredFallbackAndClaims() {
+        long[] bits = new long[SeatBits.words(6)];
+        assertTrue(SeatBits.claim(bits, new int[]{2, 4}));
+        assertFalse(SeatBits.claim(bits, new int[]{1, 2}), "Seat 2 is taken");
+        assertFalse(SeatBits.claim(bits, new int[]{1, 1}), "Duplicate seat");
+        assertFalse(SeatBits.claim(bits, new int[]{1, 65}), "Seat 65 is past the array");
+        assertFalse(SeatBits.isTaken(bits, 1));
+        assertArrayEquals(new int[]{5, 6}, SeatBits.allocate(bits, 6, 2));
+        assertArrayEquals(new int[]{1, 3}, SeatBits.allocate(bits, 6, 2));
+        assertNull(SeatBits.allocate(bits, 6, 1));
+    }
+
+    /**
+     * Verifies the conversions to and from seat numbers, and that maps of different
+     * lengths holding the same seats compare equal.
+     */
+    @Test
+    void testSeatNumberConversions() {
+        long[] bits = SeatBits.of(new int[]{999, 1, 64, 65});
+        assertEquals(SeatBits.words(999), bits.length);
+        assertArrayEquals(new int[]{1, 64, 65, 999}, SeatBits.toSeats(bits));
+        assertTrue(SeatBits.same(SeatBits.of(new int[]{3}), new long[]{1L << 2, 0, 0}));
+        assertFalse(SeatBits.same(SeatBits.of(new int[]{3}), SeatBits.of(new int[]{3, 70})));
+        assertFalse(SeatBits.same(new long[0], null));
+        assertEquals(0, SeatBits.highest(new long[2]));
+    }
+
+    /**
+     * Verifies the compact seat number format.
+     */
+    @Test
+    void testSeatNumberFormat() {
+        assertEquals("12-14,20", SeatNumbers.format(new int[]{20, 13, 12, 14}));
+        assertEquals("", SeatNumbers.format(null));
+        assertArrayEquals(new int[]{12, 13, 14, 20}, SeatNumbers.parse("12-14,20"));
+        assertArrayEquals(new int[0], SeatNumbers.parse(""));
+        assertThrows(NumberFormatException.class, () -> SeatNumbers.parse("5-3"));
+    }
+}